@@ -0,0 +1,37 @@
+package com.obsidiandynamics.transram;
+
+/**
+ * A forward-only cursor over the items matched by {@link TransContext#scan}. The cursor is
+ * positioned before the first item; each call to {@link #next()} advances it to the next
+ * item, reading that item's value in the process. A caller that stops advancing the cursor
+ * reads no further items.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public interface Cursor<K, V> {
+  /**
+   * Advances the cursor to the next item, if one exists.
+   *
+   * @return {@code true} if the cursor was positioned on an item, or {@code false} if the
+   *         scan is exhausted.
+   * @throws ConcurrentModeFailure If the transaction could not proceed.
+   */
+  boolean next() throws ConcurrentModeFailure;
+
+  /**
+   * Obtains the key of the current item.
+   *
+   * @return The key.
+   * @throws java.util.NoSuchElementException If the cursor is not positioned on an item.
+   */
+  K key();
+
+  /**
+   * Obtains the value of the current item.
+   *
+   * @return The value, as it would be returned by {@link TransContext#read}.
+   * @throws java.util.NoSuchElementException If the cursor is not positioned on an item.
+   */
+  V value();
+}
@@ -1,5 +1,7 @@
 package com.obsidiandynamics.transram;
 
+import com.obsidiandynamics.transram.mutex.*;
+
 import java.util.*;
 
 public interface Debug<K, V extends DeepCloneable<V>> {
@@ -7,5 +9,19 @@ public interface Debug<K, V extends DeepCloneable<V>> {
 
   int numRefs();
 
+  /**
+   * Obtains the stripe count and contention histogram of the map's mutexes.
+   *
+   * @return The {@link StripeStats}, or empty if the map does not use striped mutexes.
+   */
+  Optional<StripeStats> stripeStats();
+
+  /**
+   * Obtains the number of keys presently in the map that hash to each mutex stripe.
+   *
+   * @return The {@link StripeDistribution}, or empty if the map does not use striped mutexes.
+   */
+  Optional<StripeDistribution> stripeDistribution();
+
   long getVersion();
 }
@@ -0,0 +1,103 @@
+package com.obsidiandynamics.transram;
+
+import java.util.*;
+
+/**
+ * Receives the write set of each committed transaction, e.g., to make it durable. A journal is
+ * attached to a map via its options, and is shared by all transactions on that map.<p>
+ *
+ * The write set is handed over while the committing transaction still holds its write mutexes,
+ * so that conflicting transactions are journaled in the order of their commit versions; the
+ * journal must therefore not block for long in {@link #append}. A transaction that requires
+ * its entry to be durable waits on the returned {@link Receipt} only after releasing its
+ * mutexes.<p>
+ *
+ * Every committed transaction is appended, including those that wrote nothing, so that a
+ * journal attached to a new map sees each commit version exactly once, starting from 1, save
+ * for the versions that the map skips by {@link #advance advancing}.
+ * Transactions that don't conflict may, however, be appended out of version order.
+ */
+public interface Journal {
+  /** A handle on a journaled entry. */
+  @FunctionalInterface
+  interface Receipt {
+    Receipt NONE = () -> {};
+
+    /**
+     * Blocks until the entry has been made as durable as the journal promises.
+     *
+     * @throws InterruptedException If the thread was interrupted.
+     */
+    void await() throws InterruptedException;
+  }
+
+  /**
+   * Appends the write set of a committed transaction.
+   *
+   * @param version The commit version.
+   * @param changes The new values of the written items, by key, where a {@code null} value
+   *                denotes a deletion. Empty if the transaction wrote nothing.
+   * @return A {@link Receipt} for awaiting the entry.
+   */
+  Receipt append(long version, Map<Object, DeepCloneable<?>> changes);
+
+  /**
+   * Invoked when the map advances its version without committing, e.g., having been restored
+   * from a checkpoint. No entry will be appended at or below the given version, other than those
+   * already underway. Does nothing by default.
+   *
+   * @param version The version that the map has advanced to.
+   */
+  default void advance(long version) {}
+
+  /**
+   * Combines several journals into one, which appends to (and advances) each in the given order.
+   * The combined receipt awaits the receipts of all journals.<p>
+   *
+   * A journal that fails to append doesn't deprive the others of the entry, as each may depend
+   * on seeing every version. Having appended to the rest, the combined journal rethrows the
+   * first failure, with any subsequent ones suppressed.
+   *
+   * @param journals The journals to combine.
+   * @return The combined journal.
+   */
+  static Journal compose(Journal... journals) {
+    final var copy = journals.clone();
+    return new Journal() {
+      @Override
+      public Receipt append(long version, Map<Object, DeepCloneable<?>> changes) {
+        final var receipts = new Receipt[copy.length];
+        Throwable failure = null;
+        for (var i = 0; i < copy.length; i++) {
+          try {
+            receipts[i] = copy[i].append(version, changes);
+          } catch (RuntimeException | Error e) {
+            receipts[i] = Receipt.NONE;
+            if (failure == null) {
+              failure = e;
+            } else {
+              failure.addSuppressed(e);
+            }
+          }
+        }
+        if (failure instanceof RuntimeException e) {
+          throw e;
+        } else if (failure != null) {
+          throw (Error) failure;
+        }
+        return () -> {
+          for (var receipt : receipts) {
+            receipt.await();
+          }
+        };
+      }
+
+      @Override
+      public void advance(long version) {
+        for (var journal : copy) {
+          journal.advance(version);
+        }
+      }
+    };
+  }
+}
@@ -2,9 +2,22 @@ package com.obsidiandynamics.transram;
 
 import com.obsidiandynamics.transram.util.*;
 
+import java.util.function.*;
+
 interface Key {
   static <K> KeyRef<K> wrap(K key) {
     Assert.that(key != null, NullKeyAssertionError::new, () -> "Key cannot be null");
     return new KeyRef<>(key);
   }
+
+  /**
+   * Adapts a hasher of user keys to one that accepts wrapped keys. Internal keys are hashed
+   * using their own hash code.
+   *
+   * @param keyHasher The user key hasher.
+   * @return The adapted hasher.
+   */
+  static ToIntFunction<Object> unwrappingHasher(ToIntFunction<Object> keyHasher) {
+    return key -> key instanceof KeyRef<?> keyRef ? keyHasher.applyAsInt(keyRef.unwrap()) : key.hashCode();
+  }
 }
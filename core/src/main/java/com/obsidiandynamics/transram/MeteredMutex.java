@@ -0,0 +1,70 @@
+package com.obsidiandynamics.transram;
+
+import com.obsidiandynamics.transram.mutex.*;
+
+import java.util.function.*;
+
+/**
+ * Reports the time taken by each acquisition of the decorated mutex to {@link Metrics}.
+ * Releases and downgrades, which never wait, are passed through as is.
+ */
+final class MeteredMutex implements UpgradeableMutex {
+  private final UpgradeableMutex delegate;
+
+  private final Metrics metrics;
+
+  MeteredMutex(UpgradeableMutex delegate, Metrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public boolean tryReadAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    final var startTime = System.nanoTime();
+    final var acquired = delegate.tryReadAcquire(owner, timeoutMs);
+    metrics.onMutexWait(System.nanoTime() - startTime, acquired);
+    return acquired;
+  }
+
+  @Override
+  public void readRelease(Object owner) {
+    delegate.readRelease(owner);
+  }
+
+  @Override
+  public boolean tryWriteAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    final var startTime = System.nanoTime();
+    final var acquired = delegate.tryWriteAcquire(owner, timeoutMs);
+    metrics.onMutexWait(System.nanoTime() - startTime, acquired);
+    return acquired;
+  }
+
+  @Override
+  public void writeRelease(Object owner) {
+    delegate.writeRelease(owner);
+  }
+
+  @Override
+  public boolean tryUpgrade(Object owner, long timeoutMs) throws InterruptedException {
+    final var startTime = System.nanoTime();
+    final var acquired = delegate.tryUpgrade(owner, timeoutMs);
+    metrics.onMutexWait(System.nanoTime() - startTime, acquired);
+    return acquired;
+  }
+
+  @Override
+  public void downgrade(Object owner) {
+    delegate.downgrade(owner);
+  }
+
+  /**
+   * Decorates the mutexes produced by the given factory, unless metrics are disabled.
+   *
+   * @param factory The mutex factory.
+   * @param metrics The metrics.
+   * @return The decorated factory, or the original if {@code metrics} is {@link Metrics#NONE}.
+   */
+  static Supplier<UpgradeableMutex> decorate(Supplier<UpgradeableMutex> factory, Metrics metrics) {
+    return metrics == Metrics.NONE ? factory : () -> new MeteredMutex(factory.get(), metrics);
+  }
+}
@@ -0,0 +1,59 @@
+package com.obsidiandynamics.transram;
+
+/**
+ * Receives measurements from the transactions on a map, the mutexes they acquire and the
+ * {@link Transact} loops that drive them. Metrics are attached to a map via its options, and
+ * are shared by all transactions on that map; implementations must therefore be thread-safe and
+ * should not block. Every method does nothing by default.<p>
+ *
+ * A map whose metrics are {@link #NONE} takes no measurements at all, so that the default
+ * configuration pays nothing for instrumentation.
+ */
+public interface Metrics {
+  /** Discards all measurements. */
+  Metrics NONE = new Metrics() {};
+
+  /**
+   * Invoked when a transaction commits.
+   *
+   * @param latencyNanos The time from opening the transaction to completing its commit.
+   */
+  default void onCommit(long latencyNanos) {}
+
+  /**
+   * Invoked when a transaction is rolled back, whether by the application or by {@link Transact}.
+   * A transaction that rolls itself back upon failing is only reported via {@link #onAbort}.
+   */
+  default void onRollback() {}
+
+  /**
+   * Invoked when an operation on a transaction, or its commit, fails due to concurrent
+   * activity.
+   *
+   * @param failure The failure, whose type identifies the cause.
+   */
+  default void onAbort(ConcurrentModeFailure failure) {}
+
+  /**
+   * Invoked by {@link Transact} before reattempting a transaction that failed.
+   *
+   * @param failure The failure of the preceding attempt.
+   */
+  default void onRetry(ConcurrentModeFailure failure) {}
+
+  /**
+   * Invoked upon each attempt to acquire an item mutex.
+   *
+   * @param waitNanos The time taken by the attempt.
+   * @param acquired Whether the mutex was acquired, as opposed to timing out.
+   */
+  default void onMutexWait(long waitNanos, boolean acquired) {}
+
+  /**
+   * Invoked when a committed value is added to an item's version chain, in engines that retain
+   * prior versions.
+   *
+   * @param length The number of versions in the chain, including the added one.
+   */
+  default void onChainLength(int length) {}
+}
@@ -0,0 +1,4 @@
+package com.obsidiandynamics.transram;
+
+public final class ReadOnlyTransactionException extends IllegalStateException {
+}
@@ -0,0 +1,136 @@
+package com.obsidiandynamics.transram;
+
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Tracks the read versions of active transactions, so that the values they may yet read are
+ * retained. Registrations are spread across a number of independently locked stripes, chosen by
+ * the registering thread, so that concurrent transactions seldom contend; finding the lowest
+ * registered version visits every stripe.
+ */
+final class ReaderRegistry {
+  private static final class Stripe {
+    final Lock lock = new ReentrantLock();
+
+    /** Number of registered readers, by version. Guarded by {@link #lock}. */
+    final TreeMap<Long, int[]> readers = new TreeMap<>();
+  }
+
+  private final Stripe[] stripes;
+
+  private final int mask;
+
+  ReaderRegistry(int minStripes) {
+    var numStripes = 1;
+    while (numStripes < minStripes) {
+      numStripes <<= 1;
+    }
+    stripes = new Stripe[numStripes];
+    for (var i = 0; i < numStripes; i++) {
+      stripes[i] = new Stripe();
+    }
+    mask = numStripes - 1;
+  }
+
+  /**
+   * Obtains the stripe in which the current thread registers its readers.
+   *
+   * @return The stripe index, to be passed to {@link #register} and {@link #deregister}.
+   */
+  int stripe() {
+    return (int) Thread.currentThread().getId() & mask;
+  }
+
+  /**
+   * Registers a reader at the given version.
+   *
+   * @param stripeIndex The stripe index.
+   * @param version The read version.
+   */
+  void register(int stripeIndex, long version) {
+    final var stripe = stripes[stripeIndex];
+    stripe.lock.lock();
+    try {
+      stripe.readers.computeIfAbsent(version, __ -> new int[1])[0]++;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Registers a reader at the current value of the given version, which is read while the
+   * stripe is locked. A caller of {@link #lowest} that reads the same version beforehand is
+   * thereby assured that any reader it doesn't see is registered at or above that version.
+   *
+   * @param stripeIndex The stripe index.
+   * @param version The source of the read version.
+   * @return The registered version.
+   */
+  long registerCurrent(int stripeIndex, PaddedAtomicLong version) {
+    final var stripe = stripes[stripeIndex];
+    stripe.lock.lock();
+    try {
+      final var current = version.get();
+      stripe.readers.computeIfAbsent(current, __ -> new int[1])[0]++;
+      return current;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  void deregister(int stripeIndex, long version) {
+    final var stripe = stripes[stripeIndex];
+    stripe.lock.lock();
+    try {
+      final var count = stripe.readers.get(version);
+      if (--count[0] == 0) {
+        stripe.readers.remove(version);
+      }
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Obtains the lowest registered version.
+   *
+   * @return The lowest version, or {@link Long#MAX_VALUE} if there are no registered readers.
+   */
+  long lowest() {
+    var lowest = Long.MAX_VALUE;
+    for (var stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        if (!stripe.readers.isEmpty()) {
+          lowest = Math.min(lowest, stripe.readers.firstKey());
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return lowest;
+  }
+
+  /**
+   * Counts the registered readers.
+   *
+   * @return The number of readers.
+   */
+  int count() {
+    var count = 0;
+    for (var stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        for (var readers : stripe.readers.values()) {
+          count += readers[0];
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,94 @@
+package com.obsidiandynamics.transram;
+
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * A {@link Cursor} that walks the upstream keys first, followed by the keys staged in the
+ * transaction that were not encountered upstream. Each key that satisfies the predicate is read
+ * through the owning context, so that the values (and the dependencies taken in reading them)
+ * are exactly as they would be for a {@link TransContext#read} of the same key.
+ */
+final class ScanCursor<K, V> implements Cursor<K, V> {
+  @FunctionalInterface
+  interface Reader<K, V> {
+    V read(K key) throws ConcurrentModeFailure;
+  }
+
+  private final Predicate<K> predicate;
+
+  private final Supplier<Collection<Key>> stagedKeys;
+
+  private final Reader<K, V> reader;
+
+  /** Keys that have been tested while walking upstream, to be skipped among the staged keys. */
+  private final Set<Key> visited = new HashSet<>();
+
+  private Iterator<Key> keys;
+
+  private boolean staged;
+
+  private K key;
+
+  private V value;
+
+  ScanCursor(Predicate<K> predicate, Iterator<Key> upstreamKeys, Supplier<Collection<Key>> stagedKeys, Reader<K, V> reader) {
+    this.predicate = predicate;
+    this.keys = upstreamKeys;
+    this.stagedKeys = stagedKeys;
+    this.reader = reader;
+  }
+
+  @Override
+  public boolean next() throws ConcurrentModeFailure {
+    while (true) {
+      if (!keys.hasNext()) {
+        if (staged) {
+          key = null;
+          value = null;
+          return false;
+        }
+        // the staged keys are copied, as the caller may write to the context between advances
+        keys = stagedKeys.get().iterator();
+        staged = true;
+        continue;
+      }
+
+      final var candidate = keys.next();
+      if (candidate instanceof KeyRef && !(staged && visited.contains(candidate))) {
+        final var unwrapped = Unsafe.<K>cast(((KeyRef<?>) candidate).unwrap());
+        if (predicate.test(unwrapped)) {
+          if (!staged) {
+            visited.add(candidate);
+          }
+          final var read = reader.read(unwrapped);
+          if (read != null) {
+            key = unwrapped;
+            value = read;
+            return true;
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public K key() {
+    ensurePositioned();
+    return key;
+  }
+
+  @Override
+  public V value() {
+    ensurePositioned();
+    return value;
+  }
+
+  private void ensurePositioned() {
+    if (value == null) {
+      throw new NoSuchElementException("Cursor is not positioned on an item");
+    }
+  }
+}
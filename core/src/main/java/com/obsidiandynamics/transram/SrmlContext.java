@@ -1,34 +1,43 @@
 package com.obsidiandynamics.transram;
 
 import com.obsidiandynamics.transram.LifecycleFailure.*;
+import com.obsidiandynamics.transram.jfr.*;
 import com.obsidiandynamics.transram.mutex.*;
-import com.obsidiandynamics.transram.mutex.StripedMutexes.*;
 import com.obsidiandynamics.transram.util.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 import java.util.function.*;
 
 import static com.obsidiandynamics.transram.util.Assert.*;
 
 public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransContext<K, V> {
+  private static final String ENGINE = SrmlMap.class.getSimpleName();
+
   private final SrmlMap<K, V> map;
 
   private final Map<Key, Tracker> local = new HashMap<>();
 
   private enum StateChange {
-    INSERTED, UNCHANGED, DELETED
+    INSERTED, UNCHANGED, DELETED,
+
+    /** Blindly put or removed, without establishing whether the item existed beforehand. */
+    UPSERTED, REMOVED
   }
 
   private static final class Tracker {
     DeepCloneable<?> value;
 
-    final boolean read;
+    boolean read;
 
     boolean written;
 
     StateChange change;
 
+    /** Operators awaiting the latest committed value, or {@code null} if there are none. */
+    List<UnaryOperator<DeepCloneable<?>>> merges;
+
     Tracker(DeepCloneable<?> value, boolean read, boolean written, StateChange change) {
       this.value = value;
       this.read = read;
@@ -39,13 +48,51 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
 
   private final long readVersion;
 
+  /** Whether this is a read-only transaction at a historical version. */
+  private final boolean historical;
+
+  /** The registration of the read version, or {@link SrmlMap#NOT_PINNED}. */
+  private int pin;
+
+  private final int priority;
+
+  private boolean blindWritesPending;
+
+  /** Mutexes reserved on behalf of this transaction's reads; each accounts for one pin. */
+  private final List<MutexRef<Mutex>> reservedMutexes = new ArrayList<>();
+
   private long writeVersion = -1;
 
   private final AtomicReference<State> state = new AtomicReference<>(State.OPEN);
 
-  SrmlContext(SrmlMap<K, V> map) {
+  private final Metrics metrics;
+
+  /** The time at which the transaction was opened, if measuring; {@code 0} otherwise. */
+  private final long openTime;
+
+  /** The most recent failure, or {@code null} if the transaction hasn't failed. */
+  private ConcurrentModeFailure failure;
+
+  SrmlContext(SrmlMap<K, V> map, int priority) {
+    this.map = map;
+    this.priority = priority;
+    pin = map.readerStripe();
+    readVersion = map.pinSafeReadVersion(pin);
+    historical = false;
+    metrics = map.metrics();
+    openTime = metrics != Metrics.NONE ? System.nanoTime() : 0;
+    emitBegin();
+  }
+
+  SrmlContext(SrmlMap<K, V> map, long readVersion) {
     this.map = map;
-    readVersion = map.safeReadVersion().get();
+    this.readVersion = readVersion;
+    priority = 0;
+    historical = true;
+    pin = map.pin(readVersion);
+    metrics = map.metrics();
+    openTime = metrics != Metrics.NONE ? System.nanoTime() : 0;
+    emitBegin();
   }
 
   @Override
@@ -57,57 +104,97 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
     ensureOpen();
     final var existing = local.get(key);
     if (existing != null) {
+      if (existing.merges != null) {
+        resolveMerges(key, existing);
+      }
       // don't enrol as a read if it already appears as a write
       return Unsafe.cast(existing.value);
     }
 
+    final var clonedValue = readSnapshot(key);
+    local.put(key, new Tracker(clonedValue, true, false, StateChange.UNCHANGED));
+    return clonedValue;
+  }
+
+  /**
+   * Restores the value of the given {@code key} as at the read version, enrolling the key as a
+   * read dependency.
+   *
+   * @param key The key.
+   * @return A clone of the restored value, or {@code null} if the item did not exist.
+   * @throws BrokenSnapshotFailure If the value at the read version is no longer retained.
+   */
+  private DeepCloneable<?> readSnapshot(Key key) throws BrokenSnapshotFailure {
+    reserve(key);
     final var storedValues = map.getStore().get(key);
     if (storedValues == null) {
-      local.put(key, new Tracker(null, true, false, StateChange.UNCHANGED));
+      ensureNotCompacted();
       return null;
     } else {
       for (var storedValue : storedValues) {
         if (storedValue.getVersion() <= readVersion) {
-          final var clonedValue = DeepCloneable.clone(Unsafe.cast(storedValue.getValue()));
-          local.put(key, new Tracker(clonedValue, true, false, StateChange.UNCHANGED));
-          return clonedValue;
+          return DeepCloneable.clone(Unsafe.cast(storedValue.getValue()));
         }
       }
 
-      throw new BrokenSnapshotFailure("Unable to restore value for key " + key + " at version " + readVersion + ", current at " + storedValues.getFirst().getVersion());
+      if (createdSinceReadVersion(storedValues)) {
+        return null;
+      }
+      throw abort(new BrokenSnapshotFailure("Unable to restore value for key " + key + " at version " + readVersion + ", current at " + storedValues.getFirst().getVersion()));
+    }
+  }
+
+  /**
+   * Applies the pending merges of a key to its snapshot value, for when the transaction
+   * needs to observe the merged value before committing. The key thereby becomes a read
+   * dependency.
+   */
+  private void resolveMerges(Key key, Tracker tracker) throws BrokenSnapshotFailure {
+    final var snapshotValue = readSnapshot(key);
+    if (snapshotValue == null) {
+      throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT, "Cannot merge into a nonexistent item for key " + key);
     }
+    tracker.value = applyMerges(tracker.merges, snapshotValue);
+    tracker.read = true;
+    tracker.merges = null;
+  }
+
+  private static DeepCloneable<?> applyMerges(List<UnaryOperator<DeepCloneable<?>>> merges, DeepCloneable<?> value) {
+    for (var merge : merges) {
+      value = merge.apply(value);
+      that(isNotNull(value), NullValueAssertionError::new, () -> "Merge operator returned null");
+    }
+    return value;
   }
 
   @Override
   public Set<K> keys(Predicate<K> predicate) throws BrokenSnapshotFailure {
     ensureOpen();
-    final var keys = new HashSet<K>();
-
-    // start by checking upstream keys
-    entryLoop: for (var entry : map.getStore().entrySet()) {
-      final var key = entry.getKey();
-      if (key instanceof KeyRef) {
+    ensureNotCompacted();
+    final var store = map.getStore();
+    final var parallel = store.mappingCount() >= map.getParallelScanThreshold();
+    final Set<K> keys = parallel ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    final var failure = new AtomicReference<BrokenSnapshotFailure>();
+
+    // start by checking upstream keys; the local state is not mutated during the traversal, so
+    // it may be consulted from multiple threads
+    store.forEach(parallel ? 1 : Long.MAX_VALUE, (key, storedValues) -> {
+      if (key instanceof KeyRef && failure.get() == null) {
         final var unwrapped = Unsafe.<K>cast(((KeyRef<?>) key).unwrap());
         if (predicate.test(unwrapped)) {
-          final var tracker = local.get(key);
-          if (tracker != null) {
-            if (tracker.value != null) {
+          try {
+            if (existsAtReadVersion(key, storedValues)) {
               keys.add(unwrapped);
             }
-          } else {
-            final var storedValues = entry.getValue();
-            for (var storedValue : storedValues) {
-              if (storedValue.getVersion() <= readVersion) {
-                if (storedValue.hasValue()) {
-                  keys.add(unwrapped);
-                }
-                continue entryLoop;
-              }
-            }
-            throw new BrokenSnapshotFailure("Unable to restore value for key " + key + " at version " + readVersion + ", current at " + storedValues.getFirst().getVersion());
+          } catch (BrokenSnapshotFailure e) {
+            failure.compareAndSet(null, e);
           }
         }
       }
+    });
+
+    if (failure.get() != null) {
+      throw abort(failure.get());
     }
 
     // a size() check at any point creates a dependency upon the size object, trapping insertion antidependencies
@@ -126,11 +213,74 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
     return keys;
   }
 
+  /**
+   * Determines whether the item under the given upstream key is present as far as this
+   * transaction is concerned, accounting for local changes.
+   */
+  private boolean existsAtReadVersion(Key key, Deque<RawVersioned> storedValues) throws BrokenSnapshotFailure {
+    final var tracker = local.get(key);
+    if (tracker != null) {
+      return tracker.value != null || tracker.merges != null;
+    } else {
+      for (var storedValue : storedValues) {
+        if (storedValue.getVersion() <= readVersion) {
+          return storedValue.hasValue();
+        }
+      }
+      if (createdSinceReadVersion(storedValues)) {
+        return false;
+      }
+      throw new BrokenSnapshotFailure("Unable to restore value for key " + key + " at version " + readVersion + ", current at " + storedValues.getFirst().getVersion());
+    }
+  }
+
+  /**
+   * Determines whether a version chain with no value at the read version belongs to an item
+   * that was created since. A historical transaction draws this conclusion from the chain being
+   * shorter than the queue depth, and hence never trimmed, or from no chain having been trimmed of
+   * a value it may need; retained versions may lengthen a chain beyond the queue depth without
+   * any trimming. A pinned one does so as long as no value it needed was forcibly
+   * discarded; should the conclusion be wrong, the read dependency fails validation at commit.
+   * Others treat the missing value as a broken snapshot.
+   */
+  private boolean createdSinceReadVersion(Deque<RawVersioned> storedValues) {
+    if (historical) {
+      return storedValues.size() < map.getQueueDepth() || map.isUntrimmedAt(readVersion);
+    } else {
+      return pin != SrmlMap.NOT_PINNED && map.isIntact(readVersion);
+    }
+  }
+
+  /**
+   * Ensures that a historical transaction doesn't predate the compaction of deleted items,
+   * which would otherwise appear never to have existed.
+   */
+  private void ensureNotCompacted() throws BrokenSnapshotFailure {
+    if (historical && map.isCompactedAt(readVersion)) {
+      throw abort(new BrokenSnapshotFailure("Deleted items have been compacted beyond version " + readVersion));
+    }
+  }
+
+  @Override
+  public Cursor<K, V> scan(Predicate<K> predicate) throws BrokenSnapshotFailure {
+    ensureOpen();
+    ensureNotCompacted();
+    // a size() check creates a dependency upon the size object, trapping insertion antidependencies
+    size();
+    return new ScanCursor<>(predicate, map.getStore().keySet().iterator(), () -> new ArrayList<>(local.keySet()), this::read);
+  }
+
   @Override
   public void insert(K key, V value) throws BrokenSnapshotFailure {
     that(value != null, NullValueAssertionError::new, () -> "Cannot insert null value");
-    write(Key.wrap(key), value, StateChange.INSERTED);
-    alterSize(1);
+    insert(Key.wrap(key), value);
+  }
+
+  private void insert(Key key, DeepCloneable<?> value) throws BrokenSnapshotFailure {
+    write(key, value, StateChange.INSERTED);
+    if (!isBlind(key)) {
+      alterSize(1);
+    }
   }
 
   @Override
@@ -141,41 +291,187 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
 
   @Override
   public void delete(K key) throws BrokenSnapshotFailure {
-    write(Key.wrap(key), null, StateChange.DELETED);
-    alterSize(-1);
+    delete(Key.wrap(key));
+  }
+
+  private void delete(Key key) throws BrokenSnapshotFailure {
+    write(key, null, StateChange.DELETED);
+    if (!isBlind(key)) {
+      alterSize(-1);
+    }
+  }
+
+  @Override
+  public void put(K key, V value) throws BrokenSnapshotFailure {
+    that(isNotNull(value), NullValueAssertionError::new, () -> "Cannot put null value");
+    final var wrappedKey = Key.wrap(key);
+    ensureOpen();
+    final var existing = local.get(wrappedKey);
+    if (existing == null) {
+      writeBlind(wrappedKey, value, StateChange.UPSERTED);
+    } else if (existing.value != null || existing.merges != null) {
+      write(wrappedKey, value, StateChange.UNCHANGED);
+    } else {
+      insert(wrappedKey, value);
+    }
+  }
+
+  @Override
+  public void remove(K key) throws BrokenSnapshotFailure {
+    final var wrappedKey = Key.wrap(key);
+    ensureOpen();
+    final var existing = local.get(wrappedKey);
+    if (existing == null) {
+      writeBlind(wrappedKey, null, StateChange.REMOVED);
+    } else if (existing.value != null || existing.merges != null) {
+      delete(wrappedKey);
+    }
+  }
+
+  /**
+   * Records a write of an item whose existence has not been established, deferring the
+   * resulting change in size until commit. The size object is enrolled as a write, with its
+   * value yet to be determined unless it has already been read.
+   */
+  private void writeBlind(Key key, DeepCloneable<?> value, StateChange change) {
+    ensureWritable();
+    local.put(key, new Tracker(value, false, true, change));
+    blindWritesPending = true;
+    final var sizeTracker = local.get(InternalKey.SIZE);
+    if (sizeTracker == null) {
+      final var pending = new Tracker(null, false, true, StateChange.UNCHANGED);
+      pending.merges = new ArrayList<>();
+      local.put(InternalKey.SIZE, pending);
+    } else if (!sizeTracker.written) {
+      write(InternalKey.SIZE, sizeTracker.value, StateChange.UNCHANGED);
+    }
+  }
+
+  private boolean isBlind(Key key) {
+    final var change = local.get(key).change;
+    return change == StateChange.UPSERTED || change == StateChange.REMOVED;
+  }
+
+  /**
+   * Settles a blind write once the upstream existence of its item is known, converting it to
+   * the equivalent regular write.
+   *
+   * @return The resulting change in size.
+   */
+  private static int settle(Tracker tracker, boolean existsUpstream) {
+    if (tracker.change == StateChange.UPSERTED) {
+      tracker.change = existsUpstream ? StateChange.UNCHANGED : StateChange.INSERTED;
+      return existsUpstream ? 0 : 1;
+    } else {
+      // removing an item that doesn't exist leaves nothing to write
+      tracker.change = existsUpstream ? StateChange.DELETED : StateChange.UNCHANGED;
+      tracker.written = existsUpstream;
+      return existsUpstream ? -1 : 0;
+    }
+  }
+
+
+  @Override
+  public void insertAll(Map<? extends K, ? extends V> items) throws BrokenSnapshotFailure {
+    for (var value : items.values()) {
+      that(isNotNull(value), NullValueAssertionError::new, () -> "Cannot insert null value");
+    }
+    var sizeChange = 0;
+    try {
+      for (var entry : items.entrySet()) {
+        final var wrappedKey = Key.wrap(entry.getKey());
+        write(wrappedKey, entry.getValue(), StateChange.INSERTED);
+        if (!isBlind(wrappedKey)) {
+          sizeChange++;
+        }
+      }
+    } finally {
+      // account for the items written so far, even if a subsequent write was refused
+      if (sizeChange != 0) {
+        alterSize(sizeChange);
+      }
+    }
+  }
+
+  @Override
+  public void deleteAll(Collection<? extends K> keys) throws BrokenSnapshotFailure {
+    var sizeChange = 0;
+    try {
+      for (var key : keys) {
+        final var wrappedKey = Key.wrap(key);
+        write(wrappedKey, null, StateChange.DELETED);
+        if (!isBlind(wrappedKey)) {
+          sizeChange--;
+        }
+      }
+    } finally {
+      if (sizeChange != 0) {
+        alterSize(sizeChange);
+      }
+    }
+  }
+
+  @Override
+  public void merge(K key, UnaryOperator<V> operator) throws BrokenSnapshotFailure {
+    that(isNotNull(operator), () -> "Merge operator cannot be null");
+    final var wrappedKey = Key.wrap(key);
+    final UnaryOperator<DeepCloneable<?>> merge = Unsafe.cast(operator);
+    ensureOpen();
+    ensureWritable();
+    final var existing = local.get(wrappedKey);
+    if (existing == null) {
+      // defer to commit time, without taking a read dependency
+      final var tracker = new Tracker(null, false, true, StateChange.UNCHANGED);
+      tracker.merges = new ArrayList<>();
+      tracker.merges.add(merge);
+      local.put(wrappedKey, tracker);
+    } else if (existing.merges != null) {
+      existing.merges.add(merge);
+    } else {
+      if (existing.value == null) {
+        throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT, "Cannot merge into a nonexistent item for key " + wrappedKey);
+      }
+      write(wrappedKey, applyMerges(List.of(merge), existing.value), StateChange.UNCHANGED);
+    }
   }
 
   private void write(Key key, DeepCloneable<?> value, StateChange change) {
     ensureOpen();
+    ensureWritable();
     local.compute(key, (__, existing) -> {
       if (existing != null) {
+        // a pending merge implies that the item exists
+        final var exists = existing.value != null || existing.merges != null;
         switch (change) {
           case INSERTED -> {
-            if (existing.value != null) {
+            if (exists) {
               throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.INSERT_EXISTING, "Cannot insert an existing item for key " + key);
             }
             switch (existing.change) {
               case UNCHANGED -> existing.change = StateChange.INSERTED;
               case DELETED -> existing.change = StateChange.UNCHANGED;
+              case REMOVED -> existing.change = StateChange.UPSERTED;
             }
           }
           case UNCHANGED -> {
-            if (existing.value == null) {
+            if (!exists) {
               throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT, "Cannot update a nonexistent item for key " + key);
             }
           }
           case DELETED -> {
-            if (existing.value == null) {
+            if (!exists) {
               throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.DELETE_NONEXISTENT, "Cannot delete a nonexistent item for key " + key);
             }
             switch (existing.change) {
               case INSERTED -> existing.change = StateChange.UNCHANGED;
               case UNCHANGED -> existing.change = StateChange.DELETED;
+              case UPSERTED -> existing.change = StateChange.REMOVED;
             }
           }
         }
         existing.value = value;
         existing.written = true;
+        existing.merges = null;
         return existing;
       } else {
         return new Tracker(value, false, true, change);
@@ -194,17 +490,109 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
     write(InternalKey.SIZE, size, StateChange.UNCHANGED);
   }
 
+  /**
+   * Establishes the existence of blindly written items, so that the size of the map may be
+   * observed within the transaction. The items thereby become read dependencies.
+   */
+  private void resolveBlindWrites() throws BrokenSnapshotFailure {
+    var sizeChange = 0;
+    for (var entry : local.entrySet()) {
+      final var tracker = entry.getValue();
+      if (tracker.change == StateChange.UPSERTED || tracker.change == StateChange.REMOVED) {
+        final var existsUpstream = readSnapshot(entry.getKey()) != null;
+        tracker.read = true;
+        sizeChange += settle(tracker, existsUpstream);
+      }
+    }
+    blindWritesPending = false;
+    if (sizeChange != 0) {
+      alterSize(sizeChange);
+    }
+  }
+
+  /**
+   * Settles the outstanding blind writes at commit, once their mutexes are held, and folds the
+   * resulting change in size into the size object.
+   */
+  private void settleBlindWrites() {
+    var sizeChange = 0;
+    for (var entry : local.entrySet()) {
+      final var tracker = entry.getValue();
+      if (tracker.change == StateChange.UPSERTED || tracker.change == StateChange.REMOVED) {
+        final var existingValues = map.getStore().get(entry.getKey());
+        final var existsUpstream = existingValues != null && existingValues.getFirst().hasValue();
+        sizeChange += settle(tracker, existsUpstream);
+      }
+    }
+
+    if (sizeChange != 0) {
+      final var change = sizeChange;
+      final UnaryOperator<DeepCloneable<?>> resize = value -> {
+        final var size = (Size) value;
+        size.set(size.get() + change);
+        return size;
+      };
+      final var sizeTracker = local.get(InternalKey.SIZE);
+      if (sizeTracker.merges != null) {
+        sizeTracker.merges.add(resize);
+      } else {
+        sizeTracker.value = resize.apply(sizeTracker.value);
+      }
+    }
+  }
+
   @Override
   public int size() throws BrokenSnapshotFailure {
+    ensureOpen();
+    if (blindWritesPending) {
+      resolveBlindWrites();
+    }
     final var size = (Size) read(InternalKey.SIZE);
     that(isNotNull(size), Assert.withMessage("No size object"));
     return size.get();
   }
 
+  /**
+   * Reserves the mutex of a key read by a prioritised transaction, thereby asking the commits of
+   * lower-priority transactions that would overwrite the key to yield, rather than breach the
+   * read dependency.
+   *
+   * @param key The key.
+   */
+  private void reserve(Key key) {
+    if (priority != 0) {
+      final var mutex = getMutex(key);
+      mutex.reserve(priority);
+      reservedMutexes.add(mutex);
+    }
+  }
+
+  private void releaseReservations() {
+    final var mutexes = map.getMutexes();
+    for (var mutex : reservedMutexes) {
+      mutex.unreserve(priority);
+      mutexes.release(mutex);
+    }
+    reservedMutexes.clear();
+  }
+
   @Override
   public void rollback() {
     ensureOpen();
+    releaseReservations();
+    unpin();
     state.set(State.ROLLED_BACK);
+    metrics.onRollback();
+    emitRollback();
+  }
+
+  /**
+   * Releases the registration of the read version, allowing the values retained for it to be
+   * discarded.
+   */
+  private void unpin() {
+    map.unpin(pin, readVersion);
+    pin = SrmlMap.NOT_PINNED;
   }
 
   private void ensureOpen() {
@@ -213,6 +601,12 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
     }
   }
 
+  private void ensureWritable() {
+    if (historical) {
+      throw new ReadOnlyTransactionException();
+    }
+  }
+
   private static class LockModeAndState {
     final LockMode mode;
     boolean locked;
@@ -229,15 +623,39 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
   @Override
   public void commit() throws MutexAcquisitionFailure, AntidependencyFailure, LifecycleFailure {
     ensureOpen();
+    final var commitEvent = new TransactionCommitEvent();
+    commitEvent.begin();
+    if (historical) {
+      // a read-only view of a past version can't be invalidated
+      writeVersion = readVersion;
+      unpin();
+      state.set(State.COMMITTED);
+      recordCommit(commitEvent);
+      return;
+    }
 
     final var combinedMutexes = new TreeMap<MutexRef<Mutex>, LockModeAndState>();
     for (var entry : local.entrySet()) {
       final var tracker = entry.getValue();
       final var mutex = getMutex(entry.getKey());
-      if (tracker.written) {
-        combinedMutexes.put(mutex, new LockModeAndState(LockMode.WRITE));
+      final var mode = tracker.written ? LockMode.WRITE : LockMode.READ;
+      final var existing = combinedMutexes.get(mutex);
+      if (existing == null) {
+        combinedMutexes.put(mutex, new LockModeAndState(mode));
       } else {
-        combinedMutexes.put(mutex, new LockModeAndState(LockMode.READ));
+        // keys sharing a mutex are locked once, in the strongest of their modes; only one pin is kept
+        map.getMutexes().release(mutex);
+        if (mode == LockMode.WRITE && existing.mode == LockMode.READ) {
+          combinedMutexes.put(mutex, new LockModeAndState(mode));
+        }
+      }
+    }
+
+    // writers yield to a higher-priority transaction that has read from any of the mutexes
+    for (var mutexEntry : combinedMutexes.entrySet()) {
+      if (mutexEntry.getValue().mode == LockMode.WRITE && mutexEntry.getKey().reservedPriority() > priority) {
+        rollbackFromCommitAttempt(combinedMutexes);
+        throw abort(new MutexAcquisitionFailure("Yielded write lock to a higher-priority transaction", null));
       }
     }
 
@@ -247,24 +665,34 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
       switch (lockModeAndState.mode) {
         case READ -> {
           try {
-            mutex.mutex().tryReadAcquire(Long.MAX_VALUE);
+            final var waitEvent = new MutexWaitEvent();
+            waitEvent.begin();
+            mutex.mutex().tryReadAcquire(this, Long.MAX_VALUE);
+            emitMutexWait(waitEvent, mutex, "READ");
           } catch (InterruptedException e) {
             rollbackFromCommitAttempt(combinedMutexes);
-            throw new MutexAcquisitionFailure("Interrupted while acquiring read lock", e);
+            throw abort(new MutexAcquisitionFailure("Interrupted while acquiring read lock", e));
           }
         }
         case WRITE -> {
           try {
-            mutex.mutex().tryWriteAcquire(Long.MAX_VALUE);
+            final var waitEvent = new MutexWaitEvent();
+            waitEvent.begin();
+            mutex.mutex().tryWriteAcquire(this, Long.MAX_VALUE);
+            emitMutexWait(waitEvent, mutex, "WRITE");
           } catch (InterruptedException e) {
             rollbackFromCommitAttempt(combinedMutexes);
-            throw new MutexAcquisitionFailure("Interrupted while acquiring write lock", e);
+            throw abort(new MutexAcquisitionFailure("Interrupted while acquiring write lock", e));
           }
         }
       }
       lockModeAndState.locked = true;
     }
 
+    if (blindWritesPending) {
+      settleBlindWrites();
+    }
+
     for (var entry : local.entrySet()) {
       final var key = entry.getKey();
       final var tracker = entry.getValue();
@@ -279,43 +707,60 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
 
         if (storedValueVersion > readVersion) {
           rollbackFromCommitAttempt(combinedMutexes);
-          throw new AntidependencyFailure("Read dependency breached for key " + key + "; expected version " + readVersion + ", saw " + storedValueVersion);
+          throw abort(new AntidependencyFailure("Read dependency breached for key " + key + "; expected version " + readVersion + ", saw " + storedValueVersion));
         }
       }
 
       if (tracker.written) {
         final var existingValues = map.getStore().get(key);
+        if (tracker.merges != null) {
+          if (existingValues == null || !existingValues.getFirst().hasValue()) {
+            rollbackFromCommitAttempt(combinedMutexes);
+            throw abort(new LifecycleFailure(Reason.UPDATE_NONEXISTENT, "Attempting to merge into a nonexistent item for key " + key));
+          }
+          try {
+            tracker.value = applyMerges(tracker.merges, DeepCloneable.clone(Unsafe.cast(existingValues.getFirst().getValue())));
+          } catch (RuntimeException | AssertionError e) {
+            rollbackFromCommitAttempt(combinedMutexes);
+            throw e;
+          }
+        }
+
         switch (entry.getValue().change) {
           case INSERTED -> {
             if (existingValues != null && existingValues.getFirst().hasValue()) {
               rollbackFromCommitAttempt(combinedMutexes);
-              throw new LifecycleFailure(Reason.INSERT_EXISTING, "Attempting to insert an existing item for key " + key);
+              throw abort(new LifecycleFailure(Reason.INSERT_EXISTING, "Attempting to insert an existing item for key " + key));
             }
           }
           case UNCHANGED -> {
             final var existsUpstream = existingValues != null && existingValues.getFirst().hasValue();
             if (entry.getValue().value != null && !existsUpstream) {
               rollbackFromCommitAttempt(combinedMutexes);
-              throw new LifecycleFailure(Reason.UPDATE_NONEXISTENT, "Attempting to update a nonexistent item for key " + key);
+              throw abort(new LifecycleFailure(Reason.UPDATE_NONEXISTENT, "Attempting to update a nonexistent item for key " + key));
             }
             if (entry.getValue().value == null && existsUpstream) {
               rollbackFromCommitAttempt(combinedMutexes);
-              throw new LifecycleFailure(Reason.INSERT_DELETE_EXISTING, "Attempting to insert-delete an existing item for key " + key);
+              throw abort(new LifecycleFailure(Reason.INSERT_DELETE_EXISTING, "Attempting to insert-delete an existing item for key " + key));
             }
           }
           case DELETED -> {
             if (existingValues == null || !existingValues.getFirst().hasValue()) {
               rollbackFromCommitAttempt(combinedMutexes);
-              throw new LifecycleFailure(Reason.DELETE_NONEXISTENT, "Attempting to delete a nonexistent item for key " + key);
+              throw abort(new LifecycleFailure(Reason.DELETE_NONEXISTENT, "Attempting to delete a nonexistent item for key " + key));
             }
           }
         }
       }
     }
 
-    synchronized (map.getContextLock()) {
+    final var contextLock = map.getContextLock();
+    contextLock.lock();
+    try {
       writeVersion = map.incrementAndGetVersion();
       map.getQueuedContexts().addLast(this);
+    } finally {
+      contextLock.unlock();
     }
 
     for (var entry : local.entrySet()) {
@@ -327,33 +772,159 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
             return SrmlMap.wrapInDeque(replacementValue);
           } else {
             previousValues.addFirst(replacementValue);
+            if (metrics != Metrics.NONE) {
+              metrics.onChainLength(previousValues.size());
+            }
             return previousValues;
           }
         });
       }
     }
 
-    releaseMutexes(combinedMutexes);
-    state.set(State.COMMITTED);
-    drainQueuedContexts();
+    var receipt = Journal.Receipt.NONE;
+    try {
+      receipt = journal(writeVersion);
+    } finally {
+      releaseMutexes(combinedMutexes);
+      releaseReservations();
+      unpin();
+      state.set(State.COMMITTED);
+      drainQueuedContexts();
+    }
+    awaitJournal(receipt);
+    recordCommit(commitEvent);
+  }
+
+  private void emitBegin() {
+    final var event = new TransactionBeginEvent();
+    if (event.isEnabled()) {
+      event.engine = ENGINE;
+      event.priority = priority;
+      event.readVersion = readVersion;
+      event.commit();
+    }
+  }
+
+  private void recordCommit(TransactionCommitEvent event) {
+    if (metrics != Metrics.NONE) {
+      metrics.onCommit(System.nanoTime() - openTime);
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.engine = ENGINE;
+      event.priority = priority;
+      event.version = writeVersion;
+      event.items = local.size();
+      event.commit();
+    }
+  }
+
+  private void emitRollback() {
+    final var event = new TransactionRollbackEvent();
+    if (event.isEnabled()) {
+      event.engine = ENGINE;
+      event.priority = priority;
+      event.reason = failure != null ? failure.getClass().getSimpleName() : "Requested";
+      event.message = failure != null ? failure.getMessage() : null;
+      event.commit();
+    }
+  }
+
+  /**
+   * Reports a failure to the metrics and to the event recorder, prior to it being thrown. A
+   * failure that leaves the transaction open is recorded as the reason for its eventual rollback.
+   */
+  private <F extends ConcurrentModeFailure> F abort(F failure) {
+    metrics.onAbort(failure);
+    this.failure = failure;
+    if (state.get() == State.ROLLED_BACK) {
+      emitRollback();
+    }
+    return failure;
+  }
+
+  /**
+   * Hands the write set over to the journal, if one is attached.
+   */
+  private Journal.Receipt journal(long version) {
+    final var journal = map.getJournal();
+    if (journal == null) {
+      return Journal.Receipt.NONE;
+    }
+
+    final var changes = new HashMap<Object, DeepCloneable<?>>();
+    for (var entry : local.entrySet()) {
+      if (entry.getValue().written && entry.getKey() instanceof KeyRef<?> keyRef) {
+        changes.put(keyRef.unwrap(), entry.getValue().value);
+      }
+    }
+    return journal.append(version, changes);
+  }
+
+  /**
+   * Awaits the journaled entry of a committed transaction. An interrupt cuts the wait short
+   * without undoing the commit, leaving the interrupt status set.
+   */
+  private static void awaitJournal(Journal.Receipt receipt) {
+    try {
+      receipt.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void emitMutexWait(MutexWaitEvent event, MutexRef<Mutex> mutex, String mode) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.engine = ENGINE;
+      event.stripe = mutex.ordinal();
+      event.mode = mode;
+      event.priority = priority;
+      event.acquired = true;
+      event.commit();
+    }
   }
 
   private void drainQueuedContexts() {
+    final var event = new QueueDrainEvent();
+    event.begin();
+    var drained = 0;
     final var queuedContexts = map.getQueuedContexts();
     long highestVersionPurged = 0;
     final var queueDepth = map.getQueueDepth();
+    final var maxRetainedVersions = map.getMaxRetainedVersions();
+    var horizon = -1L;
     while (true) {
       final var oldest = queuedContexts.peekFirst();
       if (oldest != null) {
         final var oldestState = oldest.getState();
         if (oldestState == State.COMMITTED) {
           if (queuedContexts.remove(oldest)) {
+            drained++;
             highestVersionPurged = oldest.writeVersion;
             for (var entry : oldest.local.entrySet()) {
               if (entry.getValue().written) {
+                if (entry.getValue().value == null && entry.getKey() instanceof KeyRef) {
+                  map.addTombstone(entry.getKey(), oldest.writeVersion);
+                }
                 final var values = map.getStore().get(entry.getKey());
+                if (values == null) {
+                  // already compacted, having been deleted
+                  continue;
+                }
+                if (values.size() > queueDepth && horizon == -1) {
+                  horizon = map.retentionHorizon();
+                }
                 while (values.size() > queueDepth) {
-                  values.removeLast();
+                  final var successorVersion = SrmlMap.successorOfOldest(values);
+                  if (successorVersion <= horizon) {
+                    map.discardOldest(values, successorVersion);
+                  } else if (values.size() > maxRetainedVersions) {
+                    map.noteForcedDiscard(successorVersion);
+                    map.discardOldest(values, successorVersion);
+                  } else {
+                    break;
+                  }
                 }
               }
             }
@@ -367,29 +938,45 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
     }
 
     if (highestVersionPurged != 0) {
-      Cas.compareAndSetConditionally(map.safeReadVersion(), highestVersionPurged, Cas.lowerThan(highestVersionPurged));
+      map.advanceSafeReadVersion(highestVersionPurged);
+      map.compactTombstones();
+    }
+
+    event.end();
+    if (drained != 0 && event.shouldCommit()) {
+      event.drained = drained;
+      event.highestVersion = highestVersionPurged;
+      event.commit();
     }
   }
 
   private void releaseMutexes(SortedMap<MutexRef<Mutex>, LockModeAndState> combinedMutexes) {
+    final var mutexes = map.getMutexes();
     for (var mutexEntry : combinedMutexes.entrySet()) {
       final var mutex = mutexEntry.getKey();
       final var lockModeAndState = mutexEntry.getValue();
       if (lockModeAndState.locked) {
         switch (lockModeAndState.mode) {
-          case READ -> mutex.mutex().readRelease();
-          case WRITE -> mutex.mutex().writeRelease();
+          case READ -> mutex.mutex().readRelease(this);
+          case WRITE -> mutex.mutex().writeRelease(this);
         }
       }
+      mutexes.release(mutex);
     }
   }
 
   private void rollbackFromCommitAttempt(SortedMap<MutexRef<Mutex>, LockModeAndState> combinedMutexes) {
     releaseMutexes(combinedMutexes);
+    releaseReservations();
+    unpin();
     state.set(State.ROLLED_BACK);
     drainQueuedContexts();
   }
 
+  public int getPriority() {
+    return priority;
+  }
+
   @Override
   public State getState() {
     return state.get();
@@ -404,20 +991,19 @@ public final class SrmlContext<K, V extends DeepCloneable<V>> implements TransCo
   }
 
   /**
-   * Obtains a mutex reference for the given {@code key} such that, for mutexes of width <i>N</i>,
-   * regular keys map to stripes 0..(<i>N</i> – 2), while internal keys map to stripe
-   * <i>N</i> – 1.
+   * Obtains a mutex reference for the given {@code key}. For striped mutexes of width <i>N</i>,
+   * regular keys map to stripes 0..(<i>N</i> – 1), while internal keys map to the reserved
+   * stripe <i>N</i>, which is ordered last. Per-key mutexes need no such partitioning.
    *
    * @param key The key.
    * @return The {@link MutexRef}.
    */
   private MutexRef<Mutex> getMutex(Key key) {
     final var mutexes = map.getMutexes();
-    final var stripes = mutexes.stripes();
-    if (key instanceof InternalKey) {
-      return mutexes.forStripe(stripes - 1);
+    if (key instanceof InternalKey && mutexes instanceof StripedMutexes<Mutex> striped) {
+      return striped.forReservedStripe();
     } else {
-      return mutexes.forStripe(StripedMutexes.hash(key, stripes - 1));
+      return mutexes.forKey(key);
     }
   }
 }
@@ -6,18 +6,80 @@ import com.obsidiandynamics.transram.util.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 import java.util.function.*;
 import java.util.stream.*;
 
 public final class SrmlMap<K, V extends DeepCloneable<V>> implements TransMap<K, V> {
   public static class Options {
     public int mutexStripes = 1024;
+    public StripedMutexes.Adaptation stripeAdaptation;
     public Supplier<UpgradeableMutex> mutexFactory = UnfairUpgradeableMutex::new;
+    public MutexGranularity mutexGranularity = MutexGranularity.STRIPED;
+    public int maxIdleMutexes = 1024;
+    public ToIntFunction<Object> keyHasher = Objects::hashCode;
     public int queueDepth = 4;
 
+    /**
+     * The number of stored items at or above which {@link TransContext#keys} splits its traversal
+     * of the store across the common {@link ForkJoinPool}. The key predicate must then be safe for
+     * concurrent use. Parallel scans are disabled by default.
+     */
+    public long parallelScanThreshold = Long.MAX_VALUE;
+
+    /** Receives the write set of each committed transaction; {@code null} if not journaling. */
+    public Journal journal;
+
+    /** Receives measurements of transactions and mutexes; {@link Metrics#NONE} if not measuring. */
+    public Metrics metrics = Metrics.NONE;
+
+    /**
+     * The number of most recent versions that remain readable via {@link #transactAt}, beyond
+     * those retained by the {@link #queueDepth}. Zero if versions aren't retained by count.
+     */
+    public int retainVersions;
+
+    /**
+     * The period, in milliseconds, over which versions remain readable via {@link #transactAt},
+     * beyond those retained by the {@link #queueDepth}. Zero if versions aren't retained by time.
+     */
+    public long retainMillis;
+
+    /**
+     * Whether the read version of each active transaction is registered, so that the values it
+     * may yet read are retained until it completes, sparing it a {@link BrokenSnapshotFailure}.
+     * A transaction that is neither committed nor rolled back remains registered indefinitely.
+     */
+    public boolean pinSnapshots;
+
+    /**
+     * The maximum number of versions retained for any one item, bounding the memory taken by
+     * pinned snapshots and the retention options. Values are discarded beyond this number even
+     * if still needed, whereupon the affected readers may fail with a {@link BrokenSnapshotFailure}.
+     */
+    public int maxRetainedVersions = 64;
+
+    /**
+     * The number of deleted items awaiting compaction at which their keys are removed from the
+     * store, provided that no active transaction could still observe them as they were before
+     * the deletion. Zero if deleted items are retained indefinitely, as tombstones. Compaction
+     * requires the read version of each active transaction to be registered, as when
+     * {@link #pinSnapshots pinning snapshots}.
+     */
+    public int tombstoneCompactionThreshold;
+
     void validate() {
       Assert.that(mutexStripes > 0, () -> "Number of mutex stripes must exceed 0");
+      Assert.that(mutexGranularity != null, () -> "Mutex granularity cannot be null");
+      Assert.that(keyHasher != null, () -> "Key hasher cannot be null");
+      Assert.that(maxIdleMutexes >= 0, () -> "Maximum number of idle mutexes must be equal to or greater than 0");
       Assert.that(queueDepth > 0, () -> "Queue depth must exceed 0");
+      Assert.that(parallelScanThreshold > 0, () -> "Parallel scan threshold must exceed 0");
+      Assert.that(retainVersions >= 0, () -> "Number of retained versions must be equal to or greater than 0");
+      Assert.that(retainMillis >= 0, () -> "Retention period must be equal to or greater than 0");
+      Assert.that(maxRetainedVersions >= queueDepth, () -> "Maximum number of retained versions must be equal to or greater than the queue depth");
+      Assert.that(tombstoneCompactionThreshold >= 0, () -> "Tombstone compaction threshold must be equal to or greater than 0");
+      Assert.that(metrics != null, () -> "Metrics cannot be null");
     }
   }
 
@@ -32,22 +94,113 @@ public final class SrmlMap<K, V extends DeepCloneable<V>> implements TransMap<K,
 
   private final int queueDepth;
 
-  private final Map<Key, Deque<RawVersioned>> store = new ConcurrentHashMap<>();
+  private final long parallelScanThreshold;
+
+  private final Journal journal;
+
+  private final Metrics metrics;
+
+  private final int retainVersions;
+
+  private final long retainMillis;
+
+  private final int maxRetainedVersions;
+
+  private final boolean pinSnapshots;
+
+  /** Registered read versions; {@code null} if neither pinning snapshots nor compacting tombstones. */
+  private final ReaderRegistry readerRegistry;
 
-  private final StripedMutexes<Mutex> mutexes;
+  private final int tombstoneCompactionThreshold;
 
-  private final Object contextLock = new Object();
+  private static final class Tombstone {
+    final Key key;
+
+    final long version;
+
+    Tombstone(Key key, long version) {
+      this.key = key;
+      this.version = version;
+    }
+  }
+
+  /** Deletions awaiting compaction, in approximate order of their versions. */
+  private final Queue<Tombstone> tombstones = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger numTombstones = new AtomicInteger();
+
+  private final Lock compactionLock = new ReentrantLock();
+
+  /**
+   * The highest version at or below which deleted items have been removed from the store.
+   * Historical transactions below this version cannot tell a compacted item from one that never
+   * existed.
+   */
+  private final PaddedAtomicLong compactionVersion = new PaddedAtomicLong();
+
+  /**
+   * The highest version of a value that superseded one discarded while possibly still needed,
+   * owing to {@link Options#maxRetainedVersions}. Readers below this version cannot rely on their
+   * snapshot being intact.
+   */
+  private final PaddedAtomicLong forcedDiscardVersion = new PaddedAtomicLong();
+
+  /**
+   * The highest version of a value that superseded any discarded one. Historical transactions at
+   * or above this version find every value they need in the version chains.
+   */
+  private final PaddedAtomicLong trimmedVersion = new PaddedAtomicLong();
+
+  private final ConcurrentHashMap<Key, Deque<RawVersioned>> store = new ConcurrentHashMap<>();
+
+  private final Mutexes<Mutex> mutexes;
+
+  private final Lock contextLock = new ReentrantLock();
 
   private final Deque<SrmlContext<K, V>> queuedContexts = new ConcurrentLinkedDeque<>();
 
   private long version;
 
-  private final AtomicLong safeReadVersion = new AtomicLong();
+  private final PaddedAtomicLong safeReadVersion = new PaddedAtomicLong();
+
+  private static final class SafeReadVersionChange {
+    final long version;
+
+    final long time;
+
+    SafeReadVersionChange(long version, long time) {
+      this.version = version;
+      this.time = time;
+    }
+  }
+
+  /**
+   * Successive safe read versions and the times they took effect, at a resolution of one
+   * millisecond, going back as far as the retention period. Only maintained if retaining by time.
+   * Guarded by {@link #historyLock}.
+   */
+  private final Deque<SafeReadVersionChange> safeReadVersionHistory = new ArrayDeque<>();
+
+  private final Lock historyLock = new ReentrantLock();
 
   public SrmlMap(Options options) {
     options.validate();
     queueDepth = options.queueDepth;
-    mutexes = new StripedMutexes<>(options.mutexStripes, options.mutexFactory);
+    parallelScanThreshold = options.parallelScanThreshold;
+    journal = options.journal;
+    metrics = options.metrics;
+    retainVersions = options.retainVersions;
+    retainMillis = options.retainMillis;
+    maxRetainedVersions = options.maxRetainedVersions;
+    pinSnapshots = options.pinSnapshots;
+    tombstoneCompactionThreshold = options.tombstoneCompactionThreshold;
+    readerRegistry = pinSnapshots || tombstoneCompactionThreshold != 0 ? new ReaderRegistry(Runtime.getRuntime().availableProcessors() * 4) : null;
+    safeReadVersionHistory.add(new SafeReadVersionChange(0, System.currentTimeMillis()));
+    mutexes = switch (options.mutexGranularity) {
+      case STRIPED -> new StripedMutexes<>(options.mutexStripes, MeteredMutex.decorate(options.mutexFactory, metrics), options.stripeAdaptation, true,
+                                           Key.unwrappingHasher(options.keyHasher));
+      case PER_KEY -> new KeyedMutexes<>(MeteredMutex.decorate(options.mutexFactory, metrics), options.maxIdleMutexes);
+    };
     store.put(InternalKey.SIZE, wrapInDeque(new RawVersioned(0, new Size(0))));
   }
 
@@ -55,14 +208,97 @@ public final class SrmlMap<K, V extends DeepCloneable<V>> implements TransMap<K,
     return queueDepth;
   }
 
+  long getParallelScanThreshold() {
+    return parallelScanThreshold;
+  }
+
+  Journal getJournal() {
+    return journal;
+  }
+
+  @Override
+  public Metrics metrics() {
+    return metrics;
+  }
+
   @Override
   public SrmlContext<K, V> transact() {
-    return new SrmlContext<>(this);
+    return transact(0);
+  }
+
+  @Override
+  public SrmlContext<K, V> transact(int priority) {
+    Assert.that(priority >= 0, () -> "Priority must be equal to or greater than 0");
+    return new SrmlContext<>(this, priority);
+  }
+
+  /**
+   * Starts a read-only transaction that observes the map as it was at the given version, being
+   * the version of a previously committed transaction. Items whose value at that version is no
+   * longer retained cannot be read, failing with a {@link BrokenSnapshotFailure}; retention
+   * beyond the {@link Options#queueDepth} is configured by {@link Options#retainVersions} and
+   * {@link Options#retainMillis}.<p>
+   *
+   * Attempting to write in the resulting transaction results in a
+   * {@link ReadOnlyTransactionException}. Committing it succeeds unconditionally, without
+   * consuming a version.
+   *
+   * @param version The version to read at.
+   * @return The read-only {@link SrmlContext}.
+   */
+  public SrmlContext<K, V> transactAt(long version) {
+    Assert.that(version >= 0, () -> "Version must be equal to or greater than 0");
+    Assert.that(version <= safeReadVersion.get(), () -> "Version " + version + " has not been committed");
+    return new SrmlContext<>(this, version);
   }
 
-  Object getContextLock() { return contextLock; }
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Each item is restored from its version chain as at the snapshot version. An export that
+   * outlives the retained versions of an item (see {@link Options#queueDepth}) fails with a
+   * {@link BrokenSnapshotFailure}, having already passed some items to the consumer. When
+   * {@link Options#pinSnapshots pinning snapshots}, the snapshot version is retained for the
+   * duration of the export.
+   */
+  @Override
+  public long exportSnapshot(BiConsumer<? super K, ? super V> consumer) throws BrokenSnapshotFailure {
+    final var pin = readerStripe();
+    final var snapshotVersion = pinSafeReadVersion(pin);
+    try {
+      exportSnapshot(pin, snapshotVersion, consumer);
+    } finally {
+      unpin(pin, snapshotVersion);
+    }
+    return snapshotVersion;
+  }
 
-  Map<Key, Deque<RawVersioned>> getStore() {
+  private void exportSnapshot(int pin, long snapshotVersion, BiConsumer<? super K, ? super V> consumer) throws BrokenSnapshotFailure {
+    entryLoop: for (var entry : store.entrySet()) {
+      if (entry.getKey() instanceof KeyRef<?> keyRef) {
+        final var storedValues = entry.getValue();
+        for (var storedValue : storedValues) {
+          if (storedValue.getVersion() <= snapshotVersion) {
+            if (storedValue.hasValue()) {
+              consumer.accept(Unsafe.cast(keyRef.unwrap()), Unsafe.<V>cast(storedValue.getValue()).deepClone());
+            }
+            continue entryLoop;
+          }
+        }
+        // a pinned export infers that the item was created since unless part of its snapshot was
+        // forcibly discarded; otherwise, a chain that is shorter than the queue depth has never
+        // been trimmed
+        if (pin != NOT_PINNED ? isIntact(snapshotVersion) : storedValues.size() < queueDepth) {
+          continue;
+        }
+        throw new BrokenSnapshotFailure("Unable to restore value for key " + entry.getKey() + " at version " + snapshotVersion + ", current at " + storedValues.getFirst().getVersion());
+      }
+    }
+  }
+
+  Lock getContextLock() { return contextLock; }
+
+  ConcurrentHashMap<Key, Deque<RawVersioned>> getStore() {
     return store;
   }
 
@@ -80,6 +316,20 @@ public final class SrmlMap<K, V extends DeepCloneable<V>> implements TransMap<K,
       return store.values().stream().mapToInt(Deque::size).sum();
     }
 
+    @Override
+    public Optional<StripeStats> stripeStats() {
+      return mutexes instanceof StripedMutexes<?> striped ? Optional.of(striped.stats()) : Optional.empty();
+    }
+
+    @Override
+    public Optional<StripeDistribution> stripeDistribution() {
+      if (mutexes instanceof StripedMutexes<?> striped) {
+        return Optional.of(striped.distribution(store.keySet().stream().filter(key -> key instanceof KeyRef<?>).collect(Collectors.toList())));
+      } else {
+        return Optional.empty();
+      }
+    }
+
     @Override
     public long getVersion() {
       return version;
@@ -89,7 +339,7 @@ public final class SrmlMap<K, V extends DeepCloneable<V>> implements TransMap<K,
   @Override
   public Debug<K, V> debug() { return debug; }
 
-  StripedMutexes<Mutex> getMutexes() {
+  Mutexes<Mutex> getMutexes() {
     return mutexes;
   }
 
@@ -101,7 +351,250 @@ public final class SrmlMap<K, V extends DeepCloneable<V>> implements TransMap<K,
     return ++version;
   }
 
-  AtomicLong safeReadVersion() { return safeReadVersion; }
+  PaddedAtomicLong safeReadVersion() { return safeReadVersion; }
+
+  @Override
+  public void advanceVersion(long version) {
+    Assert.that(version >= 0, () -> "Version must be equal to or greater than 0");
+    contextLock.lock();
+    try {
+      if (version <= this.version) {
+        return;
+      }
+      this.version = version;
+      advanceSafeReadVersion(version);
+    } finally {
+      contextLock.unlock();
+    }
+    if (journal != null) {
+      journal.advance(version);
+    }
+  }
+
+  @Override
+  public void load(Map<? extends K, ? extends V> items) {
+    final var loadVersion = safeReadVersion.get();
+    var loaded = 0;
+    try {
+      for (var entry : items.entrySet()) {
+        Assert.that(Assert.isNotNull(entry.getValue()), NullValueAssertionError::new, () -> "Cannot load null value");
+        final var key = Key.wrap(entry.getKey());
+        if (store.putIfAbsent(key, wrapInDeque(new RawVersioned(loadVersion, entry.getValue()))) != null) {
+          throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.INSERT_EXISTING, "Cannot load an existing item for key " + key);
+        }
+        loaded++;
+      }
+    } finally {
+      final var sizeChange = loaded;
+      store.computeIfPresent(InternalKey.SIZE, (__, values) -> {
+        final var size = (Size) values.getFirst().getValue();
+        size.set(size.get() + sizeChange);
+        return values;
+      });
+    }
+  }
+
+  /**
+   * Advances the safe read version, unless it has already been advanced further.
+   */
+  void advanceSafeReadVersion(long version) {
+    Cas.compareAndSetConditionally(safeReadVersion, version, Cas.lowerThan(version));
+    if (retainMillis != 0) {
+      final var now = System.currentTimeMillis();
+      historyLock.lock();
+      try {
+        final var last = safeReadVersionHistory.getLast();
+        if (version > last.version) {
+          if (last.time == now && safeReadVersionHistory.size() > 1) {
+            safeReadVersionHistory.removeLast();
+          }
+          safeReadVersionHistory.addLast(new SafeReadVersionChange(version, now));
+        }
+      } finally {
+        historyLock.unlock();
+      }
+    }
+  }
+
+  static final int NOT_PINNED = -1;
+
+  /**
+   * Obtains the stripe in which the current thread may register a reader.
+   *
+   * @return A handle for the registration, or {@link #NOT_PINNED} if readers aren't registered.
+   */
+  int readerStripe() {
+    return readerRegistry != null ? readerRegistry.stripe() : NOT_PINNED;
+  }
+
+  /**
+   * Registers a reader at the safe read version, if readers are registered.
+   *
+   * @param pin The handle obtained from {@link #readerStripe}.
+   * @return The read version.
+   */
+  long pinSafeReadVersion(int pin) {
+    return pin != NOT_PINNED ? readerRegistry.registerCurrent(pin, safeReadVersion) : safeReadVersion.get();
+  }
+
+  /**
+   * Registers a reader at the given version, if readers are registered.
+   *
+   * @param version The read version.
+   * @return A handle on the registration, or {@link #NOT_PINNED} if readers aren't registered.
+   */
+  int pin(long version) {
+    final var pin = readerStripe();
+    if (pin != NOT_PINNED) {
+      readerRegistry.register(pin, version);
+    }
+    return pin;
+  }
+
+  void unpin(int pin, long version) {
+    if (pin != NOT_PINNED) {
+      readerRegistry.deregister(pin, version);
+    }
+  }
+
+  /**
+   * Determines whether the snapshot of a pinned reader at the given version is intact, in that
+   * no value it may have needed was discarded. A pinned reader that finds no value at its read
+   * version may then conclude that the item was created since.
+   */
+  boolean isIntact(long version) {
+    return pinSnapshots && version >= forcedDiscardVersion.get();
+  }
+
+  int getMaxRetainedVersions() {
+    return maxRetainedVersions;
+  }
+
+  /**
+   * Records the discarding of a value that may still have been needed by readers below the
+   * version of the value that superseded it.
+   */
+  void noteForcedDiscard(long successorVersion) {
+    Cas.compareAndSetConditionally(forcedDiscardVersion, successorVersion, Cas.lowerThan(successorVersion));
+  }
+
+  /**
+   * Discards the oldest value of a version chain, having first recorded the version of the value
+   * that superseded it, so that a historical reader that misses the discarded value is aware of
+   * the trimming.
+   *
+   * @param values The version chain, holding two or more values.
+   * @param successorVersion The version of the value that superseded the oldest.
+   */
+  void discardOldest(Deque<RawVersioned> values, long successorVersion) {
+    Cas.compareAndSetConditionally(trimmedVersion, successorVersion, Cas.lowerThan(successorVersion));
+    values.removeLast();
+  }
+
+  /**
+   * Determines whether no value that a historical reader at the given version may need has been
+   * discarded from any version chain.
+   */
+  boolean isUntrimmedAt(long version) {
+    return version >= trimmedVersion.get();
+  }
+
+  /**
+   * Obtains the lowest version that must remain readable under the retention policy and for the
+   * registered readers. A stored value may be discarded once superseded by a value at or below
+   * this version.
+   *
+   * @return The retention horizon, or {@link Long#MAX_VALUE} if versions are retained only by
+   *         the queue depth.
+   */
+  long retentionHorizon() {
+    var horizon = pinSnapshots ? readerRegistry.lowest() : Long.MAX_VALUE;
+    if (retainVersions != 0) {
+      horizon = Math.min(horizon, safeReadVersion.get() - retainVersions);
+    }
+    if (retainMillis != 0) {
+      final var cutoff = System.currentTimeMillis() - retainMillis;
+      historyLock.lock();
+      try {
+        // keep the version that was in effect at the cutoff
+        while (safeReadVersionHistory.size() > 1 && secondOf(safeReadVersionHistory).time <= cutoff) {
+          safeReadVersionHistory.removeFirst();
+        }
+        horizon = Math.min(horizon, safeReadVersionHistory.getFirst().version);
+      } finally {
+        historyLock.unlock();
+      }
+    }
+    return horizon;
+  }
+
+  private static <T> T secondOf(Deque<T> deque) {
+    final var it = deque.iterator();
+    it.next();
+    return it.next();
+  }
+
+  /**
+   * Obtains the version of the value that superseded the oldest in a version chain of two or
+   * more values. The oldest value is no longer needed by readers at or above this version.
+   */
+  static long successorOfOldest(Deque<RawVersioned> values) {
+    final var it = values.descendingIterator();
+    it.next();
+    return it.next().getVersion();
+  }
+
+  /**
+   * Records the deletion of an item, as a candidate for compaction.
+   */
+  void addTombstone(Key key, long version) {
+    if (tombstoneCompactionThreshold != 0) {
+      tombstones.add(new Tombstone(key, version));
+      numTombstones.incrementAndGet();
+    }
+  }
+
+  /**
+   * Removes the keys of deleted items from the store once enough of them have accumulated,
+   * provided that their deletion is visible to all active transactions and falls outside the
+   * retention horizon. A key that has been written since its deletion is left in place. Only
+   * one thread compacts at a time; others skip compaction while it is underway.
+   */
+  void compactTombstones() {
+    if (tombstoneCompactionThreshold == 0 || numTombstones.get() < tombstoneCompactionThreshold || !compactionLock.tryLock()) {
+      return;
+    }
+    try {
+      // read the safe read version ahead of the registry, so that readers registering after the
+      // registry is visited are at or above it
+      final var safeVersion = safeReadVersion.get();
+      final var horizon = Math.min(safeVersion, Math.min(readerRegistry.lowest(), retentionHorizon()));
+      Cas.compareAndSetConditionally(compactionVersion, horizon, Cas.lowerThan(horizon));
+      Tombstone tombstone;
+      while ((tombstone = tombstones.peek()) != null && tombstone.version <= horizon) {
+        tombstones.remove();
+        numTombstones.decrementAndGet();
+        store.computeIfPresent(tombstone.key, (__, values) -> {
+          final var latest = values.getFirst();
+          return !latest.hasValue() && latest.getVersion() <= horizon ? null : values;
+        });
+      }
+    } finally {
+      compactionLock.unlock();
+    }
+  }
+
+  /**
+   * Determines whether items deleted as at the given version may have been removed from the
+   * store, making them indistinguishable from items that never existed.
+   */
+  boolean isCompactedAt(long version) {
+    return version < compactionVersion.get();
+  }
+
+  int registeredReaders() {
+    return readerRegistry != null ? readerRegistry.count() : 0;
+  }
 
   static Deque<RawVersioned> wrapInDeque(RawVersioned versioned) {
     final var deque = new ConcurrentLinkedDeque<RawVersioned>();
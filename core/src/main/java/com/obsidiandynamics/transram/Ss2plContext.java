@@ -1,7 +1,7 @@
 package com.obsidiandynamics.transram;
 
 import com.obsidiandynamics.transram.LifecycleFailure.*;
-import com.obsidiandynamics.transram.mutex.StripedMutexes.*;
+import com.obsidiandynamics.transram.jfr.*;
 import com.obsidiandynamics.transram.mutex.*;
 import com.obsidiandynamics.transram.util.*;
 
@@ -11,16 +11,29 @@ import java.util.function.*;
 import static com.obsidiandynamics.transram.util.Assert.*;
 
 public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransContext<K, V> {
+  private static final String ENGINE = Ss2plMap.class.getSimpleName();
+
   private final long mutexTimeoutMs;
 
+  private final long agedMutexTimeoutMs;
+
+  private final int priority;
+
+  private boolean blindWritesPending;
+
   private final Ss2plMap<K, V> map;
 
   private final Set<MutexRef<UpgradeableMutex>> readMutexes = new HashSet<>();
 
   private final Set<MutexRef<UpgradeableMutex>> writeMutexes = new HashSet<>();
 
+  private final Map<Key, MutexRef<UpgradeableMutex>> keyMutexes = new HashMap<>();
+
   private enum StateChange {
-    INSERTED, UNCHANGED, DELETED
+    INSERTED, UNCHANGED, DELETED,
+
+    /** Blindly put or removed, without establishing whether the item existed beforehand. */
+    UPSERTED, REMOVED
   }
 
   private static final class Tracker {
@@ -28,6 +41,9 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
     boolean written;
     StateChange change;
 
+    /** Operators awaiting the latest committed value, or {@code null} if there are none. */
+    List<UnaryOperator<DeepCloneable<?>>> merges;
+
     Tracker(DeepCloneable<?> value, boolean written, StateChange change) {
       this.value = value;
       this.written = written;
@@ -41,9 +57,48 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
 
   private State state = State.OPEN;
 
-  Ss2plContext(Ss2plMap<K, V> map, long mutexTimeoutMs) {
+  private final Metrics metrics;
+
+  /** The time at which the transaction was opened, if measuring; {@code 0} otherwise. */
+  private final long openTime;
+
+  /** The most recent failure, or {@code null} if the transaction hasn't failed. */
+  private ConcurrentModeFailure failure;
+
+  private static final class PinnedKey<K> {
+    final K key;
+
+    final Key wrappedKey;
+
+    final MutexRef<UpgradeableMutex> mutex;
+
+    PinnedKey(K key, Key wrappedKey, MutexRef<UpgradeableMutex> mutex) {
+      this.key = key;
+      this.wrappedKey = wrappedKey;
+      this.mutex = mutex;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Acquisition {
+    boolean tryAcquire(UpgradeableMutex mutex, long timeoutMs) throws InterruptedException;
+  }
+
+  Ss2plContext(Ss2plMap<K, V> map, long mutexTimeoutMs, long agedMutexTimeoutMs, int priority) {
     this.map = map;
     this.mutexTimeoutMs = mutexTimeoutMs;
+    this.agedMutexTimeoutMs = agedMutexTimeoutMs;
+    this.priority = priority;
+    metrics = map.metrics();
+    openTime = metrics != Metrics.NONE ? System.nanoTime() : 0;
+
+    final var event = new TransactionBeginEvent();
+    if (event.isEnabled()) {
+      event.engine = ENGINE;
+      event.priority = priority;
+      event.readVersion = -1;
+      event.commit();
+    }
   }
 
   @Override
@@ -55,28 +110,33 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
     ensureOpen();
     final var existing = local.get(key);
     if (existing != null) {
+      if (existing.merges != null) {
+        resolveMerges(key, existing);
+      }
       return Unsafe.cast(existing.value);
     }
 
-    final var mutex = map.getMutexes().forKey(key);
+    final var mutex = obtainMutex(key);
     // don't lock for reading if we already have a write lock
     if (!writeMutexes.contains(mutex)) {
       final var addedMutex = readMutexes.add(mutex);
       if (addedMutex) {
         try {
-          if (!mutex.mutex().tryReadAcquire(mutexTimeoutMs)) {
+          // readers don't yield to a reservation; only a conflicting write or upgrade does
+          if (!tryAcquire(mutex, "READ", (m, timeoutMs) -> m.tryReadAcquire(this, timeoutMs))) {
             readMutexes.remove(mutex);
-            rollback();
-            throw new MutexAcquisitionFailure("Timed out while acquiring read mutex", null);
+            map.getMutexes().release(mutex);
+            abandon();
+            throw abort(new MutexAcquisitionFailure("Timed out while acquiring read mutex", null));
           }
         } catch (InterruptedException e) {
-          rollback();
-          throw new MutexAcquisitionFailure("Interrupted while acquiring read mutex", e);
+          abandon();
+          throw abort(new MutexAcquisitionFailure("Interrupted while acquiring read mutex", e));
         }
       }
     }
 
-    final var stored = map.getStore().get(key);
+    final var stored = map.getLive(key);
     if (stored != null) {
       final var cloned = DeepCloneable.clone(Unsafe.cast(stored.getValue()));
       local.put(key, new Tracker(cloned, false, StateChange.UNCHANGED));
@@ -103,10 +163,10 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
         if (predicate.test(unwrapped)) {
           final var tracker = local.get(key);
           if (tracker != null) {
-            if (tracker.value != null) {
+            if (tracker.value != null || tracker.merges != null) {
               keys.add(unwrapped);
             }
-          } else {
+          } else if (entry.getValue().hasValue()) {
             keys.add(unwrapped);
           }
         }
@@ -126,11 +186,25 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
     return keys;
   }
 
+  @Override
+  public Cursor<K, V> scan(Predicate<K> predicate) throws MutexAcquisitionFailure {
+    ensureOpen();
+    // doing an initial size() check acquires a lock on the size object, preventing further key insertions
+    size();
+    return new ScanCursor<>(predicate, map.getStore().keySet().iterator(), () -> new ArrayList<>(local.keySet()), this::read);
+  }
+
   @Override
   public void insert(K key, V value) throws MutexAcquisitionFailure {
     that(isNotNull(value), NullValueAssertionError::new, () -> "Cannot insert null value");
-    write(Key.wrap(key), value, StateChange.INSERTED);
-    alterSize(1);
+    insert(Key.wrap(key), value);
+  }
+
+  private void insert(Key key, DeepCloneable<?> value) throws MutexAcquisitionFailure {
+    write(key, value, StateChange.INSERTED);
+    if (!isBlind(key)) {
+      alterSize(1);
+    }
   }
 
   @Override
@@ -141,71 +215,274 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
 
   @Override
   public void delete(K key) throws MutexAcquisitionFailure {
-    write(Key.wrap(key), null, StateChange.DELETED);
-    alterSize(-1);
+    delete(Key.wrap(key));
   }
 
-  private void write(Key key, DeepCloneable<?> value, StateChange change) throws MutexAcquisitionFailure {
+  private void delete(Key key) throws MutexAcquisitionFailure {
+    write(key, null, StateChange.DELETED);
+    if (!isBlind(key)) {
+      alterSize(-1);
+    }
+  }
+
+  @Override
+  public void put(K key, V value) throws MutexAcquisitionFailure {
+    that(isNotNull(value), NullValueAssertionError::new, () -> "Cannot put null value");
+    final var wrappedKey = Key.wrap(key);
     ensureOpen();
-    final var mutex = map.getMutexes().forKey(key);
-    final var addedMutex = writeMutexes.add(mutex);
-    if (addedMutex) {
-      final var readMutexAcquired = readMutexes.remove(mutex);
-      if (readMutexAcquired) {
-        try {
-          if (!mutex.mutex().tryUpgrade(mutexTimeoutMs)) {
-            readMutexes.add(mutex);
-            writeMutexes.remove(mutex);
-            rollback();
-            throw new MutexAcquisitionFailure("Timed out while upgrading mutex", null);
-          }
-        } catch (InterruptedException e) {
-          rollback();
-          throw new MutexAcquisitionFailure("Interrupted while upgrading mutex", e);
+    final var existing = local.get(wrappedKey);
+    if (existing == null) {
+      writeBlind(wrappedKey, value, StateChange.UPSERTED);
+    } else if (existing.value != null || existing.merges != null) {
+      write(wrappedKey, value, StateChange.UNCHANGED);
+    } else {
+      insert(wrappedKey, value);
+    }
+  }
+
+  @Override
+  public void remove(K key) throws MutexAcquisitionFailure {
+    final var wrappedKey = Key.wrap(key);
+    ensureOpen();
+    final var existing = local.get(wrappedKey);
+    if (existing == null) {
+      writeBlind(wrappedKey, null, StateChange.REMOVED);
+    } else if (existing.value != null || existing.merges != null) {
+      delete(wrappedKey);
+    }
+  }
+
+  /**
+   * Records a write of an item whose existence has not been established, deferring the
+   * resulting change in size until commit. The size object is enrolled as a write, with its
+   * value yet to be determined unless it has already been read.
+   */
+  private void writeBlind(Key key, DeepCloneable<?> value, StateChange change) throws MutexAcquisitionFailure {
+    acquireWriteMutex(key);
+    local.put(key, new Tracker(value, true, change));
+    blindWritesPending = true;
+    final var sizeTracker = local.get(InternalKey.SIZE);
+    if (sizeTracker == null) {
+      final var pending = new Tracker(null, true, StateChange.UNCHANGED);
+      pending.merges = new ArrayList<>();
+      local.put(InternalKey.SIZE, pending);
+    } else if (!sizeTracker.written) {
+      write(InternalKey.SIZE, sizeTracker.value, StateChange.UNCHANGED);
+    }
+  }
+
+  private boolean isBlind(Key key) {
+    final var change = local.get(key).change;
+    return change == StateChange.UPSERTED || change == StateChange.REMOVED;
+  }
+
+  /**
+   * Settles a blind write once the upstream existence of its item is known, converting it to
+   * the equivalent regular write.
+   *
+   * @return The resulting change in size.
+   */
+  private static int settle(Tracker tracker, boolean existsUpstream) {
+    if (tracker.change == StateChange.UPSERTED) {
+      tracker.change = existsUpstream ? StateChange.UNCHANGED : StateChange.INSERTED;
+      return existsUpstream ? 0 : 1;
+    } else {
+      // removing an item that doesn't exist leaves nothing to write
+      tracker.change = existsUpstream ? StateChange.DELETED : StateChange.UNCHANGED;
+      tracker.written = existsUpstream;
+      return existsUpstream ? -1 : 0;
+    }
+  }
+
+
+  @Override
+  public Map<K, V> readAll(Collection<? extends K> keys) throws MutexAcquisitionFailure {
+    ensureOpen();
+    final var values = new HashMap<K, V>(keys.size() * 4 / 3 + 1);
+    final var pinnedKeys = pinInMutexOrder(keys);
+    try {
+      for (var pinnedKey : pinnedKeys) {
+        final var value = read(pinnedKey.wrappedKey);
+        if (value != null) {
+          values.put(pinnedKey.key, Unsafe.cast(value));
         }
-      } else {
-        try {
-          if (!mutex.mutex().tryWriteAcquire(mutexTimeoutMs)) {
-            writeMutexes.remove(mutex);
-            rollback();
-            throw new MutexAcquisitionFailure("Timed out while acquiring write mutex", null);
-          }
-        } catch (InterruptedException e) {
-          rollback();
-          throw new MutexAcquisitionFailure("Interrupted while acquiring write mutex", e);
+      }
+    } finally {
+      unpin(pinnedKeys);
+    }
+    return values;
+  }
+
+  @Override
+  public void insertAll(Map<? extends K, ? extends V> items) throws MutexAcquisitionFailure {
+    for (var value : items.values()) {
+      that(isNotNull(value), NullValueAssertionError::new, () -> "Cannot insert null value");
+    }
+    ensureOpen();
+    final var pinnedKeys = pinInMutexOrder(items.keySet());
+    var sizeChange = 0;
+    try {
+      for (var pinnedKey : pinnedKeys) {
+        write(pinnedKey.wrappedKey, items.get(pinnedKey.key), StateChange.INSERTED);
+        if (!isBlind(pinnedKey.wrappedKey)) {
+          sizeChange++;
         }
       }
+    } finally {
+      unpin(pinnedKeys);
+      // account for the items written so far, even if a subsequent write was refused
+      if (sizeChange != 0 && state == State.OPEN) {
+        alterSize(sizeChange);
+      }
+    }
+  }
+
+  @Override
+  public void updateAll(Map<? extends K, ? extends V> items) throws MutexAcquisitionFailure {
+    for (var value : items.values()) {
+      that(isNotNull(value), NullValueAssertionError::new, () -> "Cannot update null value");
+    }
+    ensureOpen();
+    final var pinnedKeys = pinInMutexOrder(items.keySet());
+    try {
+      for (var pinnedKey : pinnedKeys) {
+        write(pinnedKey.wrappedKey, items.get(pinnedKey.key), StateChange.UNCHANGED);
+      }
+    } finally {
+      unpin(pinnedKeys);
+    }
+  }
+
+  @Override
+  public void deleteAll(Collection<? extends K> keys) throws MutexAcquisitionFailure {
+    ensureOpen();
+    final var pinnedKeys = pinInMutexOrder(keys);
+    var sizeChange = 0;
+    try {
+      for (var pinnedKey : pinnedKeys) {
+        write(pinnedKey.wrappedKey, null, StateChange.DELETED);
+        if (!isBlind(pinnedKey.wrappedKey)) {
+          sizeChange--;
+        }
+      }
+    } finally {
+      unpin(pinnedKeys);
+      if (sizeChange != 0 && state == State.OPEN) {
+        alterSize(sizeChange);
+      }
+    }
+  }
+
+  /**
+   * Pins the mutexes of the given keys and sorts the keys in the order of their mutexes, so
+   * that bulk operations acquire mutexes in a consistent order, rather than deadlocking with
+   * one another until one of them times out. Each pin keeps the order of its reference stable
+   * until released via {@link #unpin(List)}.
+   *
+   * @param keys The keys.
+   * @return The pinned keys, in mutex order.
+   */
+  private List<PinnedKey<K>> pinInMutexOrder(Collection<? extends K> keys) {
+    final var mutexes = map.getMutexes();
+    final var pinnedKeys = new ArrayList<PinnedKey<K>>(keys.size());
+    for (var key : keys) {
+      final var wrappedKey = Key.wrap(key);
+      pinnedKeys.add(new PinnedKey<>(key, wrappedKey, mutexes.forKey(wrappedKey)));
+    }
+    pinnedKeys.sort(Comparator.comparing(pinnedKey -> pinnedKey.mutex));
+    return pinnedKeys;
+  }
+
+  private void unpin(List<PinnedKey<K>> pinnedKeys) {
+    final var mutexes = map.getMutexes();
+    for (var pinnedKey : pinnedKeys) {
+      mutexes.release(pinnedKey.mutex);
+    }
+  }
+
+  @Override
+  public void merge(K key, UnaryOperator<V> operator) throws MutexAcquisitionFailure {
+    that(isNotNull(operator), () -> "Merge operator cannot be null");
+    final var wrappedKey = Key.wrap(key);
+    final UnaryOperator<DeepCloneable<?>> merge = Unsafe.cast(operator);
+    ensureOpen();
+    final var existing = local.get(wrappedKey);
+    if (existing == null) {
+      // defer to commit time, when the write mutex is acquired
+      final var tracker = new Tracker(null, true, StateChange.UNCHANGED);
+      tracker.merges = new ArrayList<>();
+      tracker.merges.add(merge);
+      local.put(wrappedKey, tracker);
+    } else if (existing.merges != null) {
+      existing.merges.add(merge);
+    } else {
+      if (existing.value == null) {
+        throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT, "Cannot merge into a nonexistent item for key " + wrappedKey);
+      }
+      write(wrappedKey, applyMerges(List.of(merge), existing.value), StateChange.UNCHANGED);
+    }
+  }
+
+  /**
+   * Applies the pending merges of a key to its current value, for when the transaction needs
+   * to observe the merged value before committing. The write mutex is acquired first.
+   */
+  private void resolveMerges(Key key, Tracker tracker) throws MutexAcquisitionFailure {
+    acquireWriteMutex(key);
+    final var stored = map.getLive(key);
+    if (stored == null) {
+      throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT, "Cannot merge into a nonexistent item for key " + key);
+    }
+    tracker.value = applyMerges(tracker.merges, DeepCloneable.clone(Unsafe.cast(stored.getValue())));
+    tracker.merges = null;
+  }
+
+  private static DeepCloneable<?> applyMerges(List<UnaryOperator<DeepCloneable<?>>> merges, DeepCloneable<?> value) {
+    for (var merge : merges) {
+      value = merge.apply(value);
+      that(isNotNull(value), NullValueAssertionError::new, () -> "Merge operator returned null");
     }
+    return value;
+  }
+
+  private void write(Key key, DeepCloneable<?> value, StateChange change) throws MutexAcquisitionFailure {
+    ensureOpen();
+    acquireWriteMutex(key);
 
     local.compute(key, (__, existing) -> {
       if (existing != null) {
+        // a pending merge implies that the item exists
+        final var exists = existing.value != null || existing.merges != null;
         switch (change) {
           case INSERTED -> {
-            if (existing.value != null) {
+            if (exists) {
               throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.INSERT_EXISTING, "Cannot insert an existing item for key " + key);
             }
             switch (existing.change) {
               case UNCHANGED -> existing.change = StateChange.INSERTED;
               case DELETED -> existing.change = StateChange.UNCHANGED;
+              case REMOVED -> existing.change = StateChange.UPSERTED;
             }
           }
           case UNCHANGED -> {
-            if (existing.value == null) {
+            if (!exists) {
               throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT, "Cannot update a nonexistent item for key " + key);
             }
           }
           case DELETED -> {
-            if (existing.value == null) {
+            if (!exists) {
               throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.DELETE_NONEXISTENT, "Cannot delete a nonexistent item for key " + key);
             }
             switch (existing.change) {
               case INSERTED -> existing.change = StateChange.UNCHANGED;
               case UNCHANGED -> existing.change = StateChange.DELETED;
+              case UPSERTED -> existing.change = StateChange.REMOVED;
             }
           }
         }
         existing.value = value;
         existing.written = true;
+        existing.merges = null;
         return existing;
       } else {
         return new Tracker(value, true, change);
@@ -213,6 +490,119 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
     });
   }
 
+  /**
+   * Acquires the write mutex for the given {@code key}, upgrading a read mutex if one is held.
+   * Rolls back the transaction if the mutex could not be acquired.
+   *
+   * @param key The key.
+   * @throws MutexAcquisitionFailure If the mutex could not be acquired.
+   */
+  private void acquireWriteMutex(Key key) throws MutexAcquisitionFailure {
+    final var mutex = obtainMutex(key);
+    final var addedMutex = writeMutexes.add(mutex);
+    if (addedMutex) {
+      final var readMutexAcquired = readMutexes.remove(mutex);
+      if (readMutexAcquired) {
+        try {
+          final var yielded = yieldsTo(mutex);
+          if (yielded || !tryAcquire(mutex, "UPGRADE", (m, timeoutMs) -> m.tryUpgrade(this, timeoutMs))) {
+            readMutexes.add(mutex);
+            writeMutexes.remove(mutex);
+            abandon();
+            throw abort(new MutexAcquisitionFailure(yielded ? "Yielded mutex upgrade to a higher-priority transaction" : "Timed out while upgrading mutex", null));
+          }
+        } catch (InterruptedException e) {
+          abandon();
+          throw abort(new MutexAcquisitionFailure("Interrupted while upgrading mutex", e));
+        }
+      } else {
+        try {
+          final var yielded = yieldsTo(mutex);
+          if (yielded || !tryAcquire(mutex, "WRITE", (m, timeoutMs) -> m.tryWriteAcquire(this, timeoutMs))) {
+            writeMutexes.remove(mutex);
+            map.getMutexes().release(mutex);
+            abandon();
+            throw abort(new MutexAcquisitionFailure(yielded ? "Yielded write mutex to a higher-priority transaction" : "Timed out while acquiring write mutex", null));
+          }
+        } catch (InterruptedException e) {
+          abandon();
+          throw abort(new MutexAcquisitionFailure("Interrupted while acquiring write mutex", e));
+        }
+      }
+    }
+  }
+
+  private boolean yieldsTo(MutexRef<UpgradeableMutex> mutex) {
+    return mutex.reservedPriority() > priority;
+  }
+
+  /**
+   * Acquires the given mutex, waiting for up to the mutex timeout. A transaction of a nonzero
+   * priority waits for up to its aged timeout instead and, if the mutex cannot be acquired
+   * straight away, reserves it for the duration of the wait, so that transactions of a lower
+   * priority yield to it rather than barge in with a write or upgrade.
+   *
+   * @param mutex The mutex reference.
+   * @param mode The mode of acquisition, as recorded in a {@link MutexWaitEvent}.
+   * @param acquisition The acquisition to perform.
+   * @return Whether the mutex was acquired.
+   * @throws InterruptedException If the thread was interrupted while waiting.
+   */
+  private boolean tryAcquire(MutexRef<UpgradeableMutex> mutex, String mode, Acquisition acquisition) throws InterruptedException {
+    final var event = new MutexWaitEvent();
+    event.begin();
+    final var acquired = tryAcquire(mutex, acquisition);
+    event.end();
+    if (event.shouldCommit()) {
+      event.engine = ENGINE;
+      event.stripe = mutex.ordinal();
+      event.mode = mode;
+      event.priority = priority;
+      event.acquired = acquired;
+      event.commit();
+    }
+    return acquired;
+  }
+
+  private boolean tryAcquire(MutexRef<UpgradeableMutex> mutex, Acquisition acquisition) throws InterruptedException {
+    if (priority == 0) {
+      return acquisition.tryAcquire(mutex.mutex(), mutexTimeoutMs);
+    }
+
+    if (acquisition.tryAcquire(mutex.mutex(), 0)) {
+      return true;
+    }
+    mutex.reserve(priority);
+    try {
+      return acquisition.tryAcquire(mutex.mutex(), agedMutexTimeoutMs);
+    } finally {
+      mutex.unreserve(priority);
+    }
+  }
+
+  /**
+   * Obtains a mutex reference for the given {@code key}, reusing the reference from an earlier
+   * access to the same key. Every reference held in either of the read or write sets accounts
+   * for exactly one pin; a reference that is already held via another key is therefore
+   * released straight away.
+   *
+   * @param key The key.
+   * @return The {@link MutexRef}.
+   */
+  private MutexRef<UpgradeableMutex> obtainMutex(Key key) {
+    final var existing = keyMutexes.get(key);
+    if (existing != null) {
+      return existing;
+    }
+
+    final var mutex = map.getMutexes().forKey(key);
+    if (readMutexes.contains(mutex) || writeMutexes.contains(mutex)) {
+      map.getMutexes().release(mutex);
+    }
+    keyMutexes.put(key, mutex);
+    return mutex;
+  }
+
   private void alterSize(int sizeChange) throws MutexAcquisitionFailure {
     final var size = (Size) read(InternalKey.SIZE);
     that(isNotNull(size), Assert.withMessage("No size object"));
@@ -224,8 +614,61 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
     write(InternalKey.SIZE, size, StateChange.UNCHANGED);
   }
 
+  /**
+   * Establishes the existence of blindly written items, whose write mutexes are already held,
+   * so that the size of the map may be observed within the transaction.
+   */
+  private void resolveBlindWrites() throws MutexAcquisitionFailure {
+    var sizeChange = 0;
+    for (var entry : local.entrySet()) {
+      final var tracker = entry.getValue();
+      if (tracker.change == StateChange.UPSERTED || tracker.change == StateChange.REMOVED) {
+        final var existsUpstream = map.getLive(entry.getKey()) != null;
+        sizeChange += settle(tracker, existsUpstream);
+      }
+    }
+    blindWritesPending = false;
+    if (sizeChange != 0) {
+      alterSize(sizeChange);
+    }
+  }
+
+  /**
+   * Settles the outstanding blind writes at commit, once their mutexes are held, and folds the
+   * resulting change in size into the size object.
+   */
+  private void settleBlindWrites() {
+    var sizeChange = 0;
+    for (var entry : local.entrySet()) {
+      final var tracker = entry.getValue();
+      if (tracker.change == StateChange.UPSERTED || tracker.change == StateChange.REMOVED) {
+        final var existsUpstream = map.getLive(entry.getKey()) != null;
+        sizeChange += settle(tracker, existsUpstream);
+      }
+    }
+
+    if (sizeChange != 0) {
+      final var change = sizeChange;
+      final UnaryOperator<DeepCloneable<?>> resize = value -> {
+        final var size = (Size) value;
+        size.set(size.get() + change);
+        return size;
+      };
+      final var sizeTracker = local.get(InternalKey.SIZE);
+      if (sizeTracker.merges != null) {
+        sizeTracker.merges.add(resize);
+      } else {
+        sizeTracker.value = resize.apply(sizeTracker.value);
+      }
+    }
+  }
+
   @Override
   public int size() throws MutexAcquisitionFailure {
+    ensureOpen();
+    if (blindWritesPending) {
+      resolveBlindWrites();
+    }
     final var size = (Size) read(InternalKey.SIZE);
     that(isNotNull(size), Assert.withMessage("No size object"));
     return size.get();
@@ -233,6 +676,27 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
 
   @Override
   public void rollback() {
+    abandon();
+    metrics.onRollback();
+    emitRollback();
+  }
+
+  private void emitRollback() {
+    final var event = new TransactionRollbackEvent();
+    if (event.isEnabled()) {
+      event.engine = ENGINE;
+      event.priority = priority;
+      event.reason = failure != null ? failure.getClass().getSimpleName() : "Requested";
+      event.message = failure != null ? failure.getMessage() : null;
+      event.commit();
+    }
+  }
+
+  /**
+   * Rolls back a transaction that has failed, which is reported as an abort rather than as a
+   * rollback.
+   */
+  private void abandon() {
     ensureOpen();
     releaseMutexes();
     state = State.ROLLED_BACK;
@@ -245,65 +709,191 @@ public final class Ss2plContext<K, V extends DeepCloneable<V>> implements TransC
   }
 
   private void releaseMutexes() {
+    final var mutexes = map.getMutexes();
     for (var mutex : readMutexes) {
-      mutex.mutex().readRelease();
+      mutex.mutex().readRelease(this);
+      mutexes.release(mutex);
     }
     for (var mutex : writeMutexes) {
-      mutex.mutex().writeRelease();
+      mutex.mutex().writeRelease(this);
+      mutexes.release(mutex);
     }
   }
 
   @Override
-  public void commit() throws LifecycleFailure {
+  public void commit() throws MutexAcquisitionFailure, LifecycleFailure {
     ensureOpen();
+    final var commitEvent = new TransactionCommitEvent();
+    commitEvent.begin();
+
+    // pending merges are the only writes whose mutexes have yet to be acquired; as with bulk
+    // operations, they are acquired in mutex order
+    final var mergedKeys = new ArrayList<Key>();
+    for (var entry : local.entrySet()) {
+      if (entry.getValue().merges != null) {
+        mergedKeys.add(entry.getKey());
+      }
+    }
+    mergedKeys.sort(Comparator.comparing(this::obtainMutex));
+    for (var key : mergedKeys) {
+      acquireWriteMutex(key);
+    }
+
+    if (blindWritesPending) {
+      settleBlindWrites();
+    }
 
     for (var entry : local.entrySet()) {
       final var tracker = entry.getValue();
       if (tracker.written) {
         final var key = entry.getKey();
-        final var existingValue = map.getStore().get(key);
+        final var existingValue = map.getLive(key);
+        if (tracker.merges != null) {
+          if (existingValue == null) {
+            abandon();
+            throw abort(new LifecycleFailure(Reason.UPDATE_NONEXISTENT, "Attempting to merge into a nonexistent item for key " + key));
+          }
+          try {
+            tracker.value = applyMerges(tracker.merges, DeepCloneable.clone(Unsafe.cast(existingValue.getValue())));
+          } catch (RuntimeException | AssertionError e) {
+            abandon();
+            throw e;
+          }
+        }
+
         switch (tracker.change) {
           case INSERTED -> {
             if (existingValue != null) {
-              rollback();
-              throw new LifecycleFailure(Reason.INSERT_EXISTING, "Attempting to insert an existing item for key " + key);
+              abandon();
+              throw abort(new LifecycleFailure(Reason.INSERT_EXISTING, "Attempting to insert an existing item for key " + key));
             }
           }
           case UNCHANGED -> {
             if (entry.getValue().value != null && existingValue == null) {
-              rollback();
-              throw new LifecycleFailure(Reason.UPDATE_NONEXISTENT, "Attempting to update a nonexistent item for key " + key);
+              abandon();
+              throw abort(new LifecycleFailure(Reason.UPDATE_NONEXISTENT, "Attempting to update a nonexistent item for key " + key));
             }
 
             if (entry.getValue().value == null && existingValue != null) {
-              rollback();
-              throw new LifecycleFailure(Reason.INSERT_DELETE_EXISTING, "Attempting to insert-delete an existing item for key " + key);
+              abandon();
+              throw abort(new LifecycleFailure(Reason.INSERT_DELETE_EXISTING, "Attempting to insert-delete an existing item for key " + key));
             }
           }
           case DELETED -> {
             if (existingValue == null) {
-              rollback();
-              throw new LifecycleFailure(Reason.DELETE_NONEXISTENT, "Attempting to delete a nonexistent item for key " + key);
+              abandon();
+              throw abort(new LifecycleFailure(Reason.DELETE_NONEXISTENT, "Attempting to delete a nonexistent item for key " + key));
             }
           }
         }
       }
     }
 
-    version = map.version().incrementAndGet();
+    final var exportGate = map.getExportGate();
+    try {
+      exportGate.tryReadAcquire(this, Long.MAX_VALUE);
+    } catch (InterruptedException e) {
+      abandon();
+      throw abort(new MutexAcquisitionFailure("Interrupted while acquiring export gate", e));
+    }
 
-    for (var entry : local.entrySet()) {
-      final var tracker = entry.getValue();
-      if (tracker.written) {
-        if (tracker.value != null) {
-          map.getStore().put(entry.getKey(), new RawVersioned(version, tracker.value));
-        } else {
-          map.getStore().remove(entry.getKey());
+    try {
+      version = map.version().incrementAndGet();
+
+      // while exports are active, prior states are preserved for them and deletions leave tombstones
+      final var exports = map.getExports();
+      final var exporting = !exports.isEmpty();
+      final var store = map.getStore();
+      for (var entry : local.entrySet()) {
+        final var tracker = entry.getValue();
+        if (tracker.written) {
+          final var key = entry.getKey();
+          if (exporting) {
+            final var prior = map.getLive(key);
+            for (var export : exports) {
+              export.preserve(key, prior);
+            }
+          }
+
+          if (tracker.value != null) {
+            store.put(key, new RawVersioned(version, tracker.value));
+          } else if (!exporting) {
+            store.remove(key);
+          } else {
+            store.put(key, new RawVersioned(version, null));
+          }
         }
       }
+    } finally {
+      exportGate.readRelease(this);
     }
-    releaseMutexes();
-    state = State.COMMITTED;
+
+    var receipt = Journal.Receipt.NONE;
+    try {
+      receipt = journal(version);
+    } finally {
+      releaseMutexes();
+      state = State.COMMITTED;
+    }
+    awaitJournal(receipt);
+    if (metrics != Metrics.NONE) {
+      metrics.onCommit(System.nanoTime() - openTime);
+    }
+    commitEvent.end();
+    if (commitEvent.shouldCommit()) {
+      commitEvent.engine = ENGINE;
+      commitEvent.priority = priority;
+      commitEvent.version = version;
+      commitEvent.items = local.size();
+      commitEvent.commit();
+    }
+  }
+
+  /**
+   * Reports a failure to the metrics and to the event recorder, prior to it being thrown. A
+   * failure that leaves the transaction open is recorded as the reason for its eventual rollback.
+   */
+  private <F extends ConcurrentModeFailure> F abort(F failure) {
+    metrics.onAbort(failure);
+    this.failure = failure;
+    if (state == State.ROLLED_BACK) {
+      emitRollback();
+    }
+    return failure;
+  }
+
+  /**
+   * Hands the write set over to the journal, if one is attached.
+   */
+  private Journal.Receipt journal(long version) {
+    final var journal = map.getJournal();
+    if (journal == null) {
+      return Journal.Receipt.NONE;
+    }
+
+    final var changes = new HashMap<Object, DeepCloneable<?>>();
+    for (var entry : local.entrySet()) {
+      if (entry.getValue().written && entry.getKey() instanceof KeyRef<?> keyRef) {
+        changes.put(keyRef.unwrap(), entry.getValue().value);
+      }
+    }
+    return journal.append(version, changes);
+  }
+
+  /**
+   * Awaits the journaled entry of a committed transaction. An interrupt cuts the wait short
+   * without undoing the commit, leaving the interrupt status set.
+   */
+  private static void awaitJournal(Journal.Receipt receipt) {
+    try {
+      receipt.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public int getPriority() {
+    return priority;
   }
 
   @Override
@@ -5,19 +5,37 @@ import com.obsidiandynamics.transram.util.*;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.*;
 import java.util.function.*;
 import java.util.stream.*;
 
 public final class Ss2plMap<K, V extends DeepCloneable<V>> implements TransMap<K, V> {
   public static class Options {
     public int mutexStripes = 1024;
+    public StripedMutexes.Adaptation stripeAdaptation;
     public Supplier<UpgradeableMutex> mutexFactory = UnfairUpgradeableMutex::new;
+    public MutexGranularity mutexGranularity = MutexGranularity.STRIPED;
+    public int maxIdleMutexes = 1024;
+    public ToIntFunction<Object> keyHasher = Objects::hashCode;
     public long mutexTimeoutMs = 10;
+    /** Additional time that a transaction waits for a mutex for each unit of its priority. */
+    public long agingTimeoutMs = 5;
+    /** Upper bound on the time that a prioritised transaction waits for a mutex. */
+    public long maxMutexTimeoutMs = 100;
+    /** Receives the write set of each committed transaction; {@code null} if not journaling. */
+    public Journal journal;
+
+    /** Receives measurements of transactions and mutexes; {@link Metrics#NONE} if not measuring. */
+    public Metrics metrics = Metrics.NONE;
 
     void validate() {
       Assert.that(mutexStripes > 0, () -> "Number of mutex stripes must exceed 0");
+      Assert.that(mutexGranularity != null, () -> "Mutex granularity cannot be null");
+      Assert.that(keyHasher != null, () -> "Key hasher cannot be null");
+      Assert.that(maxIdleMutexes >= 0, () -> "Maximum number of idle mutexes must be equal to or greater than 0");
       Assert.that(mutexTimeoutMs >= 0, () -> "Mutex timeout must be equal to or greater than 0");
+      Assert.that(agingTimeoutMs >= 0, () -> "Aging timeout must be equal to or greater than 0");
+      Assert.that(maxMutexTimeoutMs >= mutexTimeoutMs, () -> "Maximum mutex timeout must be equal to or greater than the mutex timeout");
+      Assert.that(metrics != null, () -> "Metrics cannot be null");
     }
   }
 
@@ -30,35 +48,169 @@ public final class Ss2plMap<K, V extends DeepCloneable<V>> implements TransMap<K
     };
   }
 
+  /**
+   * An export in progress, which is handed the prior state of each item that is overwritten or
+   * deleted while the export is active, so that it may observe the item as at its own version.
+   */
+  static final class Export {
+    /** Stands in for the prior state of an item that did not exist. */
+    static final RawVersioned NONEXISTENT = new RawVersioned(0, null);
+
+    private final long version;
+
+    private final Map<Key, RawVersioned> preserved = new ConcurrentHashMap<>();
+
+    Export(long version) {
+      this.version = version;
+    }
+
+    /**
+     * Preserves the state of an item ahead of it being overwritten or deleted. Only the first
+     * write to the item since the start of the export is preserved.
+     */
+    void preserve(Key key, RawVersioned prior) {
+      preserved.putIfAbsent(key, prior != null ? prior : NONEXISTENT);
+    }
+  }
+
   private final Options options;
 
   private final Map<Key, RawVersioned> store = new ConcurrentHashMap<>();
 
-  private final StripedMutexes<UpgradeableMutex> mutexes;
+  /**
+   * Held in read mode by committers while applying their writes, and briefly in write mode when
+   * registering an export, so that an export begins at a version that has been fully applied and
+   * all subsequent commits observe it. Being reader-biased, the gate adds no shared cache line
+   * contention to commits.
+   */
+  private final UpgradeableMutex exportGate = new ReaderBiasedUpgradeableMutex();
+
+  private final List<Export> exports = new CopyOnWriteArrayList<>();
+
+  private final Mutexes<UpgradeableMutex> mutexes;
 
-  private final AtomicLong version = new AtomicLong();
+  private final PaddedAtomicLong version = new PaddedAtomicLong();
 
   public Ss2plMap(Options options) {
     options.validate();
     this.options = options;
-    mutexes = new StripedMutexes<>(options.mutexStripes, options.mutexFactory);
+    mutexes = switch (options.mutexGranularity) {
+      case STRIPED -> new StripedMutexes<>(options.mutexStripes, MeteredMutex.decorate(options.mutexFactory, options.metrics), options.stripeAdaptation, false,
+                                           Key.unwrappingHasher(options.keyHasher));
+      case PER_KEY -> new KeyedMutexes<>(MeteredMutex.decorate(options.mutexFactory, options.metrics), options.maxIdleMutexes);
+    };
     store.put(InternalKey.SIZE, new RawVersioned(0, new Size(0)));
   }
 
   @Override
   public Ss2plContext<K, V> transact() {
-    return new Ss2plContext<>(this, options.mutexTimeoutMs);
+    return transact(0);
+  }
+
+  @Override
+  public Ss2plContext<K, V> transact(int priority) {
+    Assert.that(priority >= 0, () -> "Priority must be equal to or greater than 0");
+    final var agedMutexTimeoutMs = Math.min(options.mutexTimeoutMs + priority * options.agingTimeoutMs, options.maxMutexTimeoutMs);
+    return new Ss2plContext<>(this, options.mutexTimeoutMs, agedMutexTimeoutMs, priority);
   }
 
   Map<Key, RawVersioned> getStore() {
     return store;
   }
 
+  /**
+   * Looks up the stored state of an item, disregarding tombstones.
+   *
+   * @param key The key.
+   * @return The stored state, or {@code null} if the item does not exist.
+   */
+  RawVersioned getLive(Key key) {
+    final var stored = store.get(key);
+    return stored != null && stored.hasValue() ? stored : null;
+  }
+
+  Journal getJournal() {
+    return options.journal;
+  }
+
+  @Override
+  public Metrics metrics() {
+    return options.metrics;
+  }
+
+  UpgradeableMutex getExportGate() {
+    return exportGate;
+  }
+
+  List<Export> getExports() {
+    return exports;
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Commits that overwrite or delete items while the export is active preserve the prior state
+   * of each such item for the export; deleted items are also retained in the store as tombstones
+   * until the export completes, so that the export's traversal of the store encounters every item
+   * that existed at the snapshot version.
+   */
+  @Override
+  public long exportSnapshot(BiConsumer<? super K, ? super V> consumer) throws MutexAcquisitionFailure {
+    final var gateOwner = new Object();
+    try {
+      exportGate.tryWriteAcquire(gateOwner, Long.MAX_VALUE);
+    } catch (InterruptedException e) {
+      throw new MutexAcquisitionFailure("Interrupted while acquiring export gate", e);
+    }
+
+    final Export export;
+    try {
+      export = new Export(version.get());
+      exports.add(export);
+    } finally {
+      exportGate.writeRelease(gateOwner);
+    }
+
+    try {
+      for (var entry : store.entrySet()) {
+        if (entry.getKey() instanceof KeyRef<?> keyRef) {
+          // a stored state that postdates the export is always preceded by a preserved one
+          final var stored = entry.getValue();
+          final var preserved = export.preserved.get(keyRef);
+          final var visible = preserved != null ? preserved : stored;
+          if (visible.hasValue()) {
+            consumer.accept(Unsafe.cast(keyRef.unwrap()), Unsafe.<V>cast(visible.getValue()).deepClone());
+          }
+        }
+      }
+      return export.version;
+    } finally {
+      exports.remove(export);
+      purgeTombstones();
+    }
+  }
+
+  /**
+   * Removes the tombstones that are no longer needed by any active export, i.e., those that were
+   * written at or before the version of every active export. The current version is read first,
+   * as an export that starts during the purge is at or after it.
+   */
+  private void purgeTombstones() {
+    final var currentVersion = version.get();
+    final var purgeVersion = exports.stream().mapToLong(export -> export.version).reduce(currentVersion, Math::min);
+    for (var entry : store.entrySet()) {
+      final var stored = entry.getValue();
+      if (!stored.hasValue() && stored.getVersion() <= purgeVersion) {
+        store.remove(entry.getKey(), stored);
+      }
+    }
+  }
+
   private final Debug<K, V> debug = new Debug<>() {
     @Override
     public Map<K, GenericVersioned<V>> dirtyView() {
       return store.entrySet().stream()
-          .filter(e -> e.getKey() instanceof KeyRef<?>)
+          .filter(e -> e.getKey() instanceof KeyRef<?> && e.getValue().hasValue())
           .collect(Collectors.toUnmodifiableMap(e -> Unsafe.cast(((KeyRef<?>) e.getKey()).unwrap()),
                                                 e -> e.getValue().generify()));
     }
@@ -68,6 +220,20 @@ public final class Ss2plMap<K, V extends DeepCloneable<V>> implements TransMap<K
       return store.size();
     }
 
+    @Override
+    public Optional<StripeStats> stripeStats() {
+      return mutexes instanceof StripedMutexes<?> striped ? Optional.of(striped.stats()) : Optional.empty();
+    }
+
+    @Override
+    public Optional<StripeDistribution> stripeDistribution() {
+      if (mutexes instanceof StripedMutexes<?> striped) {
+        return Optional.of(striped.distribution(store.keySet().stream().filter(key -> key instanceof KeyRef<?>).collect(Collectors.toList())));
+      } else {
+        return Optional.empty();
+      }
+    }
+
     @Override
     public long getVersion() {
       return version.get();
@@ -77,11 +243,42 @@ public final class Ss2plMap<K, V extends DeepCloneable<V>> implements TransMap<K
   @Override
   public Debug<K, V> debug() { return debug; }
 
-  StripedMutexes<UpgradeableMutex> getMutexes() {
+  Mutexes<UpgradeableMutex> getMutexes() {
     return mutexes;
   }
 
-  AtomicLong version() {
+  PaddedAtomicLong version() {
     return version;
   }
+
+  @Override
+  public void advanceVersion(long version) {
+    Assert.that(version >= 0, () -> "Version must be equal to or greater than 0");
+    if (Cas.compareAndSetConditionally(this.version, version, Cas.lowerThan(version)) < version && options.journal != null) {
+      options.journal.advance(version);
+    }
+  }
+
+  @Override
+  public void load(Map<? extends K, ? extends V> items) {
+    final var loadVersion = version.get();
+    var loaded = 0;
+    try {
+      for (var entry : items.entrySet()) {
+        Assert.that(Assert.isNotNull(entry.getValue()), NullValueAssertionError::new, () -> "Cannot load null value");
+        final var key = Key.wrap(entry.getKey());
+        if (store.putIfAbsent(key, new RawVersioned(loadVersion, entry.getValue())) != null) {
+          throw new IllegalLifecycleStateException(IllegalLifecycleStateException.Reason.INSERT_EXISTING, "Cannot load an existing item for key " + key);
+        }
+        loaded++;
+      }
+    } finally {
+      final var sizeChange = loaded;
+      store.computeIfPresent(InternalKey.SIZE, (__, stored) -> {
+        final var size = (Size) stored.getValue();
+        size.set(size.get() + sizeChange);
+        return stored;
+      });
+    }
+  }
 }
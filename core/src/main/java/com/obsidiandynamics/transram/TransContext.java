@@ -10,6 +10,20 @@ public interface TransContext<K, V extends DeepCloneable<V>> {
 
   Set<K> keys(Predicate<K> predicate) throws ConcurrentModeFailure;
 
+  /**
+   * Lazily scans the items whose keys satisfy the given predicate, yielding each key together
+   * with its value. Unlike {@link #keys}, the matching keys are not gathered up front; each item
+   * is read (with the same effect as {@link #read}) only when the cursor advances onto it, so
+   * that a caller looking for the first few matches reads only as many items as it visits.
+   * Items are visited in no particular order; those written by this transaction after the scan
+   * has begun may or may not be visited.
+   *
+   * @param predicate The key predicate.
+   * @return A {@link Cursor} over the matching items.
+   * @throws ConcurrentModeFailure If the transaction could not proceed.
+   */
+  Cursor<K, V> scan(Predicate<K> predicate) throws ConcurrentModeFailure;
+
   V read(K key) throws ConcurrentModeFailure;
 
   void insert(K key, V value) throws ConcurrentModeFailure;
@@ -18,8 +32,84 @@ public interface TransContext<K, V extends DeepCloneable<V>> {
 
   void delete(K key) throws ConcurrentModeFailure;
 
+  /**
+   * Writes the given value, inserting the item if it doesn't exist and replacing it otherwise.
+   * Unless the item has already been read or written in this transaction, whether it existed
+   * is only established at commit, so that the write takes no read dependency on the item.
+   * Observing the size of the map within the transaction establishes it earlier.
+   *
+   * @param key The key.
+   * @param value The value.
+   * @throws ConcurrentModeFailure If the transaction could not proceed.
+   */
+  void put(K key, V value) throws ConcurrentModeFailure;
+
+  /**
+   * Deletes the item if it exists, having no effect otherwise. Like {@link #put}, this takes
+   * no read dependency on the item.
+   *
+   * @param key The key.
+   * @throws ConcurrentModeFailure If the transaction could not proceed.
+   */
+  void remove(K key) throws ConcurrentModeFailure;
+
+  /**
+   * Updates an existing item by applying the given operator to its value. Unless the item has
+   * already been read or written in this transaction, the operator is deferred until commit,
+   * where it is applied to the latest committed value rather than a snapshot. Merging thus
+   * takes no read dependency on the item, so that transactions performing commutative updates
+   * (e.g., incrementing a counter) on the same item do not abort one another. Reading the item
+   * after merging into it applies the pending operators straight away.<p>
+   *
+   * The operator is given a private copy of the value, which it may modify in place; it must
+   * not return {@code null}. As a deferred operator may be applied to a different value than
+   * the one observed by the rest of the transaction, it should be free of side effects.
+   *
+   * @param key The key.
+   * @param operator The operator to apply.
+   * @throws ConcurrentModeFailure If the transaction could not proceed.
+   */
+  void merge(K key, UnaryOperator<V> operator) throws ConcurrentModeFailure;
+
   int size() throws ConcurrentModeFailure;
 
+  /**
+   * Reads the items under the given keys. Implementations may visit the keys in an order of
+   * their choosing, e.g., to acquire mutexes in a consistent order.
+   *
+   * @param keys The keys.
+   * @return The items that exist, by key.
+   * @throws ConcurrentModeFailure If the transaction could not proceed.
+   */
+  default Map<K, V> readAll(Collection<? extends K> keys) throws ConcurrentModeFailure {
+    final var values = new HashMap<K, V>();
+    for (var key : keys) {
+      final var value = read(key);
+      if (value != null) {
+        values.put(key, value);
+      }
+    }
+    return values;
+  }
+
+  default void insertAll(Map<? extends K, ? extends V> items) throws ConcurrentModeFailure {
+    for (var entry : items.entrySet()) {
+      insert(entry.getKey(), entry.getValue());
+    }
+  }
+
+  default void updateAll(Map<? extends K, ? extends V> items) throws ConcurrentModeFailure {
+    for (var entry : items.entrySet()) {
+      update(entry.getKey(), entry.getValue());
+    }
+  }
+
+  default void deleteAll(Collection<? extends K> keys) throws ConcurrentModeFailure {
+    for (var key : keys) {
+      delete(key);
+    }
+  }
+
   void rollback();
 
   State getState();
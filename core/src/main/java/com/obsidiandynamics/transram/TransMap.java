@@ -1,7 +1,76 @@
 package com.obsidiandynamics.transram;
 
+import java.util.*;
+import java.util.function.*;
+
 public interface TransMap<K, V extends DeepCloneable<V>> {
-  TransContext<K, V> transact();
+  default TransContext<K, V> transact() {
+    return transact(0);
+  }
+
+  /**
+   * Opens a transaction of the given priority. Conflicting transactions of a lower priority
+   * yield to it, where the engine permits. {@link Transact} raises the priority with each
+   * failed attempt, so that a transaction that repeatedly loses out eventually prevails.<p>
+   *
+   * A transaction of a nonzero priority may hold resources on behalf of its priority until
+   * it is committed or rolled back; it must not be abandoned while open.
+   *
+   * @param priority The priority, which must be equal to or greater than 0.
+   * @return The {@link TransContext}.
+   */
+  TransContext<K, V> transact(int priority);
+
+  /**
+   * Streams a consistent snapshot of every item in the map, as at the latest committed version,
+   * to the given consumer. Items are handed over one at a time, each value being a private copy,
+   * so that the snapshot is never materialised in full. The export takes no mutexes on the items
+   * and does not block writers; it may therefore run for an extended period alongside ordinary
+   * transactions. Items are visited in no particular order.
+   *
+   * @param consumer The consumer of keys and values.
+   * @return The version of the snapshot.
+   * @throws ConcurrentModeFailure If the snapshot could not be exported.
+   */
+  long exportSnapshot(BiConsumer<? super K, ? super V> consumer) throws ConcurrentModeFailure;
+
+  /**
+   * Advances the version of the map without committing a transaction, so that subsequent
+   * transactions commit at versions above the given one. Used when restoring the map from
+   * durable state, to continue the numbering of the versions recorded there. The
+   * {@link Journal}, if one is attached, is told to expect no commits at or below the given
+   * version. Has no effect if the map has already reached the given version.<p>
+   *
+   * Meant to be invoked before the map is put to use, while no transaction is committing.
+   *
+   * @param version The version to advance to.
+   */
+  void advanceVersion(long version);
+
+  /**
+   * Loads the given items into the map without a transaction, at the map's current version.
+   * Used when restoring the map from durable state, so that the items of a large snapshot may be
+   * loaded by several threads at once without contending on the size of the map. Loading is not
+   * journaled, and the map takes ownership of the given values.<p>
+   *
+   * Meant to be invoked before the map is put to use, while no transaction is open. None of the
+   * keys may exist in the map already.
+   *
+   * @param items The items to load.
+   * @throws IllegalLifecycleStateException If an item already exists, in which case the items
+   *         loaded before it remain in the map.
+   */
+  void load(Map<? extends K, ? extends V> items);
+
+  /**
+   * Obtains the metrics that the map reports to, which is also where {@link Transact} reports
+   * the retries of transactions on the map.
+   *
+   * @return The {@link Metrics}; {@link Metrics#NONE} by default.
+   */
+  default Metrics metrics() {
+    return Metrics.NONE;
+  }
 
   Debug<K, V> debug();
 }
@@ -2,7 +2,10 @@ package com.obsidiandynamics.transram;
 
 import com.obsidiandynamics.transram.TransContext.*;
 import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.contention.*;
+import com.obsidiandynamics.transram.jfr.*;
 
+import java.util.concurrent.*;
 import java.util.function.*;
 
 public final class Transact<K, V extends DeepCloneable<V>> {
@@ -16,10 +19,16 @@ public final class Transact<K, V extends DeepCloneable<V>> {
     Action perform(TransContext<K, V> ctx) throws ConcurrentModeFailure;
   }
 
+  private static final ContentionManager DEF_CONTENTION_MANAGER = new LinearBackoff();
+
   private final TransMap<K, V> map;
 
   private Consumer<ConcurrentModeFailure> onFailure = __ -> {};
 
+  private ContentionManager contentionManager = DEF_CONTENTION_MANAGER;
+
+  private int priority;
+
   private Transact(TransMap<K, V> map) {
     this.map = map;
   }
@@ -29,8 +38,42 @@ public final class Transact<K, V extends DeepCloneable<V>> {
     return this;
   }
 
+  public Transact<K, V> withContentionManager(ContentionManager contentionManager) {
+    this.contentionManager = contentionManager;
+    return this;
+  }
+
+  /**
+   * Sets the priority of the first attempt; each subsequent attempt is made at a priority that
+   * is one higher than the last, so that a transaction that keeps losing out to others
+   * eventually prevails. The default is {@code 0}.
+   *
+   * @param priority The initial priority, which must be equal to or greater than 0.
+   * @return This {@link Transact} instance, for chaining.
+   */
+  public Transact<K, V> withPriority(int priority) {
+    if (priority < 0) {
+      throw new IllegalArgumentException("Priority must be equal to or greater than 0");
+    }
+    this.priority = priority;
+    return this;
+  }
+
   public TransContext<K, V> run(Region<K, V> region) {
-    return run(map, region, onFailure);
+    return run(map, region, onFailure, contentionManager, priority);
+  }
+
+  /**
+   * Asynchronous variant of {@link #run(Region)}, which performs each attempt on the given
+   * executor and schedules retries on it, rather than blocking a thread for the duration of
+   * the backoff.
+   *
+   * @param region The transactional region.
+   * @param executor The executor on which attempts are performed.
+   * @return A {@link CompletableFuture} of the completed context.
+   */
+  public CompletableFuture<TransContext<K, V>> runAsync(Region<K, V> region, ScheduledExecutorService executor) {
+    return runAsync(map, region, onFailure, contentionManager, priority, executor);
   }
 
   public static <K, V extends DeepCloneable<V>> Transact<K, V> over(TransMap<K, V> map) {
@@ -42,33 +85,201 @@ public final class Transact<K, V extends DeepCloneable<V>> {
   }
 
   public static <K, V extends DeepCloneable<V>> TransContext<K, V> run(TransMap<K, V> map, Region<K, V> region, Consumer<ConcurrentModeFailure> onFailure) {
-    var maxBackoffMillis = 0;
-    while (true) {
-      try {
-        final var ctx = map.transact();
-        final var outcome = region.perform(ctx);
-        switch (outcome) {
-          case ROLLBACK_AND_RESET:
-            if (ctx.getState() != State.ROLLED_BACK) ctx.rollback();
-            break;
-          case ROLLBACK:
-            if (ctx.getState() != State.ROLLED_BACK) ctx.rollback();
-            return ctx;
-          case COMMIT:
-            if (ctx.getState() != State.COMMITTED) ctx.commit();
+    return run(map, region, onFailure, DEF_CONTENTION_MANAGER);
+  }
+
+  public static <K, V extends DeepCloneable<V>> TransContext<K, V> run(TransMap<K, V> map, Region<K, V> region, Consumer<ConcurrentModeFailure> onFailure,
+                                                                     ContentionManager contentionManager) {
+    return run(map, region, onFailure, contentionManager, 0);
+  }
+
+  private static <K, V extends DeepCloneable<V>> TransContext<K, V> run(TransMap<K, V> map, Region<K, V> region, Consumer<ConcurrentModeFailure> onFailure,
+                                                                      ContentionManager contentionManager, int initialPriority) {
+    final var session = contentionManager.begin();
+    try {
+      var priority = initialPriority;
+      while (true) {
+        final var startTime = System.nanoTime();
+        try {
+          final var ctx = attempt(map, region, priority);
+          if (ctx != null) {
             return ctx;
+          }
+        } catch (ConcurrentModeFailure concurrentModeFailure) {
+          priority++;
+          onFailure.accept(concurrentModeFailure);
+          map.metrics().onRetry(concurrentModeFailure);
+          final var backoffNanos = session.onFailure(concurrentModeFailure, System.nanoTime() - startTime);
+          emitRetry(map, concurrentModeFailure, priority, backoffNanos);
+          backOff(backoffNanos);
         }
-      } catch (ConcurrentModeFailure concurrentModeFailure) {
-        onFailure.accept(concurrentModeFailure);
-        final var rnd = Math.random();
-        try {
-          //noinspection BusyWait
-          Thread.sleep((int) (rnd * maxBackoffMillis), (int) (rnd * 1_000_000));
-          maxBackoffMillis++;
-        } catch (InterruptedException e) {
-          throw new RuntimeInterruptedException(e);
+      }
+    } finally {
+      session.onComplete();
+    }
+  }
+
+  /**
+   * Performs a single attempt at running the region. A context left open by a failing region
+   * is rolled back, releasing whatever it holds on behalf of its priority.
+   *
+   * @return The completed context, or {@code null} if the region elected to be reset.
+   */
+  private static <K, V extends DeepCloneable<V>> TransContext<K, V> attempt(TransMap<K, V> map, Region<K, V> region, int priority) throws ConcurrentModeFailure {
+    final var ctx = map.transact(priority);
+    final Region.Action outcome;
+    try {
+      outcome = region.perform(ctx);
+    } catch (Throwable e) {
+      // errors are rolled back too, lest the context go on holding mutexes, reservations and pins
+      if (ctx.getState() == State.OPEN) ctx.rollback();
+      throw e;
+    }
+    return switch (outcome) {
+      case ROLLBACK_AND_RESET -> {
+        if (ctx.getState() != State.ROLLED_BACK) ctx.rollback();
+        yield null;
+      }
+      case ROLLBACK -> {
+        if (ctx.getState() != State.ROLLED_BACK) ctx.rollback();
+        yield ctx;
+      }
+      case COMMIT -> {
+        if (ctx.getState() != State.COMMITTED) ctx.commit();
+        yield ctx;
+      }
+    };
+  }
+
+  /**
+   * Asynchronous variant of {@link #run(TransMap, Region, Consumer, ContentionManager)}. The
+   * returned future is completed exceptionally if the region, the failure handler or the
+   * contention manager throws, or if the executor rejects an attempt. A cancelled future
+   * abandons the transaction before its next attempt; an attempt that is already underway
+   * runs to completion.
+   *
+   * @param map The map.
+   * @param region The transactional region.
+   * @param onFailure Invoked upon each failed attempt.
+   * @param contentionManager Determines the backoff between attempts.
+   * @param executor The executor on which attempts are performed.
+   * @return A {@link CompletableFuture} of the completed context.
+   */
+  public static <K, V extends DeepCloneable<V>> CompletableFuture<TransContext<K, V>> runAsync(TransMap<K, V> map, Region<K, V> region,
+                                                                                              Consumer<ConcurrentModeFailure> onFailure,
+                                                                                              ContentionManager contentionManager,
+                                                                                              ScheduledExecutorService executor) {
+    return runAsync(map, region, onFailure, contentionManager, 0, executor);
+  }
+
+  private static <K, V extends DeepCloneable<V>> CompletableFuture<TransContext<K, V>> runAsync(TransMap<K, V> map, Region<K, V> region,
+                                                                                               Consumer<ConcurrentModeFailure> onFailure,
+                                                                                               ContentionManager contentionManager, int initialPriority,
+                                                                                               ScheduledExecutorService executor) {
+    final var asyncRun = new AsyncRun<>(map, region, onFailure, contentionManager.begin(), initialPriority, executor);
+    asyncRun.schedule(0);
+    return asyncRun.future;
+  }
+
+  private static final class AsyncRun<K, V extends DeepCloneable<V>> implements Runnable {
+    final CompletableFuture<TransContext<K, V>> future = new CompletableFuture<>();
+
+    private final TransMap<K, V> map;
+
+    private final Region<K, V> region;
+
+    private final Consumer<ConcurrentModeFailure> onFailure;
+
+    private final ContentionManager.Session session;
+
+    private final ScheduledExecutorService executor;
+
+    private int priority;
+
+    AsyncRun(TransMap<K, V> map, Region<K, V> region, Consumer<ConcurrentModeFailure> onFailure,
+             ContentionManager.Session session, int priority, ScheduledExecutorService executor) {
+      this.map = map;
+      this.region = region;
+      this.onFailure = onFailure;
+      this.session = session;
+      this.priority = priority;
+      this.executor = executor;
+    }
+
+    void schedule(long delayNanos) {
+      try {
+        if (delayNanos > 0) {
+          executor.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+          executor.execute(this);
         }
+      } catch (Throwable e) {
+        completeExceptionally(e);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        session.onComplete();
+        return;
+      }
+
+      final long backoffNanos;
+      try {
+        while (true) {
+          final var startTime = System.nanoTime();
+          try {
+            final var ctx = attempt(map, region, priority);
+            if (ctx != null) {
+              session.onComplete();
+              future.complete(ctx);
+              return;
+            }
+          } catch (ConcurrentModeFailure concurrentModeFailure) {
+            priority++;
+            onFailure.accept(concurrentModeFailure);
+            map.metrics().onRetry(concurrentModeFailure);
+            backoffNanos = session.onFailure(concurrentModeFailure, System.nanoTime() - startTime);
+            emitRetry(map, concurrentModeFailure, priority, backoffNanos);
+            break;
+          }
+        }
+      } catch (Throwable e) {
+        completeExceptionally(e);
+        return;
+      }
+      schedule(backoffNanos);
+    }
+
+    private void completeExceptionally(Throwable e) {
+      session.onComplete();
+      future.completeExceptionally(e);
+    }
+  }
+
+  private static void emitRetry(TransMap<?, ?> map, ConcurrentModeFailure failure, int priority, long backoffNanos) {
+    final var event = new TransactionRetryEvent();
+    if (event.isEnabled()) {
+      event.engine = map.getClass().getSimpleName();
+      event.priority = priority;
+      event.reason = failure.getClass().getSimpleName();
+      event.message = failure.getMessage();
+      event.backoff = backoffNanos;
+      event.commit();
+    }
+  }
+
+  private static void backOff(long backoffNanos) {
+    try {
+      if (backoffNanos > 0) {
+        //noinspection BusyWait
+        Thread.sleep(backoffNanos / 1_000_000, (int) (backoffNanos % 1_000_000));
+      } else if (Thread.interrupted()) {
+        throw new InterruptedException();
       }
+    } catch (InterruptedException e) {
+      throw new RuntimeInterruptedException(e);
     }
   }
 }
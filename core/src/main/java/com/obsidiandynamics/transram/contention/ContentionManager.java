@@ -0,0 +1,30 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+
+/**
+ * Decides how a transaction that has failed with a {@link ConcurrentModeFailure} should
+ * back off before it is retried. A {@link Session} is begun for each transaction, spanning
+ * all of its attempts, so that a policy may account for the work that the transaction has
+ * invested so far.
+ */
+@FunctionalInterface
+public interface ContentionManager {
+  interface Session {
+    /**
+     * Invoked when an attempt fails.
+     *
+     * @param failure The failure.
+     * @param workNanos The time spent on the failed attempt.
+     * @return The time to back off for, in nanoseconds; {@code 0} to retry immediately.
+     */
+    long onFailure(ConcurrentModeFailure failure, long workNanos);
+
+    /**
+     * Invoked once the transaction has completed, irrespective of its outcome.
+     */
+    default void onComplete() {}
+  }
+
+  Session begin();
+}
@@ -0,0 +1,59 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Backs off for a uniformly random time (i.e., full jitter) whose upper bound doubles with
+ * every failed attempt, up to a cap.
+ */
+public final class ExponentialBackoff implements ContentionManager {
+  public static class Options {
+    public long baseBackoffNanos = 10_000;
+    public long maxBackoffNanos = 10_000_000;
+
+    void validate() {
+      Assert.that(baseBackoffNanos > 0, () -> "Base backoff must exceed 0");
+      Assert.that(maxBackoffNanos >= baseBackoffNanos, () -> "Maximum backoff cannot be less than the base backoff");
+    }
+  }
+
+  private final Options options;
+
+  public ExponentialBackoff() {
+    this(new Options());
+  }
+
+  public ExponentialBackoff(Options options) {
+    options.validate();
+    this.options = options;
+  }
+
+  @Override
+  public Session begin() {
+    return new Session() {
+      private int attempts;
+
+      @Override
+      public long onFailure(ConcurrentModeFailure failure, long workNanos) {
+        return jitter(options.baseBackoffNanos, options.maxBackoffNanos, attempts++);
+      }
+    };
+  }
+
+  /**
+   * Draws a random backoff in the range 0..min(<i>base</i> × 2<sup><i>exponent</i></sup>, <i>max</i>).
+   */
+  static long jitter(long baseNanos, long maxNanos, int exponent) {
+    final var upperBound = exponent >= Long.numberOfLeadingZeros(baseNanos) - 1 ? maxNanos : Math.min(baseNanos << exponent, maxNanos);
+    return ThreadLocalRandom.current().nextLong(upperBound + 1);
+  }
+
+  @Override
+  public String toString() {
+    return ExponentialBackoff.class.getSimpleName() + "[baseBackoffNanos=" + options.baseBackoffNanos +
+        ", maxBackoffNanos=" + options.maxBackoffNanos + ']';
+  }
+}
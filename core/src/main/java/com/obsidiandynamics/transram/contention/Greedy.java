@@ -0,0 +1,59 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.util.*;
+
+/**
+ * The Greedy (timestamp) policy, which prioritises transactions by age. The time at which a
+ * transaction first started is retained across its attempts; the oldest failed transaction
+ * is retried immediately, while younger ones back off exponentially. As a transaction only
+ * gets older, it eventually becomes the oldest, which precludes starvation.
+ */
+public final class Greedy extends PrioritizedContentionManager {
+  public static class Options {
+    public long baseBackoffNanos = 10_000;
+    public long maxBackoffNanos = 10_000_000;
+
+    void validate() {
+      Assert.that(baseBackoffNanos > 0, () -> "Base backoff must exceed 0");
+      Assert.that(maxBackoffNanos >= baseBackoffNanos, () -> "Maximum backoff cannot be less than the base backoff");
+    }
+  }
+
+  private final Options options;
+
+  public Greedy() {
+    this(new Options());
+  }
+
+  public Greedy(Options options) {
+    options.validate();
+    this.options = options;
+  }
+
+  @Override
+  public Session begin() {
+    return new PrioritizedSession() {
+      private boolean started;
+
+      @Override
+      void prioritize(long workNanos) {
+        if (!started) {
+          started = true;
+          // an earlier start time yields a higher priority
+          priority = -(System.nanoTime() - workNanos);
+        }
+      }
+
+      @Override
+      long yieldNanos(int yields) {
+        return ExponentialBackoff.jitter(options.baseBackoffNanos, options.maxBackoffNanos, yields - 1);
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Greedy.class.getSimpleName() + "[baseBackoffNanos=" + options.baseBackoffNanos +
+        ", maxBackoffNanos=" + options.maxBackoffNanos + ']';
+  }
+}
@@ -0,0 +1,51 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.util.*;
+
+/**
+ * The Karma policy, which prioritises transactions by the work they have invested. A
+ * transaction accrues karma for the time spent on each failed attempt and, as it backs off
+ * for a fixed interval upon losing to a competitor, for the time spent waiting. A transaction
+ * that keeps losing therefore eventually outranks its competitors.
+ */
+public final class Karma extends PrioritizedContentionManager {
+  public static class Options {
+    public long backoffNanos = 100_000;
+
+    void validate() {
+      Assert.that(backoffNanos > 0, () -> "Backoff must exceed 0");
+    }
+  }
+
+  private final Options options;
+
+  public Karma() {
+    this(new Options());
+  }
+
+  public Karma(Options options) {
+    options.validate();
+    this.options = options;
+  }
+
+  @Override
+  public Session begin() {
+    return new PrioritizedSession() {
+      @Override
+      void prioritize(long workNanos) {
+        priority += workNanos;
+      }
+
+      @Override
+      long yieldNanos(int yields) {
+        priority += options.backoffNanos;
+        return options.backoffNanos;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Karma.class.getSimpleName() + "[backoffNanos=" + options.backoffNanos + ']';
+  }
+}
@@ -0,0 +1,33 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Backs off for a random time whose upper bound grows by a millisecond with every failed
+ * attempt, irrespective of the type of failure.
+ */
+public final class LinearBackoff implements ContentionManager {
+  private static final long NANOS_PER_MILLI = 1_000_000;
+
+  @Override
+  public Session begin() {
+    return new Session() {
+      private int maxBackoffMillis;
+
+      @Override
+      public long onFailure(ConcurrentModeFailure failure, long workNanos) {
+        final var rnd = ThreadLocalRandom.current().nextDouble();
+        final var backoffNanos = (long) (rnd * maxBackoffMillis) * NANOS_PER_MILLI + (long) (rnd * NANOS_PER_MILLI);
+        maxBackoffMillis++;
+        return backoffNanos;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return LinearBackoff.class.getSimpleName();
+  }
+}
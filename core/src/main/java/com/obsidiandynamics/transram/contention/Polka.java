@@ -0,0 +1,55 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.util.*;
+
+/**
+ * The Polka policy, which combines the priorities of {@link Karma} with randomised
+ * exponential backoff. Transactions are prioritised by the work they have invested; a
+ * transaction that loses to a competitor backs off for a random time whose upper bound
+ * doubles each time it yields, accruing the time waited as karma.
+ */
+public final class Polka extends PrioritizedContentionManager {
+  public static class Options {
+    public long baseBackoffNanos = 10_000;
+    public long maxBackoffNanos = 10_000_000;
+
+    void validate() {
+      Assert.that(baseBackoffNanos > 0, () -> "Base backoff must exceed 0");
+      Assert.that(maxBackoffNanos >= baseBackoffNanos, () -> "Maximum backoff cannot be less than the base backoff");
+    }
+  }
+
+  private final Options options;
+
+  public Polka() {
+    this(new Options());
+  }
+
+  public Polka(Options options) {
+    options.validate();
+    this.options = options;
+  }
+
+  @Override
+  public Session begin() {
+    return new PrioritizedSession() {
+      @Override
+      void prioritize(long workNanos) {
+        priority += workNanos;
+      }
+
+      @Override
+      long yieldNanos(int yields) {
+        final var backoffNanos = ExponentialBackoff.jitter(options.baseBackoffNanos, options.maxBackoffNanos, yields - 1);
+        priority += backoffNanos;
+        return backoffNanos;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Polka.class.getSimpleName() + "[baseBackoffNanos=" + options.baseBackoffNanos +
+        ", maxBackoffNanos=" + options.maxBackoffNanos + ']';
+  }
+}
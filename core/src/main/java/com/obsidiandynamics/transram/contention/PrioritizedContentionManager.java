@@ -0,0 +1,78 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Base for policies that arbitrate between competing transactions by priority. As a
+ * {@link ConcurrentModeFailure} does not identify the transaction that caused it, a failed
+ * transaction competes with all others that have failed and have yet to complete: the
+ * transaction of the highest priority is retried immediately, while the others back off.<p>
+ *
+ * A transaction only enters the competition upon its first failure, so that transactions
+ * that succeed on their first attempt incur no bookkeeping.
+ */
+abstract class PrioritizedContentionManager implements ContentionManager {
+  private final Set<PrioritizedSession> competitors = ConcurrentHashMap.newKeySet();
+
+  abstract class PrioritizedSession implements Session {
+    volatile long priority;
+
+    private boolean competing;
+
+    private int yields;
+
+    /**
+     * Updates the priority of this session in light of a failed attempt.
+     *
+     * @param workNanos The time spent on the failed attempt.
+     */
+    abstract void prioritize(long workNanos);
+
+    /**
+     * Obtains the time to back off for after losing to a higher-priority competitor.
+     *
+     * @param yields The number of times this session has yielded, including this time.
+     * @return The backoff time, in nanoseconds.
+     */
+    abstract long yieldNanos(int yields);
+
+    @Override
+    public final long onFailure(ConcurrentModeFailure failure, long workNanos) {
+      prioritize(workNanos);
+      if (!competing) {
+        competing = true;
+        competitors.add(this);
+      }
+
+      if (outranksCompetitors()) {
+        return 0;
+      } else {
+        return yieldNanos(++yields);
+      }
+    }
+
+    private boolean outranksCompetitors() {
+      final var priority = this.priority;
+      for (var competitor : competitors) {
+        if (competitor.priority > priority) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public final void onComplete() {
+      if (competing) {
+        competitors.remove(this);
+      }
+    }
+  }
+
+  final int numCompetitors() {
+    return competitors.size();
+  }
+}
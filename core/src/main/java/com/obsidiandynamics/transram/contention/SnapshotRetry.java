@@ -0,0 +1,42 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+
+/**
+ * Retries a transaction immediately upon a {@link BrokenSnapshotFailure}, deferring to
+ * another policy for all other failures. A broken snapshot indicates that the transaction
+ * read from a version that has since been evicted, rather than a conflict with a concurrent
+ * writer; a fresh attempt will read from a newer snapshot, so backing off gains nothing.
+ */
+public final class SnapshotRetry implements ContentionManager {
+  private final ContentionManager delegate;
+
+  public SnapshotRetry(ContentionManager delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Session begin() {
+    final var delegateSession = delegate.begin();
+    return new Session() {
+      @Override
+      public long onFailure(ConcurrentModeFailure failure, long workNanos) {
+        if (failure instanceof BrokenSnapshotFailure) {
+          return 0;
+        } else {
+          return delegateSession.onFailure(failure, workNanos);
+        }
+      }
+
+      @Override
+      public void onComplete() {
+        delegateSession.onComplete();
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return SnapshotRetry.class.getSimpleName() + "[delegate=" + delegate + ']';
+  }
+}
@@ -0,0 +1,439 @@
+package com.obsidiandynamics.transram.feed;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.stream.*;
+
+/**
+ * A {@link Journal} that publishes the write set of each committed transaction to any number of
+ * {@link Flow.Subscriber}s, in the order of commit versions.<p>
+ *
+ * Committers hand their write sets over without waiting on subscribers: write sets appended
+ * out of version order are held back until the preceding versions arrive, then queued to each
+ * subscriber as a {@link Change}. Transactions that wrote nothing advance the sequence but are
+ * not published. Each subscriber is served on the configured executor, no faster than it
+ * {@link Flow.Subscription#request requests}. A subscriber that lets more than
+ * {@link Options#bufferCapacity} changes accumulate is terminated with a
+ * {@link BufferOverflowException}, rather than being allowed to stall committers or miss
+ * changes. Likewise, should a version fail to arrive while more than
+ * {@link Options#maxHeldBack} later write sets are held back for it, as when a commit fails
+ * after being assigned its version, the feed is terminated with a
+ * {@link MissingVersionException}.<p>
+ *
+ * The feed relies on seeing every commit version from 1 onwards, save for those that the map
+ * skips by {@link TransMap#advanceVersion advancing its version}, and must therefore be attached
+ * to a map via its options when the map is created. Subscribers receive the changes committed
+ * after they subscribe.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public final class ChangeFeed<K, V extends DeepCloneable<V>> implements Journal, Flow.Publisher<ChangeFeed.Change<K, V>>, AutoCloseable {
+  public static class Options {
+    /** The executor on which subscribers are signalled. */
+    public Executor executor = ForkJoinPool.commonPool();
+
+    /** Maximum number of undelivered changes per subscriber. */
+    public int bufferCapacity = Flow.defaultBufferSize();
+
+    /** Maximum number of write sets held back awaiting an earlier version. */
+    public int maxHeldBack = 1024;
+
+    void validate() {
+      Assert.that(executor != null, () -> "Executor cannot be null");
+      Assert.that(bufferCapacity > 0, () -> "Buffer capacity must exceed 0");
+      Assert.that(maxHeldBack > 0, () -> "Maximum number of held back write sets must exceed 0");
+    }
+  }
+
+  /**
+   * The write set of a committed transaction.
+   *
+   * @param <K> Key type.
+   * @param <V> Value type.
+   */
+  public static final class Change<K, V> {
+    private final long version;
+
+    private final Map<K, V> changes;
+
+    Change(long version, Map<K, V> changes) {
+      this.version = version;
+      this.changes = changes;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Obtains the new values of the written items, by key, where a {@code null} value denotes a
+     * deletion. Each subscriber is given its own copies of the values.
+     *
+     * @return An unmodifiable map of changes.
+     */
+    public Map<K, V> getChanges() {
+      return changes;
+    }
+
+    @Override
+    public String toString() {
+      return Change.class.getSimpleName() + "[version=" + version + ", changes=" + changes + ']';
+    }
+  }
+
+  /** Thrown to a subscriber that has fallen too far behind the feed. */
+  public static final class BufferOverflowException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    BufferOverflowException(String m) {
+      super(m);
+    }
+  }
+
+  /** Thrown to all subscribers when a commit version never reaches the feed. */
+  public static final class MissingVersionException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    MissingVersionException(String m) {
+      super(m);
+    }
+  }
+
+  private final Executor executor;
+
+  private final int bufferCapacity;
+
+  private final int maxHeldBack;
+
+  private final Lock lock = new ReentrantLock();
+
+  /** Write sets that arrived ahead of their turn. Guarded by {@link #lock}. */
+  private final Map<Long, Map<Object, DeepCloneable<?>>> pending = new HashMap<>();
+
+  /** The next version to be published. Guarded by {@link #lock}. */
+  private long nextVersion = 1;
+
+  /** Guarded by {@link #lock}. */
+  private boolean closed;
+
+  /** The cause of the feed's termination, or {@code null} if not terminated. Guarded by {@link #lock}. */
+  private MissingVersionException failure;
+
+  private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  public ChangeFeed(Options options) {
+    options.validate();
+    executor = options.executor;
+    bufferCapacity = options.bufferCapacity;
+    maxHeldBack = options.maxHeldBack;
+  }
+
+  @Override
+  public Receipt append(long version, Map<Object, DeepCloneable<?>> changes) {
+    final MissingVersionException missing;
+    lock.lock();
+    try {
+      if (closed) {
+        return Receipt.NONE;
+      }
+      pending.put(version, changes);
+      publishPending();
+      if (pending.size() <= maxHeldBack) {
+        return Receipt.NONE;
+      }
+      missing = new MissingVersionException("Version " + nextVersion + " did not arrive ahead of " + pending.size() + " later versions");
+      failure = missing;
+      closed = true;
+      pending.clear();
+    } finally {
+      lock.unlock();
+    }
+    for (var subscription : subscriptions) {
+      subscription.fail(missing);
+    }
+    subscriptions.clear();
+    return Receipt.NONE;
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Write sets held back at or below the given version are published in version order, without
+   * waiting for the skipped versions, which will not arrive.
+   */
+  @Override
+  public void advance(long version) {
+    lock.lock();
+    try {
+      if (closed || version < nextVersion) {
+        return;
+      }
+      final var skipped = pending.keySet().stream().filter(pendingVersion -> pendingVersion <= version).sorted().collect(Collectors.toList());
+      for (var skippedVersion : skipped) {
+        publish(skippedVersion, pending.remove(skippedVersion));
+      }
+      nextVersion = version + 1;
+      publishPending();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Publishes the held-back write sets that have become next in line. Requires {@link #lock}.
+   */
+  private void publishPending() {
+    Map<Object, DeepCloneable<?>> next;
+    while ((next = pending.remove(nextVersion)) != null) {
+      publish(nextVersion, next);
+      nextVersion++;
+    }
+  }
+
+  private void publish(long version, Map<Object, DeepCloneable<?>> changes) {
+    if (!changes.isEmpty()) {
+      final var change = new Change<>(version, changes);
+      for (var subscription : subscriptions) {
+        subscription.offer(change);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Change<K, V>> subscriber) {
+    Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+    final var subscription = new ChangeSubscription(subscriber);
+    lock.lock();
+    try {
+      if (failure != null) {
+        subscription.fail(failure);
+      } else if (closed) {
+        subscription.complete();
+      } else {
+        subscriptions.add(subscription);
+      }
+    } finally {
+      lock.unlock();
+    }
+    subscription.schedule();
+  }
+
+  /**
+   * Stops publishing. Subscribers are completed once they have been delivered the changes
+   * already queued for them; changes committed after closing are not published. Has no effect
+   * if the feed has already been closed, or terminated by a {@link MissingVersionException}.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pending.clear();
+    } finally {
+      lock.unlock();
+    }
+    for (var subscription : subscriptions) {
+      subscription.complete();
+    }
+    subscriptions.clear();
+  }
+
+  /**
+   * Signals a single subscriber. Signals are issued by at most one task at a time, using a
+   * work-in-progress counter to coalesce the requests to run.
+   */
+  private final class ChangeSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super Change<K, V>> subscriber;
+
+    private final AtomicInteger workInProgress = new AtomicInteger();
+
+    private final Lock stateLock = new ReentrantLock();
+
+    /** Guarded by {@link #stateLock}. */
+    private final ArrayDeque<Change<K, V>> buffer = new ArrayDeque<>();
+
+    /** Guarded by {@link #stateLock}. */
+    private long demand;
+
+    /** Guarded by {@link #stateLock}. */
+    private boolean completing;
+
+    /** Guarded by {@link #stateLock}. */
+    private Throwable error;
+
+    /** Guarded by {@link #stateLock}. */
+    private boolean done;
+
+    /** Accessed only by the signalling task. */
+    private boolean subscribed;
+
+    ChangeSubscription(Flow.Subscriber<? super Change<K, V>> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    void offer(Change<?, ?> change) {
+      stateLock.lock();
+      try {
+        if (done || error != null) {
+          return;
+        }
+        if (buffer.size() == bufferCapacity) {
+          terminate(new BufferOverflowException("Subscriber fell behind by more than " + bufferCapacity + " changes"));
+        } else {
+          buffer.add(Unsafe.cast(change));
+        }
+      } finally {
+        stateLock.unlock();
+      }
+      schedule();
+    }
+
+    /**
+     * Terminates the subscription with the given error, which is signalled in place of any
+     * undelivered changes.
+     */
+    void fail(Throwable cause) {
+      stateLock.lock();
+      try {
+        terminate(cause);
+      } finally {
+        stateLock.unlock();
+      }
+      schedule();
+    }
+
+    /**
+     * Discards the undelivered changes and records the error to be signalled, unless the
+     * subscription has already terminated. Requires {@link #stateLock}.
+     */
+    private void terminate(Throwable cause) {
+      if (!done && error == null) {
+        buffer.clear();
+        error = cause;
+      }
+    }
+
+    void complete() {
+      stateLock.lock();
+      try {
+        completing = true;
+      } finally {
+        stateLock.unlock();
+      }
+      schedule();
+    }
+
+    @Override
+    public void request(long n) {
+      stateLock.lock();
+      try {
+        if (n <= 0) {
+          terminate(new IllegalArgumentException("Requested " + n + " changes; must request a positive number"));
+        } else {
+          demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        }
+      } finally {
+        stateLock.unlock();
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      stateLock.lock();
+      try {
+        done = true;
+        buffer.clear();
+      } finally {
+        stateLock.unlock();
+      }
+      subscriptions.remove(this);
+    }
+
+    void schedule() {
+      if (workInProgress.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (!subscribed) {
+        subscribed = true;
+        try {
+          subscriber.onSubscribe(this);
+        } catch (Throwable e) {
+          fail(e);
+        }
+      }
+
+      var missed = 1;
+      do {
+        while (true) {
+          final Change<K, V> next;
+          final Throwable terminalError;
+          stateLock.lock();
+          try {
+            if (done) {
+              break;
+            } else if (error != null) {
+              done = true;
+              next = null;
+              terminalError = error;
+            } else if (demand > 0 && !buffer.isEmpty()) {
+              demand--;
+              next = buffer.remove();
+              terminalError = null;
+            } else if (completing && buffer.isEmpty()) {
+              done = true;
+              next = null;
+              terminalError = null;
+            } else {
+              break;
+            }
+          } finally {
+            stateLock.unlock();
+          }
+
+          if (next != null) {
+            try {
+              subscriber.onNext(copyOf(next));
+            } catch (Throwable e) {
+              fail(e);
+            }
+          } else {
+            subscriptions.remove(this);
+            if (terminalError != null) {
+              subscriber.onError(terminalError);
+            } else {
+              subscriber.onComplete();
+            }
+          }
+        }
+        missed = workInProgress.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+
+  /**
+   * Copies a change for delivery, so that subscribers cannot alter the values held in the map
+   * or seen by other subscribers.
+   */
+  private Change<K, V> copyOf(Change<K, V> change) {
+    final var values = new HashMap<K, V>(change.changes.size() * 2);
+    for (var entry : change.changes.entrySet()) {
+      final V value = Unsafe.cast(entry.getValue());
+      values.put(Unsafe.cast(entry.getKey()), value != null ? value.deepClone() : null);
+    }
+    return new Change<>(change.version, Collections.unmodifiableMap(values));
+  }
+}
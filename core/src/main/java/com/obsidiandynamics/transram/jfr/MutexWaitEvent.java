@@ -0,0 +1,34 @@
+package com.obsidiandynamics.transram.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Emitted when a transaction waits for an item mutex. By default, only waits of 10 ms or longer
+ * are recorded.
+ */
+@Name("com.obsidiandynamics.transram.MutexWait")
+@Label("Mutex Wait")
+@Category({"TransRAM", "Mutex"})
+@Description("A transaction waited for an item mutex")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class MutexWaitEvent extends Event {
+  @Label("Engine")
+  @Description("The simple class name of the map")
+  public String engine;
+
+  @Label("Stripe")
+  @Description("The stripe of the mutex, or the ordinal of a per-key mutex")
+  public long stripe;
+
+  @Label("Mode")
+  @Description("READ, WRITE or UPGRADE")
+  public String mode;
+
+  @Label("Priority")
+  public int priority;
+
+  @Label("Acquired")
+  @Description("Whether the mutex was acquired, as opposed to timing out")
+  public boolean acquired;
+}
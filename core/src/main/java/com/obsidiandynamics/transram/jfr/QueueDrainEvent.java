@@ -0,0 +1,24 @@
+package com.obsidiandynamics.transram.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Emitted when an {@link com.obsidiandynamics.transram.SrmlMap} drains completed transactions
+ * from its queue, advancing the safe read version and trimming version chains. By default,
+ * only drains taking 1 ms or longer are recorded.
+ */
+@Name("com.obsidiandynamics.transram.QueueDrain")
+@Label("Queue Drain")
+@Category({"TransRAM", "SRML"})
+@Description("Completed transactions were drained from the SRML queue")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class QueueDrainEvent extends Event {
+  @Label("Drained")
+  @Description("The number of transactions drained")
+  public int drained;
+
+  @Label("Highest Version")
+  @Description("The highest version drained, to which the safe read version was advanced")
+  public long highestVersion;
+}
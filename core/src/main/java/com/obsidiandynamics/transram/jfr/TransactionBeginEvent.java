@@ -0,0 +1,26 @@
+package com.obsidiandynamics.transram.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Emitted when a transaction is opened. Disabled by default, being as frequent as transactions
+ * themselves.
+ */
+@Name("com.obsidiandynamics.transram.TransactionBegin")
+@Label("Transaction Begin")
+@Category({"TransRAM", "Transaction"})
+@Description("A transaction was opened")
+@Enabled(false)
+@StackTrace(false)
+public final class TransactionBeginEvent extends Event {
+  @Label("Engine")
+  @Description("The simple class name of the map")
+  public String engine;
+
+  @Label("Priority")
+  public int priority;
+
+  @Label("Read Version")
+  @Description("The version that the transaction reads at, or -1 if it reads the latest committed values")
+  public long readVersion;
+}
@@ -0,0 +1,31 @@
+package com.obsidiandynamics.transram.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Emitted when a transaction commits, spanning its commit, including the acquisition of
+ * mutexes and the wait on the journal. By default, only commits taking 1 ms or longer are
+ * recorded.
+ */
+@Name("com.obsidiandynamics.transram.TransactionCommit")
+@Label("Transaction Commit")
+@Category({"TransRAM", "Transaction"})
+@Description("A transaction was committed")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class TransactionCommitEvent extends Event {
+  @Label("Engine")
+  @Description("The simple class name of the map")
+  public String engine;
+
+  @Label("Priority")
+  public int priority;
+
+  @Label("Version")
+  @Description("The version of the commit")
+  public long version;
+
+  @Label("Items")
+  @Description("The number of items read or written")
+  public int items;
+}
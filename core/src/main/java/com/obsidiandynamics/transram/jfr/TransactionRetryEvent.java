@@ -0,0 +1,35 @@
+package com.obsidiandynamics.transram.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Emitted by {@link com.obsidiandynamics.transram.Transact} when an attempt fails and the
+ * transaction is about to be retried.
+ */
+@Name("com.obsidiandynamics.transram.TransactionRetry")
+@Label("Transaction Retry")
+@Category({"TransRAM", "Transaction"})
+@Description("A failed transaction is being retried")
+@StackTrace(false)
+public final class TransactionRetryEvent extends Event {
+  @Label("Engine")
+  @Description("The simple class name of the map")
+  public String engine;
+
+  @Label("Priority")
+  @Description("The priority of the next attempt")
+  public int priority;
+
+  @Label("Reason")
+  @Description("The simple class name of the failure")
+  public String reason;
+
+  @Label("Message")
+  @Description("The message of the failure")
+  public String message;
+
+  @Label("Backoff")
+  @Description("The time that the next attempt is deferred by")
+  @Timespan(Timespan.NANOSECONDS)
+  public long backoff;
+}
@@ -0,0 +1,28 @@
+package com.obsidiandynamics.transram.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Emitted when a transaction is rolled back, whether on request or as a result of a failure.
+ */
+@Name("com.obsidiandynamics.transram.TransactionRollback")
+@Label("Transaction Rollback")
+@Category({"TransRAM", "Transaction"})
+@Description("A transaction was rolled back")
+@StackTrace(false)
+public final class TransactionRollbackEvent extends Event {
+  @Label("Engine")
+  @Description("The simple class name of the map")
+  public String engine;
+
+  @Label("Priority")
+  public int priority;
+
+  @Label("Reason")
+  @Description("The simple class name of the failure that caused the rollback, or 'Requested' if there was none")
+  public String reason;
+
+  @Label("Message")
+  @Description("The message of the failure, if any")
+  public String message;
+}
@@ -0,0 +1,124 @@
+package com.obsidiandynamics.transram.metrics;
+
+import com.obsidiandynamics.transram.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * {@link Metrics} that accumulate counts and {@link Histogram}s for the lifetime of the map,
+ * using {@link LongAdder}s throughout so that recording does not become a point of contention
+ * among transactions. Counts may be read at any time, e.g., to be polled by a monitoring agent.
+ */
+public final class CumulativeMetrics implements Metrics {
+  private final LongAdder commits = new LongAdder();
+
+  private final LongAdder rollbacks = new LongAdder();
+
+  private final LongAdder retries = new LongAdder();
+
+  private final LongAdder mutexTimeouts = new LongAdder();
+
+  private final Map<Class<? extends ConcurrentModeFailure>, LongAdder> aborts = new ConcurrentHashMap<>();
+
+  private final Histogram commitLatency = new Histogram();
+
+  private final Histogram mutexWait = new Histogram();
+
+  private final Histogram chainLength = new Histogram();
+
+  @Override
+  public void onCommit(long latencyNanos) {
+    commits.increment();
+    commitLatency.record(latencyNanos);
+  }
+
+  @Override
+  public void onRollback() {
+    rollbacks.increment();
+  }
+
+  @Override
+  public void onAbort(ConcurrentModeFailure failure) {
+    aborts.computeIfAbsent(failure.getClass(), __ -> new LongAdder()).increment();
+  }
+
+  @Override
+  public void onRetry(ConcurrentModeFailure failure) {
+    retries.increment();
+  }
+
+  @Override
+  public void onMutexWait(long waitNanos, boolean acquired) {
+    mutexWait.record(waitNanos);
+    if (!acquired) {
+      mutexTimeouts.increment();
+    }
+  }
+
+  @Override
+  public void onChainLength(int length) {
+    chainLength.record(length);
+  }
+
+  public long getCommits() {
+    return commits.sum();
+  }
+
+  public long getRollbacks() {
+    return rollbacks.sum();
+  }
+
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  public long getMutexTimeouts() {
+    return mutexTimeouts.sum();
+  }
+
+  /**
+   * Obtains the number of aborts by the type of failure that caused them.
+   *
+   * @return A point-in-time copy of the abort counts, omitting failure types that haven't occurred.
+   */
+  public Map<Class<? extends ConcurrentModeFailure>, Long> getAborts() {
+    final var copy = new HashMap<Class<? extends ConcurrentModeFailure>, Long>();
+    aborts.forEach((type, count) -> copy.put(type, count.sum()));
+    return copy;
+  }
+
+  /**
+   * Obtains the number of aborts caused by the given type of failure.
+   *
+   * @param type The failure type.
+   * @return The number of aborts.
+   */
+  public long getAborts(Class<? extends ConcurrentModeFailure> type) {
+    final var count = aborts.get(type);
+    return count != null ? count.sum() : 0;
+  }
+
+  /** Time from opening a transaction to completing its commit, in nanoseconds. */
+  public Histogram getCommitLatency() {
+    return commitLatency;
+  }
+
+  /** Time taken by each attempt to acquire a mutex, in nanoseconds. */
+  public Histogram getMutexWait() {
+    return mutexWait;
+  }
+
+  /** Length of version chains as values are committed; only recorded by {@link SrmlMap}. */
+  public Histogram getChainLength() {
+    return chainLength;
+  }
+
+  @Override
+  public String toString() {
+    return CumulativeMetrics.class.getSimpleName() + "[commits=" + getCommits() + ", rollbacks=" + getRollbacks() +
+        ", retries=" + getRetries() + ", aborts=" + getAborts() + ", mutexTimeouts=" + getMutexTimeouts() +
+        ", commitLatency=" + commitLatency + ", mutexWait=" + mutexWait + ", chainLength=" + chainLength + ']';
+  }
+}
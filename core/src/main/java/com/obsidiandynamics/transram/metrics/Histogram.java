@@ -0,0 +1,100 @@
+package com.obsidiandynamics.transram.metrics;
+
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A concurrent histogram of non-negative values, in buckets whose bounds are successive powers
+ * of two. Every bucket is a {@link LongAdder}, so that threads recording at the same time seldom
+ * contend; in exchange, percentiles are only resolved to within a factor of two.<p>
+ *
+ * Reads are not atomic with respect to concurrent recording, and may therefore be mutually
+ * inconsistent by the values recorded in the meantime.
+ */
+public final class Histogram {
+  /** Bucket {@code i} holds values in the range [2<sup>i−1</sup>, 2<sup>i</sup>), with zero in bucket 0. */
+  private static final int NUM_BUCKETS = 64;
+
+  private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+  public Histogram() {
+    for (var i = 0; i < NUM_BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a value, treating negative values as zero.
+   *
+   * @param value The value.
+   */
+  public void record(long value) {
+    final var clamped = Math.max(0, value);
+    buckets[Long.SIZE - Long.numberOfLeadingZeros(clamped)].increment();
+    sum.add(clamped);
+    max.accumulate(clamped);
+  }
+
+  public long getCount() {
+    var count = 0L;
+    for (var bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    final var count = getCount();
+    return count != 0 ? (double) getSum() / count : 0;
+  }
+
+  /**
+   * Estimates the value at the given percentile as the upper bound of the bucket in which it
+   * falls, capped at the largest recorded value.
+   *
+   * @param percentile The percentile, in the range [0, 100].
+   * @return The estimated value, or {@code 0} if nothing has been recorded.
+   */
+  public long getPercentile(double percentile) {
+    Assert.that(percentile >= 0 && percentile <= 100, () -> "Percentile must be in the range [0, 100]");
+    final var counts = new long[NUM_BUCKETS];
+    var count = 0L;
+    for (var i = 0; i < NUM_BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      count += counts[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    final var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    var cumulative = 0L;
+    for (var i = 0; i < NUM_BUCKETS; i++) {
+      cumulative += counts[i];
+      if (cumulative >= rank) {
+        final var upperBound = i == 0 ? 0 : i == NUM_BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+        return Math.min(upperBound, getMax());
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public String toString() {
+    return Histogram.class.getSimpleName() + "[count=" + getCount() + ", mean=" + String.format("%.1f", getMean()) +
+        ", p50=" + getPercentile(50) + ", p99=" + getPercentile(99) + ", max=" + getMax() + ']';
+  }
+}
@@ -0,0 +1,272 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * A fair variant of the {@link UpgradeableMutex}. Contended acquirers are placed in a FIFO
+ * wait queue and the lock is handed off directly to the waiter at the head of the queue
+ * upon release, so that a continuous stream of readers cannot starve a writer. A run of
+ * consecutive readers at the head of the queue is admitted as a single batch.<p>
+ *
+ * Pending upgrades are queued ahead of all other waiters, as an upgrader already holds a
+ * read lock that would otherwise block a queued writer indefinitely.<p>
+ *
+ * A zero timeout denotes a nonblocking attempt, which fails if the lock cannot be granted
+ * immediately without overtaking a queued waiter.
+ */
+public final class FairUpgradeableMutex implements UpgradeableMutex {
+  private enum Mode {
+    READ, WRITE, UPGRADE
+  }
+
+  private static final class Waiter {
+    final Object owner;
+
+    final Mode mode;
+
+    final Condition condition;
+
+    boolean granted;
+
+    Waiter(Object owner, Mode mode, Condition condition) {
+      this.owner = owner;
+      this.mode = mode;
+      this.condition = condition;
+    }
+  }
+
+  private final ReentrantLock guard = new ReentrantLock();
+
+  private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+  private final OwnerSet readers = new OwnerSet();
+
+  /** The owner presently holding the write lock, or {@code null} if not write-locked. */
+  private Object writer;
+
+  @Override
+  public boolean tryReadAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    guard.lock();
+    try {
+      if (readers.contains(owner)) {
+        throw new IllegalMonitorStateException("Already read-locked");
+      }
+
+      if (writer == owner) {
+        throw new IllegalMonitorStateException("Already write-locked, use downgrade method");
+      }
+
+      if (writer == null && waiters.isEmpty()) {
+        readers.add(owner);
+        return true;
+      } else {
+        return await(owner, Mode.READ, timeoutMs);
+      }
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public void readRelease(Object owner) {
+    guard.lock();
+    try {
+      if (!readers.remove(owner)) {
+        throw new IllegalMonitorStateException("Not read-locked");
+      }
+      handOff();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public boolean tryWriteAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    guard.lock();
+    try {
+      if (writer == owner) {
+        throw new IllegalMonitorStateException("Already write-locked");
+      }
+
+      if (readers.contains(owner)) {
+        throw new IllegalMonitorStateException("Already read-locked, use upgrade methods");
+      }
+
+      if (writer == null && readers.size() == 0 && waiters.isEmpty()) {
+        writer = owner;
+        return true;
+      } else {
+        return await(owner, Mode.WRITE, timeoutMs);
+      }
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public void writeRelease(Object owner) {
+    guard.lock();
+    try {
+      if (owner == null || writer != owner) {
+        throw new IllegalMonitorStateException("Not write-locked");
+      }
+      writer = null;
+      handOff();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public boolean tryUpgrade(Object owner, long timeoutMs) throws InterruptedException {
+    guard.lock();
+    try {
+      if (owner == null || !readers.contains(owner)) {
+        throw new IllegalMonitorStateException("Not read-locked");
+      }
+
+      if (readers.size() == 1) {
+        readers.remove(owner);
+        writer = owner;
+        return true;
+      } else {
+        return await(owner, Mode.UPGRADE, timeoutMs);
+      }
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public void downgrade(Object owner) {
+    guard.lock();
+    try {
+      if (owner == null || writer != owner) {
+        throw new IllegalMonitorStateException("Not write-locked");
+      }
+      writer = null;
+      readers.add(owner);
+      handOff();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  /**
+   * Enqueues the caller and blocks until the lock is handed off to it, or until the
+   * timeout elapses. Must be called while holding the guard.
+   */
+  private boolean await(Object owner, Mode mode, long timeoutMs) throws InterruptedException {
+    if (timeoutMs <= 0) {
+      return false;
+    }
+
+    final var waiter = new Waiter(owner, mode, guard.newCondition());
+    if (mode == Mode.UPGRADE) {
+      waiters.addFirst(waiter);
+    } else {
+      waiters.addLast(waiter);
+    }
+
+    var remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    try {
+      while (!waiter.granted) {
+        if (remainingNanos <= 0) {
+          abandon(waiter);
+          return false;
+        }
+        remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+      }
+      return true;
+    } catch (InterruptedException e) {
+      if (waiter.granted) {
+        revoke(waiter);
+      } else {
+        abandon(waiter);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Withdraws an ungranted waiter from the queue. Its departure may unblock its successors,
+   * e.g., readers queued behind a writer that has timed out.
+   */
+  private void abandon(Waiter waiter) {
+    waiters.remove(waiter);
+    handOff();
+  }
+
+  /**
+   * Reverses a grant that was made to a waiter that was interrupted before it could
+   * observe the grant, passing the lock on to its successors.
+   */
+  private void revoke(Waiter waiter) {
+    switch (waiter.mode) {
+      case READ -> readers.remove(waiter.owner);
+      case WRITE -> writer = null;
+      case UPGRADE -> {
+        writer = null;
+        readers.add(waiter.owner);
+      }
+    }
+    handOff();
+  }
+
+  /**
+   * Grants the lock to as many waiters at the head of the queue as the current lock state
+   * permits: either a single writer or upgrader, or a contiguous run of readers.
+   */
+  private void handOff() {
+    while (true) {
+      final var head = waiters.peekFirst();
+      if (head == null) {
+        return;
+      }
+
+      switch (head.mode) {
+        case READ -> {
+          if (writer != null) return;
+          readers.add(head.owner);
+        }
+        case WRITE -> {
+          if (writer != null || readers.size() != 0) return;
+          writer = head.owner;
+        }
+        case UPGRADE -> {
+          if (readers.size() != 1) return;
+          readers.remove(head.owner);
+          writer = head.owner;
+        }
+      }
+
+      waiters.removeFirst();
+      head.granted = true;
+      head.condition.signal();
+    }
+  }
+
+  int queueLength() {
+    guard.lock();
+    try {
+      return waiters.size();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    guard.lock();
+    try {
+      return FairUpgradeableMutex.class.getSimpleName() + "[readers=" + readers.size() +
+          ", writeLocked=" + (writer != null) + ", waiters=" + waiters.size() + ']';
+    } finally {
+      guard.unlock();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * Assigns a dedicated mutex to every key, so that contention arises only between
+ * transactions that touch the same key. Mutexes are created on demand and are pinned for
+ * as long as there are outstanding references; once the last reference is released, the
+ * entry is removed and its mutex is returned to a bounded pool of idle mutexes for reuse.
+ * Memory consumption is thereby proportional to the number of keys in use by in-flight
+ * transactions, plus the size of the idle pool.<p>
+ *
+ * Every entry is assigned a unique ordinal when it is created, which determines the order
+ * of its references. As an entry cannot be removed while referenced, the ordinals of the
+ * references held by a transaction remain stable for as long as they are held.
+ */
+public final class KeyedMutexes<M extends Mutex> implements Mutexes<M> {
+  private final Supplier<UpgradeableMutex> mutexFactory;
+
+  private final int maxIdleMutexes;
+
+  private final ConcurrentHashMap<Object, MutexRef<M>> refs = new ConcurrentHashMap<>();
+
+  private final Deque<M> idleMutexes = new ArrayDeque<>();
+
+  private final Lock idleMutexesLock = new ReentrantLock();
+
+  private final AtomicLong ordinals = new AtomicLong();
+
+  public KeyedMutexes(Supplier<UpgradeableMutex> mutexFactory, int maxIdleMutexes) {
+    this.mutexFactory = mutexFactory;
+    this.maxIdleMutexes = maxIdleMutexes;
+  }
+
+  @Override
+  public MutexRef<M> forKey(Object key) {
+    return refs.compute(key, (__, existing) -> {
+      final var ref = existing != null ? existing : new MutexRef<>(ordinals.getAndIncrement(), obtainMutex(), key);
+      ref.pins++;
+      return ref;
+    });
+  }
+
+  @Override
+  public void release(MutexRef<M> ref) {
+    final var unpinned = new boolean[1];
+    refs.compute(ref.key, (__, existing) -> {
+      if (existing != ref) {
+        throw new IllegalStateException("No such reference " + ref);
+      }
+      if (--existing.pins == 0) {
+        unpinned[0] = true;
+        return null;
+      } else {
+        return existing;
+      }
+    });
+
+    if (unpinned[0]) {
+      recycleMutex(ref.mutex());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private M obtainMutex() {
+    idleMutexesLock.lock();
+    try {
+      final var idle = idleMutexes.pollFirst();
+      if (idle != null) {
+        return idle;
+      }
+    } finally {
+      idleMutexesLock.unlock();
+    }
+    return (M) mutexFactory.get();
+  }
+
+  private void recycleMutex(M mutex) {
+    idleMutexesLock.lock();
+    try {
+      if (idleMutexes.size() < maxIdleMutexes) {
+        idleMutexes.addFirst(mutex);
+      }
+    } finally {
+      idleMutexesLock.unlock();
+    }
+  }
+
+  int liveMutexes() {
+    return refs.size();
+  }
+
+  int idleMutexes() {
+    idleMutexesLock.lock();
+    try {
+      return idleMutexes.size();
+    } finally {
+      idleMutexesLock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return KeyedMutexes.class.getSimpleName() + "[liveMutexes=" + liveMutexes() + ", idleMutexes=" + idleMutexes() +
+        ", maxIdleMutexes=" + maxIdleMutexes + ']';
+  }
+}
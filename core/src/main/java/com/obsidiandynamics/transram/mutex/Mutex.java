@@ -1,13 +1,18 @@
 package com.obsidiandynamics.transram.mutex;
 
+/**
+ * A read-write mutex whose ownership is attributed to an opaque {@code owner} token rather
+ * than to the calling thread. An owner may acquire the mutex on one thread and release it
+ * on another, provided that the same token is presented throughout.
+ */
 public interface Mutex {
-  boolean tryReadAcquire(long timeoutMs) throws InterruptedException;
+  boolean tryReadAcquire(Object owner, long timeoutMs) throws InterruptedException;
 
-  void readRelease();
+  void readRelease(Object owner);
 
-  boolean tryWriteAcquire(long timeoutMs) throws InterruptedException;
+  boolean tryWriteAcquire(Object owner, long timeoutMs) throws InterruptedException;
 
-  void writeRelease();
+  void writeRelease(Object owner);
 
-  void downgrade();
+  void downgrade(Object owner);
 }
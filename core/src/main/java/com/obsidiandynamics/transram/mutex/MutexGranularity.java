@@ -0,0 +1,9 @@
+package com.obsidiandynamics.transram.mutex;
+
+public enum MutexGranularity {
+  /** A fixed number of mutexes, shared among the keys that hash to the same stripe. */
+  STRIPED,
+
+  /** A dedicated mutex for every key that is presently in use. */
+  PER_KEY
+}
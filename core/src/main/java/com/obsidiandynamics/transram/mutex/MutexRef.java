@@ -0,0 +1,156 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.lang.invoke.*;
+import java.util.*;
+
+/**
+ * Leading padding for {@link MutexRef}, enough to exceed a 64-byte cache line. References are
+ * allocated alongside their mutexes, so the padding keeps the mutable state of adjacent stripes
+ * apart. Superclass fields are laid out ahead of subclass fields, so the padding cannot be
+ * reordered around that state.
+ */
+abstract class MutexRefLhs {
+  long p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * A reference to a {@link Mutex} obtained from {@link Mutexes}. References are ordered by
+ * their {@code ordinal}, which is unique among the references that may be held at any one
+ * time, allowing several mutexes to be acquired in a consistent order.<p>
+ *
+ * A reference may also be reserved by prioritised transactions, signalling to transactions
+ * of a lower priority that they should yield rather than acquire the mutex. Reservations
+ * are best-effort: only the holders of the highest priority are tracked, and a reservation
+ * may be lost when it is superseded. They aid liveness and are never relied upon for
+ * mutual exclusion.
+ */
+public final class MutexRef<M extends Mutex> extends MutexRefLhs implements Comparable<MutexRef<?>> {
+  private final long ordinal;
+
+  private final M mutex;
+
+  /** The key that this reference was obtained for; only used by {@link KeyedMutexes}. */
+  final Object key;
+
+  /** The number of outstanding pins; only used by {@link KeyedMutexes}. */
+  int pins;
+
+  private static final VarHandle RESERVATION;
+
+  static {
+    try {
+      RESERVATION = MethodHandles.lookup().findVarHandle(MutexRef.class, "reservation", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /** The highest reserved priority in the upper 32 bits, and the number of its holders in the lower 32 bits. */
+  private volatile long reservation;
+
+  MutexRef(long ordinal, M mutex) {
+    this(ordinal, mutex, null);
+  }
+
+  MutexRef(long ordinal, M mutex, Object key) {
+    this.ordinal = ordinal;
+    this.mutex = Objects.requireNonNull(mutex);
+    this.key = key;
+  }
+
+  public M mutex() {
+    return mutex;
+  }
+
+  /**
+   * Obtains the ordinal of this reference, which for {@link StripedMutexes} is the index of its
+   * stripe.
+   *
+   * @return The ordinal.
+   */
+  public long ordinal() {
+    return ordinal;
+  }
+
+  /**
+   * Reserves this reference at the given priority, superseding any reservation of a lower
+   * priority. A reservation of a higher priority is left in place.
+   *
+   * @param priority The priority; must exceed 0.
+   */
+  public void reserve(int priority) {
+    if (priority <= 0) {
+      throw new IllegalArgumentException("Priority must exceed 0");
+    }
+    while (true) {
+      final var current = reservation;
+      final var reservedPriority = (int) (current >>> 32);
+      final long updated;
+      if (reservedPriority < priority) {
+        updated = (long) priority << 32 | 1;
+      } else if (reservedPriority == priority) {
+        updated = current + 1;
+      } else {
+        return;
+      }
+      if (RESERVATION.compareAndSet(this, current, updated)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Withdraws a reservation made at the given priority. Has no effect if the reservation has
+   * since been superseded.
+   *
+   * @param priority The priority.
+   */
+  public void unreserve(int priority) {
+    while (true) {
+      final var current = reservation;
+      if ((int) (current >>> 32) != priority) {
+        return;
+      }
+      final var updated = (current & 0xFFFF_FFFFL) == 1 ? 0 : current - 1;
+      if (RESERVATION.compareAndSet(this, current, updated)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Obtains the highest priority at which this reference is presently reserved.
+   *
+   * @return The reserved priority, or {@code 0} if unreserved.
+   */
+  public int reservedPriority() {
+    return (int) (reservation >>> 32);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (o instanceof MutexRef) {
+      final var that = (MutexRef<?>) o;
+      return ordinal == that.ordinal;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(ordinal);
+  }
+
+  @Override
+  public String toString() {
+    return MutexRef.class.getSimpleName() + "[ordinal=" + ordinal + ", mutex=" + mutex + ']';
+  }
+
+  @Override
+  public int compareTo(MutexRef<?> o) {
+    return Long.compare(ordinal, o.ordinal);
+  }
+}
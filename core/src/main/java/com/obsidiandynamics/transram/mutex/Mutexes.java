@@ -0,0 +1,12 @@
+package com.obsidiandynamics.transram.mutex;
+
+/**
+ * Maps keys to mutexes. A reference obtained from {@link #forKey(Object)} must eventually be
+ * returned via {@link #release(MutexRef)}, once the mutex is no longer held, so that
+ * implementations that create mutexes on demand may reclaim them.
+ */
+public interface Mutexes<M extends Mutex> {
+  MutexRef<M> forKey(Object key);
+
+  void release(MutexRef<M> ref);
+}
@@ -0,0 +1,30 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.util.*;
+
+/**
+ * An identity-based set of owner tokens, intended for tracking the readers of a mutex.
+ * Membership tests, additions and removals take constant time, so that a mutex shared by
+ * many readers doesn't spend longer under its lock as the readers accumulate. Not
+ * thread-safe; callers must guard access externally. The set starts small, as most mutexes
+ * have few readers at a time, and grows as needed.
+ */
+final class OwnerSet {
+  private final Set<Object> owners = Collections.newSetFromMap(new IdentityHashMap<>(2));
+
+  int size() {
+    return owners.size();
+  }
+
+  boolean contains(Object owner) {
+    return owners.contains(owner);
+  }
+
+  void add(Object owner) {
+    owners.add(owner);
+  }
+
+  boolean remove(Object owner) {
+    return owners.remove(owner);
+  }
+}
@@ -0,0 +1,260 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * A reader-biased {@link UpgradeableMutex}, wherein readers announce themselves by
+ * incrementing one of several cache line-padded reader indicators, selected by the
+ * identity hash of the owner. In the absence of a writer, read acquisition and release
+ * touch no shared cache line other than the reader's own indicator, allowing read-dominated
+ * mutexes to scale with the number of cores.<p>
+ *
+ * Writers pay for this by first announcing their intent (which diverts subsequent readers
+ * to a slow path) and then waiting for all indicators to drain. Once a writer has
+ * announced itself, newly arriving readers wait for it; hence, writers cannot be starved
+ * by readers.<p>
+ *
+ * As read ownership is not recorded individually, misuse by readers (e.g., acquiring a read
+ * lock twice, or releasing a read lock that isn't held) is not detected. Each instance
+ * occupies roughly 64 bytes per indicator slot, which should be considered when
+ * configuring a large number of mutex stripes.
+ */
+public final class ReaderBiasedUpgradeableMutex implements UpgradeableMutex {
+  /** Number of {@code long} elements separating adjacent indicators, covering a 64-byte cache line. */
+  private static final int STRIDE = 8;
+
+  private static final int DEF_SLOTS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+  private final AtomicLongArray indicators;
+
+  private final int slotMask;
+
+  private final ReentrantLock guard = new ReentrantLock();
+
+  /** Signalled when the writer departs. */
+  private final Condition writerReleased = guard.newCondition();
+
+  /** Signalled when a reader departs while a writer is present. */
+  private final Condition readerReleased = guard.newCondition();
+
+  /** The owner presently holding (or draining readers for) the write lock. */
+  private volatile Object writer;
+
+  /** Whether the writer is still waiting for readers to drain. Guarded by {@link #guard}. */
+  private boolean draining;
+
+  /** Whether the writer is upgrading from a read lock. Guarded by {@link #guard}. */
+  private boolean upgrading;
+
+  public ReaderBiasedUpgradeableMutex() {
+    this(DEF_SLOTS);
+  }
+
+  /**
+   * Creates a mutex with the given number of reader indicator slots.
+   *
+   * @param slots The number of slots; must be a power of two.
+   */
+  public ReaderBiasedUpgradeableMutex(int slots) {
+    if (slots <= 0 || Integer.bitCount(slots) != 1) {
+      throw new IllegalArgumentException("Number of slots must be a positive power of two");
+    }
+    // the leading and trailing STRIDE elements pad the indicators from neighbouring objects
+    indicators = new AtomicLongArray((slots + 2) * STRIDE);
+    slotMask = slots - 1;
+  }
+
+  private int indexOf(Object owner) {
+    final var hash = System.identityHashCode(owner);
+    return ((hash ^ hash >>> 16) & slotMask) * STRIDE + STRIDE;
+  }
+
+  private long sumIndicators() {
+    var sum = 0L;
+    for (var i = STRIDE; i < indicators.length() - STRIDE; i += STRIDE) {
+      sum += indicators.get(i);
+    }
+    return sum;
+  }
+
+  @Override
+  public boolean tryReadAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    if (writer == owner) {
+      throw new IllegalMonitorStateException("Already write-locked, use downgrade method");
+    }
+
+    final var index = indexOf(owner);
+    var remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    while (true) {
+      if (writer == null) {
+        indicators.incrementAndGet(index);
+        // recheck after announcing, as a writer may have arrived in the meantime
+        if (writer == null) {
+          return true;
+        }
+        departReader(index);
+      }
+
+      if (remainingNanos <= 0) {
+        return false;
+      }
+      remainingNanos = awaitNoWriter(remainingNanos);
+    }
+  }
+
+  @Override
+  public void readRelease(Object owner) {
+    departReader(indexOf(owner));
+  }
+
+  private void departReader(int index) {
+    indicators.decrementAndGet(index);
+    if (writer != null) {
+      guard.lock();
+      try {
+        readerReleased.signalAll();
+      } finally {
+        guard.unlock();
+      }
+    }
+  }
+
+  @Override
+  public boolean tryWriteAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    if (writer == owner) {
+      throw new IllegalMonitorStateException("Already write-locked");
+    }
+    return acquireExclusive(owner, timeoutMs, false);
+  }
+
+  @Override
+  public void writeRelease(Object owner) {
+    guard.lock();
+    try {
+      if (owner == null || writer != owner) {
+        throw new IllegalMonitorStateException("Not write-locked");
+      }
+      releaseExclusive();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public boolean tryUpgrade(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    if (writer == owner) {
+      throw new IllegalMonitorStateException("Not read-locked");
+    }
+    if (acquireExclusive(owner, timeoutMs, true)) {
+      indicators.decrementAndGet(indexOf(owner));
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public void downgrade(Object owner) {
+    guard.lock();
+    try {
+      if (owner == null || writer != owner) {
+        throw new IllegalMonitorStateException("Not write-locked");
+      }
+      indicators.incrementAndGet(indexOf(owner));
+      releaseExclusive();
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  /**
+   * Claims the writer role and waits for the reader indicators to drain, save for the
+   * caller's own read lock when upgrading.<p>
+   *
+   * An upgrader may take the writer role from a writer that is still draining, as the
+   * latter would otherwise wait for the upgrader's read lock while the upgrader waits for it.
+   * The preempted writer resumes waiting for the role once the upgrader is done with it.
+   */
+  private boolean acquireExclusive(Object owner, long timeoutMs, boolean upgrade) throws InterruptedException {
+    final var residualReaders = upgrade ? 1 : 0;
+    var remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    guard.lockInterruptibly();
+    try {
+      while (true) {
+        while (writer != null && !(upgrade && draining && !upgrading)) {
+          if (remainingNanos <= 0) {
+            return false;
+          }
+          remainingNanos = writerReleased.awaitNanos(remainingNanos);
+        }
+
+        writer = owner;
+        draining = true;
+        upgrading = upgrade;
+        // wake a preempted writer, if any, so that it may observe the loss of its role
+        readerReleased.signalAll();
+        try {
+          while (writer == owner && sumIndicators() != residualReaders) {
+            if (remainingNanos <= 0) {
+              abandonExclusive(owner);
+              return false;
+            }
+            remainingNanos = readerReleased.awaitNanos(remainingNanos);
+          }
+        } catch (InterruptedException e) {
+          abandonExclusive(owner);
+          throw e;
+        }
+
+        if (writer == owner) {
+          draining = false;
+          return true;
+        }
+      }
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  private void abandonExclusive(Object owner) {
+    if (writer == owner) {
+      releaseExclusive();
+    }
+  }
+
+  private void releaseExclusive() {
+    writer = null;
+    draining = false;
+    upgrading = false;
+    writerReleased.signalAll();
+  }
+
+  /**
+   * Blocks until there is no writer, or the given time elapses.
+   *
+   * @return The remaining time, in nanoseconds; zero or negative if the time elapsed.
+   */
+  private long awaitNoWriter(long remainingNanos) throws InterruptedException {
+    guard.lockInterruptibly();
+    try {
+      while (writer != null && remainingNanos > 0) {
+        remainingNanos = writerReleased.awaitNanos(remainingNanos);
+      }
+      return writer == null ? Math.max(1, remainingNanos) : remainingNanos;
+    } finally {
+      guard.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return ReaderBiasedUpgradeableMutex.class.getSimpleName() + "[slots=" + (slotMask + 1) +
+        ", readers=" + sumIndicators() + ", writeLocked=" + (writer != null) + ']';
+  }
+}
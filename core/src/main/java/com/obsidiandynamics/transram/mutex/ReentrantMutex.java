@@ -3,6 +3,10 @@ package com.obsidiandynamics.transram.mutex;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.*;
 
+/**
+ * A {@link Mutex} backed by a {@link ReentrantReadWriteLock}. Unlike other implementations,
+ * ownership is bound to the calling thread; the {@code owner} token is ignored.
+ */
 public final class ReentrantMutex implements Mutex {
   private final ReadWriteLock lock;
 
@@ -11,27 +15,27 @@ public final class ReentrantMutex implements Mutex {
   }
 
   @Override
-  public boolean tryReadAcquire(long timeoutMs) throws InterruptedException {
+  public boolean tryReadAcquire(Object owner, long timeoutMs) throws InterruptedException {
     return lock.readLock().tryLock(timeoutMs, TimeUnit.MILLISECONDS);
   }
 
   @Override
-  public void readRelease() {
+  public void readRelease(Object owner) {
     lock.readLock().unlock();
   }
 
   @Override
-  public boolean tryWriteAcquire(long timeoutMs) throws InterruptedException {
+  public boolean tryWriteAcquire(Object owner, long timeoutMs) throws InterruptedException {
     return lock.writeLock().tryLock(timeoutMs, TimeUnit.MILLISECONDS);
   }
 
   @Override
-  public void writeRelease() {
+  public void writeRelease(Object owner) {
     lock.writeLock().unlock();
   }
 
   @Override
-  public void downgrade() {
+  public void downgrade(Object owner) {
     lock.readLock().lock();
     lock.writeLock().unlock();
   }
@@ -0,0 +1,56 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.util.*;
+
+/**
+ * The number of keys mapping to each hashed stripe, used to assess the quality of the key
+ * hasher.
+ */
+public final class StripeDistribution {
+  private final int[] loads;
+
+  StripeDistribution(int[] loads) {
+    this.loads = loads;
+  }
+
+  public int getStripes() {
+    return loads.length;
+  }
+
+  /**
+   * The number of keys by stripe.
+   *
+   * @return The stripe loads.
+   */
+  public int[] getLoads() {
+    return loads.clone();
+  }
+
+  public long getKeys() {
+    return Arrays.stream(loads).asLongStream().sum();
+  }
+
+  public int getEmptyStripes() {
+    return (int) Arrays.stream(loads).filter(load -> load == 0).count();
+  }
+
+  public int getMaxLoad() {
+    return Arrays.stream(loads).max().orElse(0);
+  }
+
+  /**
+   * The ratio of the maximum stripe load to the mean, being 1 for a perfectly even distribution.
+   *
+   * @return The imbalance, or {@code 0} if there are no keys.
+   */
+  public double getImbalance() {
+    final var keys = getKeys();
+    return keys == 0 ? 0 : (double) getMaxLoad() * loads.length / keys;
+  }
+
+  @Override
+  public String toString() {
+    return StripeDistribution.class.getSimpleName() + "[stripes=" + loads.length + ", keys=" + getKeys() +
+        ", emptyStripes=" + getEmptyStripes() + ", maxLoad=" + getMaxLoad() + ']';
+  }
+}
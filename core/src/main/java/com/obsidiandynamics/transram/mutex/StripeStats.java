@@ -0,0 +1,52 @@
+package com.obsidiandynamics.transram.mutex;
+
+import java.util.*;
+
+public final class StripeStats {
+  private final int stripes;
+
+  private final long[] occupancyHistogram;
+
+  private final int resizes;
+
+  StripeStats(int stripes, long[] occupancyHistogram, int resizes) {
+    this.stripes = stripes;
+    this.occupancyHistogram = occupancyHistogram;
+    this.resizes = resizes;
+  }
+
+  public int getStripes() {
+    return stripes;
+  }
+
+  /**
+   * The number of acquisitions by the number of holders of the stripe at the time, including
+   * the acquirer: element <i>i</i> counts acquisitions with <i>i</i> + 1 holders, the last
+   * element counting all acquisitions with at least {@link StripedMutexes#HISTOGRAM_BUCKETS}.
+   *
+   * @return The occupancy histogram.
+   */
+  public long[] getOccupancyHistogram() {
+    return occupancyHistogram.clone();
+  }
+
+  /**
+   * The fraction of acquisitions that found their stripe already occupied.
+   *
+   * @return The contention rate, or {@code 0} if there were no acquisitions.
+   */
+  public double getContention() {
+    final var samples = Arrays.stream(occupancyHistogram).sum();
+    return samples == 0 ? 0 : (double) (samples - occupancyHistogram[0]) / samples;
+  }
+
+  public int getResizes() {
+    return resizes;
+  }
+
+  @Override
+  public String toString() {
+    return StripeStats.class.getSimpleName() + "[stripes=" + stripes +
+        ", occupancyHistogram=" + Arrays.toString(occupancyHistogram) + ", resizes=" + resizes + ']';
+  }
+}
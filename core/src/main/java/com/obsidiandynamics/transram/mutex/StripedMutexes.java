@@ -3,79 +3,375 @@ package com.obsidiandynamics.transram.mutex;
 import com.obsidiandynamics.transram.util.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 
-public final class StripedMutexes<M extends Mutex> {
-  public static final class MutexRef<M extends Mutex> implements Comparable<MutexRef<?>> {
-    private final int stripe;
+/**
+ * Maps keys onto a table of mutex stripes by hashing. The number of stripes is rounded up to
+ * a power of two; a key's stripe is selected by mixing the bits of its hash code (as produced
+ * by a configurable key hasher) and masking the result. A further stripe may be reserved
+ * beyond the hashed ones for keys that should never share a mutex with regular keys; these
+ * are obtained via {@link #forReservedStripe()}.<p>
+ *
+ * When configured with an {@link Adaptation}, the table tracks the number of outstanding
+ * references to each stripe and samples the occupancy of a stripe upon each acquisition.
+ * If the fraction of acquisitions that find a stripe already occupied exceeds a threshold
+ * the table is doubled in size; if it falls below another threshold the table is halved.
+ * A resize only takes effect at a quiescent point, when no references are outstanding, so
+ * that two holders of the same key can never be given different mutexes. The resizer closes
+ * the table to new acquisitions and waits briefly for all stripes to become unoccupied;
+ * it then either swaps in the new table or, failing that, reopens the old one and tries
+ * again later. New acquirers spin only for the duration of this wait. Under sustained load
+ * with long-running transactions, a resize may be deferred.
+ */
+public final class StripedMutexes<M extends Mutex> implements Mutexes<M> {
+  public static class Adaptation {
+    public int minStripes = 64;
+    public int maxStripes = 65_536;
+    public double growThreshold = 0.05;
+    public double shrinkThreshold = 0.005;
+    public long evaluationIntervalMs = 100;
+    public long minSamples = 1_000;
+    public long maxQuiescenceWaitMicros = 100;
 
-    private final M mutex;
-
-    MutexRef(int stripe, M mutex) {
-      this.stripe = stripe;
-      this.mutex = Objects.requireNonNull(mutex);
+    void validate() {
+      Assert.that(minStripes > 0, () -> "Minimum number of stripes must exceed 0");
+      Assert.that(Integer.bitCount(minStripes) == 1 && Integer.bitCount(maxStripes) == 1,
+                  () -> "Minimum and maximum number of stripes must be powers of two");
+      Assert.that(maxStripes >= minStripes, () -> "Maximum number of stripes cannot be less than the minimum");
+      Assert.that(shrinkThreshold >= 0 && shrinkThreshold < growThreshold && growThreshold <= 1,
+                  () -> "Thresholds must satisfy 0 <= shrink threshold < grow threshold <= 1");
+      Assert.that(evaluationIntervalMs > 0, () -> "Evaluation interval must exceed 0");
+      Assert.that(minSamples > 0, () -> "Minimum number of samples must exceed 0");
+      Assert.that(maxQuiescenceWaitMicros >= 0, () -> "Maximum quiescence wait must be equal to or greater than 0");
     }
+  }
+
+  /** Occupancy histogram buckets, counting 1, 2, …, or at least {@code HISTOGRAM_BUCKETS} holders. */
+  public static final int HISTOGRAM_BUCKETS = 8;
+
+  /** Number of {@code int} elements separating adjacent occupancy counters, covering a 64-byte cache line. */
+  private static final int OCCUPANCY_STRIDE = 16;
+
+  private static final class Table<M extends Mutex> {
+    final MutexRef<M>[] refs;
+
+    /**
+     * Outstanding references per stripe; only maintained when adaptive. Each counter occupies
+     * its own cache line, with the leading and trailing lines padding the array from
+     * neighbouring objects.
+     */
+    final AtomicIntegerArray occupancy;
 
-    public M mutex() {
-      return mutex;
+    volatile boolean closed;
+
+    Table(MutexRef<M>[] refs, boolean adaptive) {
+      this.refs = refs;
+      occupancy = adaptive ? new AtomicIntegerArray((refs.length + 2) * OCCUPANCY_STRIDE) : null;
     }
 
-    @Override
-    public boolean equals(Object o) {
-      if (o == this) {
-        return true;
-      } else if (o instanceof MutexRef) {
-        final var that = (MutexRef<?>) o;
-        return stripe == that.stripe;
-      } else {
-        return false;
-      }
+    int incrementOccupancy(int stripe) {
+      return occupancy.incrementAndGet(indexOf(stripe));
     }
 
-    @Override
-    public int hashCode() {
-      return stripe;
+    int decrementOccupancy(int stripe) {
+      return occupancy.decrementAndGet(indexOf(stripe));
     }
 
-    @Override
-    public String toString() {
-      return MutexRef.class.getSimpleName() + "[stripe=" + stripe + ", mutex=" + mutex + ']';
+    private static int indexOf(int stripe) {
+      return (stripe + 1) * OCCUPANCY_STRIDE;
     }
 
-    @Override
-    public int compareTo(MutexRef<?> o) {
-      return Integer.compare(stripe, o.stripe);
+    boolean isQuiescent() {
+      for (var i = 0; i < refs.length; i++) {
+        if (occupancy.get(indexOf(i)) != 0) {
+          return false;
+        }
+      }
+      return true;
     }
   }
 
-  private final MutexRef<M>[] stripes;
+  private final Supplier<UpgradeableMutex> mutexFactory;
+
+  private final ToIntFunction<Object> keyHasher;
+
+  private final Adaptation adaptation;
+
+  private final boolean reserveLastStripe;
+
+  private volatile Table<M> table;
+
+  private final LongAdder[] histogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+  /** The histogram totals at the start of the current evaluation window. */
+  private final long[] windowStart = new long[HISTOGRAM_BUCKETS];
+
+  private final AtomicBoolean resizing = new AtomicBoolean();
+
+  private volatile long nextEvaluationNanos;
+
+  private volatile int resizes;
+
+  public StripedMutexes(int stripes, Supplier<UpgradeableMutex> mutexFactory) {
+    this(stripes, mutexFactory, null, false);
+  }
+
+  public StripedMutexes(int stripes, Supplier<UpgradeableMutex> mutexFactory, Adaptation adaptation, boolean reserveLastStripe) {
+    this(stripes, mutexFactory, adaptation, reserveLastStripe, Objects::hashCode);
+  }
+
+  /**
+   * Creates a striped mutex table.
+   *
+   * @param stripes The initial number of hashed stripes, rounded up to a power of two.
+   * @param mutexFactory The mutex factory.
+   * @param adaptation The resizing policy, or {@code null} for a fixed number of stripes.
+   * @param reserveLastStripe Whether an additional stripe is appended for {@link #forReservedStripe()}.
+   * @param keyHasher Produces the hash code of a key, prior to mixing.
+   */
+  public StripedMutexes(int stripes, Supplier<UpgradeableMutex> mutexFactory, Adaptation adaptation, boolean reserveLastStripe,
+                        ToIntFunction<Object> keyHasher) {
+    if (adaptation != null) {
+      adaptation.validate();
+      scheduleEvaluation(adaptation.evaluationIntervalMs);
+    }
+    this.mutexFactory = mutexFactory;
+    this.keyHasher = keyHasher;
+    this.adaptation = adaptation;
+    this.reserveLastStripe = reserveLastStripe;
+    for (var i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      histogram[i] = new LongAdder();
+    }
+    table = createTable(Hash.ceilPowerOfTwo(stripes), null);
+  }
 
   @SuppressWarnings("unchecked")
-  public StripedMutexes(int stripes, Supplier<UpgradeableMutex> lockFactory) {
-    this.stripes = new MutexRef[stripes];
+  private Table<M> createTable(int stripes, Table<M> previous) {
+    final var refs = new MutexRef[reserveLastStripe ? stripes + 1 : stripes];
+    final var previousStripes = previous != null ? hashedStripes(previous) : 0;
     for (var i = 0; i < stripes; i++) {
-      this.stripes[i] = new MutexRef<>(i, (M) lockFactory.get());
+      // mutexes of a quiesced table are unowned, and may be carried over
+      final var mutex = i < previousStripes ? previous.refs[i].mutex() : (M) mutexFactory.get();
+      refs[i] = new MutexRef<>(i, mutex);
+    }
+    if (reserveLastStripe) {
+      final var mutex = previous != null ? previous.refs[previousStripes].mutex() : (M) mutexFactory.get();
+      refs[stripes] = new MutexRef<>(stripes, mutex);
     }
+    return new Table<>((MutexRef<M>[]) refs, adaptation != null);
   }
 
+  private int hashedStripes(Table<M> table) {
+    return reserveLastStripe ? table.refs.length - 1 : table.refs.length;
+  }
+
+  /**
+   * Obtains the reference for a given stripe, without accounting for it as outstanding.
+   * Intended for diagnostics only.
+   *
+   * @param stripe The stripe.
+   * @return The {@link MutexRef}.
+   */
   public MutexRef<M> forStripe(int stripe) {
-    return stripes[stripe];
+    return table.refs[stripe];
   }
 
+  /**
+   * Obtains the number of hashed stripes, excluding the reserved stripe.
+   *
+   * @return The number of stripes.
+   */
   public int stripes() {
-    return stripes.length;
+    return hashedStripes(table);
   }
 
-  public static int hash(Object key, int stripes) {
-    return Hash.byModulo(key, stripes);
+  /**
+   * Obtains the stripe that the given key presently maps to.
+   *
+   * @param key The key.
+   * @return The stripe.
+   */
+  public int stripeOf(Object key) {
+    return hash(key, stripes());
   }
 
+  private int hash(Object key, int stripes) {
+    return Hash.byMask(keyHasher.applyAsInt(key), stripes);
+  }
+
+  @Override
   public MutexRef<M> forKey(Object key) {
-    return forStripe(hash(key, stripes.length));
+    return acquire(key, false);
+  }
+
+  /**
+   * Obtains a reference to the reserved stripe, which follows the hashed stripes and which no
+   * regular key maps to.
+   *
+   * @return The {@link MutexRef}.
+   */
+  public MutexRef<M> forReservedStripe() {
+    return acquire(null, true);
+  }
+
+  private int stripeOf(Table<M> table, Object key, boolean reserved) {
+    if (reserved) {
+      if (!reserveLastStripe) {
+        throw new IllegalStateException("No reserved stripe");
+      }
+      return table.refs.length - 1;
+    } else {
+      return hash(key, hashedStripes(table));
+    }
+  }
+
+  private MutexRef<M> acquire(Object key, boolean reserved) {
+    if (adaptation == null) {
+      final var table = this.table;
+      return table.refs[stripeOf(table, key, reserved)];
+    }
+
+    while (true) {
+      final var table = this.table;
+      final var stripe = stripeOf(table, key, reserved);
+      final var occupancy = table.incrementOccupancy(stripe);
+      // the resizer closes the table before checking for quiescence; one of us will see the other
+      if (!table.closed) {
+        histogram[Math.min(occupancy, HISTOGRAM_BUCKETS) - 1].increment();
+        return table.refs[stripe];
+      }
+
+      table.decrementOccupancy(stripe);
+      while (this.table == table && table.closed) {
+        Thread.onSpinWait();
+      }
+    }
+  }
+
+  @Override
+  public void release(MutexRef<M> ref) {
+    if (adaptation == null) {
+      return;
+    }
+
+    // a table can only be replaced when no references are outstanding, so the ref belongs to the current table
+    final var table = this.table;
+    final var stripe = (int) ref.ordinal();
+    if (stripe >= table.refs.length || table.refs[stripe] != ref) {
+      throw new IllegalStateException("No such reference " + ref);
+    }
+    if (table.decrementOccupancy(stripe) == 0 && System.nanoTime() - nextEvaluationNanos >= 0) {
+      evaluate(table);
+    }
+  }
+
+  private void evaluate(Table<M> table) {
+    if (!resizing.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      if (this.table != table) {
+        return;
+      }
+
+      final var counts = new long[HISTOGRAM_BUCKETS];
+      var samples = 0L;
+      for (var i = 0; i < HISTOGRAM_BUCKETS; i++) {
+        counts[i] = histogram[i].sum() - windowStart[i];
+        samples += counts[i];
+      }
+      if (samples < adaptation.minSamples) {
+        scheduleEvaluation(adaptation.evaluationIntervalMs);
+        return;
+      }
+
+      final var contention = (double) (samples - counts[0]) / samples;
+      final var stripes = hashedStripes(table);
+      final int targetStripes;
+      if (contention > adaptation.growThreshold) {
+        targetStripes = (int) Math.min((long) stripes * 2, adaptation.maxStripes);
+      } else if (contention < adaptation.shrinkThreshold) {
+        targetStripes = Math.max(stripes / 2, adaptation.minStripes);
+      } else {
+        targetStripes = stripes;
+      }
+
+      if (targetStripes != stripes) {
+        table.closed = true;
+        if (!awaitQuiescence(table)) {
+          // retry shortly, retaining the samples gathered so far
+          table.closed = false;
+          scheduleEvaluation(Math.max(1, adaptation.evaluationIntervalMs / 10));
+          return;
+        }
+        this.table = createTable(targetStripes, table);
+        resizes++;
+      }
+
+      for (var i = 0; i < HISTOGRAM_BUCKETS; i++) {
+        windowStart[i] += counts[i];
+      }
+      scheduleEvaluation(adaptation.evaluationIntervalMs);
+    } finally {
+      resizing.set(false);
+    }
+  }
+
+  /**
+   * Waits for the outstanding references to a closed table to be released, for no longer than
+   * the configured maximum. Holders that require further references cannot progress while
+   * the table is closed, hence the wait is kept short.
+   */
+  private boolean awaitQuiescence(Table<M> table) {
+    final var waitNanos = TimeUnit.MICROSECONDS.toNanos(adaptation.maxQuiescenceWaitMicros);
+    final var startTime = System.nanoTime();
+    while (!table.isQuiescent()) {
+      if (System.nanoTime() - startTime >= waitNanos) {
+        return false;
+      }
+      Thread.yield();
+    }
+    return true;
+  }
+
+  private void scheduleEvaluation(long delayMs) {
+    nextEvaluationNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+  }
+
+  /**
+   * Obtains a snapshot of the stripe count and the cumulative occupancy histogram. The latter
+   * is only populated when adaptive.
+   *
+   * @return The {@link StripeStats}.
+   */
+  public StripeStats stats() {
+    final var occupancyHistogram = new long[HISTOGRAM_BUCKETS];
+    for (var i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      occupancyHistogram[i] = histogram[i].sum();
+    }
+    return new StripeStats(stripes(), occupancyHistogram, resizes);
+  }
+
+  /**
+   * Tallies the number of the given keys that map to each hashed stripe of the present table.
+   *
+   * @param keys The keys.
+   * @return The {@link StripeDistribution}.
+   */
+  public StripeDistribution distribution(Iterable<?> keys) {
+    final var stripes = stripes();
+    final var loads = new int[stripes];
+    for (var key : keys) {
+      loads[hash(key, stripes)]++;
+    }
+    return new StripeDistribution(loads);
   }
 
   @Override
   public String toString() {
-    return StripedMutexes.class.getSimpleName() + "[stripes.length=" + stripes.length + "]";
+    return StripedMutexes.class.getSimpleName() + "[stripes.length=" + stripes() + ", adaptive=" + (adaptation != null) + "]";
   }
 }
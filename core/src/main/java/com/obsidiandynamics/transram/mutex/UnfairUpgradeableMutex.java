@@ -1,37 +1,41 @@
 package com.obsidiandynamics.transram.mutex;
 
-import static com.obsidiandynamics.transram.util.Assert.*;
-
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * An unfair {@link UpgradeableMutex}, wherein contended acquirers compete for the lock upon
+ * every release. Waiting is done on a {@link Condition} rather than an object monitor, so
+ * that a blocked virtual thread releases its carrier.
+ */
 public final class UnfairUpgradeableMutex implements UpgradeableMutex {
-  private static class LockState {
-    boolean readLocked, writeLocked;
-  }
+  private final ReentrantLock guard = new ReentrantLock();
 
-  private final Object monitor = new Object();
+  private final Condition changed = guard.newCondition();
 
-  private final ThreadLocal<LockState> threadLocalLockState = ThreadLocal.withInitial(LockState::new);
+  private final OwnerSet readers = new OwnerSet();
 
-  private int readers;
-
-  private boolean writeLocked;
+  /** The owner presently holding the write lock, or {@code null} if not write-locked. */
+  private Object writer;
 
   @Override
-  public boolean tryReadAcquire(long timeoutMs) throws InterruptedException {
-    final var lockState = threadLocalLockState.get();
-    if (lockState.readLocked) {
-      throw new IllegalMonitorStateException("Already read-locked");
-    }
+  public boolean tryReadAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    var deadline = 0L;
+    guard.lock();
+    try {
+      if (readers.contains(owner)) {
+        throw new IllegalMonitorStateException("Already read-locked");
+      }
 
-    if (lockState.writeLocked) {
-      throw new IllegalMonitorStateException("Already write-locked, use downgrade method");
-    }
+      if (writer == owner) {
+        throw new IllegalMonitorStateException("Already write-locked, use downgrade method");
+      }
 
-    var deadline = 0L;
-    synchronized (monitor) {
       while (true) {
-        if (!writeLocked) {
-          readers++;
-          lockState.readLocked = true;
+        if (writer == null) {
+          readers.add(owner);
           return true;
         } else if (timeoutMs > 0) {
           final var currentTime = System.currentTimeMillis();
@@ -40,7 +44,7 @@ public final class UnfairUpgradeableMutex implements UpgradeableMutex {
           }
           final var remaining = deadline - currentTime;
           if (remaining > 0) {
-            monitor.wait(remaining);
+            changed.await(remaining, TimeUnit.MILLISECONDS);
           } else {
             return false;
           }
@@ -48,44 +52,46 @@ public final class UnfairUpgradeableMutex implements UpgradeableMutex {
           return false;
         }
       }
+    } finally {
+      guard.unlock();
     }
   }
 
   @Override
-  public void readRelease() {
-    final var lockState = threadLocalLockState.get();
-    if (!lockState.readLocked) {
-      throw new IllegalMonitorStateException("Not read-locked");
-    }
+  public void readRelease(Object owner) {
+    guard.lock();
+    try {
+      if (!readers.remove(owner)) {
+        throw new IllegalMonitorStateException("Not read-locked");
+      }
 
-    synchronized (monitor) {
-      readers--;
-      lockState.readLocked = false;
-      if (readers == 1) {
-        monitor.notifyAll(); // in case of a pending upgrade
-      } else if (readers == 0) {
-        monitor.notify();
+      if (readers.size() == 1) {
+        changed.signalAll(); // in case of a pending upgrade
+      } else if (readers.size() == 0) {
+        changed.signal();
       }
+    } finally {
+      guard.unlock();
     }
   }
 
   @Override
-  public boolean tryWriteAcquire(long timeoutMs) throws InterruptedException {
-    final var lockState = threadLocalLockState.get();
-    if (lockState.writeLocked) {
-      throw new IllegalMonitorStateException("Already write-locked");
-    }
+  public boolean tryWriteAcquire(Object owner, long timeoutMs) throws InterruptedException {
+    Objects.requireNonNull(owner, "Owner cannot be null");
+    var deadline = 0L;
+    guard.lock();
+    try {
+      if (writer == owner) {
+        throw new IllegalMonitorStateException("Already write-locked");
+      }
 
-    if (lockState.readLocked) {
-      throw new IllegalMonitorStateException("Already read-locked, use upgrade methods");
-    }
+      if (readers.contains(owner)) {
+        throw new IllegalMonitorStateException("Already read-locked, use upgrade methods");
+      }
 
-    var deadline = 0L;
-    synchronized (monitor) {
       while (true) {
-        if (!writeLocked && readers == 0) {
-          writeLocked = true;
-          lockState.writeLocked = true;
+        if (writer == null && readers.size() == 0) {
+          writer = owner;
           return true;
         } else if (timeoutMs > 0) {
           final var currentTime = System.currentTimeMillis();
@@ -94,7 +100,7 @@ public final class UnfairUpgradeableMutex implements UpgradeableMutex {
           }
           final var remaining = deadline - currentTime;
           if (remaining > 0) {
-            monitor.wait(remaining);
+            changed.await(remaining, TimeUnit.MILLISECONDS);
           } else {
             return false;
           }
@@ -102,39 +108,39 @@ public final class UnfairUpgradeableMutex implements UpgradeableMutex {
           return false;
         }
       }
+    } finally {
+      guard.unlock();
     }
   }
 
   @Override
-  public void writeRelease() {
-    final var lockState = threadLocalLockState.get();
-    if (!lockState.writeLocked) {
-      throw new IllegalMonitorStateException("Not write-locked");
-    }
+  public void writeRelease(Object owner) {
+    guard.lock();
+    try {
+      if (owner == null || writer != owner) {
+        throw new IllegalMonitorStateException("Not write-locked");
+      }
 
-    synchronized (monitor) {
-      writeLocked = false;
-      lockState.writeLocked = false;
-      monitor.notify();
+      writer = null;
+      changed.signal();
+    } finally {
+      guard.unlock();
     }
   }
 
   @Override
-  public boolean tryUpgrade(long timeoutMs) throws InterruptedException {
-    final var lockState = threadLocalLockState.get();
-    if (!lockState.readLocked) {
-      throw new IllegalMonitorStateException("Not read-locked");
-    }
-    that(not(lockState.writeLocked));
-
+  public boolean tryUpgrade(Object owner, long timeoutMs) throws InterruptedException {
     var deadline = 0L;
-    synchronized (monitor) {
+    guard.lock();
+    try {
+      if (owner == null || !readers.contains(owner)) {
+        throw new IllegalMonitorStateException("Not read-locked");
+      }
+
       while (true) {
-        if (readers == 1) {
-          writeLocked = true;
-          readers = 0;
-          lockState.readLocked = false;
-          lockState.writeLocked = true;
+        if (readers.size() == 1) {
+          readers.remove(owner);
+          writer = owner;
           return true;
         } else if (timeoutMs > 0) {
           final var currentTime = System.currentTimeMillis();
@@ -143,7 +149,7 @@ public final class UnfairUpgradeableMutex implements UpgradeableMutex {
           }
           final var remaining = deadline - currentTime;
           if (remaining > 0) {
-            monitor.wait(remaining);
+            changed.await(remaining, TimeUnit.MILLISECONDS);
           } else {
             return false;
           }
@@ -151,23 +157,33 @@ public final class UnfairUpgradeableMutex implements UpgradeableMutex {
           return false;
         }
       }
+    } finally {
+      guard.unlock();
     }
   }
 
   @Override
-  public void downgrade() {
-    final var lockState = threadLocalLockState.get();
-    if (!lockState.writeLocked) {
-      throw new IllegalMonitorStateException("Not write-locked");
+  public void downgrade(Object owner) {
+    guard.lock();
+    try {
+      if (owner == null || writer != owner) {
+        throw new IllegalMonitorStateException("Not write-locked");
+      }
+
+      writer = null;
+      readers.add(owner);
+      changed.signalAll(); // in case of a pending reader
+    } finally {
+      guard.unlock();
     }
-    that(not(lockState.readLocked));
-
-    synchronized (monitor) {
-      readers = 1;
-      writeLocked = false;
-      lockState.readLocked = true;
-      lockState.writeLocked = false;
-      monitor.notifyAll(); // in case of a pending reader
+  }
+
+  int waiters() {
+    guard.lock();
+    try {
+      return guard.getWaitQueueLength(changed);
+    } finally {
+      guard.unlock();
     }
   }
 
@@ -1,5 +1,5 @@
 package com.obsidiandynamics.transram.mutex;
 
 public interface UpgradeableMutex extends Mutex {
-  boolean tryUpgrade(long timeoutMs) throws InterruptedException;
+  boolean tryUpgrade(Object owner, long timeoutMs) throws InterruptedException;
 }
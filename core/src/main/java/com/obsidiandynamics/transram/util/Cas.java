@@ -6,11 +6,25 @@ import java.util.function.*;
 public final class Cas {
   private Cas() {}
 
+  /** The compare-and-set operation of a long-valued atomic. */
+  @FunctionalInterface
+  private interface LongCompareAndSet {
+    boolean compareAndSet(long expectedValue, long newValue);
+  }
+
   public static long compareAndSetConditionally(AtomicLong atomicLong, long newValue, LongPredicate condition) {
+    return compareAndSetConditionally(atomicLong::get, atomicLong::compareAndSet, newValue, condition);
+  }
+
+  public static long compareAndSetConditionally(PaddedAtomicLong atomicLong, long newValue, LongPredicate condition) {
+    return compareAndSetConditionally(atomicLong::get, atomicLong::compareAndSet, newValue, condition);
+  }
+
+  private static long compareAndSetConditionally(LongSupplier getter, LongCompareAndSet setter, long newValue, LongPredicate condition) {
     while (true) {
-      final var existingValue = atomicLong.get();
+      final var existingValue = getter.getAsLong();
       if (condition.test(existingValue)) {
-        final var updated = atomicLong.compareAndSet(existingValue, newValue);
+        final var updated = setter.compareAndSet(existingValue, newValue);
         if (updated) {
           return existingValue;
         }
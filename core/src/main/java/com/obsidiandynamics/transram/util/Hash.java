@@ -9,4 +9,42 @@ public final class Hash {
     final var rawModHash = Objects.hashCode(obj) % modulo;
     return rawModHash < 0 ? rawModHash + modulo : rawModHash;
   }
+
+  /**
+   * Spreads the bits of a hash code using the MurmurHash3 finalizer, so that every input bit
+   * affects the low-order bits of the result. Sequential or otherwise structured hash codes
+   * thereby map uniformly onto a power-of-two table when masked.
+   *
+   * @param hash The raw hash code.
+   * @return The mixed hash code.
+   */
+  public static int mix(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /**
+   * Maps a hash code onto a table of {@code buckets} by mixing and masking.
+   *
+   * @param hash The raw hash code.
+   * @param buckets The number of buckets; must be a power of two.
+   * @return The bucket index, in the range 0..({@code buckets} – 1).
+   */
+  public static int byMask(int hash, int buckets) {
+    return mix(hash) & (buckets - 1);
+  }
+
+  /**
+   * Obtains the smallest power of two that is equal to or greater than the given value.
+   *
+   * @param value A positive value, no greater than 2<sup>30</sup>.
+   * @return The power of two.
+   */
+  public static int ceilPowerOfTwo(int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
 }
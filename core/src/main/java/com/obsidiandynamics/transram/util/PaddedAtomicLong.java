@@ -0,0 +1,68 @@
+package com.obsidiandynamics.transram.util;
+
+import java.lang.invoke.*;
+
+/**
+ * Leading padding for {@link PaddedAtomicLong}. Superclass fields are laid out ahead of
+ * subclass fields, so the padding cannot be reordered around the value.
+ */
+abstract class PaddedAtomicLongLhs {
+  long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class PaddedAtomicLongValue extends PaddedAtomicLongLhs {
+  volatile long value;
+}
+
+abstract class PaddedAtomicLongRhs extends PaddedAtomicLongValue {
+  long p11, p12, p13, p14, p15, p16, p17;
+}
+
+/**
+ * A subset of {@link java.util.concurrent.atomic.AtomicLong}, wherein the value is flanked
+ * by enough padding to occupy a 64-byte cache line of its own. Intended for frequently
+ * updated counters that would otherwise share a cache line with unrelated fields in
+ * neighbouring objects.
+ */
+public final class PaddedAtomicLong extends PaddedAtomicLongRhs {
+  private static final VarHandle VALUE;
+
+  static {
+    try {
+      VALUE = MethodHandles.lookup().findVarHandle(PaddedAtomicLongValue.class, "value", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  public PaddedAtomicLong() {}
+
+  public PaddedAtomicLong(long initialValue) {
+    value = initialValue;
+  }
+
+  public long get() {
+    return value;
+  }
+
+  public void set(long newValue) {
+    value = newValue;
+  }
+
+  public boolean compareAndSet(long expectedValue, long newValue) {
+    return VALUE.compareAndSet(this, expectedValue, newValue);
+  }
+
+  public long incrementAndGet() {
+    return (long) VALUE.getAndAdd(this, 1L) + 1;
+  }
+
+  public long addAndGet(long delta) {
+    return (long) VALUE.getAndAdd(this, delta) + delta;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(value);
+  }
+}
@@ -0,0 +1,344 @@
+package com.obsidiandynamics.transram.wal;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Writes a consistent snapshot of a {@link TransMap} to a file, and restores a map from it.<p>
+ *
+ * The snapshot is streamed from {@link TransMap#exportSnapshot} into the file through a series of
+ * memory-mapped regions, so that neither the snapshot nor its serialized form is held in memory.
+ * Entries are grouped into segments of roughly {@link Options#segmentBytes}, recorded in an index
+ * that follows the entries; on restore, the segments are mapped, decoded and loaded into the map
+ * by several threads at once. The file is written under a temporary name and moved into place
+ * once complete, so that an interrupted checkpoint leaves any previous one intact.<p>
+ *
+ * A checkpoint records the version of its snapshot, which may be passed to
+ * {@link WriteAheadLog#recover(TransMap, long)} to replay only the log entries that followed it;
+ * {@link WriteAheadLog#recover(TransMap, Path, Options)} does both.
+ */
+public final class Checkpoint {
+  public static class Options {
+    /** Approximate size of each segment, being the unit of work when restoring. */
+    public int segmentBytes = 1 << 20;
+
+    /** Number of threads that restore segments concurrently. */
+    public int restoreThreads = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of entries loaded into the map at a time when restoring. */
+    public int restoreBatchSize = 256;
+
+    void validate() {
+      Assert.that(segmentBytes > 0, () -> "Segment size must exceed 0");
+      Assert.that(restoreThreads > 0, () -> "Number of restore threads must exceed 0");
+      Assert.that(restoreBatchSize > 0, () -> "Restore batch size must exceed 0");
+    }
+  }
+
+  private static final int MAGIC = 0x5452434B;
+
+  private static final int FORMAT_VERSION = 1;
+
+  /** Magic, format version, snapshot version, number of entries and offset of the index. */
+  private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES * 3;
+
+  /** Offset and length of the segment, followed by the number of entries in it. */
+  private static final int INDEX_ENTRY_BYTES = Long.BYTES * 2 + Integer.BYTES;
+
+  /** Size of each region of the file mapped for writing, unless an entry requires more. */
+  private static final int MAP_REGION_BYTES = 64 << 20;
+
+  private Checkpoint() {}
+
+  /**
+   * Writes a consistent snapshot of the given map to a file, replacing any existing file.
+   *
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @param map The map.
+   * @param path The path to the checkpoint file.
+   * @param keyCodec The key codec.
+   * @param valueCodec The value codec.
+   * @param options The options.
+   * @return The version of the snapshot.
+   * @throws IOException If the file could not be written.
+   * @throws ConcurrentModeFailure If the snapshot could not be exported.
+   */
+  public static <K, V extends DeepCloneable<V>> long write(TransMap<K, V> map, Path path, Codec<K> keyCodec, Codec<V> valueCodec,
+                                                           Options options) throws IOException, ConcurrentModeFailure {
+    options.validate();
+    final var tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    final long snapshotVersion;
+    try (var channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final var writer = new SegmentWriter(channel, options.segmentBytes);
+      try {
+        snapshotVersion = map.exportSnapshot((key, value) -> writer.append(keyCodec.encode(key), valueCodec.encode(value)));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      writer.finish(snapshotVersion);
+      channel.force(true);
+    }
+    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return snapshotVersion;
+  }
+
+  /**
+   * Obtains the version of the snapshot in a checkpoint file.
+   *
+   * @param path The path to the checkpoint file.
+   * @return The snapshot version.
+   * @throws IOException If the file could not be read, or is not a checkpoint.
+   */
+  public static long snapshotVersion(Path path) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return readHeader(channel).snapshotVersion;
+    }
+  }
+
+  /**
+   * Restores the contents of a checkpoint into the given map, which must be empty and not yet in
+   * use. Entries are loaded via {@link TransMap#load} in batches of up to
+   * {@link Options#restoreBatchSize}, outside of any transaction, so that concurrently restored
+   * segments never contend with one another; nor is the restore journaled. The map's version is
+   * then advanced to that of the snapshot, so that subsequent commits continue the numbering of
+   * the map that wrote the checkpoint.
+   *
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @param path The path to the checkpoint file.
+   * @param keyCodec The key codec.
+   * @param valueCodec The value codec.
+   * @param map The map to restore into.
+   * @param options The options.
+   * @return The version of the restored snapshot.
+   * @throws IOException If the file could not be read, or is not a checkpoint.
+   * @throws InterruptedException If the thread was interrupted while awaiting the restore.
+   */
+  public static <K, V extends DeepCloneable<V>> long restore(Path path, Codec<K> keyCodec, Codec<V> valueCodec, TransMap<K, V> map,
+                                                             Options options) throws IOException, InterruptedException {
+    options.validate();
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final var header = readHeader(channel);
+      final var segments = readIndex(channel, header);
+      final var executor = Executors.newFixedThreadPool(Math.min(options.restoreThreads, Math.max(1, segments.length)));
+      try {
+        final var futures = new ArrayList<Future<Void>>(segments.length);
+        for (var segment : segments) {
+          futures.add(executor.submit(() -> {
+            restoreSegment(channel, segment, keyCodec, valueCodec, map, options.restoreBatchSize);
+            return null;
+          }));
+        }
+        for (var future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+              throw ioException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+              throw runtimeException;
+            } else {
+              throw new IllegalStateException(e.getCause());
+            }
+          }
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+      map.advanceVersion(header.snapshotVersion);
+      return header.snapshotVersion;
+    }
+  }
+
+  private static <K, V extends DeepCloneable<V>> void restoreSegment(FileChannel channel, Segment segment, Codec<K> keyCodec, Codec<V> valueCodec,
+                                                                     TransMap<K, V> map, int batchSize) throws IOException {
+    final var buffer = channel.map(MapMode.READ_ONLY, segment.offset, segment.length);
+    final var batch = new HashMap<K, V>(batchSize * 2);
+    for (var i = 0; i < segment.numEntries; i++) {
+      final var key = keyCodec.decode(getBytes(buffer));
+      final var value = valueCodec.decode(getBytes(buffer));
+      batch.put(key, value);
+      if (batch.size() == batchSize || i == segment.numEntries - 1) {
+        map.load(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private static byte[] getBytes(ByteBuffer buffer) {
+    final var bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static final class Header {
+    final long snapshotVersion;
+
+    final long numEntries;
+
+    final long indexOffset;
+
+    Header(long snapshotVersion, long numEntries, long indexOffset) {
+      this.snapshotVersion = snapshotVersion;
+      this.numEntries = numEntries;
+      this.indexOffset = indexOffset;
+    }
+  }
+
+  private static final class Segment {
+    final long offset;
+
+    final long length;
+
+    final int numEntries;
+
+    Segment(long offset, long length, int numEntries) {
+      this.offset = offset;
+      this.length = length;
+      this.numEntries = numEntries;
+    }
+  }
+
+  private static Header readHeader(FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_BYTES) {
+      throw new IOException("Not a checkpoint file: too short");
+    }
+    final var buffer = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES);
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Not a checkpoint file: bad magic");
+    }
+    final var formatVersion = buffer.getInt();
+    if (formatVersion != FORMAT_VERSION) {
+      throw new IOException("Unsupported checkpoint format version " + formatVersion);
+    }
+    final var header = new Header(buffer.getLong(), buffer.getLong(), buffer.getLong());
+    if (header.indexOffset < HEADER_BYTES || header.indexOffset + Integer.BYTES > channel.size()) {
+      throw new IOException("Checkpoint index is out of bounds");
+    }
+    return header;
+  }
+
+  private static Segment[] readIndex(FileChannel channel, Header header) throws IOException {
+    final var numSegments = channel.map(MapMode.READ_ONLY, header.indexOffset, Integer.BYTES).getInt();
+    final var indexBytes = (long) numSegments * INDEX_ENTRY_BYTES;
+    if (numSegments < 0 || header.indexOffset + Integer.BYTES + indexBytes > channel.size()) {
+      throw new IOException("Checkpoint index is truncated");
+    }
+    final var buffer = channel.map(MapMode.READ_ONLY, header.indexOffset + Integer.BYTES, indexBytes);
+    final var segments = new Segment[numSegments];
+    var numEntries = 0L;
+    for (var i = 0; i < numSegments; i++) {
+      segments[i] = new Segment(buffer.getLong(), buffer.getLong(), buffer.getInt());
+      numEntries += segments[i].numEntries;
+    }
+    if (numEntries != header.numEntries) {
+      throw new IOException("Checkpoint index accounts for " + numEntries + " entries, expected " + header.numEntries);
+    }
+    return segments;
+  }
+
+  /**
+   * Appends entries to a checkpoint file through successive memory-mapped regions, keeping track
+   * of the segment boundaries.
+   */
+  private static final class SegmentWriter {
+    private final FileChannel channel;
+
+    private final int segmentBytes;
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    private MappedByteBuffer region;
+
+    /** File offset of the start of the current region. */
+    private long regionOffset;
+
+    /** File offset at which the next entry will be written. */
+    private long position = HEADER_BYTES;
+
+    private long segmentOffset = HEADER_BYTES;
+
+    private int segmentEntries;
+
+    private long numEntries;
+
+    SegmentWriter(FileChannel channel, int segmentBytes) {
+      this.channel = channel;
+      this.segmentBytes = segmentBytes;
+    }
+
+    void append(byte[] key, byte[] value) {
+      final var entryBytes = Integer.BYTES * 2 + key.length + value.length;
+      try {
+        ensureCapacity(entryBytes);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      region.putInt(key.length).put(key).putInt(value.length).put(value);
+      position += entryBytes;
+      segmentEntries++;
+      numEntries++;
+      if (position - segmentOffset >= segmentBytes) {
+        closeSegment();
+      }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+      if (region == null || region.remaining() < bytes) {
+        if (region != null) {
+          region.force();
+        }
+        regionOffset = position;
+        region = channel.map(MapMode.READ_WRITE, regionOffset, Math.max(MAP_REGION_BYTES, bytes));
+      }
+    }
+
+    private void closeSegment() {
+      if (segmentEntries != 0) {
+        segments.add(new Segment(segmentOffset, position - segmentOffset, segmentEntries));
+        segmentOffset = position;
+        segmentEntries = 0;
+      }
+    }
+
+    /**
+     * Writes the index and the header. The index is written directly after the last entry; the
+     * file is not trimmed, as its tail may still be mapped, leaving it padded up to the end of
+     * the last region.
+     */
+    void finish(long snapshotVersion) throws IOException {
+      closeSegment();
+      if (region != null) {
+        region.force();
+        region = null;
+      }
+      final var indexOffset = position;
+      final var index = ByteBuffer.allocate(Integer.BYTES + segments.size() * INDEX_ENTRY_BYTES);
+      index.putInt(segments.size());
+      for (var segment : segments) {
+        index.putLong(segment.offset).putLong(segment.length).putInt(segment.numEntries);
+      }
+      writeFully(index.flip(), indexOffset);
+
+      final var header = ByteBuffer.allocate(HEADER_BYTES);
+      header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(snapshotVersion).putLong(numEntries).putLong(indexOffset);
+      writeFully(header.flip(), 0);
+    }
+
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, offset + buffer.position());
+      }
+    }
+  }
+}
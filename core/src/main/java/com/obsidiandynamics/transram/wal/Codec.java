@@ -0,0 +1,13 @@
+package com.obsidiandynamics.transram.wal;
+
+/**
+ * Converts keys or values to and from their serialized form, for persisting in a
+ * {@link WriteAheadLog}.
+ *
+ * @param <T> The type of object.
+ */
+public interface Codec<T> {
+  byte[] encode(T obj);
+
+  T decode(byte[] bytes);
+}
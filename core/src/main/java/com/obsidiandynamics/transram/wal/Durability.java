@@ -0,0 +1,24 @@
+package com.obsidiandynamics.transram.wal;
+
+/**
+ * The extent to which a {@link WriteAheadLog} protects committed transactions.
+ */
+public enum Durability {
+  /**
+   * Entries are written to the log file without being forced to storage, surviving a crash of
+   * the process but not of the operating system. Committers do not wait.
+   */
+  NONE,
+
+  /**
+   * Entries are forced to storage in the background, in batches. Committers do not wait, so
+   * that the most recent transactions may be lost in a crash.
+   */
+  ASYNC,
+
+  /**
+   * Entries are forced to storage before the committing transaction returns. Concurrent
+   * committers share the cost of forcing.
+   */
+  SYNC
+}
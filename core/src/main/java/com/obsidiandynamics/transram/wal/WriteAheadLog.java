@@ -0,0 +1,465 @@
+package com.obsidiandynamics.transram.wal;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
+
+/**
+ * A {@link Journal} that appends the write set of each committed transaction to a log file, from
+ * which the contents of a map may be recovered following a restart.<p>
+ *
+ * Committers serialize their entries and queue them in memory; a dedicated flusher thread writes
+ * all queued entries to the file in a single gathering write, forcing them to storage as per
+ * the configured {@link Durability}. Entries queued while the flusher is busy form the next
+ * batch, so that the cost of each force is shared among all concurrent committers.<p>
+ *
+ * Each entry is framed by its length and a CRC-32 checksum of its contents. An entry that was
+ * only partially written when the process crashed is detected when the log is next opened, and
+ * is truncated along with anything that follows it.<p>
+ *
+ * Typical use is to open the log, attach it to a new map via the map's options, then
+ * {@link #recover} the map before putting it to use. Should writing to the file fail, the log
+ * ceases to accept entries, and committers (or those awaiting their entries) are given an
+ * {@link UncheckedIOException}. Their transactions will nonetheless have been committed in memory.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public final class WriteAheadLog<K, V extends DeepCloneable<V>> implements Journal, Closeable {
+  public static class Options {
+    public Durability durability = Durability.SYNC;
+
+    void validate() {
+      Assert.that(durability != null, () -> "Durability cannot be null");
+    }
+  }
+
+  /** Length of the entry contents, followed by their checksum. */
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+  /** Commit version, followed by the number of changes. */
+  private static final int PREAMBLE_BYTES = Long.BYTES + Integer.BYTES;
+
+  private static final byte OP_DELETE = 0;
+
+  private static final byte OP_PUT = 1;
+
+  @FunctionalInterface
+  private interface EntryHandler {
+    void handle(long position, ByteBuffer contents);
+  }
+
+  private final FileChannel channel;
+
+  private final Codec<K> keyCodec;
+
+  private final Codec<V> valueCodec;
+
+  private final Durability durability;
+
+  /** Length of the valid prefix of the file at the time it was opened. */
+  private final long recoverableLength;
+
+  private final Lock lock = new ReentrantLock();
+
+  /** Signalled when an entry is queued, or when the log is closing. */
+  private final Condition queued = lock.newCondition();
+
+  /** Signalled when a batch has been flushed, or when flushing fails. */
+  private final Condition flushed = lock.newCondition();
+
+  private final Thread flusher;
+
+  /** Entries awaiting the flusher. Guarded by {@link #lock}. */
+  private List<ByteBuffer> pending = new ArrayList<>();
+
+  /** Total length of the entries appended since opening. Guarded by {@link #lock}. */
+  private long appendedBytes;
+
+  /** Total length of the entries flushed since opening. Guarded by {@link #lock}. */
+  private long flushedBytes;
+
+  /** Guarded by {@link #lock}. */
+  private IOException failure;
+
+  /** Guarded by {@link #lock}. */
+  private boolean closing;
+
+  /** Whether recovery is underway, during which commits are not journaled again. */
+  private volatile boolean recovering;
+
+  /**
+   * Opens the log file, creating it if it doesn't exist and truncating any partially written
+   * entry at its tail.
+   *
+   * @param path The path to the log file.
+   * @param keyCodec The key codec.
+   * @param valueCodec The value codec.
+   * @param options The options.
+   * @throws IOException If the file could not be opened.
+   */
+  public WriteAheadLog(Path path, Codec<K> keyCodec, Codec<V> valueCodec, Options options) throws IOException {
+    options.validate();
+    this.keyCodec = keyCodec;
+    this.valueCodec = valueCodec;
+    durability = options.durability;
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      recoverableLength = scan(channel.size(), (__, ___) -> {});
+      if (recoverableLength < channel.size()) {
+        channel.truncate(recoverableLength);
+        channel.force(true);
+      }
+      channel.position(recoverableLength);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    flusher = new Thread(this::flushLoop, WriteAheadLog.class.getSimpleName() + "-flusher-" + path.getFileName());
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Replays the entries that were in the log when it was opened into the given map, each as a
+   * separate transaction consisting of blind writes. Entries are logged in the order that they
+   * were appended, which may differ from the order of their versions where non-conflicting
+   * transactions committed concurrently; they are therefore replayed in the order of their
+   * versions. Before each entry is replayed, the map's
+   * version is advanced to just below that of the entry, so that the map continues the numbering
+   * of the versions in the log. The transactions carried out in the course of recovery are not
+   * journaled again, even if the map is attached to this log. Recovery is meant to be performed
+   * once, before the map is put to use.
+   *
+   * @param map The map to recover into.
+   * @return The number of entries replayed.
+   * @throws IOException If the file could not be read.
+   */
+  public long recover(TransMap<K, V> map) throws IOException {
+    return recover(map, Long.MIN_VALUE);
+  }
+
+  /**
+   * Replays the entries that were in the log when it was opened, skipping those whose commit
+   * version is at or below the given version. Used in conjunction with a {@link Checkpoint}
+   * taken from a map that wrote to the log, to replay only the commits that followed it.
+   *
+   * @param map The map to recover into.
+   * @param afterVersion The version of the checkpoint that the map was restored from.
+   * @return The number of entries replayed.
+   * @throws IOException If the file could not be read.
+   */
+  public long recover(TransMap<K, V> map, long afterVersion) throws IOException {
+    recovering = true;
+    try {
+      return replay(map, afterVersion);
+    } finally {
+      recovering = false;
+    }
+  }
+
+  /**
+   * Restores the given map from a {@link Checkpoint}, then replays the entries that were in the
+   * log when it was opened and followed the checkpoint. Neither the restore nor the replay is
+   * journaled again, even if the map is attached to this log.
+   *
+   * @param map The map to recover into, which must be empty.
+   * @param checkpointPath The path to the checkpoint file.
+   * @param checkpointOptions The options for restoring the checkpoint.
+   * @return The number of entries replayed.
+   * @throws IOException If the log or the checkpoint could not be read.
+   * @throws InterruptedException If the thread was interrupted while awaiting the restore.
+   */
+  public long recover(TransMap<K, V> map, Path checkpointPath, Checkpoint.Options checkpointOptions) throws IOException, InterruptedException {
+    recovering = true;
+    try {
+      final var snapshotVersion = Checkpoint.restore(checkpointPath, keyCodec, valueCodec, map, checkpointOptions);
+      return replay(map, snapshotVersion);
+    } finally {
+      recovering = false;
+    }
+  }
+
+  private long replay(TransMap<K, V> map, long afterVersion) throws IOException {
+    final var positions = new TreeMap<Long, Long>();
+    scan(recoverableLength, (position, contents) -> {
+      final var version = contents.getLong(0);
+      if (version > afterVersion) {
+        positions.put(version, position);
+      }
+    });
+
+    for (var entry : positions.entrySet()) {
+      final var changes = decode(readEntry(entry.getValue(), recoverableLength));
+      map.advanceVersion(entry.getKey() - 1);
+      Transact.over(map).run(ctx -> {
+        for (var change : changes.entrySet()) {
+          if (change.getValue() != null) {
+            ctx.put(change.getKey(), change.getValue());
+          } else {
+            ctx.remove(change.getKey());
+          }
+        }
+        return Action.COMMIT;
+      });
+    }
+    return positions.size();
+  }
+
+  @Override
+  public Receipt append(long version, Map<Object, DeepCloneable<?>> changes) {
+    if (changes.isEmpty() || recovering) {
+      return Receipt.NONE;
+    }
+
+    final var entry = encode(version, changes);
+    final long position;
+    lock.lock();
+    try {
+      ensureUsable();
+      pending.add(entry);
+      appendedBytes += entry.remaining();
+      position = appendedBytes;
+      queued.signal();
+    } finally {
+      lock.unlock();
+    }
+    return durability == Durability.SYNC ? () -> awaitFlushed(position) : Receipt.NONE;
+  }
+
+  private void ensureUsable() {
+    if (failure != null) {
+      throw new UncheckedIOException("Write-ahead log has failed", failure);
+    }
+    if (closing) {
+      throw new IllegalStateException("Write-ahead log is closed");
+    }
+  }
+
+  private void awaitFlushed(long position) throws InterruptedException {
+    lock.lock();
+    try {
+      while (flushedBytes < position) {
+        if (failure != null) {
+          throw new UncheckedIOException("Write-ahead log has failed", failure);
+        }
+        flushed.await();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void flushLoop() {
+    while (true) {
+      final List<ByteBuffer> batch;
+      final long batchEnd;
+      lock.lock();
+      try {
+        while (pending.isEmpty() && !closing) {
+          queued.awaitUninterruptibly();
+        }
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = pending;
+        pending = new ArrayList<>();
+        batchEnd = appendedBytes;
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        final var buffers = batch.toArray(ByteBuffer[]::new);
+        while (buffers[buffers.length - 1].hasRemaining()) {
+          channel.write(buffers);
+        }
+        if (durability != Durability.NONE) {
+          channel.force(false);
+        }
+      } catch (IOException e) {
+        lock.lock();
+        try {
+          failure = e;
+          flushed.signalAll();
+        } finally {
+          lock.unlock();
+        }
+        return;
+      }
+
+      lock.lock();
+      try {
+        flushedBytes = batchEnd;
+        flushed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Flushes the queued entries and closes the log file. Subsequent appends fail with an
+   * {@link IllegalStateException}.
+   *
+   * @throws IOException If the queued entries could not be flushed, or if the file could not
+   *                     be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (closing) {
+        return;
+      }
+      closing = true;
+      queued.signal();
+    } finally {
+      lock.unlock();
+    }
+
+    var interrupted = false;
+    while (true) {
+      try {
+        flusher.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    channel.close();
+    lock.lock();
+    try {
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private ByteBuffer encode(long version, Map<Object, DeepCloneable<?>> changes) {
+    final var encodedChanges = new ArrayList<byte[]>(changes.size() * 2);
+    var length = PREAMBLE_BYTES;
+    for (var change : changes.entrySet()) {
+      final var encodedKey = keyCodec.encode(Unsafe.cast(change.getKey()));
+      encodedChanges.add(encodedKey);
+      length += Byte.BYTES + Integer.BYTES + encodedKey.length;
+      if (change.getValue() != null) {
+        final var encodedValue = valueCodec.encode(Unsafe.cast(change.getValue()));
+        encodedChanges.add(encodedValue);
+        length += Integer.BYTES + encodedValue.length;
+      } else {
+        encodedChanges.add(null);
+      }
+    }
+
+    final var buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+    buffer.position(HEADER_BYTES);
+    buffer.putLong(version).putInt(changes.size());
+    for (var i = 0; i < encodedChanges.size(); i += 2) {
+      final var encodedKey = encodedChanges.get(i);
+      final var encodedValue = encodedChanges.get(i + 1);
+      buffer.put(encodedValue != null ? OP_PUT : OP_DELETE);
+      buffer.putInt(encodedKey.length).put(encodedKey);
+      if (encodedValue != null) {
+        buffer.putInt(encodedValue.length).put(encodedValue);
+      }
+    }
+
+    final var checksum = new CRC32();
+    checksum.update(buffer.array(), HEADER_BYTES, length);
+    buffer.putInt(0, length).putInt(Integer.BYTES, (int) checksum.getValue());
+    return buffer.flip();
+  }
+
+  private Map<K, V> decode(ByteBuffer contents) {
+    contents.getLong();
+    final var numChanges = contents.getInt();
+    final var changes = new LinkedHashMap<K, V>(numChanges * 2);
+    for (var i = 0; i < numChanges; i++) {
+      final var op = contents.get();
+      final var key = keyCodec.decode(getBytes(contents));
+      changes.put(key, op == OP_PUT ? valueCodec.decode(getBytes(contents)) : null);
+    }
+    return changes;
+  }
+
+  private static byte[] getBytes(ByteBuffer buffer) {
+    final var bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads the intact entries in the file, up to the given length, stopping at the first entry
+   * that is incomplete or fails its checksum.
+   *
+   * @return The length of the intact prefix of the file.
+   */
+  private long scan(long limit, EntryHandler handler) throws IOException {
+    var position = 0L;
+    while (true) {
+      final var contents = readEntry(position, limit);
+      if (contents == null) {
+        return position;
+      }
+      final var length = contents.remaining();
+      handler.handle(position, contents);
+      position += HEADER_BYTES + length;
+    }
+  }
+
+  /**
+   * Reads the entry at the given position of the file.
+   *
+   * @return The contents of the entry, or {@code null} if the entry is incomplete, extends
+   *         beyond the given limit or fails its checksum.
+   */
+  private ByteBuffer readEntry(long position, long limit) throws IOException {
+    final var header = ByteBuffer.allocate(HEADER_BYTES);
+    if (position + HEADER_BYTES > limit || !readFully(header, position)) {
+      return null;
+    }
+    header.flip();
+    final var length = header.getInt();
+    final var checksum = header.getInt();
+    if (length < PREAMBLE_BYTES || position + HEADER_BYTES + length > limit) {
+      return null;
+    }
+
+    final var contents = ByteBuffer.allocate(length);
+    if (!readFully(contents, position + HEADER_BYTES)) {
+      return null;
+    }
+    final var crc = new CRC32();
+    crc.update(contents.array());
+    if ((int) crc.getValue() != checksum) {
+      return null;
+    }
+    return contents.flip();
+  }
+
+  private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+    final var start = buffer.position();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position() - start) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
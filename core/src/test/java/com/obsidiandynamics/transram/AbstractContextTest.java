@@ -4,6 +4,7 @@ import com.obsidiandynamics.transram.LifecycleFailure.*;
 import com.obsidiandynamics.transram.TransContext.*;
 import org.junit.jupiter.api.*;
 
+import java.util.*;
 import java.util.function.*;
 
 import static org.assertj.core.api.Assertions.*;
@@ -35,6 +36,53 @@ abstract class AbstractContextTest {
       assertThat(map.debug().getVersion()).isEqualTo(1);
     }
 
+    @Test
+    void testAdvanceVersion() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      map.advanceVersion(5);
+      assertThat(map.debug().getVersion()).isEqualTo(5);
+
+      // advancing to a lower version has no effect
+      map.advanceVersion(3);
+      assertThat(map.debug().getVersion()).isEqualTo(5);
+      assertThat(map.exportSnapshot((key, value) -> {})).isEqualTo(5);
+
+      final var ctx = map.transact();
+      ctx.insert(0, StringBox.of("zero_v0"));
+      ctx.commit();
+      assertThat(ctx.getVersion()).isEqualTo(6);
+      assertThat(map.exportSnapshot((key, value) -> {})).isEqualTo(6);
+      assertThat(catchThrowableOfType(() -> map.advanceVersion(-1), AssertionError.class))
+          .hasMessage("Version must be equal to or greater than 0");
+    }
+
+    @Test
+    void testLoad() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      map.load(Map.of(0, StringBox.of("zero_v0"), 1, StringBox.of("one_v0")));
+      map.load(Map.of(2, StringBox.of("two_v0")));
+      assertThat(map.debug().getVersion()).isEqualTo(0);
+
+      final var ctx = map.transact();
+      assertThat(ctx.size()).isEqualTo(3);
+      assertThat(ctx.read(1)).isEqualTo(StringBox.of("one_v0"));
+      ctx.update(2, StringBox.of("two_v1"));
+      ctx.commit();
+      assertThat(ctx.getVersion()).isEqualTo(1);
+
+      // items loaded before an existing one remain
+      final var items = new LinkedHashMap<Integer, StringBox>();
+      items.put(3, StringBox.of("three_v0"));
+      items.put(2, StringBox.of("two_v0"));
+      assertThat(catchThrowableOfType(() -> map.load(items), IllegalLifecycleStateException.class))
+          .hasMessage("Cannot load an existing item for key KeyRef[2]");
+      final var ctx2 = map.transact();
+      assertThat(ctx2.size()).isEqualTo(4);
+      assertThat(ctx2.read(2)).isEqualTo(StringBox.of("two_v1"));
+      assertThat(ctx2.read(3)).isEqualTo(StringBox.of("three_v0"));
+      ctx2.rollback();
+    }
+
     @Test
     void testStateAfterRollback() {
       final var map = newMap();
@@ -60,6 +108,7 @@ abstract class AbstractContextTest {
       assertThat(catchThrowable(() -> ctx.delete(0))).isExactlyInstanceOf(TransactionNotOpenException.class);
       assertThat(catchThrowable(ctx::size)).isExactlyInstanceOf(TransactionNotOpenException.class);
       assertThat(catchThrowable(() -> ctx.keys(__ -> true))).isExactlyInstanceOf(TransactionNotOpenException.class);
+      assertThat(catchThrowable(() -> ctx.scan(__ -> true))).isExactlyInstanceOf(TransactionNotOpenException.class);
     }
 
     @Test
@@ -75,6 +124,7 @@ abstract class AbstractContextTest {
       assertThat(catchThrowable(() -> ctx.delete(0))).isExactlyInstanceOf(TransactionNotOpenException.class);
       assertThat(catchThrowable(ctx::size)).isExactlyInstanceOf(TransactionNotOpenException.class);
       assertThat(catchThrowable(() -> ctx.keys(__ -> true))).isExactlyInstanceOf(TransactionNotOpenException.class);
+      assertThat(catchThrowable(() -> ctx.scan(__ -> true))).isExactlyInstanceOf(TransactionNotOpenException.class);
       assertThat(catchThrowable(ctx::getVersion)).isExactlyInstanceOf(TransactionNotCommittedException.class);
     }
 
@@ -449,6 +499,484 @@ abstract class AbstractContextTest {
     }
   }
 
+  @Nested
+  class MergeTests {
+    private UnaryOperator<StringBox> append(String suffix) {
+      return box -> {
+        box.setValue(box.getValue() + suffix);
+        return box;
+      };
+    }
+
+    private void insertZero(TransMap<Integer, StringBox> map) throws ConcurrentModeFailure {
+      final var ctx = map.transact();
+      ctx.insert(0, StringBox.of("zero"));
+      ctx.commit();
+    }
+
+    private StringBox readZero(TransMap<Integer, StringBox> map) throws ConcurrentModeFailure {
+      final var ctx = map.transact();
+      final var value = ctx.read(0);
+      ctx.rollback();
+      return value;
+    }
+
+    @Test
+    void testMergesAppliedInOrderOnCommit() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      insertZero(map);
+
+      final var ctx = map.transact();
+      ctx.merge(0, append("_a"));
+      ctx.merge(0, append("_b"));
+      assertThat(ctx.keys(__ -> true)).containsExactly(0);
+      ctx.commit();
+      assertThat(readZero(map)).isEqualTo(StringBox.of("zero_a_b"));
+    }
+
+    @Test
+    void testInterleavedMergesDoNotConflict() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      insertZero(map);
+
+      final var ctx1 = map.transact();
+      ctx1.merge(0, append("_a"));
+      final var ctx2 = map.transact();
+      ctx2.merge(0, append("_b"));
+      ctx1.commit();
+      ctx2.commit();
+      assertThat(readZero(map)).isEqualTo(StringBox.of("zero_a_b"));
+    }
+
+    @Test
+    void testReadAfterMerge() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      insertZero(map);
+
+      final var ctx = map.transact();
+      ctx.merge(0, append("_a"));
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_a"));
+      ctx.merge(0, append("_b"));
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_a_b"));
+      ctx.commit();
+      assertThat(readZero(map)).isEqualTo(StringBox.of("zero_a_b"));
+    }
+
+    @Test
+    void testMergeAfterRead() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      insertZero(map);
+
+      final var ctx = map.transact();
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero"));
+      ctx.merge(0, append("_a"));
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_a"));
+      ctx.commit();
+      assertThat(readZero(map)).isEqualTo(StringBox.of("zero_a"));
+    }
+
+    @Test
+    void testWritesAfterMerge() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      insertZero(map);
+
+      final var ctx = map.transact();
+      ctx.merge(0, append("_a"));
+      assertThat(catchThrowableOfType(() -> ctx.insert(0, StringBox.of("zero_b")), IllegalLifecycleStateException.class).getReason())
+          .isEqualTo(IllegalLifecycleStateException.Reason.INSERT_EXISTING);
+      ctx.update(0, StringBox.of("zero_c"));
+      ctx.merge(0, append("_d"));
+      ctx.commit();
+      assertThat(readZero(map)).isEqualTo(StringBox.of("zero_c_d"));
+
+      final var ctx2 = map.transact();
+      ctx2.merge(0, append("_e"));
+      ctx2.delete(0);
+      assertThat(ctx2.size()).isEqualTo(0);
+      ctx2.commit();
+      assertThat(readZero(map)).isNull();
+    }
+
+    @Test
+    void testMergeIntoNonexistent() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.merge(0, append("_a"));
+        assertThat(catchThrowableOfType(ctx::commit, LifecycleFailure.class).getReason()).isEqualTo(Reason.UPDATE_NONEXISTENT);
+        assertThat(ctx.getState()).isEqualTo(State.ROLLED_BACK);
+      }
+      {
+        final var ctx = map.transact();
+        ctx.merge(0, append("_a"));
+        assertThat(catchThrowableOfType(() -> ctx.read(0), IllegalLifecycleStateException.class).getReason())
+            .isEqualTo(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT);
+        ctx.rollback();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isNull();
+        assertThat(catchThrowableOfType(() -> ctx.merge(0, append("_a")), IllegalLifecycleStateException.class).getReason())
+            .isEqualTo(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testMergeOperatorReturnsNull() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      insertZero(map);
+
+      final var ctx = map.transact();
+      ctx.merge(0, __ -> null);
+      assertThat(catchThrowableOfType(ctx::commit, NullValueAssertionError.class)).hasMessage("Merge operator returned null");
+      assertThat(ctx.getState()).isEqualTo(State.ROLLED_BACK);
+      assertThat(readZero(map)).isEqualTo(StringBox.of("zero"));
+    }
+  }
+
+  @Nested
+  class BlindWriteTests {
+    @Test
+    void testPutInsertsOrReplaces() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.put(0, StringBox.of("zero_v0"));
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        ctx.put(0, StringBox.of("zero_v1"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v1"));
+        assertThat(ctx.size()).isEqualTo(1);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testRemoveExistingOrNonexistent() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        ctx.remove(0);
+        ctx.remove(1);
+        assertThat(ctx.read(0)).isNull();
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isNull();
+        assertThat(ctx.read(1)).isNull();
+        assertThat(ctx.size()).isEqualTo(0);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testSizeAndKeysAfterBlindWrites() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        ctx.put(1, StringBox.of("one_v1"));
+        ctx.put(2, StringBox.of("two_v0"));
+        ctx.remove(0);
+        ctx.remove(3);
+        assertThat(ctx.keys(__ -> true)).containsExactlyInAnyOrder(1, 2);
+        assertThat(ctx.size()).isEqualTo(2);
+        ctx.put(3, StringBox.of("three_v0"));
+        assertThat(ctx.size()).isEqualTo(3);
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.keys(__ -> true)).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(ctx.size()).isEqualTo(3);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testWritesAfterBlindWrites() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        ctx.put(0, StringBox.of("zero_v1"));
+        assertThat(catchThrowableOfType(() -> ctx.insert(0, StringBox.of("zero_v2")), IllegalLifecycleStateException.class).getReason())
+            .isEqualTo(IllegalLifecycleStateException.Reason.INSERT_EXISTING);
+        ctx.merge(0, box -> StringBox.of(box.getValue() + "_merged"));
+        ctx.delete(0);
+        assertThat(catchThrowableOfType(() -> ctx.update(0, StringBox.of("zero_v3")), IllegalLifecycleStateException.class).getReason())
+            .isEqualTo(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT);
+
+        ctx.remove(1);
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.update(1, StringBox.of("one_v1"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isNull();
+        assertThat(ctx.read(1)).isEqualTo(StringBox.of("one_v1"));
+        assertThat(ctx.size()).isEqualTo(1);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testBlindWritesAfterRead() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isNotNull();
+        assertThat(ctx.read(1)).isNull();
+        assertThat(ctx.read(2)).isNull();
+        ctx.remove(0);
+        ctx.put(1, StringBox.of("one_v0"));
+        ctx.remove(2);
+        assertThat(ctx.size()).isEqualTo(1);
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.keys(__ -> true)).containsExactly(1);
+        assertThat(ctx.size()).isEqualTo(1);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testPutNullValue() {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      final var ctx = map.transact();
+      assertThat(catchThrowableOfType(() -> ctx.put(0, null), NullValueAssertionError.class)).hasMessage("Cannot put null value");
+    }
+  }
+
+  @Nested
+  class BulkTests {
+    @Test
+    void testBulkOperations() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insertAll(Map.of(0, StringBox.of("zero_v0"), 1, StringBox.of("one_v0"), 2, StringBox.of("two_v0")));
+        assertThat(ctx.size()).isEqualTo(3);
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.readAll(List.of(0, 1, 3))).isEqualTo(Map.of(0, StringBox.of("zero_v0"), 1, StringBox.of("one_v0")));
+        ctx.updateAll(Map.of(0, StringBox.of("zero_v1"), 2, StringBox.of("two_v1")));
+        ctx.deleteAll(List.of(1));
+        assertThat(ctx.size()).isEqualTo(2);
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.readAll(List.of(0, 1, 2))).isEqualTo(Map.of(0, StringBox.of("zero_v1"), 2, StringBox.of("two_v1")));
+        assertThat(ctx.size()).isEqualTo(2);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testBulkOperationsOverBlindWrites() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        ctx.remove(0);
+        ctx.put(1, StringBox.of("one_v0"));
+        ctx.insertAll(Map.of(0, StringBox.of("zero_v1"), 2, StringBox.of("two_v0")));
+        ctx.deleteAll(List.of(1));
+        assertThat(ctx.size()).isEqualTo(2);
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.readAll(List.of(0, 1, 2))).isEqualTo(Map.of(0, StringBox.of("zero_v1"), 2, StringBox.of("two_v0")));
+        assertThat(ctx.size()).isEqualTo(2);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testBulkLifecycleViolations() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      final var ctx = map.transact();
+      ctx.insert(0, StringBox.of("zero_v0"));
+      assertThat(ctx.read(1)).isNull();
+      assertThat(catchThrowableOfType(() -> ctx.insertAll(Map.of(0, StringBox.of("zero_v1"))), IllegalLifecycleStateException.class).getReason())
+          .isEqualTo(IllegalLifecycleStateException.Reason.INSERT_EXISTING);
+      assertThat(catchThrowableOfType(() -> ctx.updateAll(Map.of(1, StringBox.of("one_v0"))), IllegalLifecycleStateException.class).getReason())
+          .isEqualTo(IllegalLifecycleStateException.Reason.UPDATE_NONEXISTENT);
+      assertThat(catchThrowableOfType(() -> ctx.deleteAll(List.of(1)), IllegalLifecycleStateException.class).getReason())
+          .isEqualTo(IllegalLifecycleStateException.Reason.DELETE_NONEXISTENT);
+      final var items = new HashMap<Integer, StringBox>();
+      items.put(1, null);
+      assertThat(catchThrowableOfType(() -> ctx.insertAll(items), NullValueAssertionError.class)).hasMessage("Cannot insert null value");
+      assertThat(ctx.size()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  class ScanTests {
+    @Test
+    void testScanMergesUpstreamAndStagedItems() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        for (var i = 0; i < 6; i++) {
+          ctx.insert(i, StringBox.of("v" + i));
+        }
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        ctx.delete(0);
+        ctx.update(2, StringBox.of("v2_updated"));
+        ctx.insert(8, StringBox.of("v8"));
+        ctx.merge(4, value -> StringBox.of(value.getValue() + "_merged"));
+        final var scanned = new HashMap<Integer, StringBox>();
+        final var cursor = ctx.scan(key -> key % 2 == 0);
+        while (cursor.next()) {
+          assertThat(scanned.put(cursor.key(), cursor.value())).isNull();
+        }
+        assertThat(scanned).isEqualTo(Map.of(2, StringBox.of("v2_updated"),
+                                              4, StringBox.of("v4_merged"),
+                                              8, StringBox.of("v8")));
+        assertThat(cursor.next()).isFalse();
+        assertThat(catchThrowable(cursor::key)).isExactlyInstanceOf(NoSuchElementException.class);
+        assertThat(catchThrowable(cursor::value)).isExactlyInstanceOf(NoSuchElementException.class);
+        ctx.rollback();
+      }
+    }
+
+    @Test
+    void testEarlyTerminationReadsOnlyVisitedItems() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact();
+      final var cursor = ctx1.scan(__ -> true);
+      assertThat(cursor.next()).isTrue();
+      final var unvisitedKey = 1 - cursor.key();
+      {
+        // an item that was never visited may be updated concurrently without conflicting with the scan
+        final var ctx2 = map.transact();
+        ctx2.update(unvisitedKey, StringBox.of("updated"));
+        ctx2.commit();
+      }
+      ctx1.update(cursor.key(), StringBox.of("scanned"));
+      ctx1.commit();
+
+      final var ctx = map.transact();
+      assertThat(ctx.read(0)).isEqualTo(unvisitedKey == 0 ? StringBox.of("updated") : StringBox.of("scanned"));
+      assertThat(ctx.read(1)).isEqualTo(unvisitedKey == 1 ? StringBox.of("updated") : StringBox.of("scanned"));
+      ctx.rollback();
+    }
+  }
+
+  @Nested
+  class ExportTests {
+    @Test
+    void testExportExcludesUncommittedWrites() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+
+      final var ctx = map.transact();
+      ctx.update(0, StringBox.of("zero_v1"));
+      ctx.insert(2, StringBox.of("two_v0"));
+      final var exported = new HashMap<Integer, StringBox>();
+      map.exportSnapshot(exported::put);
+      assertThat(exported).isEqualTo(Map.of(0, StringBox.of("zero_v0"), 1, StringBox.of("one_v0")));
+      ctx.rollback();
+    }
+
+    @Test
+    void testExportUnaffectedByConcurrentCommits() throws ConcurrentModeFailure {
+      final var map = AbstractContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.insert(2, StringBox.of("two_v0"));
+        ctx.commit();
+      }
+
+      final var exported = new HashMap<Integer, StringBox>();
+      final var exportVersion = map.exportSnapshot((key, value) -> {
+        if (exported.isEmpty()) {
+          // alter every item while the export is underway
+          try {
+            final var ctx = map.transact();
+            ctx.update(0, StringBox.of("zero_v1"));
+            ctx.delete(1);
+            ctx.delete(2);
+            ctx.insert(3, StringBox.of("three_v0"));
+            ctx.commit();
+          } catch (ConcurrentModeFailure e) {
+            throw new AssertionError(e);
+          }
+        }
+        value.setValue(value.getValue() + "_exported");
+        exported.put(key, value);
+      });
+
+      assertThat(exported).isEqualTo(Map.of(0, StringBox.of("zero_v0_exported"),
+                                             1, StringBox.of("one_v0_exported"),
+                                             2, StringBox.of("two_v0_exported")));
+      assertThat(exportVersion).isLessThan(map.debug().getVersion());
+
+      final var ctx = map.transact();
+      assertThat(ctx.readAll(List.of(0, 1, 2, 3))).isEqualTo(Map.of(0, StringBox.of("zero_v1"), 3, StringBox.of("three_v0")));
+      assertThat(ctx.keys(__ -> true)).containsExactlyInAnyOrder(0, 3);
+      assertThat(ctx.size()).isEqualTo(2);
+      ctx.rollback();
+    }
+  }
+
   @Nested
   class CollidingKeyHashes {
     @Test
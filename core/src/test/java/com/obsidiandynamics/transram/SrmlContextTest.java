@@ -9,6 +9,7 @@ import org.mockito.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.stream.*;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -33,6 +34,43 @@ public final class SrmlContextTest extends AbstractContextTest {
       assertThat(catchThrowableOfType(() -> newMap(new Options() {{
         queueDepth = 0;
       }}), AssertionError.class)).hasMessage("Queue depth must exceed 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        mutexGranularity = null;
+      }}), AssertionError.class)).hasMessage("Mutex granularity cannot be null");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        keyHasher = null;
+      }}), AssertionError.class)).hasMessage("Key hasher cannot be null");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        maxIdleMutexes = -1;
+      }}), AssertionError.class)).hasMessage("Maximum number of idle mutexes must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        parallelScanThreshold = 0;
+      }}), AssertionError.class)).hasMessage("Parallel scan threshold must exceed 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        retainVersions = -1;
+      }}), AssertionError.class)).hasMessage("Number of retained versions must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        retainMillis = -1;
+      }}), AssertionError.class)).hasMessage("Retention period must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        queueDepth = 8;
+        maxRetainedVersions = 7;
+      }}), AssertionError.class)).hasMessage("Maximum number of retained versions must be equal to or greater than the queue depth");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        tombstoneCompactionThreshold = -1;
+      }}), AssertionError.class)).hasMessage("Tombstone compaction threshold must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        metrics = null;
+      }}), AssertionError.class)).hasMessage("Metrics cannot be null");
     }
   }
 
@@ -148,6 +186,140 @@ public final class SrmlContextTest extends AbstractContextTest {
     }
   }
 
+  @Nested
+  class PriorityTests {
+    @Test
+    void testInvalidPriority() {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      assertThat(catchThrowableOfType(() -> map.transact(-1), AssertionError.class)).hasMessage("Priority must be equal to or greater than 0");
+    }
+
+    @Test
+    void testLowerPriorityWriterYields() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact(1);
+      assertThat(ctx1.getPriority()).isEqualTo(1);
+      assertThat(ctx1.read(0)).isEqualTo(StringBox.of("zero_v0"));
+
+      final var ctx2 = map.transact();
+      ctx2.update(0, StringBox.of("zero_v1"));
+      assertThat(catchThrowableOfType(ctx2::commit, MutexAcquisitionFailure.class))
+          .hasMessage("Yielded write lock to a higher-priority transaction");
+      assertThat(ctx2.getState()).isEqualTo(State.ROLLED_BACK);
+
+      // a lower-priority reader does not breach the read dependency, and need not yield
+      final var ctx3 = map.transact();
+      assertThat(ctx3.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      ctx3.commit();
+
+      // a higher-priority writer prevails
+      final var ctx4 = map.transact(2);
+      ctx4.update(0, StringBox.of("zero_v2"));
+      ctx4.commit();
+      assertThat(catchThrowable(ctx1::commit)).isExactlyInstanceOf(AntidependencyFailure.class);
+
+      // with the reservation gone, a writer of the lowest priority no longer yields
+      final var ctx5 = map.transact();
+      ctx5.update(0, StringBox.of("zero_v3"));
+      ctx5.commit();
+    }
+
+    @Test
+    void testReservationsReleasedOnRollback() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        mutexGranularity = MutexGranularity.PER_KEY;
+      }});
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact(1);
+      ctx1.read(0);
+      ctx1.read(1);
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=2");
+      ctx1.rollback();
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+
+      final var ctx2 = map.transact();
+      ctx2.update(0, StringBox.of("zero_v1"));
+      ctx2.commit();
+    }
+
+    @Test
+    void testReservationsReleasedOnCommit() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        mutexGranularity = MutexGranularity.PER_KEY;
+      }});
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact(1);
+      ctx1.read(0);
+      ctx1.update(0, StringBox.of("zero_v1"));
+      ctx1.commit();
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+    }
+  }
+
+  @Nested
+  class BlindWriteTests {
+    @Test
+    void testBlindWritesTakeNoReadDependency() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact();
+      ctx1.put(0, StringBox.of("zero_put"));
+      ctx1.put(1, StringBox.of("one_put"));
+      ctx1.remove(2);
+
+      final var ctx2 = map.transact();
+      ctx2.update(0, StringBox.of("zero_v1"));
+      ctx2.insert(1, StringBox.of("one_v0"));
+      ctx2.insert(2, StringBox.of("two_v0"));
+      ctx2.commit();
+
+      // the blind writes are applied over the intervening commit, with the size adjusted accordingly
+      ctx1.commit();
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_put"));
+        assertThat(ctx.read(1)).isEqualTo(StringBox.of("one_put"));
+        assertThat(ctx.read(2)).isNull();
+        assertThat(ctx.size()).isEqualTo(2);
+      }
+    }
+
+    @Test
+    void testSizeAfterBlindWriteTakesReadDependency() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      final var ctx1 = map.transact();
+      ctx1.put(0, StringBox.of("zero_put"));
+      assertThat(ctx1.size()).isEqualTo(1);
+
+      final var ctx2 = map.transact();
+      ctx2.insert(0, StringBox.of("zero_v0"));
+      ctx2.commit();
+
+      assertThat(catchThrowable(ctx1::commit)).isExactlyInstanceOf(AntidependencyFailure.class);
+    }
+  }
+
   @Nested
   class SnapshotTests {
     @Test
@@ -199,6 +371,519 @@ public final class SrmlContextTest extends AbstractContextTest {
       assertThat(catchThrowable(() -> ctx2.read(0))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
       assertThat(catchThrowable(() -> ctx2.keys(__ -> true))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
     }
+
+    @Test
+    void testBrokenSnapshotExport() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        queueDepth = 1;
+      }});
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+
+      assertThat(catchThrowable(() -> map.exportSnapshot((key, value) -> {
+        // overwrite both items, so that neither retains its state as at the export
+        try {
+          final var ctx = map.transact();
+          ctx.update(0, StringBox.of("zero_v1"));
+          ctx.update(1, StringBox.of("one_v1"));
+          ctx.commit();
+        } catch (ConcurrentModeFailure e) {
+          throw new AssertionError(e);
+        }
+      }))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+    }
+  }
+
+  @Nested
+  class HistoricalTests {
+    private void updateRepeatedly(SrmlMap<Integer, StringBox> map, int times) throws ConcurrentModeFailure {
+      for (var i = 0; i < times; i++) {
+        final var ctx = map.transact();
+        ctx.put(0, StringBox.of("zero_v" + i));
+        ctx.commit();
+      }
+    }
+
+    @Test
+    void testReadAtHistoricalVersion() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      final long version1;
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+        version1 = ctx.getVersion();
+      }
+      final long version2;
+      {
+        final var ctx = map.transact();
+        ctx.update(0, StringBox.of("zero_v1"));
+        ctx.delete(1);
+        ctx.insert(2, StringBox.of("two_v0"));
+        ctx.commit();
+        version2 = ctx.getVersion();
+      }
+
+      {
+        final var ctx = map.transactAt(version1);
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v0"));
+        assertThat(ctx.read(1)).isEqualTo(StringBox.of("one_v0"));
+        assertThat(ctx.read(2)).isNull();
+        assertThat(ctx.size()).isEqualTo(2);
+        assertThat(ctx.keys(__ -> true)).containsExactlyInAnyOrder(0, 1);
+        ctx.commit();
+        assertThat(ctx.getVersion()).isEqualTo(version1);
+      }
+      {
+        final var ctx = map.transactAt(version2);
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v1"));
+        assertThat(ctx.read(1)).isNull();
+        assertThat(ctx.read(2)).isEqualTo(StringBox.of("two_v0"));
+        assertThat(ctx.keys(__ -> true)).containsExactlyInAnyOrder(0, 2);
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transactAt(0);
+        assertThat(ctx.read(0)).isNull();
+        assertThat(ctx.size()).isEqualTo(0);
+        ctx.rollback();
+      }
+
+      // historical commits don't consume versions
+      assertThat(map.debug().getVersion()).isEqualTo(version2);
+    }
+
+    @Test
+    void testInvalidVersion() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      updateRepeatedly(map, 1);
+      assertThat(catchThrowableOfType(() -> map.transactAt(-1), AssertionError.class))
+          .hasMessage("Version must be equal to or greater than 0");
+      assertThat(catchThrowableOfType(() -> map.transactAt(2), AssertionError.class))
+          .hasMessage("Version 2 has not been committed");
+    }
+
+    @Test
+    void testWritesRefused() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      updateRepeatedly(map, 1);
+      final var ctx = map.transactAt(1);
+      assertThat(ctx.read(0)).isNotNull();
+      assertThat(catchThrowable(() -> ctx.insert(1, StringBox.of("one_v0")))).isExactlyInstanceOf(ReadOnlyTransactionException.class);
+      assertThat(catchThrowable(() -> ctx.update(0, StringBox.of("zero_v1")))).isExactlyInstanceOf(ReadOnlyTransactionException.class);
+      assertThat(catchThrowable(() -> ctx.delete(0))).isExactlyInstanceOf(ReadOnlyTransactionException.class);
+      assertThat(catchThrowable(() -> ctx.put(1, StringBox.of("one_v0")))).isExactlyInstanceOf(ReadOnlyTransactionException.class);
+      assertThat(catchThrowable(() -> ctx.remove(1))).isExactlyInstanceOf(ReadOnlyTransactionException.class);
+      assertThat(catchThrowable(() -> ctx.merge(0, value -> value))).isExactlyInstanceOf(ReadOnlyTransactionException.class);
+      assertThat(ctx.getState()).isEqualTo(State.OPEN);
+      ctx.commit();
+      assertThat(ctx.getState()).isEqualTo(State.COMMITTED);
+    }
+
+    @Test
+    void testRetainByVersionCount() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        queueDepth = 1;
+        retainVersions = 3;
+      }});
+      updateRepeatedly(map, 8);
+      assertThat(map.transactAt(5).read(0)).isEqualTo(StringBox.of("zero_v4"));
+      assertThat(map.transactAt(8).read(0)).isEqualTo(StringBox.of("zero_v7"));
+      assertThat(catchThrowable(() -> map.transactAt(1).read(0))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+    }
+
+    @Test
+    void testLaterInsertBeyondQueueDepth() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        retainVersions = 100;
+      }});
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+      for (var i = 0; i < 10; i++) {
+        final var ctx = map.transact();
+        ctx.put(1, StringBox.of("one_v" + i));
+        ctx.commit();
+      }
+
+      // the chain of the later item outgrows the queue depth without having been trimmed
+      assertThat(map.getStore().get(Key.wrap(1)).size()).isGreaterThan(map.getQueueDepth());
+      final var ctx = map.transactAt(1);
+      assertThat(ctx.read(1)).isNull();
+      assertThat(ctx.keys(__ -> true)).containsExactly(0);
+      assertThat(ctx.size()).isEqualTo(1);
+      ctx.commit();
+    }
+
+    @Test
+    void testRetainByTime() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        queueDepth = 1;
+        retainMillis = 60_000;
+      }});
+      updateRepeatedly(map, 8);
+      for (var version = 1; version <= 8; version++) {
+        assertThat(map.transactAt(version).read(0)).isEqualTo(StringBox.of("zero_v" + (version - 1)));
+      }
+    }
+
+    @Test
+    void testQueueDepthOnlyRetention() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        queueDepth = 2;
+      }});
+      updateRepeatedly(map, 8);
+      assertThat(map.transactAt(7).read(0)).isEqualTo(StringBox.of("zero_v6"));
+      assertThat(catchThrowable(() -> map.transactAt(6).read(0))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+    }
+  }
+
+  @Nested
+  class PinningTests {
+    private SrmlMap<Integer, StringBox> newPinningMap(int maxRetained) throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        queueDepth = 1;
+        pinSnapshots = true;
+        maxRetainedVersions = maxRetained;
+      }});
+      final var ctx = map.transact();
+      ctx.insert(0, StringBox.of("zero_v0"));
+      ctx.insert(1, StringBox.of("one_v0"));
+      ctx.commit();
+      return map;
+    }
+
+    private void overwrite(SrmlMap<Integer, StringBox> map, int key, int times) throws ConcurrentModeFailure {
+      for (var i = 1; i <= times; i++) {
+        final var ctx = map.transact();
+        ctx.put(key, StringBox.of(key + "_v" + i));
+        ctx.commit();
+      }
+    }
+
+    private int chainLength(SrmlMap<Integer, StringBox> map, int key) {
+      return map.getStore().get(Key.wrap(key)).size();
+    }
+
+    @Test
+    void testPinnedReaderRetainsSnapshot() throws ConcurrentModeFailure {
+      final var map = newPinningMap(64);
+      final var reader = map.transact();
+      assertThat(reader.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      assertThat(map.registeredReaders()).isEqualTo(1);
+
+      overwrite(map, 1, 10);
+      assertThat(chainLength(map, 1)).isEqualTo(11);
+      assertThat(reader.read(1)).isEqualTo(StringBox.of("one_v0"));
+      assertThat(reader.size()).isEqualTo(2);
+
+      // once the reader completes, the chain is trimmed on the next write
+      reader.rollback();
+      assertThat(map.registeredReaders()).isEqualTo(0);
+      overwrite(map, 1, 1);
+      assertThat(chainLength(map, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void testPinnedReaderSeesLaterInsertAsNonexistent() throws ConcurrentModeFailure {
+      final var map = newPinningMap(64);
+      final var reader = map.transact();
+      overwrite(map, 2, 3);
+
+      assertThat(reader.read(2)).isNull();
+      assertThat(reader.keys(__ -> true)).containsExactlyInAnyOrder(0, 1);
+      assertThat(catchThrowable(reader::commit)).isExactlyInstanceOf(AntidependencyFailure.class);
+      assertThat(map.registeredReaders()).isEqualTo(0);
+    }
+
+    @Test
+    void testPinnedExportSkipsLaterInsert() throws ConcurrentModeFailure {
+      final var map = newPinningMap(64);
+      final var exported = new HashMap<Integer, StringBox>();
+      map.exportSnapshot((key, value) -> {
+        exported.put(key, value);
+        if (exported.size() == 1) {
+          // insert an item and overwrite it beyond the queue depth while the export is underway
+          try {
+            overwrite(map, 9, 11);
+          } catch (ConcurrentModeFailure e) {
+            throw new AssertionError(e);
+          }
+        }
+      });
+      assertThat(exported).containsOnlyKeys(0, 1);
+      assertThat(map.registeredReaders()).isEqualTo(0);
+    }
+
+    @Test
+    void testRetentionCappedPerItem() throws ConcurrentModeFailure {
+      final var map = newPinningMap(3);
+      final var reader = map.transact();
+      overwrite(map, 0, 10);
+      overwrite(map, 2, 5);
+      assertThat(chainLength(map, 0)).isEqualTo(3);
+      assertThat(catchThrowable(() -> reader.read(0))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+
+      // having lost part of its snapshot, the reader can no longer infer that an item was created since
+      assertThat(catchThrowable(() -> reader.read(2))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+      reader.rollback();
+      assertThat(map.registeredReaders()).isEqualTo(0);
+    }
+
+    @Test
+    void testHistoricalReaderPinned() throws ConcurrentModeFailure {
+      final var map = newPinningMap(64);
+      final var reader = map.transactAt(1);
+      overwrite(map, 0, 10);
+      assertThat(reader.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      reader.commit();
+      assertThat(map.registeredReaders()).isEqualTo(0);
+    }
+
+    @Test
+    void testConcurrentRegistrations() throws InterruptedException {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        pinSnapshots = true;
+      }});
+      final var numThreads = 8;
+      final var contexts = new ConcurrentLinkedQueue<SrmlContext<Integer, StringBox>>();
+      final var executor = Executors.newFixedThreadPool(numThreads);
+      try {
+        for (var thread = 0; thread < numThreads; thread++) {
+          executor.submit(() -> {
+            for (var i = 0; i < 100; i++) {
+              contexts.add(map.transact());
+            }
+          });
+        }
+      } finally {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+      }
+      assertThat(map.registeredReaders()).isEqualTo(numThreads * 100);
+      assertThat(map.retentionHorizon()).isEqualTo(0);
+      contexts.forEach(SrmlContext::rollback);
+      assertThat(map.registeredReaders()).isEqualTo(0);
+      assertThat(map.retentionHorizon()).isEqualTo(Long.MAX_VALUE);
+    }
+  }
+
+  @Nested
+  class CompactionTests {
+    private SrmlMap<Integer, StringBox> newCompactingMap() {
+      return SrmlContextTest.newMap(new Options() {{
+        tombstoneCompactionThreshold = 1;
+      }});
+    }
+
+    private void insertAll(SrmlMap<Integer, StringBox> map, int numItems) throws ConcurrentModeFailure {
+      final var ctx = map.transact();
+      for (var i = 0; i < numItems; i++) {
+        ctx.insert(i, StringBox.of("item_" + i));
+      }
+      ctx.commit();
+    }
+
+    private void deleteAll(SrmlMap<Integer, StringBox> map, int numItems) throws ConcurrentModeFailure {
+      final var ctx = map.transact();
+      for (var i = 0; i < numItems; i++) {
+        ctx.delete(i);
+      }
+      ctx.commit();
+    }
+
+    @Test
+    void testDeletedKeysRemoved() throws ConcurrentModeFailure {
+      final var map = newCompactingMap();
+      insertAll(map, 10);
+      final var refsBefore = map.debug().numRefs();
+      deleteAll(map, 10);
+      assertThat(map.getStore()).containsOnlyKeys(InternalKey.SIZE);
+      assertThat(map.debug().numRefs()).isLessThan(refsBefore);
+
+      // compacted items may be inserted afresh
+      insertAll(map, 2);
+      final var ctx = map.transact();
+      assertThat(ctx.size()).isEqualTo(2);
+      assertThat(ctx.keys(__ -> true)).containsExactlyInAnyOrder(0, 1);
+      assertThat(ctx.read(2)).isNull();
+      ctx.commit();
+    }
+
+    @Test
+    void testTombstonesRetainedByDefault() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.this.<Integer, StringBox>newMap();
+      insertAll(map, 10);
+      deleteAll(map, 10);
+      assertThat(map.getStore()).hasSize(11);
+    }
+
+    @Test
+    void testActiveReaderDefersCompaction() throws ConcurrentModeFailure {
+      final var map = newCompactingMap();
+      insertAll(map, 2);
+      final var reader = map.transact();
+      deleteAll(map, 2);
+      assertThat(map.getStore()).containsKeys(Key.wrap(0), Key.wrap(1));
+      assertThat(reader.read(0)).isEqualTo(StringBox.of("item_0"));
+      assertThat(reader.keys(__ -> true)).containsExactlyInAnyOrder(0, 1);
+      reader.rollback();
+
+      // compaction resumes on the next commit
+      insertAll(map, 0);
+      assertThat(map.getStore()).containsOnlyKeys(InternalKey.SIZE);
+    }
+
+    @Test
+    void testReinsertedKeyNotRemoved() throws ConcurrentModeFailure {
+      final var map = newCompactingMap();
+      insertAll(map, 1);
+      final var reader = map.transact();
+      deleteAll(map, 1);
+      insertAll(map, 1);
+      reader.rollback();
+      insertAll(map, 0);
+      final var ctx = map.transact();
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("item_0"));
+      ctx.rollback();
+    }
+
+    @Test
+    void testHistoricalReadBeforeCompaction() throws ConcurrentModeFailure {
+      final var map = newCompactingMap();
+      insertAll(map, 1);
+      deleteAll(map, 1);
+      final var ctx = map.transactAt(1);
+      assertThat(catchThrowable(() -> ctx.read(0))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+      assertThat(catchThrowable(() -> ctx.keys(__ -> true))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+      assertThat(map.transactAt(2).read(0)).isNull();
+    }
+
+    @Test
+    void testConcurrentChurn() throws InterruptedException, ConcurrentModeFailure {
+      final var map = newCompactingMap();
+      final var numThreads = 4;
+      final var executor = Executors.newFixedThreadPool(numThreads);
+      try {
+        for (var thread = 0; thread < numThreads; thread++) {
+          executor.submit(() -> {
+            final var rng = new SplittableRandom();
+            for (var i = 0; i < 500; i++) {
+              final var key = rng.nextInt(16);
+              final var insert = rng.nextBoolean();
+              Transact.over(map).run(ctx -> {
+                if (insert) {
+                  ctx.put(key, StringBox.of("item_" + key));
+                } else {
+                  ctx.remove(key);
+                }
+                return Transact.Region.Action.COMMIT;
+              });
+            }
+          });
+        }
+      } finally {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+      }
+
+      final var ctx = map.transact();
+      final var keys = ctx.keys(__ -> true);
+      assertThat(ctx.size()).isEqualTo(keys.size());
+      ctx.commit();
+      assertThat(map.getStore().size()).isLessThanOrEqualTo(keys.size() + 1 + numThreads);
+    }
+  }
+
+  @Nested
+  class ParallelScanTests {
+    @Test
+    void testParallelScanRespectsSnapshotAndLocalChanges() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        parallelScanThreshold = 1;
+      }});
+      final var numItems = 10_000;
+      {
+        final var ctx = map.transact();
+        for (var i = 0; i < numItems; i++) {
+          ctx.insert(i, StringBox.of("v" + i));
+        }
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact();
+      ctx1.delete(0);
+      ctx1.insert(numItems, StringBox.of("v" + numItems));
+      {
+        // changes committed after ctx1 began must not be visible to it
+        final var ctx = map.transact();
+        ctx.delete(1);
+        ctx.insert(numItems + 1, StringBox.of("v" + (numItems + 1)));
+        ctx.commit();
+      }
+
+      final var keys = ctx1.keys(key -> key % 2 == 0);
+      final var expectedKeys = IntStream.rangeClosed(2, numItems).filter(i -> i % 2 == 0).boxed().collect(Collectors.toSet());
+      assertThat(keys).isEqualTo(expectedKeys);
+    }
+
+    @Test
+    void testParallelScanBrokenSnapshot() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        queueDepth = 1;
+        parallelScanThreshold = 1;
+      }});
+      {
+        final var ctx = map.transact();
+        for (var i = 0; i < 100; i++) {
+          ctx.insert(i, StringBox.of("v0"));
+        }
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact();
+      ctx1.update(0, StringBox.of("v1"));
+      final var ctx2 = map.transact();
+      ctx1.commit();
+      assertThat(catchThrowable(() -> ctx2.keys(__ -> true))).isExactlyInstanceOf(BrokenSnapshotFailure.class);
+    }
+  }
+
+  @Nested
+  class PerKeyMutexTests {
+    @Test
+    void testCommitReleasesAllMutexes() throws ConcurrentModeFailure {
+      final var map = SrmlContextTest.<Integer, StringBox>newMap(new Options() {{
+        mutexGranularity = MutexGranularity.PER_KEY;
+      }});
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = map.transact();
+      ctx1.read(0);
+      ctx1.update(1, StringBox.of("one_v1"));
+      ctx1.commit();
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+
+      final var ctx2 = map.transact();
+      ctx2.read(0);
+      final var ctx3 = map.transact();
+      ctx3.update(0, StringBox.of("zero_v1"));
+      ctx3.commit();
+      assertThat(catchThrowable(ctx2::commit)).isExactlyInstanceOf(AntidependencyFailure.class);
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+    }
   }
 
   @Nested
@@ -206,7 +891,7 @@ public final class SrmlContextTest extends AbstractContextTest {
     @Test
     void testInterruptOnReadCommit() throws ConcurrentModeFailure, InterruptedException {
       final var mutex = Mockito.mock(UpgradeableMutex.class);
-      Mockito.doThrow(InterruptedException.class).when(mutex).tryReadAcquire(Mockito.anyLong());
+      Mockito.doThrow(InterruptedException.class).when(mutex).tryReadAcquire(Mockito.any(), Mockito.anyLong());
       final var map = SrmlContextTest.<Integer, Nil>newMap(new Options() {{
         mutexFactory = () -> mutex;
       }});
@@ -219,7 +904,7 @@ public final class SrmlContextTest extends AbstractContextTest {
     @Test
     void testInterruptOnWriteCommit() throws ConcurrentModeFailure, InterruptedException {
       final var mutex = Mockito.mock(UpgradeableMutex.class);
-      Mockito.doThrow(InterruptedException.class).when(mutex).tryWriteAcquire(Mockito.anyLong());
+      Mockito.doThrow(InterruptedException.class).when(mutex).tryWriteAcquire(Mockito.any(), Mockito.anyLong());
       final var map = SrmlContextTest.<Integer, Nil>newMap(new Options() {{
         mutexFactory = () -> mutex;
       }});
@@ -2,6 +2,7 @@ package com.obsidiandynamics.transram;
 
 import com.obsidiandynamics.transram.SrmlMap.*;
 import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.mutex.*;
 import org.junit.jupiter.api.*;
 
 import java.util.*;
@@ -49,4 +50,46 @@ final class SrmlMapTest {
     assertThat(map.debug().numRefs()).isEqualTo(6);
     assertThat(map.debug().getVersion()).isEqualTo(3);
   }
-}
\ No newline at end of file
+
+  @Test
+  void testStripeStats() {
+    final var map = new SrmlMap<Integer, StringBox>(new Options() {{
+      mutexStripes = 16;
+      stripeAdaptation = new StripedMutexes.Adaptation();
+    }});
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      return Action.COMMIT;
+    });
+    final var stats = map.debug().stripeStats().orElseThrow();
+    assertThat(stats.getStripes()).isEqualTo(16);
+    assertThat(Arrays.stream(stats.getOccupancyHistogram()).sum()).isPositive();
+  }
+
+  @Test
+  void testStripeStatsAbsentForPerKeyMutexes() {
+    final var map = new SrmlMap<Integer, StringBox>(new Options() {{
+      mutexGranularity = MutexGranularity.PER_KEY;
+    }});
+    assertThat(map.debug().stripeStats()).isEmpty();
+    assertThat(map.debug().stripeDistribution()).isEmpty();
+  }
+
+  @Test
+  void testStripeDistribution() {
+    final var map = new SrmlMap<Integer, StringBox>(new Options() {{
+      mutexStripes = 16;
+      keyHasher = key -> (Integer) key / 2;
+    }});
+    Transact.over(map).run(ctx -> {
+      for (var key = 0; key < 4; key++) {
+        ctx.insert(key, StringBox.of("v0"));
+      }
+      return Action.COMMIT;
+    });
+    final var distribution = map.debug().stripeDistribution().orElseThrow();
+    assertThat(distribution.getStripes()).isEqualTo(16);
+    assertThat(distribution.getKeys()).isEqualTo(4);
+    assertThat(distribution.getMaxLoad()).isEqualTo(2);
+  }
+}
@@ -31,6 +31,37 @@ public final class Ss2plContextTest extends AbstractContextTest {
       assertThat(catchThrowableOfType(() -> newMap(new Options() {{
         mutexTimeoutMs = -1;
       }}), AssertionError.class)).hasMessage("Mutex timeout must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        mutexGranularity = null;
+      }}), AssertionError.class)).hasMessage("Mutex granularity cannot be null");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        keyHasher = null;
+      }}), AssertionError.class)).hasMessage("Key hasher cannot be null");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        maxIdleMutexes = -1;
+      }}), AssertionError.class)).hasMessage("Maximum number of idle mutexes must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        agingTimeoutMs = -1;
+      }}), AssertionError.class)).hasMessage("Aging timeout must be equal to or greater than 0");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        mutexTimeoutMs = 10;
+        maxMutexTimeoutMs = 9;
+      }}), AssertionError.class)).hasMessage("Maximum mutex timeout must be equal to or greater than the mutex timeout");
+
+      assertThat(catchThrowableOfType(() -> newMap(new Options() {{
+        metrics = null;
+      }}), AssertionError.class)).hasMessage("Metrics cannot be null");
+    }
+
+    @Test
+    void testInvalidPriority() {
+      final var map = Ss2plContextTest.this.<Integer, StringBox>newMap();
+      assertThat(catchThrowableOfType(() -> map.transact(-1), AssertionError.class)).hasMessage("Priority must be equal to or greater than 0");
     }
   }
 
@@ -149,6 +180,355 @@ public final class Ss2plContextTest extends AbstractContextTest {
       final var ctx2 = threaded(map.transact());
       assertThat(catchThrowable(() -> ctx2.keys(__ -> true))).isExactlyInstanceOf(MutexAcquisitionFailure.class);
     }
+
+    @Test
+    void testYieldToHigherPriorityWaiter() throws ConcurrentModeFailure, InterruptedException {
+      final var map = Ss2plContextTest.<Integer, StringBox>newMap(new Options() {{
+        mutexTimeoutMs = 0;
+        maxMutexTimeoutMs = 60_000;
+        agingTimeoutMs = 60_000;
+      }});
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = threaded(map.transact());
+      ctx1.read(0);
+      final var prioritised = map.transact(1);
+      assertThat(prioritised.getPriority()).isEqualTo(1);
+      final var ctx2 = threaded(prioritised);
+      final var update = ctx2.updateAsync(0, StringBox.of("zero_v1"));
+
+      // wait for the higher-priority transaction to reserve the mutex while it waits for the upgrade
+      final var mutex = map.getMutexes().forKey(Key.wrap(0));
+      while (mutex.reservedPriority() == 0) {
+        Thread.sleep(1);
+      }
+      map.getMutexes().release(mutex);
+
+      // a lower-priority reader joins the existing reader, whereas a lower-priority writer yields
+      final var ctx3 = threaded(map.transact());
+      assertThat(ctx3.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      ctx3.rollback();
+      final var ctx4 = threaded(map.transact());
+      assertThat(catchThrowableOfType(() -> ctx4.update(0, StringBox.of("zero_v1")), MutexAcquisitionFailure.class))
+          .hasMessage("Yielded write mutex to a higher-priority transaction");
+
+      ctx1.rollback();
+      update.get();
+      ctx2.commit();
+      assertThat(mutex.reservedPriority()).isEqualTo(0);
+
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v1"));
+      }
+    }
+
+    @Test
+    void testNoYieldToEqualOrLowerPriorityReservation() throws ConcurrentModeFailure {
+      final var map = Ss2plContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var mutex = map.getMutexes().forKey(Key.wrap(0));
+      mutex.reserve(1);
+      try {
+        final var ctx1 = threaded(map.transact(1));
+        assertThat(ctx1.read(0)).isEqualTo(StringBox.of("zero_v0"));
+        ctx1.rollback();
+
+        final var ctx2 = threaded(map.transact(2));
+        ctx2.update(0, StringBox.of("zero_v1"));
+        ctx2.commit();
+
+        final var ctx3 = threaded(map.transact());
+        assertThat(catchThrowableOfType(() -> ctx3.update(0, StringBox.of("zero_v2")), MutexAcquisitionFailure.class))
+            .hasMessage("Yielded write mutex to a higher-priority transaction");
+      } finally {
+        mutex.unreserve(1);
+        map.getMutexes().release(mutex);
+      }
+    }
+
+    @Test
+    void testBlindWritesTakeOnlyWriteMutexes() throws ConcurrentModeFailure {
+      final var map = Ss2plContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = threaded(map.transact());
+      ctx1.put(0, StringBox.of("zero_put"));
+      ctx1.put(1, StringBox.of("one_put"));
+
+      // the size object is only locked when committing, leaving others free to insert in the meantime
+      final var ctx2 = threaded(map.transact());
+      assertThat(catchThrowable(() -> ctx2.read(0))).isExactlyInstanceOf(MutexAcquisitionFailure.class);
+      final var ctx3 = threaded(map.transact());
+      ctx3.insert(2, StringBox.of("two_v0"));
+      ctx3.commit();
+
+      ctx1.commit();
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_put"));
+        assertThat(ctx.read(1)).isEqualTo(StringBox.of("one_put"));
+        assertThat(ctx.size()).isEqualTo(3);
+      }
+    }
+
+    @Test
+    void testBulkOperationsAcquireInMutexOrder() throws ConcurrentModeFailure, InterruptedException {
+      final var acquisitions = new ArrayList<UpgradeableMutex>();
+      final var stripes = new ArrayList<UpgradeableMutex>();
+      final var map = Ss2plContextTest.<Integer, StringBox>newMap(new Options() {{
+        mutexStripes = 16;
+        mutexFactory = () -> {
+          final var mutex = Mockito.mock(UpgradeableMutex.class);
+          try {
+            Mockito.when(mutex.tryReadAcquire(Mockito.any(), Mockito.anyLong())).thenAnswer(__ -> acquisitions.add(mutex));
+            Mockito.when(mutex.tryWriteAcquire(Mockito.any(), Mockito.anyLong())).thenAnswer(__ -> acquisitions.add(mutex));
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          stripes.add(mutex);
+          return mutex;
+        };
+      }});
+
+      final var keys = new ArrayList<Integer>();
+      for (var key = 0; key < 64; key++) {
+        keys.add(key);
+      }
+      Collections.shuffle(keys);
+      final var ctx = map.transact();
+      ctx.readAll(keys);
+
+      // stripes are created in ordinal order, which the acquisitions must follow
+      assertThat(acquisitions).isSortedAccordingTo(Comparator.comparing(stripes::indexOf));
+      assertThat(acquisitions).hasSize(16);
+    }
+
+    @Test
+    void testMergesAcquireInMutexOrder() throws ConcurrentModeFailure, InterruptedException {
+      final var acquisitions = new ArrayList<UpgradeableMutex>();
+      final var stripes = new ArrayList<UpgradeableMutex>();
+      final var map = Ss2plContextTest.<Integer, StringBox>newMap(new Options() {{
+        mutexStripes = 16;
+        mutexFactory = () -> {
+          final var mutex = Mockito.mock(UpgradeableMutex.class);
+          try {
+            Mockito.when(mutex.tryWriteAcquire(Mockito.any(), Mockito.anyLong())).thenAnswer(__ -> acquisitions.add(mutex));
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          stripes.add(mutex);
+          return mutex;
+        };
+      }});
+
+      final var keys = new ArrayList<Integer>();
+      final var items = new HashMap<Integer, StringBox>();
+      for (var key = 0; key < 64; key++) {
+        keys.add(key);
+        items.put(key, StringBox.of("v0"));
+      }
+      {
+        final var ctx = map.transact();
+        ctx.insertAll(items);
+        ctx.commit();
+      }
+      acquisitions.clear();
+
+      Collections.shuffle(keys);
+      final var ctx = map.transact();
+      for (var key : keys) {
+        ctx.merge(key, value -> StringBox.of(value.getValue() + "'"));
+      }
+      ctx.commit();
+
+      // the merged keys span every stripe, which are created in ordinal order
+      assertThat(acquisitions).isSortedAccordingTo(Comparator.comparing(stripes::indexOf));
+      assertThat(acquisitions).hasSize(16);
+    }
+
+    @Test
+    void testResumeOnDifferentThread() throws ConcurrentModeFailure {
+      final var map = Ss2plContextTest.this.<Integer, StringBox>newMap();
+      final var ctx = map.transact();
+      threaded(ctx).insert(0, StringBox.of("zero_v0"));
+      threaded(ctx).update(0, StringBox.of("zero_v1"));
+      threaded(ctx).commit();
+      assertThat(ctx.getState()).isEqualTo(TransContext.State.COMMITTED);
+
+      final var ctx2 = threaded(map.transact());
+      assertThat(ctx2.read(0)).isEqualTo(StringBox.of("zero_v1"));
+      assertThat(ctx2.size()).isEqualTo(1);
+    }
+  }
+
+  @Nested
+  class PerKeyMutexTests {
+    private List<ExecutorService> executors;
+
+    @BeforeEach
+    void beforeEach() {
+      executors = new ArrayList<>();
+    }
+
+    @AfterEach
+    void afterEach() {
+      executors.forEach(ExecutorService::shutdown);
+    }
+
+    <K, V extends DeepCloneable<V>> ThreadedContext<K, V> threaded(TransContext<K, V> delegate) {
+      final var executor = Executors.newSingleThreadExecutor();
+      executors.add(executor);
+      return new ThreadedContext<>(delegate, executor);
+    }
+
+    private <K, V extends DeepCloneable<V>> Ss2plMap<K, V> newPerKeyMap() {
+      return newMap(new Options() {{
+        mutexStripes = 1;
+        mutexGranularity = MutexGranularity.PER_KEY;
+      }});
+    }
+
+    @Test
+    void testBulkOperationsReleaseAllMutexes() throws ConcurrentModeFailure {
+      final var map = PerKeyMutexTests.this.<Integer, StringBox>newPerKeyMap();
+      {
+        final var ctx = map.transact();
+        ctx.insertAll(Map.of(0, StringBox.of("zero_v0"), 1, StringBox.of("one_v0")));
+        ctx.commit();
+      }
+      {
+        final var ctx = map.transact();
+        assertThat(ctx.readAll(List.of(0, 1, 2))).hasSize(2);
+        ctx.updateAll(Map.of(0, StringBox.of("zero_v1")));
+        ctx.deleteAll(List.of(1));
+        ctx.commit();
+      }
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+
+      // a bulk operation that fails part-way through
+      final var ctx1 = threaded(map.transact());
+      ctx1.update(0, StringBox.of("zero_v2"));
+      final var ctx2 = threaded(map.transact());
+      assertThat(catchThrowable(() -> ctx2.readAll(List.of(3, 0, 2)))).isExactlyInstanceOf(MutexAcquisitionFailure.class);
+      assertThat(ctx2.getState()).isEqualTo(TransContext.State.ROLLED_BACK);
+      ctx1.rollback();
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+    }
+
+    @Test
+    void testNoFalseConflictBetweenDistinctKeys() throws ConcurrentModeFailure {
+      final var map = PerKeyMutexTests.this.<Integer, StringBox>newPerKeyMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+
+      // with a single stripe, these would conflict
+      final var ctx1 = threaded(map.transact());
+      ctx1.update(0, StringBox.of("zero_v1"));
+      final var ctx2 = threaded(map.transact());
+      ctx2.update(1, StringBox.of("one_v1"));
+      ctx1.commit();
+      ctx2.commit();
+
+      final var ctx3 = map.transact();
+      assertThat(ctx3.read(0)).isEqualTo(StringBox.of("zero_v1"));
+      assertThat(ctx3.read(1)).isEqualTo(StringBox.of("one_v1"));
+      ctx3.rollback();
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+    }
+
+    @Test
+    void testConflictOnSameKey() throws ConcurrentModeFailure {
+      final var map = PerKeyMutexTests.this.<Integer, StringBox>newPerKeyMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.commit();
+      }
+
+      final var ctx1 = threaded(map.transact());
+      ctx1.read(0);
+      final var ctx2 = threaded(map.transact());
+      assertThat(ctx2.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      assertThat(catchThrowable(() -> ctx2.update(0, StringBox.of("zero_v1")))).isExactlyInstanceOf(MutexAcquisitionFailure.class);
+      ctx1.rollback();
+      assertThat(map.getMutexes().toString()).contains("liveMutexes=0");
+    }
+  }
+
+  @Nested
+  class ExportTests {
+    @Test
+    void testDeletionsLeaveTombstonesWhileExporting() throws ConcurrentModeFailure {
+      final var map = Ss2plContextTest.this.<Integer, StringBox>newMap();
+      {
+        final var ctx = map.transact();
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        ctx.commit();
+      }
+      assertThat(map.debug().numRefs()).isEqualTo(3);
+
+      final var exported = new HashMap<Integer, StringBox>();
+      map.exportSnapshot((key, value) -> {
+        if (exported.isEmpty()) {
+          try {
+            {
+              final var ctx = map.transact();
+              ctx.delete(0);
+              ctx.delete(1);
+              ctx.commit();
+            }
+            assertThat(map.debug().numRefs()).isEqualTo(3);
+            assertThat(map.debug().dirtyView()).isEmpty();
+
+            // tombstones are invisible to transactions
+            final var ctx = map.transact();
+            assertThat(ctx.read(0)).isNull();
+            assertThat(ctx.keys(__ -> true)).isEmpty();
+            assertThat(ctx.size()).isEqualTo(0);
+            ctx.insert(1, StringBox.of("one_v1"));
+            ctx.commit();
+          } catch (ConcurrentModeFailure e) {
+            throw new AssertionError(e);
+          }
+        }
+        exported.put(key, value);
+      });
+
+      assertThat(exported).isEqualTo(Map.of(0, StringBox.of("zero_v0"), 1, StringBox.of("one_v0")));
+      assertThat(map.debug().numRefs()).isEqualTo(2);
+      assertThat(map.debug().dirtyView()).containsOnlyKeys(1);
+    }
+
+    @Test
+    void testInterruptOnExport() throws InterruptedException {
+      final var map = Ss2plContextTest.this.<Integer, StringBox>newMap();
+      Thread.currentThread().interrupt();
+      try {
+        assertThat(catchThrowableOfType(() -> map.exportSnapshot((key, value) -> {}), MutexAcquisitionFailure.class))
+            .hasMessage("Interrupted while acquiring export gate");
+      } finally {
+        Thread.interrupted();
+      }
+    }
   }
 
   @Nested
@@ -156,7 +536,7 @@ public final class Ss2plContextTest extends AbstractContextTest {
     @Test
     void testInterruptOnRead() throws InterruptedException {
       final var mutex = Mockito.mock(UpgradeableMutex.class);
-      Mockito.doThrow(InterruptedException.class).when(mutex).tryReadAcquire(Mockito.anyLong());
+      Mockito.doThrow(InterruptedException.class).when(mutex).tryReadAcquire(Mockito.any(), Mockito.anyLong());
       final var map = Ss2plContextTest.<Integer, Nil>newMap(new Ss2plMap.Options() {{
         mutexFactory = () -> mutex;
       }});
@@ -167,7 +547,7 @@ public final class Ss2plContextTest extends AbstractContextTest {
     @Test
     void testInterruptOnWrite() throws InterruptedException {
       final var mutex = Mockito.mock(UpgradeableMutex.class);
-      Mockito.doThrow(InterruptedException.class).when(mutex).tryWriteAcquire(Mockito.anyLong());
+      Mockito.doThrow(InterruptedException.class).when(mutex).tryWriteAcquire(Mockito.any(), Mockito.anyLong());
       final var map = Ss2plContextTest.<Integer, Nil>newMap(new Ss2plMap.Options() {{
         mutexFactory = () -> mutex;
       }});
@@ -178,8 +558,8 @@ public final class Ss2plContextTest extends AbstractContextTest {
     @Test
     void testInterruptOnUpgrade() throws ConcurrentModeFailure, InterruptedException {
       final var mutex = Mockito.mock(UpgradeableMutex.class);
-      Mockito.doReturn(true).when(mutex).tryReadAcquire(Mockito.anyLong());
-      Mockito.doThrow(InterruptedException.class).when(mutex).tryUpgrade(Mockito.anyLong());
+      Mockito.doReturn(true).when(mutex).tryReadAcquire(Mockito.any(), Mockito.anyLong());
+      Mockito.doThrow(InterruptedException.class).when(mutex).tryUpgrade(Mockito.any(), Mockito.anyLong());
       final var map = Ss2plContextTest.<Integer, Nil>newMap(new Ss2plMap.Options() {{
         mutexFactory = () -> mutex;
       }});
@@ -79,6 +79,11 @@ final class ThreadedContext<K, V extends DeepCloneable<V>> implements TransConte
     return submit(() -> delegate.keys(predicate)).get();
   }
 
+  @Override
+  public Cursor<K, V> scan(Predicate<K> predicate) throws ConcurrentModeFailure {
+    return submit(() -> delegate.scan(predicate)).get();
+  }
+
   @Override
   public V read(K key) throws ConcurrentModeFailure {
     return submit(() -> delegate.read(key)).get();
@@ -94,11 +99,30 @@ final class ThreadedContext<K, V extends DeepCloneable<V>> implements TransConte
     submit(() -> delegate.update(key, value)).get();
   }
 
+  public ContextFuture<Void> updateAsync(K key, V value) {
+    return submit(() -> delegate.update(key, value));
+  }
+
   @Override
   public void delete(K key) throws ConcurrentModeFailure {
     submit(() -> delegate.delete(key)).get();
   }
 
+  @Override
+  public void put(K key, V value) throws ConcurrentModeFailure {
+    submit(() -> delegate.put(key, value)).get();
+  }
+
+  @Override
+  public void remove(K key) throws ConcurrentModeFailure {
+    submit(() -> delegate.remove(key)).get();
+  }
+
+  @Override
+  public void merge(K key, UnaryOperator<V> operator) throws ConcurrentModeFailure {
+    submit(() -> delegate.merge(key, operator)).get();
+  }
+
   @Override
   public int size() throws ConcurrentModeFailure {
     return submit(delegate::size).get();
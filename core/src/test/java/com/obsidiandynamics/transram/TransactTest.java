@@ -3,9 +3,11 @@ package com.obsidiandynamics.transram;
 import com.obsidiandynamics.transram.TransContext.*;
 import com.obsidiandynamics.transram.Transact.Region.*;
 import com.obsidiandynamics.transram.Transact.*;
+import com.obsidiandynamics.transram.contention.*;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
 
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 import java.util.function.*;
 
@@ -19,11 +21,17 @@ final class TransactTest {
 
   private interface TestFailureHandler extends Consumer<ConcurrentModeFailure> {}
 
+  private static TestTransMap mockMap() {
+    final var map = Mockito.mock(TestTransMap.class);
+    when(map.metrics()).thenReturn(Metrics.NONE);
+    return map;
+  }
+
   @Test
   void testCommit_successOnFirstAttempt() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var failureHandler = Mockito.mock(TestFailureHandler.class);
 
@@ -32,7 +40,7 @@ final class TransactTest {
         .run(ctx -> Action.COMMIT);
 
     assertThat(completed).isSameAs(context);
-    verify(map, times(1)).transact();
+    verify(map, times(1)).transact(anyInt());
     verify(context, times(1)).commit();
     verify(context, never()).rollback();
     verify(failureHandler, never()).accept(any());
@@ -40,9 +48,9 @@ final class TransactTest {
 
   @Test
   void testCommit_successOnSecondAttempt() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var failureHandler = Mockito.mock(TestFailureHandler.class);
     final var error = Mockito.mock(ConcurrentModeFailure.class);
@@ -61,7 +69,7 @@ final class TransactTest {
 
     assertThat(runs.get()).isEqualTo(2);
     assertThat(completed).isSameAs(context);
-    verify(map, times(2)).transact();
+    verify(map, times(2)).transact(anyInt());
     verify(context, times(2)).commit();
     verify(context, never()).rollback();
     verify(failureHandler, times(1)).accept(eq(error));
@@ -69,9 +77,9 @@ final class TransactTest {
 
   @Test
   void testCommit_alreadyCommitted() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var completed = Transact.over(map)
         .run(ctx -> {
@@ -81,16 +89,16 @@ final class TransactTest {
         });
 
     assertThat(completed).isSameAs(context);
-    verify(map, times(1)).transact();
+    verify(map, times(1)).transact(anyInt());
     verify(context, times(1)).commit();
     verify(context, never()).rollback();
   }
 
   @Test
   void testRollback_normal() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var failureHandler = Mockito.mock(TestFailureHandler.class);
 
@@ -99,7 +107,7 @@ final class TransactTest {
         .run(ctx -> Action.ROLLBACK);
 
     assertThat(completed).isSameAs(context);
-    verify(map, times(1)).transact();
+    verify(map, times(1)).transact(anyInt());
     verify(context, never()).commit();
     verify(context, times(1)).rollback();
     verify(failureHandler, never()).accept(any());
@@ -107,9 +115,9 @@ final class TransactTest {
 
   @Test
   void testRollback_alreadyRolledBack() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var failureHandler = Mockito.mock(TestFailureHandler.class);
 
@@ -122,7 +130,7 @@ final class TransactTest {
         });
 
     assertThat(completed).isSameAs(context);
-    verify(map, times(1)).transact();
+    verify(map, times(1)).transact(anyInt());
     verify(context, never()).commit();
     verify(context, times(1)).rollback();
     verify(failureHandler, never()).accept(any());
@@ -130,9 +138,9 @@ final class TransactTest {
 
   @Test
   void testRollbackAndReset_normal() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var failureHandler = Mockito.mock(TestFailureHandler.class);
 
@@ -149,7 +157,7 @@ final class TransactTest {
 
     assertThat(completed).isSameAs(context);
     assertThat(runs.get()).isEqualTo(2);
-    verify(map, times(2)).transact();
+    verify(map, times(2)).transact(anyInt());
     verify(context, times(1)).commit();
     verify(context, times(1)).rollback();
     verify(failureHandler, never()).accept(any());
@@ -157,9 +165,9 @@ final class TransactTest {
 
   @Test
   void testRollbackAndReset_alreadyRolledBack() throws ConcurrentModeFailure {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     final var failureHandler = Mockito.mock(TestFailureHandler.class);
 
@@ -178,7 +186,7 @@ final class TransactTest {
 
     assertThat(completed).isSameAs(context);
     assertThat(runs.get()).isEqualTo(2);
-    verify(map, times(2)).transact();
+    verify(map, times(2)).transact(anyInt());
     verify(context, times(1)).commit();
     verify(context, times(1)).rollback();
     verify(failureHandler, never()).accept(any());
@@ -186,9 +194,9 @@ final class TransactTest {
 
   @Test
   void testInterrupted() {
-    final var map = Mockito.mock(TestTransMap.class);
+    final var map = mockMap();
     final var context = Mockito.mock(TestTransContext.class);
-    when(map.transact()).thenReturn(context);
+    when(map.transact(anyInt())).thenReturn(context);
 
     Thread.currentThread().interrupt();
     assertThat(catchRuntimeException(() -> Transact.over(map)
@@ -196,4 +204,313 @@ final class TransactTest {
           throw new AntidependencyFailure("");
         }))).isInstanceOf(RuntimeInterruptedException.class);
   }
-}
\ No newline at end of file
+
+  @Test
+  void testContentionManager_sessionSpansAttempts() throws ConcurrentModeFailure {
+    final var map = mockMap();
+    final var context = Mockito.mock(TestTransContext.class);
+    when(map.transact(anyInt())).thenReturn(context);
+
+    final var error = Mockito.mock(ConcurrentModeFailure.class);
+    final var runs = new AtomicInteger();
+    doAnswer(__ -> {
+      if (runs.incrementAndGet() == 3) {
+        return null;
+      } else {
+        throw error;
+      }
+    }).when(context).commit();
+
+    final var contentionManager = Mockito.mock(ContentionManager.class);
+    final var session = Mockito.mock(ContentionManager.Session.class);
+    when(contentionManager.begin()).thenReturn(session);
+    when(session.onFailure(any(), anyLong())).thenReturn(0L, 1_000L);
+
+    final var completed = Transact.over(map)
+        .withContentionManager(contentionManager)
+        .run(ctx -> Action.COMMIT);
+
+    assertThat(completed).isSameAs(context);
+    verify(contentionManager, times(1)).begin();
+    verify(session, times(2)).onFailure(eq(error), longThat(workNanos -> workNanos >= 0));
+    verify(session, times(1)).onComplete();
+  }
+
+  @Test
+  void testContentionManager_sessionCompletedOnError() {
+    final var map = mockMap();
+    final var context = Mockito.mock(TestTransContext.class);
+    when(map.transact(anyInt())).thenReturn(context);
+
+    final var contentionManager = Mockito.mock(ContentionManager.class);
+    final var session = Mockito.mock(ContentionManager.Session.class);
+    when(contentionManager.begin()).thenReturn(session);
+
+    final var error = new IllegalStateException("Boom");
+    assertThat(catchRuntimeException(() -> Transact.over(map)
+        .withContentionManager(contentionManager)
+        .run(ctx -> {
+          throw error;
+        }))).isSameAs(error);
+    verify(session, times(1)).onComplete();
+  }
+
+  @Test
+  void testContentionManager_interruptedWithImmediateRetry() {
+    final var map = mockMap();
+    final var context = Mockito.mock(TestTransContext.class);
+    when(map.transact(anyInt())).thenReturn(context);
+
+    Thread.currentThread().interrupt();
+    assertThat(catchRuntimeException(() -> Transact.over(map)
+        .withContentionManager(() -> (failure, workNanos) -> 0)
+        .run(ctx -> {
+          throw new AntidependencyFailure("");
+        }))).isInstanceOf(RuntimeInterruptedException.class);
+    assertThat(Thread.interrupted()).isFalse();
+  }
+
+  @Test
+  void testPriority_raisedWithEachAttempt() throws ConcurrentModeFailure {
+    final var map = mockMap();
+    final var context = Mockito.mock(TestTransContext.class);
+    when(map.transact(anyInt())).thenReturn(context);
+
+    final var error = Mockito.mock(ConcurrentModeFailure.class);
+    final var runs = new AtomicInteger();
+    doAnswer(__ -> {
+      if (runs.incrementAndGet() == 3) {
+        return null;
+      } else {
+        throw error;
+      }
+    }).when(context).commit();
+
+    Transact.over(map).withPriority(5).run(ctx -> Action.COMMIT);
+
+    final var inOrder = inOrder(map);
+    inOrder.verify(map).transact(eq(5));
+    inOrder.verify(map).transact(eq(6));
+    inOrder.verify(map).transact(eq(7));
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  void testPriority_invalid() {
+    final var map = mockMap();
+    assertThat(catchThrowableOfType(() -> Transact.over(map).withPriority(-1), IllegalArgumentException.class))
+        .hasMessage("Priority must be equal to or greater than 0");
+  }
+
+  @Test
+  void testRegionFailure_openContextRolledBack() throws ConcurrentModeFailure {
+    final var map = mockMap();
+    final var context = Mockito.mock(TestTransContext.class);
+    when(map.transact(anyInt())).thenReturn(context);
+    when(context.getState()).thenReturn(State.OPEN, State.ROLLED_BACK);
+
+    final var error = Mockito.mock(ConcurrentModeFailure.class);
+    final var runs = new AtomicInteger();
+    final var completed = Transact.over(map)
+        .run(ctx -> {
+          if (runs.incrementAndGet() == 1) {
+            throw error;
+          } else {
+            return Action.ROLLBACK;
+          }
+        });
+
+    assertThat(completed).isSameAs(context);
+    verify(map).transact(eq(0));
+    verify(map).transact(eq(1));
+    verify(context, times(1)).rollback();
+  }
+
+  @Test
+  void testRegionError_openContextRolledBack() {
+    final var map = mockMap();
+    final var context = Mockito.mock(TestTransContext.class);
+    when(map.transact(anyInt())).thenReturn(context);
+    when(context.getState()).thenReturn(State.OPEN);
+
+    final var error = new AssertionError("region error");
+    assertThatThrownBy(() -> Transact.over(map).run(ctx -> {
+      throw error;
+    })).isSameAs(error);
+    verify(map, times(1)).transact(anyInt());
+    verify(context, times(1)).rollback();
+  }
+
+  @Test
+  void testRegionError_mutexesReleased() {
+    final var map = new Ss2plMap<Integer, Nil>(new Ss2plMap.Options());
+    assertThatThrownBy(() -> Transact.over(map).run(ctx -> {
+      ctx.insert(0, Nil.instance());
+      ctx.insert(null, Nil.instance());
+      return Action.COMMIT;
+    })).isInstanceOf(NullKeyAssertionError.class);
+
+    // the mutex held by the failed region would otherwise time out the next writer
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, Nil.instance());
+      return Action.COMMIT;
+    });
+    assertThat(map.debug().dirtyView()).containsOnlyKeys(0);
+  }
+
+  @Nested
+  final class AsyncTests {
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+      executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void afterEach() {
+      executor.shutdownNow();
+    }
+
+    @Test
+    void testCommit_successOnFirstAttempt() throws Exception {
+      final var map = mockMap();
+      final var context = Mockito.mock(TestTransContext.class);
+      when(map.transact(anyInt())).thenReturn(context);
+
+      final var failureHandler = Mockito.mock(TestFailureHandler.class);
+      final var threads = new CopyOnWriteArrayList<Thread>();
+
+      final var completed = Transact.over(map)
+          .withFailureHandler(failureHandler)
+          .runAsync(ctx -> {
+            threads.add(Thread.currentThread());
+            return Action.COMMIT;
+          }, executor);
+
+      assertThat(completed.get(10, TimeUnit.SECONDS)).isSameAs(context);
+      assertThat(threads).hasSize(1).doesNotContain(Thread.currentThread());
+      verify(context, times(1)).commit();
+      verify(failureHandler, never()).accept(any());
+    }
+
+    @Test
+    void testCommit_successAfterBackoff() throws Exception {
+      final var map = mockMap();
+      final var context = Mockito.mock(TestTransContext.class);
+      when(map.transact(anyInt())).thenReturn(context);
+
+      final var error = Mockito.mock(ConcurrentModeFailure.class);
+      final var runs = new AtomicInteger();
+      doAnswer(__ -> {
+        if (runs.incrementAndGet() == 3) {
+          return null;
+        } else {
+          throw error;
+        }
+      }).when(context).commit();
+
+      final var failureHandler = Mockito.mock(TestFailureHandler.class);
+      final var contentionManager = Mockito.mock(ContentionManager.class);
+      final var session = Mockito.mock(ContentionManager.Session.class);
+      when(contentionManager.begin()).thenReturn(session);
+      when(session.onFailure(any(), anyLong())).thenReturn(0L, 1_000_000L);
+
+      final var completed = Transact.over(map)
+          .withFailureHandler(failureHandler)
+          .withContentionManager(contentionManager)
+          .runAsync(ctx -> Action.COMMIT, executor);
+
+      assertThat(completed.get(10, TimeUnit.SECONDS)).isSameAs(context);
+      assertThat(runs.get()).isEqualTo(3);
+      verify(failureHandler, times(2)).accept(eq(error));
+      verify(session, times(2)).onFailure(eq(error), anyLong());
+      verify(session, times(1)).onComplete();
+    }
+
+    @Test
+    void testRollbackAndReset() throws Exception {
+      final var map = mockMap();
+      final var context = Mockito.mock(TestTransContext.class);
+      when(map.transact(anyInt())).thenReturn(context);
+
+      final var runs = new AtomicInteger();
+      final var completed = Transact.over(map)
+          .runAsync(ctx -> runs.incrementAndGet() == 2 ? Action.ROLLBACK : Action.ROLLBACK_AND_RESET, executor);
+
+      assertThat(completed.get(10, TimeUnit.SECONDS)).isSameAs(context);
+      assertThat(runs.get()).isEqualTo(2);
+      verify(context, times(2)).rollback();
+    }
+
+    @Test
+    void testRegionError() throws InterruptedException {
+      final var map = mockMap();
+      final var context = Mockito.mock(TestTransContext.class);
+      when(map.transact(anyInt())).thenReturn(context);
+
+      final var contentionManager = Mockito.mock(ContentionManager.class);
+      final var session = Mockito.mock(ContentionManager.Session.class);
+      when(contentionManager.begin()).thenReturn(session);
+
+      final var error = new IllegalStateException("Boom");
+      final var completed = Transact.over(map)
+          .withContentionManager(contentionManager)
+          .runAsync(ctx -> {
+            throw error;
+          }, executor);
+
+      assertThat(catchThrowableOfType(() -> completed.get(10, TimeUnit.SECONDS), ExecutionException.class)).hasCause(error);
+      verify(session, times(1)).onComplete();
+    }
+
+    @Test
+    void testRejectedExecution() {
+      final var map = mockMap();
+      final var contentionManager = Mockito.mock(ContentionManager.class);
+      final var session = Mockito.mock(ContentionManager.Session.class);
+      when(contentionManager.begin()).thenReturn(session);
+
+      executor.shutdown();
+      final var completed = Transact.over(map)
+          .withContentionManager(contentionManager)
+          .runAsync(ctx -> Action.COMMIT, executor);
+
+      assertThat(completed).isCompletedExceptionally();
+      assertThat(catchThrowableOfType(completed::join, CompletionException.class)).hasCauseInstanceOf(RejectedExecutionException.class);
+      verify(session, times(1)).onComplete();
+      verifyNoInteractions(map);
+    }
+
+    @Test
+    void testCancelledDuringBackoff() throws InterruptedException {
+      final var map = mockMap();
+      final var context = Mockito.mock(TestTransContext.class);
+      when(map.transact(anyInt())).thenReturn(context);
+
+      final var contentionManager = Mockito.mock(ContentionManager.class);
+      final var session = Mockito.mock(ContentionManager.Session.class);
+      when(contentionManager.begin()).thenReturn(session);
+      when(session.onFailure(any(), anyLong())).thenReturn(50_000_000L);
+      final var sessionCompleted = new CountDownLatch(1);
+      doAnswer(__ -> {
+        sessionCompleted.countDown();
+        return null;
+      }).when(session).onComplete();
+
+      final var runs = new AtomicInteger();
+      final var completed = Transact.over(map)
+          .withContentionManager(contentionManager)
+          .runAsync(ctx -> {
+            runs.incrementAndGet();
+            throw new AntidependencyFailure("");
+          }, executor);
+
+      verify(session, timeout(10_000).times(1)).onFailure(any(), anyLong());
+      assertThat(completed.cancel(false)).isTrue();
+      assertThat(sessionCompleted.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(runs.get()).isEqualTo(1);
+      verify(session, times(1)).onComplete();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class ExponentialBackoffTest {
+  @Test
+  void testBackoffBoundedAndCapped() {
+    final var session = new ExponentialBackoff(new ExponentialBackoff.Options() {{
+      baseBackoffNanos = 10;
+      maxBackoffNanos = 100;
+    }}).begin();
+    final var failure = new AntidependencyFailure("");
+    assertThat(session.onFailure(failure, 0)).isBetween(0L, 10L);
+    assertThat(session.onFailure(failure, 0)).isBetween(0L, 20L);
+    assertThat(session.onFailure(failure, 0)).isBetween(0L, 40L);
+    for (var i = 0; i < 100; i++) {
+      assertThat(session.onFailure(failure, 0)).isBetween(0L, 100L);
+    }
+  }
+
+  @Test
+  void testJitterDoesNotOverflow() {
+    assertThat(ExponentialBackoff.jitter(Long.MAX_VALUE / 2, Long.MAX_VALUE - 1, 62)).isBetween(0L, Long.MAX_VALUE - 1);
+    assertThat(ExponentialBackoff.jitter(1, 1_000, 63)).isBetween(0L, 1_000L);
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThat(catchThrowableOfType(() -> new ExponentialBackoff(new ExponentialBackoff.Options() {{
+      baseBackoffNanos = 0;
+    }}), AssertionError.class)).hasMessage("Base backoff must exceed 0");
+
+    assertThat(catchThrowableOfType(() -> new ExponentialBackoff(new ExponentialBackoff.Options() {{
+      baseBackoffNanos = 10;
+      maxBackoffNanos = 5;
+    }}), AssertionError.class)).hasMessage("Maximum backoff cannot be less than the base backoff");
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new ExponentialBackoff().toString()).contains(ExponentialBackoff.class.getSimpleName());
+  }
+}
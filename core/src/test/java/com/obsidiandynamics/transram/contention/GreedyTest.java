@@ -0,0 +1,46 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class GreedyTest {
+  private static final ConcurrentModeFailure FAILURE = new AntidependencyFailure("");
+
+  @Test
+  void testOldestTransactionRetriesImmediately() {
+    final var greedy = new Greedy(new Greedy.Options() {{
+      baseBackoffNanos = 10;
+      maxBackoffNanos = 10;
+    }});
+    final var older = greedy.begin();
+    final var younger = greedy.begin();
+
+    // the older transaction started a second before the younger one
+    assertThat(younger.onFailure(FAILURE, 0)).isEqualTo(0);
+    assertThat(older.onFailure(FAILURE, 1_000_000_000)).isEqualTo(0);
+    assertThat(younger.onFailure(FAILURE, 0)).isBetween(0L, 10L);
+
+    // age is retained across attempts, irrespective of the work done since
+    assertThat(older.onFailure(FAILURE, 0)).isEqualTo(0);
+    assertThat(younger.onFailure(FAILURE, 2_000_000_000)).isBetween(0L, 10L);
+
+    older.onComplete();
+    assertThat(younger.onFailure(FAILURE, 0)).isEqualTo(0);
+    younger.onComplete();
+    assertThat(greedy.numCompetitors()).isEqualTo(0);
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThat(catchThrowableOfType(() -> new Greedy(new Greedy.Options() {{
+      baseBackoffNanos = -1;
+    }}), AssertionError.class)).hasMessage("Base backoff must exceed 0");
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new Greedy().toString()).contains(Greedy.class.getSimpleName());
+  }
+}
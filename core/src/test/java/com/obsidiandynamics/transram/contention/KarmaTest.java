@@ -0,0 +1,68 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class KarmaTest {
+  private static final ConcurrentModeFailure FAILURE = new AntidependencyFailure("");
+
+  @Test
+  void testLoneTransactionRetriesImmediately() {
+    final var karma = new Karma();
+    final var session = karma.begin();
+    assertThat(session.onFailure(FAILURE, 10)).isEqualTo(0);
+    assertThat(karma.numCompetitors()).isEqualTo(1);
+    session.onComplete();
+    assertThat(karma.numCompetitors()).isEqualTo(0);
+  }
+
+  @Test
+  void testTransactionWithLessWorkYieldsUntilItAccruesKarma() {
+    final var karma = new Karma(new Karma.Options() {{
+      backoffNanos = 100;
+    }});
+    final var heavy = karma.begin();
+    final var light = karma.begin();
+    assertThat(heavy.onFailure(FAILURE, 250)).isEqualTo(0);
+
+    // light accrues 50 of work and 100 for each of two yields, thereby drawing level with heavy
+    assertThat(light.onFailure(FAILURE, 50)).isEqualTo(100);
+    assertThat(light.onFailure(FAILURE, 0)).isEqualTo(100);
+    assertThat(light.onFailure(FAILURE, 0)).isEqualTo(0);
+
+    light.onComplete();
+    heavy.onComplete();
+    assertThat(karma.numCompetitors()).isEqualTo(0);
+  }
+
+  @Test
+  void testCompletedTransactionNoLongerCompetes() {
+    final var karma = new Karma();
+    final var heavy = karma.begin();
+    final var light = karma.begin();
+    assertThat(heavy.onFailure(FAILURE, 1_000_000)).isEqualTo(0);
+    heavy.onComplete();
+    assertThat(light.onFailure(FAILURE, 0)).isEqualTo(0);
+  }
+
+  @Test
+  void testNoBookkeepingWithoutFailure() {
+    final var karma = new Karma();
+    karma.begin().onComplete();
+    assertThat(karma.numCompetitors()).isEqualTo(0);
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThat(catchThrowableOfType(() -> new Karma(new Karma.Options() {{
+      backoffNanos = 0;
+    }}), AssertionError.class)).hasMessage("Backoff must exceed 0");
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new Karma().toString()).contains(Karma.class.getSimpleName());
+  }
+}
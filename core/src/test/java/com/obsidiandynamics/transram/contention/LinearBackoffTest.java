@@ -0,0 +1,22 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class LinearBackoffTest {
+  @Test
+  void testBackoffGrowsLinearly() {
+    final var session = new LinearBackoff().begin();
+    final var failure = new AntidependencyFailure("");
+    assertThat(session.onFailure(failure, 0)).isBetween(0L, 1_000_000L);
+    assertThat(session.onFailure(failure, 0)).isBetween(0L, 2_000_000L);
+    assertThat(session.onFailure(failure, 0)).isBetween(0L, 3_000_000L);
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new LinearBackoff().toString()).isEqualTo(LinearBackoff.class.getSimpleName());
+  }
+}
@@ -0,0 +1,49 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class PolkaTest {
+  private static final ConcurrentModeFailure FAILURE = new AntidependencyFailure("");
+
+  @Test
+  void testLoneTransactionRetriesImmediately() {
+    final var polka = new Polka();
+    final var session = polka.begin();
+    assertThat(session.onFailure(FAILURE, 10)).isEqualTo(0);
+    session.onComplete();
+    assertThat(polka.numCompetitors()).isEqualTo(0);
+  }
+
+  @Test
+  void testTransactionWithLessWorkBacksOffExponentially() {
+    final var polka = new Polka(new Polka.Options() {{
+      baseBackoffNanos = 10;
+      maxBackoffNanos = 40;
+    }});
+    final var heavy = polka.begin();
+    final var light = polka.begin();
+    assertThat(heavy.onFailure(FAILURE, Long.MAX_VALUE / 2)).isEqualTo(0);
+    assertThat(light.onFailure(FAILURE, 0)).isBetween(0L, 10L);
+    assertThat(light.onFailure(FAILURE, 0)).isBetween(0L, 20L);
+    assertThat(light.onFailure(FAILURE, 0)).isBetween(0L, 40L);
+    assertThat(light.onFailure(FAILURE, 0)).isBetween(0L, 40L);
+    heavy.onComplete();
+    assertThat(light.onFailure(FAILURE, 0)).isEqualTo(0);
+    light.onComplete();
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThat(catchThrowableOfType(() -> new Polka(new Polka.Options() {{
+      maxBackoffNanos = 1;
+    }}), AssertionError.class)).hasMessage("Maximum backoff cannot be less than the base backoff");
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new Polka().toString()).contains(Polka.class.getSimpleName());
+  }
+}
@@ -0,0 +1,33 @@
+package com.obsidiandynamics.transram.contention;
+
+import com.obsidiandynamics.transram.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+final class SnapshotRetryTest {
+  @Test
+  void testImmediateRetryOnBrokenSnapshot() {
+    final var delegate = Mockito.mock(ContentionManager.class);
+    final var delegateSession = Mockito.mock(ContentionManager.Session.class);
+    when(delegate.begin()).thenReturn(delegateSession);
+    final var antidependencyFailure = new AntidependencyFailure("");
+    when(delegateSession.onFailure(eq(antidependencyFailure), anyLong())).thenReturn(42L);
+
+    final var session = new SnapshotRetry(delegate).begin();
+    assertThat(session.onFailure(new BrokenSnapshotFailure(""), 10)).isEqualTo(0);
+    assertThat(session.onFailure(antidependencyFailure, 10)).isEqualTo(42);
+    verify(delegateSession, times(1)).onFailure(any(), anyLong());
+
+    session.onComplete();
+    verify(delegateSession, times(1)).onComplete();
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new SnapshotRetry(new LinearBackoff()).toString())
+        .isEqualTo(SnapshotRetry.class.getSimpleName() + "[delegate=" + LinearBackoff.class.getSimpleName() + "]");
+  }
+}
@@ -0,0 +1,427 @@
+package com.obsidiandynamics.transram.feed;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.feed.ChangeFeed.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class ChangeFeedTest {
+  private static class CollectingSubscriber implements Flow.Subscriber<Change<Integer, StringBox>> {
+    private final long initialRequest;
+
+    final List<Change<Integer, StringBox>> received = new CopyOnWriteArrayList<>();
+
+    final CompletableFuture<Void> terminated = new CompletableFuture<>();
+
+    final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger completions = new AtomicInteger();
+
+    volatile Flow.Subscription subscription;
+
+    CollectingSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initialRequest != 0) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(Change<Integer, StringBox> item) {
+      received.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      errors.add(throwable);
+      terminated.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      completions.incrementAndGet();
+      terminated.complete(null);
+    }
+
+    void awaitTermination() throws InterruptedException, ExecutionException, TimeoutException {
+      terminated.get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static final List<Function<Journal, TransMap<Integer, StringBox>>> ENGINES = List.of(
+      feed -> new SrmlMap<>(new SrmlMap.Options() {{
+        journal = feed;
+      }}),
+      feed -> new Ss2plMap<>(new Ss2plMap.Options() {{
+        journal = feed;
+      }}));
+
+  private static ChangeFeed<Integer, StringBox> directFeed(int capacity) {
+    return new ChangeFeed<>(new ChangeFeed.Options() {{
+      executor = Runnable::run;
+      bufferCapacity = capacity;
+    }});
+  }
+
+  private static Map<Integer, StringBox> changesOf(Object... keysAndValues) {
+    final var changes = new HashMap<Integer, StringBox>();
+    for (var i = 0; i < keysAndValues.length; i += 2) {
+      changes.put((Integer) keysAndValues[i], keysAndValues[i + 1] != null ? StringBox.of((String) keysAndValues[i + 1]) : null);
+    }
+    return changes;
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThat(catchThrowableOfType(() -> new ChangeFeed<>(new ChangeFeed.Options() {{
+      executor = null;
+    }}), AssertionError.class)).hasMessage("Executor cannot be null");
+    assertThat(catchThrowableOfType(() -> new ChangeFeed<>(new ChangeFeed.Options() {{
+      bufferCapacity = 0;
+    }}), AssertionError.class)).hasMessage("Buffer capacity must exceed 0");
+    assertThat(catchThrowableOfType(() -> new ChangeFeed<>(new ChangeFeed.Options() {{
+      maxHeldBack = 0;
+    }}), AssertionError.class)).hasMessage("Maximum number of held back write sets must exceed 0");
+  }
+
+  @Test
+  void testPublishesCommittedWriteSetsAcrossEngines() throws Exception {
+    for (var engine : ENGINES) {
+      final var feed = new ChangeFeed<Integer, StringBox>(new ChangeFeed.Options());
+      final var map = engine.apply(feed);
+      final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+      feed.subscribe(subscriber);
+
+      Transact.over(map).run(ctx -> {
+        ctx.insert(0, StringBox.of("zero_v0"));
+        ctx.insert(1, StringBox.of("one_v0"));
+        return Action.COMMIT;
+      });
+      Transact.over(map).run(ctx -> {
+        ctx.read(0);
+        return Action.COMMIT;
+      });
+      Transact.over(map).run(ctx -> {
+        ctx.insert(2, StringBox.of("two_v0"));
+        return Action.ROLLBACK;
+      });
+      Transact.over(map).run(ctx -> {
+        ctx.update(0, StringBox.of("zero_v1"));
+        ctx.delete(1);
+        return Action.COMMIT;
+      });
+      feed.close();
+      subscriber.awaitTermination();
+
+      assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 3L);
+      assertThat(subscriber.received).extracting(Change::getChanges).containsExactly(
+          changesOf(0, "zero_v0", 1, "one_v0"),
+          changesOf(0, "zero_v1", 1, null));
+    }
+  }
+
+  @Test
+  void testSubscribersReceiveCopies() throws Exception {
+    final var feed = directFeed(16);
+    final var map = ENGINES.get(0).apply(feed);
+    final var first = new CollectingSubscriber(Long.MAX_VALUE);
+    final var second = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(first);
+    feed.subscribe(second);
+
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      return Action.COMMIT;
+    });
+    first.received.get(0).getChanges().get(0).setValue("altered");
+    assertThat(second.received.get(0).getChanges()).isEqualTo(changesOf(0, "zero_v0"));
+    Transact.over(map).run(ctx -> {
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      return Action.ROLLBACK;
+    });
+    assertThatThrownBy(() -> first.received.get(0).getChanges().put(1, null)).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void testOutOfOrderAppendsArePublishedInVersionOrder() {
+    final var feed = directFeed(16);
+    final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(subscriber);
+
+    feed.append(3, Map.of(3, StringBox.of("three")));
+    feed.append(2, Map.of());
+    assertThat(subscriber.received).isEmpty();
+
+    feed.append(1, Map.of(1, StringBox.of("one")));
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 3L);
+
+    feed.append(4, Map.of(4, StringBox.of("four")));
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 3L, 4L);
+  }
+
+  @Test
+  void testAdvancePublishesHeldBackChanges() {
+    final var feed = directFeed(16);
+    final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(subscriber);
+    feed.append(3, Map.of(3, StringBox.of("three_v0")));
+    feed.append(1, Map.of(1, StringBox.of("one_v0")));
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L);
+
+    // versions 2 and 4 are skipped, releasing version 3 and making way for version 5
+    feed.advance(4);
+    feed.advance(2);
+    feed.append(5, Map.of(5, StringBox.of("five_v0")));
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 3L, 5L);
+  }
+
+  @Test
+  void testRestoredMapContinuesFeed() {
+    final var feed = directFeed(16);
+    final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(subscriber);
+    for (var engine : ENGINES) {
+      final var map = engine.apply(Journal.compose(feed));
+      map.advanceVersion(subscriber.received.size() * 10L + 10);
+      Transact.over(map).run(ctx -> {
+        ctx.insert(0, StringBox.of("zero_v0"));
+        return Action.COMMIT;
+      });
+    }
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(11L, 21L);
+  }
+
+  @Test
+  void testMissingVersionTerminatesFeed() {
+    final var feed = new ChangeFeed<Integer, StringBox>(new ChangeFeed.Options() {{
+      executor = Runnable::run;
+      maxHeldBack = 2;
+    }});
+    final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(subscriber);
+    feed.append(1, Map.of(1, StringBox.of("one")));
+
+    // version 2 is lost, holding back those that follow it
+    feed.append(3, Map.of(3, StringBox.of("three")));
+    feed.append(4, Map.of(4, StringBox.of("four")));
+    assertThat(subscriber.terminated).isNotDone();
+    feed.append(5, Map.of(5, StringBox.of("five")));
+    assertThatThrownBy(subscriber::awaitTermination)
+        .hasCauseInstanceOf(MissingVersionException.class)
+        .hasMessageContaining("Version 2 did not arrive ahead of 3 later versions");
+
+    feed.append(2, Map.of(2, StringBox.of("two")));
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L);
+
+    final var late = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(late);
+    assertThatThrownBy(late::awaitTermination).hasCauseInstanceOf(MissingVersionException.class);
+    feed.close();
+  }
+
+  @Test
+  void testThrowingSubscriberIsTerminated() {
+    final var feed = directFeed(16);
+    final var failure = new IllegalStateException("Simulated failure");
+    final var onNextThrows = new CollectingSubscriber(Long.MAX_VALUE) {
+      @Override
+      public void onNext(Change<Integer, StringBox> item) {
+        super.onNext(item);
+        throw failure;
+      }
+    };
+    final var onSubscribeThrows = new CollectingSubscriber(Long.MAX_VALUE) {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        super.onSubscribe(subscription);
+        throw failure;
+      }
+    };
+    feed.subscribe(onNextThrows);
+    feed.subscribe(onSubscribeThrows);
+    feed.append(1, Map.of(1, StringBox.of("one")));
+    feed.append(2, Map.of(2, StringBox.of("two")));
+    feed.close();
+
+    assertThat(onNextThrows.received).extracting(Change::getVersion).containsExactly(1L);
+    assertThat(onNextThrows.errors).containsExactly(failure);
+    assertThat(onNextThrows.completions).hasValue(0);
+    assertThat(onSubscribeThrows.received).isEmpty();
+    assertThat(onSubscribeThrows.errors).containsExactly(failure);
+    assertThat(onSubscribeThrows.completions).hasValue(0);
+  }
+
+  @Test
+  void testBackPressure() throws Exception {
+    final var feed = directFeed(16);
+    final var subscriber = new CollectingSubscriber(0);
+    feed.subscribe(subscriber);
+
+    for (var version = 1; version <= 5; version++) {
+      feed.append(version, Map.of(version, StringBox.of("v" + version)));
+    }
+    assertThat(subscriber.received).isEmpty();
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 2L);
+
+    feed.close();
+    assertThat(subscriber.terminated).isNotDone();
+    subscriber.subscription.request(3);
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 2L, 3L, 4L, 5L);
+    subscriber.awaitTermination();
+  }
+
+  @Test
+  void testSlowSubscriberIsTerminated() {
+    final var feed = directFeed(2);
+    final var slow = new CollectingSubscriber(0);
+    final var fast = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(slow);
+    feed.subscribe(fast);
+
+    for (var version = 1; version <= 3; version++) {
+      feed.append(version, Map.of(version, StringBox.of("v" + version)));
+    }
+    assertThat(slow.terminated).isCompletedExceptionally();
+    assertThatThrownBy(slow::awaitTermination)
+        .hasCauseInstanceOf(BufferOverflowException.class)
+        .hasMessageContaining("Subscriber fell behind by more than 2 changes");
+    assertThat(fast.terminated).isNotDone();
+    assertThat(fast.received).hasSize(3);
+  }
+
+  @Test
+  void testCancelAndInvalidRequest() {
+    final var feed = directFeed(16);
+    final var cancelled = new CollectingSubscriber(Long.MAX_VALUE);
+    final var invalid = new CollectingSubscriber(0);
+    feed.subscribe(cancelled);
+    feed.subscribe(invalid);
+
+    feed.append(1, Map.of(1, StringBox.of("one")));
+    cancelled.subscription.cancel();
+    feed.append(2, Map.of(2, StringBox.of("two")));
+    assertThat(cancelled.received).extracting(Change::getVersion).containsExactly(1L);
+
+    invalid.subscription.request(0);
+    assertThatThrownBy(invalid::awaitTermination).hasCauseInstanceOf(IllegalArgumentException.class);
+
+    feed.close();
+    assertThat(cancelled.terminated).isNotDone();
+  }
+
+  @Test
+  void testSubscribeAfterClose() throws Exception {
+    final var feed = directFeed(16);
+    feed.close();
+    feed.close();
+    final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(subscriber);
+    subscriber.awaitTermination();
+    assertThat(subscriber.subscription).isNotNull();
+    feed.append(1, Map.of(1, StringBox.of("one")));
+    assertThat(subscriber.received).isEmpty();
+  }
+
+  @Test
+  void testConcurrentCommittersAcrossEngines() throws Exception {
+    final var numThreads = 8;
+    final var commitsPerThread = 100;
+    for (var engine : ENGINES) {
+      final var feed = new ChangeFeed<Integer, StringBox>(new ChangeFeed.Options() {{
+        bufferCapacity = numThreads * commitsPerThread;
+      }});
+      final var map = engine.apply(feed);
+      final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+      feed.subscribe(subscriber);
+
+      final var executor = Executors.newFixedThreadPool(numThreads);
+      try {
+        for (var thread = 0; thread < numThreads; thread++) {
+          final var threadIndex = thread;
+          executor.submit(() -> {
+            for (var i = 0; i < commitsPerThread; i++) {
+              final var value = StringBox.of(threadIndex + ":" + i);
+              Transact.over(map).run(ctx -> {
+                ctx.put(threadIndex, value);
+                return Action.COMMIT;
+              });
+            }
+          });
+        }
+      } finally {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+      }
+      feed.close();
+      subscriber.awaitTermination();
+
+      assertThat(subscriber.received).hasSize(numThreads * commitsPerThread);
+      assertThat(subscriber.received).extracting(Change::getVersion).isSorted().doesNotHaveDuplicates();
+
+      // replaying the feed reproduces the final state of the map
+      final var replayed = new HashMap<Integer, StringBox>();
+      for (var change : subscriber.received) {
+        replayed.putAll(change.getChanges());
+      }
+      final var contents = new HashMap<Integer, StringBox>();
+      map.exportSnapshot(contents::put);
+      assertThat(replayed).isEqualTo(contents);
+    }
+  }
+
+  @Test
+  void testComposedWithAnotherJournal() throws Exception {
+    final var first = directFeed(16);
+    final var second = directFeed(16);
+    final var firstSubscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    final var secondSubscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    first.subscribe(firstSubscriber);
+    second.subscribe(secondSubscriber);
+
+    final var map = ENGINES.get(1).apply(Journal.compose(first, second));
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      return Action.COMMIT;
+    });
+    assertThat(firstSubscriber.received).extracting(Change::getChanges).containsExactly(changesOf(0, "zero_v0"));
+    assertThat(secondSubscriber.received).extracting(Change::getChanges).containsExactly(changesOf(0, "zero_v0"));
+  }
+
+  @Test
+  void testComposedWithFailingJournal() throws Exception {
+    final var feed = directFeed(16);
+    final var subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    feed.subscribe(subscriber);
+
+    final var failures = new ArrayList<RuntimeException>();
+    final Journal failing = (version, changes) -> {
+      final var failure = new IllegalStateException("Simulated failure at version " + version);
+      failures.add(failure);
+      throw failure;
+    };
+    final var map = ENGINES.get(0).apply(Journal.compose(failing, feed, failing));
+    for (var i = 0; i < 2; i++) {
+      final var ctx = map.transact();
+      ctx.insert(i, StringBox.of("item_v0"));
+      assertThat(catchThrowable(ctx::commit)).isSameAs(failures.get(i * 2)).hasSuppressedException(failures.get(i * 2 + 1));
+      assertThat(ctx.getState()).isEqualTo(TransContext.State.COMMITTED);
+    }
+
+    // the feed sees every version despite the failing journal, leaving none pending
+    assertThat(subscriber.received).extracting(Change::getVersion).containsExactly(1L, 2L);
+  }
+}
@@ -0,0 +1,174 @@
+package com.obsidiandynamics.transram.jfr;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import jdk.jfr.*;
+import jdk.jfr.consumer.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class TransactionEventsTest {
+  private static final List<Class<? extends Event>> EVENT_TYPES = List.of(
+      TransactionBeginEvent.class,
+      TransactionCommitEvent.class,
+      TransactionRollbackEvent.class,
+      TransactionRetryEvent.class,
+      MutexWaitEvent.class,
+      QueueDrainEvent.class);
+
+  @FunctionalInterface
+  private interface Workload {
+    void run() throws Exception;
+  }
+
+  /**
+   * Runs the workload under a recording of every event, regardless of the default settings.
+   */
+  private static List<RecordedEvent> record(Workload workload) throws Exception {
+    final var file = Files.createTempFile(TransactionEventsTest.class.getSimpleName(), ".jfr");
+    try (var recording = new Recording()) {
+      for (var eventType : EVENT_TYPES) {
+        recording.enable(eventType).withThreshold(Duration.ZERO).withoutStackTrace();
+      }
+      recording.start();
+      workload.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static List<RecordedEvent> ofType(List<RecordedEvent> events, Class<? extends Event> type) {
+    final var name = type.getAnnotation(Name.class).value();
+    return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+  }
+
+  @Test
+  void testDefaultSettings() {
+    assertThat(EventType.getEventType(TransactionBeginEvent.class).isEnabled()).isFalse();
+    assertThat(TransactionCommitEvent.class.getAnnotation(Threshold.class).value()).isEqualTo("1 ms");
+    assertThat(MutexWaitEvent.class.getAnnotation(Threshold.class).value()).isEqualTo("10 ms");
+    assertThat(QueueDrainEvent.class.getAnnotation(Threshold.class).value()).isEqualTo("1 ms");
+  }
+
+  @Test
+  void testSrmlLifecycleAndRetry() throws Exception {
+    final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+    final var attempts = new AtomicInteger();
+    final var events = record(() -> {
+      Transact.over(map).run(ctx -> {
+        ctx.insert(0, StringBox.of("zero_v0"));
+        return Action.COMMIT;
+      });
+      Transact.over(map).run(ctx -> {
+        ctx.read(0);
+        return Action.ROLLBACK;
+      });
+      Transact.over(map).run(ctx -> {
+        final var value = ctx.read(0);
+        if (attempts.incrementAndGet() == 1) {
+          final var other = map.transact();
+          other.update(0, StringBox.of("zero_v1"));
+          other.commit();
+        }
+        ctx.update(0, StringBox.of(value.getValue() + "_updated"));
+        return Action.COMMIT;
+      });
+    });
+
+    // four attempts by Transact, and the conflicting transaction
+    final var begins = ofType(events, TransactionBeginEvent.class);
+    assertThat(begins).hasSize(5);
+    assertThat(begins).allSatisfy(event -> assertThat(event.getString("engine")).isEqualTo(SrmlMap.class.getSimpleName()));
+
+    final var commits = ofType(events, TransactionCommitEvent.class);
+    assertThat(commits).extracting(event -> event.getLong("version")).containsExactly(1L, 2L, 3L);
+    assertThat(commits).allSatisfy(event -> assertThat(event.getInt("items")).isPositive());
+
+    final var rollbacks = ofType(events, TransactionRollbackEvent.class);
+    assertThat(rollbacks).extracting(event -> event.getString("reason"))
+        .containsExactly("Requested", AntidependencyFailure.class.getSimpleName());
+    assertThat(rollbacks.get(0).getString("message")).isNull();
+    assertThat(rollbacks.get(1).getString("message")).startsWith("Read dependency breached for key");
+
+    final var retries = ofType(events, TransactionRetryEvent.class);
+    assertThat(retries).hasSize(1);
+    assertThat(retries.get(0).getString("engine")).isEqualTo(SrmlMap.class.getSimpleName());
+    assertThat(retries.get(0).getString("reason")).isEqualTo(AntidependencyFailure.class.getSimpleName());
+    assertThat(retries.get(0).getInt("priority")).isEqualTo(1);
+
+    final var waits = ofType(events, MutexWaitEvent.class);
+    assertThat(waits).isNotEmpty();
+    assertThat(waits).allSatisfy(event -> {
+      assertThat(event.getString("mode")).isIn("READ", "WRITE");
+      assertThat(event.getBoolean("acquired")).isTrue();
+    });
+
+    final var drains = ofType(events, QueueDrainEvent.class);
+    assertThat(drains).extracting(event -> event.getLong("highestVersion")).contains(3L);
+    assertThat(drains).allSatisfy(event -> assertThat(event.getInt("drained")).isPositive());
+  }
+
+  @Test
+  void testSrmlReadFailureIsReasonForRollback() throws Exception {
+    final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+      queueDepth = 1;
+    }});
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      return Action.COMMIT;
+    });
+
+    final var events = record(() -> {
+      final var stale = map.transact();
+      for (var i = 1; i <= 2; i++) {
+        final var value = StringBox.of("zero_v" + i);
+        Transact.over(map).run(ctx -> {
+          ctx.update(0, value);
+          return Action.COMMIT;
+        });
+      }
+      assertThatThrownBy(() -> stale.read(0)).isInstanceOf(BrokenSnapshotFailure.class);
+      stale.rollback();
+    });
+
+    final var rollbacks = ofType(events, TransactionRollbackEvent.class);
+    assertThat(rollbacks).extracting(event -> event.getString("reason")).containsExactly(BrokenSnapshotFailure.class.getSimpleName());
+  }
+
+  @Test
+  void testSs2plMutexTimeout() throws Exception {
+    final var map = new Ss2plMap<Integer, StringBox>(new Ss2plMap.Options() {{
+      mutexTimeoutMs = 1;
+    }});
+    final var events = record(() -> {
+      final var holder = map.transact();
+      holder.insert(0, StringBox.of("zero_v0"));
+      final var contender = map.transact();
+      assertThatThrownBy(() -> contender.read(0)).isInstanceOf(MutexAcquisitionFailure.class);
+      holder.commit();
+    });
+
+    final var waits = ofType(events, MutexWaitEvent.class);
+    final var timedOut = waits.stream().filter(event -> !event.getBoolean("acquired")).collect(Collectors.toList());
+    assertThat(timedOut).hasSize(1);
+    assertThat(timedOut.get(0).getString("engine")).isEqualTo(Ss2plMap.class.getSimpleName());
+    assertThat(timedOut.get(0).getString("mode")).isEqualTo("READ");
+    assertThat(timedOut.get(0).getLong("stripe")).isBetween(0L, 1023L);
+    assertThat(timedOut.get(0).getDuration()).isGreaterThanOrEqualTo(Duration.ofMillis(1));
+
+    final var rollbacks = ofType(events, TransactionRollbackEvent.class);
+    assertThat(rollbacks).extracting(event -> event.getString("reason")).containsExactly(MutexAcquisitionFailure.class.getSimpleName());
+    assertThat(ofType(events, TransactionBeginEvent.class)).extracting(event -> event.getLong("readVersion")).containsOnly(-1L);
+    assertThat(ofType(events, TransactionCommitEvent.class)).extracting(event -> event.getLong("version")).containsExactly(1L);
+  }
+}
@@ -0,0 +1,140 @@
+package com.obsidiandynamics.transram.metrics;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class CumulativeMetricsTest {
+  private static final Map<String, Function<Metrics, TransMap<Integer, StringBox>>> ENGINES = Map.of(
+      SrmlMap.class.getSimpleName(), withMetrics -> new SrmlMap<>(new SrmlMap.Options() {{
+        metrics = withMetrics;
+      }}),
+      Ss2plMap.class.getSimpleName(), withMetrics -> new Ss2plMap<>(new Ss2plMap.Options() {{
+        metrics = withMetrics;
+        mutexTimeoutMs = 0;
+        agingTimeoutMs = 0;
+      }}));
+
+  @Test
+  void testNoMetricsByDefault() {
+    assertThat(new SrmlMap<Integer, StringBox>(new SrmlMap.Options()).metrics()).isSameAs(Metrics.NONE);
+    assertThat(new Ss2plMap<Integer, StringBox>(new Ss2plMap.Options()).metrics()).isSameAs(Metrics.NONE);
+  }
+
+  @Test
+  void testCommitsAndRollbacksAcrossEngines() throws ConcurrentModeFailure {
+    for (var engine : ENGINES.entrySet()) {
+      final var metrics = new CumulativeMetrics();
+      final var map = engine.getValue().apply(metrics);
+      assertThat(map.metrics()).isSameAs(metrics);
+
+      Transact.over(map).run(ctx -> {
+        ctx.insert(0, StringBox.of("zero_v0"));
+        return Action.COMMIT;
+      });
+      Transact.over(map).run(ctx -> {
+        ctx.update(0, StringBox.of("zero_v1"));
+        return Action.COMMIT;
+      });
+      Transact.over(map).run(ctx -> {
+        ctx.read(0);
+        return Action.ROLLBACK;
+      });
+
+      assertThat(metrics.getCommits()).describedAs(engine.getKey()).isEqualTo(2);
+      assertThat(metrics.getRollbacks()).describedAs(engine.getKey()).isEqualTo(1);
+      assertThat(metrics.getCommitLatency().getCount()).describedAs(engine.getKey()).isEqualTo(2);
+      assertThat(metrics.getCommitLatency().getMax()).describedAs(engine.getKey()).isPositive();
+      assertThat(metrics.getMutexWait().getCount()).describedAs(engine.getKey()).isPositive();
+      assertThat(metrics.getMutexTimeouts()).describedAs(engine.getKey()).isZero();
+      assertThat(metrics.getRetries()).describedAs(engine.getKey()).isZero();
+      assertThat(metrics.getAborts()).describedAs(engine.getKey()).isEmpty();
+    }
+  }
+
+  @Test
+  void testChainLengthOfSrml() {
+    final var metrics = new CumulativeMetrics();
+    final var map = ENGINES.get(SrmlMap.class.getSimpleName()).apply(metrics);
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      return Action.COMMIT;
+    });
+    for (var i = 1; i < 3; i++) {
+      final var value = StringBox.of("zero_v" + i);
+      Transact.over(map).run(ctx -> {
+        ctx.update(0, value);
+        return Action.COMMIT;
+      });
+    }
+
+    // chains are recorded as they grow; the item reaches three versions, within the queue depth
+    assertThat(metrics.getChainLength().getCount()).isEqualTo(3);
+    assertThat(metrics.getChainLength().getMax()).isEqualTo(3);
+  }
+
+  @Test
+  void testAntidependencyAbortAndRetry() throws ConcurrentModeFailure {
+    final var metrics = new CumulativeMetrics();
+    final var map = ENGINES.get(SrmlMap.class.getSimpleName()).apply(metrics);
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      return Action.COMMIT;
+    });
+
+    final var attempts = new AtomicInteger();
+    Transact.over(map).run(ctx -> {
+      final var value = ctx.read(0);
+      if (attempts.incrementAndGet() == 1) {
+        // a conflicting transaction commits in the meantime, breaching the read dependency
+        final var other = map.transact();
+        other.update(0, StringBox.of("zero_v1"));
+        other.commit();
+      }
+      ctx.update(0, StringBox.of(value.getValue() + "_updated"));
+      return Action.COMMIT;
+    });
+
+    assertThat(attempts).hasValue(2);
+    assertThat(metrics.getAborts()).isEqualTo(Map.of(AntidependencyFailure.class, 1L));
+    assertThat(metrics.getAborts(AntidependencyFailure.class)).isEqualTo(1);
+    assertThat(metrics.getAborts(MutexAcquisitionFailure.class)).isZero();
+    assertThat(metrics.getRetries()).isEqualTo(1);
+    assertThat(metrics.getCommits()).isEqualTo(3);
+  }
+
+  @Test
+  void testMutexTimeoutOfSs2pl() throws ConcurrentModeFailure {
+    final var metrics = new CumulativeMetrics();
+    final var map = ENGINES.get(Ss2plMap.class.getSimpleName()).apply(metrics);
+    final var holder = map.transact();
+    holder.insert(0, StringBox.of("zero_v0"));
+
+    final var contender = map.transact();
+    assertThatThrownBy(() -> contender.read(0)).isInstanceOf(MutexAcquisitionFailure.class);
+    assertThat(contender.getState()).isEqualTo(TransContext.State.ROLLED_BACK);
+    holder.commit();
+
+    assertThat(metrics.getMutexTimeouts()).isEqualTo(1);
+    assertThat(metrics.getAborts(MutexAcquisitionFailure.class)).isEqualTo(1);
+    assertThat(metrics.getRollbacks()).isZero();
+    assertThat(metrics.getCommits()).isEqualTo(1);
+    assertThat(metrics.getRetries()).isZero();
+  }
+
+  @Test
+  void testToString() {
+    final var metrics = new CumulativeMetrics();
+    metrics.onCommit(10);
+    metrics.onAbort(new MutexAcquisitionFailure("test", null));
+    assertThat(metrics.toString())
+        .startsWith(CumulativeMetrics.class.getSimpleName() + "[commits=1, rollbacks=0, retries=0, aborts={" + MutexAcquisitionFailure.class + "=1}")
+        .contains("commitLatency=Histogram[count=1");
+  }
+}
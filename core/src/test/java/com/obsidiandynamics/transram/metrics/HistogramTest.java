@@ -0,0 +1,85 @@
+package com.obsidiandynamics.transram.metrics;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class HistogramTest {
+  @Test
+  void testEmpty() {
+    final var histogram = new Histogram();
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getSum()).isZero();
+    assertThat(histogram.getMax()).isZero();
+    assertThat(histogram.getMean()).isZero();
+    assertThat(histogram.getPercentile(50)).isZero();
+  }
+
+  @Test
+  void testRecord() {
+    final var histogram = new Histogram();
+    histogram.record(0);
+    histogram.record(1);
+    histogram.record(5);
+    histogram.record(6);
+    histogram.record(1000);
+    histogram.record(-3);
+    assertThat(histogram.getCount()).isEqualTo(6);
+    assertThat(histogram.getSum()).isEqualTo(1012);
+    assertThat(histogram.getMax()).isEqualTo(1000);
+    assertThat(histogram.getMean()).isCloseTo(1012d / 6, within(0.001));
+
+    // percentiles resolve to the upper bound of the bucket, capped at the maximum
+    assertThat(histogram.getPercentile(0)).isEqualTo(0);
+    assertThat(histogram.getPercentile(33)).isEqualTo(0);
+    assertThat(histogram.getPercentile(50)).isEqualTo(1);
+    assertThat(histogram.getPercentile(60)).isEqualTo(7);
+    assertThat(histogram.getPercentile(80)).isEqualTo(7);
+    assertThat(histogram.getPercentile(100)).isEqualTo(1000);
+  }
+
+  @Test
+  void testExtremeValue() {
+    final var histogram = new Histogram();
+    histogram.record(Long.MAX_VALUE);
+    assertThat(histogram.getPercentile(100)).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void testInvalidPercentile() {
+    final var histogram = new Histogram();
+    assertThat(catchThrowableOfType(() -> histogram.getPercentile(-1), AssertionError.class)).hasMessage("Percentile must be in the range [0, 100]");
+    assertThat(catchThrowableOfType(() -> histogram.getPercentile(101), AssertionError.class)).hasMessage("Percentile must be in the range [0, 100]");
+  }
+
+  @Test
+  void testConcurrentRecording() throws InterruptedException {
+    final var histogram = new Histogram();
+    final var numThreads = 4;
+    final var recordsPerThread = 10_000;
+    final var executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      for (var thread = 0; thread < numThreads; thread++) {
+        executor.submit(() -> {
+          for (var i = 0; i < recordsPerThread; i++) {
+            histogram.record(i);
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+    }
+    assertThat(histogram.getCount()).isEqualTo(numThreads * recordsPerThread);
+    assertThat(histogram.getMax()).isEqualTo(recordsPerThread - 1);
+  }
+
+  @Test
+  void testToString() {
+    final var histogram = new Histogram();
+    histogram.record(4);
+    assertThat(histogram.toString()).isEqualTo("Histogram[count=1, mean=4.0, p50=4, p99=4, max=4]");
+  }
+}
@@ -0,0 +1,68 @@
+package com.obsidiandynamics.transram.mutex;
+
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class KeyedMutexesTest {
+  @Test
+  void testSameKeySharesReference() {
+    final var mutexes = new KeyedMutexes<UpgradeableMutex>(UnfairUpgradeableMutex::new, 0);
+    final var first = mutexes.forKey("a");
+    final var second = mutexes.forKey("a");
+    assertThat(second).isSameAs(first);
+    assertThat(mutexes.liveMutexes()).isEqualTo(1);
+
+    mutexes.release(first);
+    assertThat(mutexes.liveMutexes()).isEqualTo(1);
+    mutexes.release(second);
+    assertThat(mutexes.liveMutexes()).isEqualTo(0);
+  }
+
+  @Test
+  void testDistinctKeysHaveDistinctOrderedReferences() {
+    final var mutexes = new KeyedMutexes<UpgradeableMutex>(UnfairUpgradeableMutex::new, 0);
+    final var a = mutexes.forKey("a");
+    final var b = mutexes.forKey("b");
+    assertThat(b).isNotEqualTo(a);
+    assertThat(b.mutex()).isNotSameAs(a.mutex());
+    assertThat(a).isLessThan(b);
+    assertThat(mutexes.liveMutexes()).isEqualTo(2);
+  }
+
+  @Test
+  void testIdleMutexesAreRecycledUpToLimit() {
+    final var mutexes = new KeyedMutexes<UpgradeableMutex>(UnfairUpgradeableMutex::new, 1);
+    final var a = mutexes.forKey("a");
+    final var b = mutexes.forKey("b");
+    mutexes.release(a);
+    mutexes.release(b);
+    assertThat(mutexes.liveMutexes()).isEqualTo(0);
+    assertThat(mutexes.idleMutexes()).isEqualTo(1);
+
+    // a recycled mutex is reissued under a fresh ordinal
+    final var c = mutexes.forKey("c");
+    assertThat(c.mutex()).isSameAs(a.mutex());
+    assertThat(c).isNotEqualTo(a);
+    assertThat(mutexes.idleMutexes()).isEqualTo(0);
+  }
+
+  @Test
+  void testReleaseUnknownReference() {
+    final var mutexes = new KeyedMutexes<UpgradeableMutex>(UnfairUpgradeableMutex::new, 0);
+    final var ref = mutexes.forKey("a");
+    mutexes.release(ref);
+    assertThat(catchException(() -> mutexes.release(ref)))
+        .isInstanceOf(IllegalStateException.class).hasMessageStartingWith("No such reference");
+  }
+
+  @Test
+  void testToString() {
+    final var mutexes = new KeyedMutexes<UpgradeableMutex>(UnfairUpgradeableMutex::new, 4);
+    mutexes.forKey("a");
+    final var toString = mutexes.toString();
+    assertThat(toString).contains(KeyedMutexes.class.getSimpleName());
+    assertThat(toString).contains("liveMutexes=1");
+    assertThat(toString).contains("maxIdleMutexes=4");
+  }
+}
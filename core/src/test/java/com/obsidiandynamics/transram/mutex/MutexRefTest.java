@@ -0,0 +1,73 @@
+package com.obsidiandynamics.transram.mutex;
+
+import nl.jqno.equalsverifier.*;
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class MutexRefTest {
+  @Test
+  void testEqualsAndHashCode() {
+    EqualsVerifier.forClass(MutexRef.class)
+        .withIgnoredFields("mutex", "key", "pins", "reservation", "p01", "p02", "p03", "p04", "p05", "p06", "p07")
+        .verify();
+  }
+
+  @Test
+  void testCompareTo() {
+    final var first = new MutexRef<>(1, new UnfairUpgradeableMutex());
+    final var second = new MutexRef<>(2, new UnfairUpgradeableMutex());
+    assertThat(first).isLessThan(second);
+    assertThat(second).isGreaterThan(first);
+  }
+
+  @Test
+  void testReservation() {
+    final var ref = new MutexRef<>(1, new UnfairUpgradeableMutex());
+    assertThat(ref.reservedPriority()).isEqualTo(0);
+
+    ref.reserve(2);
+    ref.reserve(2);
+    assertThat(ref.reservedPriority()).isEqualTo(2);
+
+    // a lower priority leaves the reservation in place
+    ref.reserve(1);
+    ref.unreserve(1);
+    assertThat(ref.reservedPriority()).isEqualTo(2);
+
+    ref.unreserve(2);
+    assertThat(ref.reservedPriority()).isEqualTo(2);
+    ref.unreserve(2);
+    assertThat(ref.reservedPriority()).isEqualTo(0);
+  }
+
+  @Test
+  void testReservationSuperseded() {
+    final var ref = new MutexRef<>(1, new UnfairUpgradeableMutex());
+    ref.reserve(1);
+    ref.reserve(3);
+    assertThat(ref.reservedPriority()).isEqualTo(3);
+
+    // the superseded reservation is lost
+    ref.unreserve(3);
+    assertThat(ref.reservedPriority()).isEqualTo(0);
+    ref.unreserve(1);
+    assertThat(ref.reservedPriority()).isEqualTo(0);
+  }
+
+  @Test
+  void testReserveInvalidPriority() {
+    final var ref = new MutexRef<>(1, new UnfairUpgradeableMutex());
+    assertThat(catchThrowableOfType(() -> ref.reserve(0), IllegalArgumentException.class)).hasMessage("Priority must exceed 0");
+  }
+
+  @Test
+  void testToString() {
+    final var mutex = new UnfairUpgradeableMutex();
+    final var ref = new MutexRef<UpgradeableMutex>(7, mutex);
+    final var toString = ref.toString();
+    assertThat(toString).contains(MutexRef.class.getSimpleName());
+    assertThat(toString).contains("ordinal=7");
+    assertThat(toString).contains("mutex=" + mutex);
+  }
+}
@@ -0,0 +1,466 @@
+package com.obsidiandynamics.transram.mutex;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class ReaderBiasedUpgradeableMutexTest {
+  private static final Object OWNER = new Object();
+
+  @Nested
+  class IllegalMonitorStateTests {
+    @Test
+    void testDowngradeAfterRead() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.downgrade(OWNER)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
+    }
+
+    @Test
+    void testReadAfterWrite() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Already write-locked, use downgrade method");
+    }
+
+    @Test
+    void testWriteAfterWrite() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Already write-locked");
+    }
+
+    @Test
+    void testUpgradeAfterWrite() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryUpgrade(OWNER, Long.MAX_VALUE)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not read-locked");
+    }
+
+    @Test
+    void testDowngradeWithoutWrite() {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      assertThat(catchException(() -> mutex.downgrade(OWNER)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
+    }
+
+    @Test
+    void testWriteReleaseWithoutWrite() {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      assertThat(catchException(() -> mutex.writeRelease(OWNER)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
+    }
+  }
+
+  @Nested
+  class CycleTests {
+    @Test
+    void testReadReleaseCycle() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      for (var i = 0; i < 2; i++) {
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.readRelease(OWNER);
+      }
+    }
+
+    @Test
+    void testReadUpgradeReleaseCycle() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      for (var i = 0; i < 2; i++) {
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        assertThat(mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
+      }
+    }
+
+    @Test
+    void testReadUpgradeDowngradeReleaseCycle() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      for (var i = 0; i < 2; i++) {
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        assertThat(mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        mutex.readRelease(OWNER);
+      }
+    }
+
+    @Test
+    void testWriteReleaseCycle() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      for (var i = 0; i < 2; i++) {
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
+      }
+    }
+
+    @Test
+    void testWriteDowngradeReleaseCycle() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      for (var i = 0; i < 2; i++) {
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        mutex.readRelease(OWNER);
+      }
+    }
+
+    @Test
+    void testWriteDowngradeUpgradeReleaseCycle() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      for (var i = 0; i < 2; i++) {
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        assertThat(mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
+      }
+    }
+  }
+
+  @Nested
+  class ThreadedTests {
+    private static final long SHORT_SLEEP_MS = 1;
+
+    private List<ExecutorService> executors;
+
+    @BeforeEach
+    void beforeEach() {
+      executors = new ArrayList<>();
+    }
+
+    @AfterEach
+    void afterEach() {
+      executors.forEach(ExecutorService::shutdown);
+    }
+
+    ThreadedUpgradeableMutex threaded(UpgradeableMutex delegate) {
+      final var executor = Executors.newSingleThreadExecutor();
+      executors.add(executor);
+      return new ThreadedUpgradeableMutex(delegate, executor);
+    }
+
+    @Test
+    void testReadAcquireWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      m1.readRelease();
+      m2.readRelease();
+    }
+
+    @Test
+    void testTimeoutOnWriteAcquireWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryWriteAcquire(0)).isFalse();
+      assertThat(m2.tryWriteAcquire(1)).isFalse();
+    }
+
+    @Test
+    void testTimeoutOnUpgradeWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryUpgrade(0)).isFalse();
+      assertThat(m2.tryUpgrade(1)).isFalse();
+    }
+
+    @Test
+    void testTimeoutOnWriteAcquireWhileWriteLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryWriteAcquire(0)).isFalse();
+      assertThat(m2.tryWriteAcquire(1)).isFalse();
+    }
+
+    @Test
+    void testTimeoutOnReadAcquireWhileWriteLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(0)).isFalse();
+      assertThat(m2.tryReadAcquire(1)).isFalse();
+    }
+
+    @Test
+    void testAwaitWriteAcquireWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryWriteAcquire = m2.tryWriteAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryWriteAcquire.completable().isDone()).isFalse();
+      m1.readRelease();
+      assertThat(m2_tryWriteAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testAwaitWriteAcquireWhileLockedBySeveralReaders() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m3_tryWriteAcquire = m3.tryWriteAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+      m1.readRelease();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+      m2.readRelease();
+      assertThat(m3_tryWriteAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testAwaitUpgradeWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryUpgrade = m2.tryUpgradeAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryUpgrade.completable().isDone()).isFalse();
+      m1.readRelease();
+      assertThat(m2_tryUpgrade.get()).isTrue();
+    }
+
+    @Test
+    void testAwaitUpgradeWhileLockedBySeveralReaders() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m3.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m3_tryUpgrade = m3.tryUpgradeAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryUpgrade.completable().isDone()).isFalse();
+      m1.readRelease();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryUpgrade.completable().isDone()).isFalse();
+      m2.readRelease();
+      assertThat(m3_tryUpgrade.get()).isTrue();
+    }
+
+    @Test
+    void testAwaitReadAcquireWhileWriteLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryReadAcquire = m2.tryReadAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryReadAcquire.completable().isDone()).isFalse();
+      m1.writeRelease();
+      assertThat(m2_tryReadAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testAwaitReadAcquireWhileWriteLockedWithDowngrade() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryReadAcquire = m2.tryReadAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryReadAcquire.completable().isDone()).isFalse();
+      m1.downgrade();
+      assertThat(m2_tryReadAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testCompetingReadAcquireAndUpgradeWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryUpgrade = m2.tryUpgradeAsync(Long.MAX_VALUE);
+      final var m3_tryWriteAcquire = m3.tryWriteAcquireAsync(Long.MAX_VALUE);
+
+      // neither m2 nor m3 may proceed initially
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryUpgrade.completable().isDone()).isFalse();
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+
+      m1.readRelease();
+      assertThat(m2_tryUpgrade.get()).isTrue();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+
+      m2.downgrade();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+
+      m2.readRelease();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryWriteAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testCompetingMultipleWriteAcquireWhileReadLocked() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryWriteAcquire = m2.tryWriteAcquireAsync(Long.MAX_VALUE);
+      final var m3_tryWriteAcquire = m3.tryWriteAcquireAsync(Long.MAX_VALUE);
+
+      // neither m2 nor m3 may proceed initially
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryWriteAcquire.completable().isDone()).isFalse();
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+
+      m1.readRelease();
+      // after read-release, exactly one of m2 or m3 will unblock
+      CompletableFuture.anyOf(m2_tryWriteAcquire.completable(), m3_tryWriteAcquire.completable()).join();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryWriteAcquire.completable().isDone() ^ m3_tryWriteAcquire.completable().isDone()).isTrue();
+      if (m2_tryWriteAcquire.completable().isDone()) {
+        assertThat(m2_tryWriteAcquire.get()).isTrue();
+        m2.writeRelease();
+        assertThat(m3_tryWriteAcquire.get()).isTrue();
+      } else {
+        assertThat(m3_tryWriteAcquire.get()).isTrue();
+        m3.writeRelease();
+        assertThat(m2_tryWriteAcquire.get()).isTrue();
+      }
+    }
+  
+
+    @Test
+    void testAcquireAndReleaseOnDifferentThreads() throws InterruptedException, ExecutionException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var executor = Executors.newSingleThreadExecutor();
+      executors.add(executor);
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(executor.submit(() -> mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).get()).isTrue();
+      mutex.downgrade(OWNER);
+      executor.submit(() -> mutex.readRelease(OWNER)).get();
+      assertThat(mutex.tryWriteAcquire(new Object(), 0)).isTrue();
+    }
+
+    @Test
+    void testDistinctOwnersOnSameThread() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var owner1 = new Object();
+      final var owner2 = new Object();
+      assertThat(mutex.tryReadAcquire(owner1, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryReadAcquire(owner2, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryUpgrade(owner2, 0)).isFalse();
+      mutex.readRelease(owner1);
+      assertThat(mutex.tryUpgrade(owner2, 0)).isTrue();
+      assertThat(catchException(() -> mutex.writeRelease(owner1)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
+      mutex.writeRelease(owner2);
+    }
+  
+
+    @Test
+    void testWriterBlocksSubsequentReaders() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryWriteAcquire = m2.tryWriteAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryWriteAcquire.completable().isDone()).isFalse();
+
+      // a pending writer diverts newly arriving readers
+      final var m3_tryReadAcquire = m3.tryReadAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryReadAcquire.completable().isDone()).isFalse();
+
+      m1.readRelease();
+      assertThat(m2_tryWriteAcquire.get()).isTrue();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryReadAcquire.completable().isDone()).isFalse();
+
+      m2.writeRelease();
+      assertThat(m3_tryReadAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testUpgradePreemptsDrainingWriter() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m3_tryWriteAcquire = m3.tryWriteAcquireAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+
+      // the writer is draining readers, and would deadlock with the upgrader if not preempted
+      final var m1_tryUpgrade = m1.tryUpgradeAsync(Long.MAX_VALUE);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m1_tryUpgrade.completable().isDone()).isFalse();
+
+      m2.readRelease();
+      assertThat(m1_tryUpgrade.get()).isTrue();
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m3_tryWriteAcquire.completable().isDone()).isFalse();
+
+      m1.writeRelease();
+      assertThat(m3_tryWriteAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testTimedOutWriterReadmitsReaders() throws InterruptedException {
+      final var mutex = new ReaderBiasedUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryWriteAcquire(1)).isFalse();
+      assertThat(m3.tryReadAcquire(0)).isTrue();
+    }
+  }
+
+  @Test
+  void testInvalidSlots() {
+    assertThat(catchException(() -> new ReaderBiasedUpgradeableMutex(0)))
+        .isInstanceOf(IllegalArgumentException.class).hasMessage("Number of slots must be a positive power of two");
+    assertThat(catchException(() -> new ReaderBiasedUpgradeableMutex(3)))
+        .isInstanceOf(IllegalArgumentException.class).hasMessage("Number of slots must be a positive power of two");
+  }
+
+  @Test
+  void testManyReadersAcrossSlots() throws InterruptedException {
+    final var mutex = new ReaderBiasedUpgradeableMutex(4);
+    final var owners = new ArrayList<Object>();
+    for (var i = 0; i < 16; i++) {
+      final var owner = new Object();
+      owners.add(owner);
+      assertThat(mutex.tryReadAcquire(owner, 0)).isTrue();
+    }
+    assertThat(mutex.toString()).contains("readers=16");
+    assertThat(mutex.tryWriteAcquire(OWNER, 0)).isFalse();
+    for (var owner : owners) {
+      mutex.readRelease(owner);
+    }
+    assertThat(mutex.tryWriteAcquire(OWNER, 0)).isTrue();
+    assertThat(mutex.toString()).contains("writeLocked=true");
+  }
+}
@@ -8,63 +8,65 @@ import java.util.concurrent.*;
 import static org.assertj.core.api.Assertions.*;
 
 final class ReentrantMutexTest {
+  private static final Object OWNER = new Object();
+
   @Nested
   class IllegalMonitorStateTests {
     @Test
     void testReadAfterRead() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
     }
 
     @Test
     void testWriteAfterRead() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(mutex.tryWriteAcquire(0)).isFalse();
-      assertThat(mutex.tryWriteAcquire(1)).isFalse();
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryWriteAcquire(OWNER, 0)).isFalse();
+      assertThat(mutex.tryWriteAcquire(OWNER, 1)).isFalse();
     }
 
     @Test
     void testDowngradeAfterRead() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(mutex::downgrade))
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.downgrade(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class);
     }
 
     @Test
     void testReadAfterWrite() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
-      assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
     }
 
     @Test
     void testWriteAfterWrite() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
-      assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
     }
 
     @Test
     void testDowngradeWithoutWrite() {
       final var mutex = new ReentrantMutex(false);
-      assertThat(catchException(mutex::downgrade))
+      assertThat(catchException(() -> mutex.downgrade(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class);
     }
 
     @Test
     void testReadReleaseWithoutRead() {
       final var mutex = new ReentrantMutex(false);
-      assertThat(catchException(mutex::readRelease))
+      assertThat(catchException(() -> mutex.readRelease(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class);
     }
 
     @Test
     void testWriteReleaseWithoutWrite() {
       final var mutex = new ReentrantMutex(false);
-      assertThat(catchException(mutex::writeRelease))
+      assertThat(catchException(() -> mutex.writeRelease(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class);
     }
   }
@@ -75,8 +77,8 @@ final class ReentrantMutexTest {
     void testReadReleaseCycle() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.readRelease();
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.readRelease(OWNER);
       }
     }
 
@@ -84,8 +86,8 @@ final class ReentrantMutexTest {
     void testWriteReleaseCycle() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.writeRelease();
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
       }
     }
 
@@ -93,9 +95,9 @@ final class ReentrantMutexTest {
     void testWriteDowngradeReleaseCycle() throws InterruptedException {
       final var mutex = new ReentrantMutex(false);
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.downgrade();
-        mutex.readRelease();
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        mutex.readRelease(OWNER);
       }
     }
   }
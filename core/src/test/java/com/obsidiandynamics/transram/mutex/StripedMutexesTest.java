@@ -1,8 +1,13 @@
 package com.obsidiandynamics.transram.mutex;
 
-import nl.jqno.equalsverifier.*;
+import com.obsidiandynamics.transram.util.*;
 import org.junit.jupiter.api.*;
 
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
 import static org.assertj.core.api.Assertions.*;
 
 final class StripedMutexesTest {
@@ -14,23 +19,212 @@ final class StripedMutexesTest {
     assertThat(toString).contains("stripes.length=2");
   }
 
+  @Test
+  void testForKeyIsStableAcrossRelease() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(2, UnfairUpgradeableMutex::new);
+    final var ref = mutexes.forKey(3);
+    assertThat(ref).isSameAs(mutexes.forStripe(mutexes.stripeOf(3)));
+    mutexes.release(ref);
+    assertThat(mutexes.forKey(3)).isSameAs(ref);
+  }
+
+  @Test
+  void testStripesRoundedUpToPowerOfTwo() {
+    assertThat(new StripedMutexes<UpgradeableMutex>(1, UnfairUpgradeableMutex::new).stripes()).isEqualTo(1);
+    assertThat(new StripedMutexes<UpgradeableMutex>(3, UnfairUpgradeableMutex::new).stripes()).isEqualTo(4);
+    assertThat(new StripedMutexes<UpgradeableMutex>(1000, UnfairUpgradeableMutex::new).stripes()).isEqualTo(1024);
+  }
+
+  @Test
+  void testReservedStripe() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(3, UnfairUpgradeableMutex::new, null, true);
+    assertThat(mutexes.stripes()).isEqualTo(4);
+    assertThat(mutexes.forReservedStripe()).isSameAs(mutexes.forStripe(4));
+    for (var key = 0; key < 10; key++) {
+      assertThat(mutexes.forKey(key)).isNotSameAs(mutexes.forStripe(4));
+    }
+  }
+
+  @Test
+  void testNoReservedStripe() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(2, UnfairUpgradeableMutex::new);
+    assertThat(catchException(mutexes::forReservedStripe))
+        .isInstanceOf(IllegalStateException.class).hasMessage("No reserved stripe");
+  }
+
+  @Test
+  void testCustomKeyHasher() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(16, UnfairUpgradeableMutex::new, null, false,
+                                                             key -> ((String) key).length());
+    assertThat(mutexes.forKey("ab")).isSameAs(mutexes.forKey("cd"));
+    assertThat(mutexes.stripeOf("ab")).isEqualTo(Hash.byMask(2, 16));
+  }
+
+  @Test
+  void testDistributionOfSequentialKeys() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(64, UnfairUpgradeableMutex::new);
+    final var keys = IntStream.range(0, 64 * 16).boxed().collect(Collectors.toList());
+    final var distribution = mutexes.distribution(keys);
+    assertThat(distribution.getStripes()).isEqualTo(64);
+    assertThat(distribution.getKeys()).isEqualTo(keys.size());
+    assertThat(Arrays.stream(distribution.getLoads()).sum()).isEqualTo(keys.size());
+    assertThat(distribution.getEmptyStripes()).isEqualTo(0);
+    assertThat(distribution.getImbalance()).isGreaterThanOrEqualTo(1).isLessThan(2.5);
+    assertThat(distribution.toString()).contains(StripeDistribution.class.getSimpleName());
+  }
+
+  @Test
+  void testDistributionOfCollidingKeys() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(8, UnfairUpgradeableMutex::new, null, false, __ -> 42);
+    final var distribution = mutexes.distribution(List.of(1, 2, 3, 4));
+    assertThat(distribution.getEmptyStripes()).isEqualTo(7);
+    assertThat(distribution.getMaxLoad()).isEqualTo(4);
+    assertThat(distribution.getImbalance()).isEqualTo(8);
+  }
+
+  @Test
+  void testDistributionOfNoKeys() {
+    final var mutexes = new StripedMutexes<UpgradeableMutex>(8, UnfairUpgradeableMutex::new);
+    assertThat(mutexes.distribution(List.of()).getImbalance()).isEqualTo(0);
+  }
+
+  @Test
+  void testInvalidAdaptation() {
+    assertThat(catchThrowableOfType(() -> new StripedMutexes<>(2, UnfairUpgradeableMutex::new, new StripedMutexes.Adaptation() {{
+      minStripes = 4;
+      maxStripes = 2;
+    }}, false), AssertionError.class)).hasMessage("Maximum number of stripes cannot be less than the minimum");
+
+    assertThat(catchThrowableOfType(() -> new StripedMutexes<>(2, UnfairUpgradeableMutex::new, new StripedMutexes.Adaptation() {{
+      shrinkThreshold = 0.5;
+      growThreshold = 0.5;
+    }}, false), AssertionError.class)).hasMessage("Thresholds must satisfy 0 <= shrink threshold < grow threshold <= 1");
+
+    assertThat(catchThrowableOfType(() -> new StripedMutexes<>(2, UnfairUpgradeableMutex::new, new StripedMutexes.Adaptation() {{
+      minStripes = 3;
+    }}, false), AssertionError.class)).hasMessage("Minimum and maximum number of stripes must be powers of two");
+  }
+
   @Nested
-  final class MutexRefTests {
+  final class AdaptationTests {
+    private StripedMutexes<UpgradeableMutex> newMutexes(int stripes, double shrinkThreshold, double growThreshold) {
+      return new StripedMutexes<>(stripes, UnfairUpgradeableMutex::new, new StripedMutexes.Adaptation() {{
+        minStripes = 2;
+        maxStripes = 8;
+        this.shrinkThreshold = shrinkThreshold;
+        this.growThreshold = growThreshold;
+        evaluationIntervalMs = 1;
+        minSamples = 4;
+      }}, false);
+    }
+
+    @Test
+    void testGrowDeferredUntilQuiescent() throws InterruptedException {
+      final var mutexes = newMutexes(2, 0, 0.05);
+      final var firstKey = 0;
+      final var secondKey = IntStream.iterate(1, key -> key + 1)
+          .filter(key -> mutexes.stripeOf(key) != mutexes.stripeOf(firstKey))
+          .findFirst().orElseThrow();
+      final var a = mutexes.forKey(firstKey);
+      final var b = mutexes.forKey(firstKey);
+      final var c = mutexes.forKey(secondKey);
+      final var d = mutexes.forKey(secondKey);
+      assertThat(mutexes.stats().getOccupancyHistogram()).startsWith(2, 2, 0);
+      assertThat(mutexes.stats().getContention()).isEqualTo(0.5);
+
+      Thread.sleep(5);
+      mutexes.release(a);
+      mutexes.release(b);
+      mutexes.release(c);
+      // a reference to the second stripe is still outstanding
+      assertThat(mutexes.stripes()).isEqualTo(2);
+
+      Thread.sleep(5);
+      mutexes.release(d);
+      assertThat(mutexes.stripes()).isEqualTo(4);
+      assertThat(mutexes.stats().getResizes()).isEqualTo(1);
+
+      // mutexes are carried over to the new table
+      assertThat(mutexes.forStripe((int) a.ordinal()).mutex()).isSameAs(a.mutex());
+      assertThat(mutexes.forStripe((int) c.ordinal()).mutex()).isSameAs(c.mutex());
+    }
+
+    @Test
+    void testShrinkWhenUncontended() throws InterruptedException {
+      final var mutexes = newMutexes(8, 0.5, 0.9);
+      for (var key = 0; key < 4; key++) {
+        mutexes.release(mutexes.forKey(key));
+      }
+      assertThat(mutexes.stripes()).isEqualTo(8);
+
+      Thread.sleep(5);
+      mutexes.release(mutexes.forKey(0));
+      assertThat(mutexes.stripes()).isEqualTo(4);
+      assertThat(mutexes.stats().getStripes()).isEqualTo(4);
+    }
+
+    @Test
+    void testNoResizeWithInsufficientSamples() throws InterruptedException {
+      final var mutexes = newMutexes(8, 0.5, 0.9);
+      Thread.sleep(5);
+      mutexes.release(mutexes.forKey(0));
+      assertThat(mutexes.stripes()).isEqualTo(8);
+    }
+
     @Test
-    void testEqualsAndHashCode() {
-      EqualsVerifier.forClass(StripedMutexes.MutexRef.class)
-          .withIgnoredFields("mutex")
-          .verify();
+    void testReleaseUnknownReference() {
+      final var mutexes = newMutexes(2, 0, 0.05);
+      final var foreign = new MutexRef<UpgradeableMutex>(0, new UnfairUpgradeableMutex());
+      assertThat(catchException(() -> mutexes.release(foreign)))
+          .isInstanceOf(IllegalStateException.class).hasMessageStartingWith("No such reference");
     }
 
     @Test
-    void testToString() {
-      final var mutex = new UnfairUpgradeableMutex();
-      final var ref = new StripedMutexes.MutexRef<UpgradeableMutex>(7, mutex);
-      final var toString = ref.toString();
-      assertThat(toString).contains(StripedMutexes.MutexRef.class.getSimpleName());
-      assertThat(toString).contains("stripe=7");
-      assertThat(toString).contains("mutex=" + mutex);
+    void testExclusionAcrossResizes() throws InterruptedException, ExecutionException {
+      final var mutexes = new StripedMutexes<UpgradeableMutex>(2, UnfairUpgradeableMutex::new, new StripedMutexes.Adaptation() {{
+        minStripes = 2;
+        maxStripes = 16;
+        shrinkThreshold = 0.2;
+        growThreshold = 0.3;
+        evaluationIntervalMs = 1;
+        minSamples = 10;
+      }}, false);
+      final var keys = 32;
+      final var holders = new AtomicReferenceArray<Object>(keys);
+      final var threads = 4;
+      final var executor = Executors.newFixedThreadPool(threads);
+      try {
+        final var deadline = System.currentTimeMillis() + 200;
+        final var futures = new ArrayList<Future<?>>();
+        for (var t = 0; t < threads; t++) {
+          futures.add(executor.submit(() -> {
+            final var owner = new Object();
+            final var rng = new SplittableRandom();
+            while (System.currentTimeMillis() < deadline) {
+              final var key = rng.nextInt(keys);
+              final var ref = mutexes.forKey(key);
+              try {
+                assertThat(ref.mutex().tryWriteAcquire(owner, Long.MAX_VALUE)).isTrue();
+                assertThat(holders.compareAndSet(key, null, owner)).isTrue();
+                Thread.yield();
+                holders.set(key, null);
+                ref.mutex().writeRelease(owner);
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              } finally {
+                mutexes.release(ref);
+              }
+            }
+            return null;
+          }));
+        }
+        for (var future : futures) {
+          future.get();
+        }
+      } finally {
+        executor.shutdown();
+      }
+      assertThat(mutexes.stats().getOccupancyHistogram()).isNotEqualTo(new long[StripedMutexes.HISTOGRAM_BUCKETS]);
     }
   }
-}
\ No newline at end of file
+}
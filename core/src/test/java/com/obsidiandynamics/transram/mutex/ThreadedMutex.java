@@ -2,9 +2,15 @@ package com.obsidiandynamics.transram.mutex;
 
 import java.util.concurrent.*;
 
-class ThreadedMutex implements Mutex {
+/**
+ * Binds a distinct owner to a {@link Mutex}, carrying out all operations on the given
+ * executor.
+ */
+class ThreadedMutex {
   protected final Mutex delegate;
 
+  protected final Object owner = new Object();
+
   private final ExecutorService executor;
 
   ThreadedMutex(Mutex delegate, ExecutorService executor) {
@@ -80,36 +86,31 @@ class ThreadedMutex implements Mutex {
     }, executor));
   }
 
-  @Override
   public boolean tryReadAcquire(long timeoutMs) throws InterruptedException {
     return tryReadAcquireAsync(timeoutMs).get();
   }
 
   public MutexFuture tryReadAcquireAsync(long timeoutMs) {
-    return submit(() -> delegate.tryReadAcquire(timeoutMs));
+    return submit(() -> delegate.tryReadAcquire(owner, timeoutMs));
   }
 
-  @Override
   public void readRelease() {
-    submit(delegate::readRelease).getUninterruptibly();
+    submit(() -> delegate.readRelease(owner)).getUninterruptibly();
   }
 
-  @Override
   public boolean tryWriteAcquire(long timeoutMs) throws InterruptedException {
     return tryWriteAcquireAsync(timeoutMs).get();
   }
 
   public MutexFuture tryWriteAcquireAsync(long timeoutMs) {
-    return submit(() -> delegate.tryWriteAcquire(timeoutMs));
+    return submit(() -> delegate.tryWriteAcquire(owner, timeoutMs));
   }
 
-  @Override
   public void writeRelease() {
-    submit(delegate::writeRelease).getUninterruptibly();
+    submit(() -> delegate.writeRelease(owner)).getUninterruptibly();
   }
 
-  @Override
   public void downgrade() {
-    submit(delegate::downgrade).getUninterruptibly();
+    submit(() -> delegate.downgrade(owner)).getUninterruptibly();
   }
 }
@@ -8,81 +8,83 @@ import java.util.concurrent.*;
 import static org.assertj.core.api.Assertions.*;
 
 final class UnfairUpgradeableMutexTest {
+  private static final Object OWNER = new Object();
+
   @Nested
   class IllegalMonitorStateTests {
     @Test
     void testReadAfterRead() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(() -> mutex.tryReadAcquire(Long.MAX_VALUE)))
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Already read-locked");
     }
 
     @Test
     void testWriteAfterRead() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(() -> mutex.tryWriteAcquire(Long.MAX_VALUE)))
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Already read-locked, use upgrade methods");
     }
 
     @Test
     void testDowngradeAfterRead() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(mutex::downgrade))
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.downgrade(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
     }
 
     @Test
     void testReadAfterWrite() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(() -> mutex.tryReadAcquire(Long.MAX_VALUE)))
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Already write-locked, use downgrade method");
     }
 
     @Test
     void testWriteAfterWrite() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(() -> mutex.tryWriteAcquire(Long.MAX_VALUE)))
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Already write-locked");
     }
 
     @Test
     void testUpgradeAfterWrite() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-      assertThat(catchException(() -> mutex.tryUpgrade(Long.MAX_VALUE)))
+      assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(catchException(() -> mutex.tryUpgrade(OWNER, Long.MAX_VALUE)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not read-locked");
     }
 
     @Test
     void testUpgradeWithoutRead() {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(catchException(() -> mutex.tryUpgrade(Long.MAX_VALUE)))
+      assertThat(catchException(() -> mutex.tryUpgrade(OWNER, Long.MAX_VALUE)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not read-locked");
     }
 
     @Test
     void testDowngradeWithoutWrite() {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(catchException(mutex::downgrade))
+      assertThat(catchException(() -> mutex.downgrade(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
     }
 
     @Test
     void testReadReleaseWithoutRead() {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(catchException(mutex::readRelease))
+      assertThat(catchException(() -> mutex.readRelease(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not read-locked");
     }
 
     @Test
     void testWriteReleaseWithoutWrite() {
       final var mutex = new UnfairUpgradeableMutex();
-      assertThat(catchException(mutex::writeRelease))
+      assertThat(catchException(() -> mutex.writeRelease(OWNER)))
           .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
     }
   }
@@ -93,8 +95,8 @@ final class UnfairUpgradeableMutexTest {
     void testReadReleaseCycle() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.readRelease();
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.readRelease(OWNER);
       }
     }
 
@@ -102,9 +104,9 @@ final class UnfairUpgradeableMutexTest {
     void testReadUpgradeReleaseCycle() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-        assertThat(mutex.tryUpgrade(Long.MAX_VALUE)).isTrue();
-        mutex.writeRelease();
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        assertThat(mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
       }
     }
 
@@ -112,10 +114,10 @@ final class UnfairUpgradeableMutexTest {
     void testReadUpgradeDowngradeReleaseCycle() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryReadAcquire(Long.MAX_VALUE)).isTrue();
-        assertThat(mutex.tryUpgrade(Long.MAX_VALUE)).isTrue();
-        mutex.downgrade();
-        mutex.readRelease();
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        assertThat(mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        mutex.readRelease(OWNER);
       }
     }
 
@@ -123,8 +125,8 @@ final class UnfairUpgradeableMutexTest {
     void testWriteReleaseCycle() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.writeRelease();
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
       }
     }
 
@@ -132,9 +134,9 @@ final class UnfairUpgradeableMutexTest {
     void testWriteDowngradeReleaseCycle() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.downgrade();
-        mutex.readRelease();
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        mutex.readRelease(OWNER);
       }
     }
 
@@ -142,10 +144,10 @@ final class UnfairUpgradeableMutexTest {
     void testWriteDowngradeUpgradeReleaseCycle() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
       for (var i = 0; i < 2; i++) {
-        assertThat(mutex.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
-        mutex.downgrade();
-        assertThat(mutex.tryUpgrade(Long.MAX_VALUE)).isTrue();
-        mutex.writeRelease();
+        assertThat(mutex.tryWriteAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.downgrade(OWNER);
+        assertThat(mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).isTrue();
+        mutex.writeRelease(OWNER);
       }
     }
   }
@@ -154,6 +156,8 @@ final class UnfairUpgradeableMutexTest {
   class ThreadedTests {
     private static final long SHORT_SLEEP_MS = 1;
 
+    private static final long TIMEOUT_MS = 50;
+
     private List<ExecutorService> executors;
 
     @BeforeEach
@@ -172,6 +176,12 @@ final class UnfairUpgradeableMutexTest {
       return new ThreadedUpgradeableMutex(delegate, executor);
     }
 
+    private void awaitWaiters(UnfairUpgradeableMutex mutex, int waiters) throws InterruptedException {
+      while (mutex.waiters() != waiters) {
+        Thread.sleep(SHORT_SLEEP_MS);
+      }
+    }
+
     @Test
     void testReadAcquireWhileReadLocked() throws InterruptedException {
       final var mutex = new UnfairUpgradeableMutex();
@@ -374,5 +384,168 @@ final class UnfairUpgradeableMutexTest {
         assertThat(m2_tryWriteAcquire.get()).isTrue();
       }
     }
+
+    @Test
+    void testTimeoutElapsesOnWriteAcquireWhileReadLocked() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var startTime = System.currentTimeMillis();
+      assertThat(m2.tryWriteAcquire(TIMEOUT_MS)).isFalse();
+      assertThat(System.currentTimeMillis() - startTime).isGreaterThanOrEqualTo(TIMEOUT_MS);
+    }
+
+    @Test
+    void testTimeoutElapsesOnReadAcquireWhileWriteLocked() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      final var startTime = System.currentTimeMillis();
+      assertThat(m2.tryReadAcquire(TIMEOUT_MS)).isFalse();
+      assertThat(System.currentTimeMillis() - startTime).isGreaterThanOrEqualTo(TIMEOUT_MS);
+    }
+
+    @Test
+    void testTimeoutElapsesOnUpgradeDespiteWakeup() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      final var m3 = threaded(mutex);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m3.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var startTime = System.currentTimeMillis();
+      final var m3_tryUpgrade = m3.tryUpgradeAsync(TIMEOUT_MS);
+
+      // waking the upgrader while another reader remains doesn't restart or cut short its wait
+      awaitWaiters(mutex, 1);
+      m1.readRelease();
+      assertThat(m3_tryUpgrade.get()).isFalse();
+      assertThat(System.currentTimeMillis() - startTime).isGreaterThanOrEqualTo(TIMEOUT_MS);
+
+      // having timed out, the upgrader remains a reader
+      m2.readRelease();
+      assertThat(m3.tryUpgrade(0)).isTrue();
+    }
+
+    @Test
+    void testAcquireWithinTimeout() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryWriteAcquire = m2.tryWriteAcquireAsync(60_000);
+      Thread.sleep(SHORT_SLEEP_MS);
+      assertThat(m2_tryWriteAcquire.completable().isDone()).isFalse();
+      m1.writeRelease();
+      assertThat(m2_tryWriteAcquire.get()).isTrue();
+    }
+
+    @Test
+    void testInterruptOnReadAcquireWhileWriteLocked() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2Executor = Executors.newSingleThreadExecutor();
+      executors.add(m2Executor);
+      final var m2 = new ThreadedUpgradeableMutex(mutex, m2Executor);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryReadAcquire = m2.tryReadAcquireAsync(Long.MAX_VALUE);
+      awaitWaiters(mutex, 1);
+      m2Executor.shutdownNow();
+      assertThat(catchThrowable(m2_tryReadAcquire::get)).isInstanceOf(InterruptedException.class);
+
+      // the interrupted reader leaves no trace, so a writer may acquire once the holder releases
+      m1.writeRelease();
+      assertThat(mutex.tryWriteAcquire(OWNER, 0)).isTrue();
+    }
+
+    @Test
+    void testInterruptOnWriteAcquireWhileReadLocked() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2Executor = Executors.newSingleThreadExecutor();
+      executors.add(m2Executor);
+      final var m2 = new ThreadedUpgradeableMutex(mutex, m2Executor);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryWriteAcquire = m2.tryWriteAcquireAsync(Long.MAX_VALUE);
+      awaitWaiters(mutex, 1);
+      m2Executor.shutdownNow();
+      assertThat(catchThrowable(m2_tryWriteAcquire::get)).isInstanceOf(InterruptedException.class);
+
+      // the interrupted writer leaves no trace, so other readers may still acquire
+      assertThat(mutex.tryReadAcquire(OWNER, 0)).isTrue();
+      mutex.readRelease(OWNER);
+      m1.readRelease();
+      assertThat(mutex.tryWriteAcquire(OWNER, 0)).isTrue();
+    }
+
+    @Test
+    void testInterruptOnUpgradeWhileReadLocked() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      final var m2Executor = Executors.newSingleThreadExecutor();
+      executors.add(m2Executor);
+      final var m2 = new ThreadedUpgradeableMutex(mutex, m2Executor);
+      assertThat(m1.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      assertThat(m2.tryReadAcquire(Long.MAX_VALUE)).isTrue();
+      final var m2_tryUpgrade = m2.tryUpgradeAsync(Long.MAX_VALUE);
+      awaitWaiters(mutex, 1);
+      m2Executor.shutdownNow();
+      assertThat(catchThrowable(m2_tryUpgrade::get)).isInstanceOf(InterruptedException.class);
+
+      // the interrupted upgrader retains its read lock, which blocks other upgrades
+      assertThat(m1.tryUpgrade(0)).isFalse();
+    }
+
+    @Test
+    void testInterruptedBeforeWaiting() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var m1 = threaded(mutex);
+      assertThat(m1.tryWriteAcquire(Long.MAX_VALUE)).isTrue();
+      Thread.currentThread().interrupt();
+      try {
+        assertThat(catchThrowable(() -> mutex.tryReadAcquire(OWNER, Long.MAX_VALUE))).isInstanceOf(InterruptedException.class);
+      } finally {
+        Thread.interrupted();
+      }
+
+      // an uncontended acquisition succeeds without waiting, regardless of the interrupt
+      m1.writeRelease();
+      Thread.currentThread().interrupt();
+      try {
+        assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      } finally {
+        Thread.interrupted();
+      }
+    }
+
+    @Test
+    void testAcquireAndReleaseOnDifferentThreads() throws InterruptedException, ExecutionException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var executor = Executors.newSingleThreadExecutor();
+      executors.add(executor);
+      assertThat(mutex.tryReadAcquire(OWNER, Long.MAX_VALUE)).isTrue();
+      assertThat(executor.submit(() -> mutex.tryUpgrade(OWNER, Long.MAX_VALUE)).get()).isTrue();
+      mutex.downgrade(OWNER);
+      executor.submit(() -> mutex.readRelease(OWNER)).get();
+      assertThat(mutex.tryWriteAcquire(new Object(), 0)).isTrue();
+    }
+
+    @Test
+    void testDistinctOwnersOnSameThread() throws InterruptedException {
+      final var mutex = new UnfairUpgradeableMutex();
+      final var owner1 = new Object();
+      final var owner2 = new Object();
+      assertThat(mutex.tryReadAcquire(owner1, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryReadAcquire(owner2, Long.MAX_VALUE)).isTrue();
+      assertThat(mutex.tryUpgrade(owner2, 0)).isFalse();
+      mutex.readRelease(owner1);
+      assertThat(mutex.tryUpgrade(owner2, 0)).isTrue();
+      assertThat(catchException(() -> mutex.writeRelease(owner1)))
+          .isInstanceOf(IllegalMonitorStateException.class).hasMessage("Not write-locked");
+      mutex.writeRelease(owner2);
+    }
   }
 }
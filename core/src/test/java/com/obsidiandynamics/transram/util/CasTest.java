@@ -31,4 +31,18 @@ public final class CasTest {
     assertThat(Cas.compareAndSetConditionally(ctr, 4, Cas.lowerThan(5))).isEqualTo(5L);
     assertThat(ctr.get()).isEqualTo(5L);
   }
+
+  @Test
+  void testCasPaddedSuccessful() {
+    final var ctr = new PaddedAtomicLong(5);
+    assertThat(Cas.compareAndSetConditionally(ctr, 6, Cas.lowerThan(6))).isEqualTo(5L);
+    assertThat(ctr.get()).isEqualTo(6L);
+  }
+
+  @Test
+  void testCasPaddedPredicateFailure() {
+    final var ctr = new PaddedAtomicLong(5);
+    assertThat(Cas.compareAndSetConditionally(ctr, 4, Cas.lowerThan(5))).isEqualTo(5L);
+    assertThat(ctr.get()).isEqualTo(5L);
+  }
 }
@@ -2,6 +2,8 @@ package com.obsidiandynamics.transram.util;
 
 import org.junit.jupiter.api.*;
 
+import java.util.*;
+
 import static org.assertj.core.api.Assertions.*;
 
 final class HashTest {
@@ -17,4 +19,40 @@ final class HashTest {
     assertThat(Hash.byModulo(-5, 5)).isEqualTo(0);
     assertThat(Hash.byModulo(-6, 5)).isEqualTo(4);
   }
-}
\ No newline at end of file
+
+  @Test
+  void testMix() {
+    assertThat(Hash.mix(0)).isEqualTo(0);
+    assertThat(Hash.mix(1)).isNotEqualTo(1);
+    assertThat(Hash.mix(1)).isNotEqualTo(Hash.mix(2));
+  }
+
+  @Test
+  void testByMaskInRange() {
+    for (var hash = -100; hash <= 100; hash++) {
+      assertThat(Hash.byMask(hash, 8)).isBetween(0, 7);
+      assertThat(Hash.byMask(hash, 1)).isEqualTo(0);
+    }
+  }
+
+  @Test
+  void testByMaskSpreadsStridedHashes() {
+    // hash codes that are multiples of the table size would all collide under plain masking
+    final var buckets = 16;
+    final var occupied = new HashSet<Integer>();
+    for (var i = 0; i < buckets * 4; i++) {
+      occupied.add(Hash.byMask(i * buckets, buckets));
+    }
+    assertThat(occupied.size()).isGreaterThan(buckets / 2);
+  }
+
+  @Test
+  void testCeilPowerOfTwo() {
+    assertThat(Hash.ceilPowerOfTwo(0)).isEqualTo(1);
+    assertThat(Hash.ceilPowerOfTwo(1)).isEqualTo(1);
+    assertThat(Hash.ceilPowerOfTwo(2)).isEqualTo(2);
+    assertThat(Hash.ceilPowerOfTwo(3)).isEqualTo(4);
+    assertThat(Hash.ceilPowerOfTwo(1024)).isEqualTo(1024);
+    assertThat(Hash.ceilPowerOfTwo(1025)).isEqualTo(2048);
+  }
+}
@@ -0,0 +1,42 @@
+package com.obsidiandynamics.transram.util;
+
+import org.junit.jupiter.api.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+public final class PaddedAtomicLongTest {
+  @Test
+  void testDefaultValue() {
+    assertThat(new PaddedAtomicLong().get()).isEqualTo(0);
+  }
+
+  @Test
+  void testSetAndGet() {
+    final var value = new PaddedAtomicLong(3);
+    assertThat(value.get()).isEqualTo(3);
+    value.set(5);
+    assertThat(value.get()).isEqualTo(5);
+  }
+
+  @Test
+  void testCompareAndSet() {
+    final var value = new PaddedAtomicLong(3);
+    assertThat(value.compareAndSet(4, 5)).isFalse();
+    assertThat(value.get()).isEqualTo(3);
+    assertThat(value.compareAndSet(3, 5)).isTrue();
+    assertThat(value.get()).isEqualTo(5);
+  }
+
+  @Test
+  void testIncrementAndAdd() {
+    final var value = new PaddedAtomicLong(3);
+    assertThat(value.incrementAndGet()).isEqualTo(4);
+    assertThat(value.addAndGet(-6)).isEqualTo(-2);
+    assertThat(value.get()).isEqualTo(-2);
+  }
+
+  @Test
+  void testToString() {
+    assertThat(new PaddedAtomicLong(42).toString()).isEqualTo("42");
+  }
+}
@@ -0,0 +1,274 @@
+package com.obsidiandynamics.transram.wal;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.metrics.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class CheckpointTest {
+  private static final Codec<Integer> KEY_CODEC = new Codec<>() {
+    @Override
+    public byte[] encode(Integer obj) {
+      return ByteBuffer.allocate(Integer.BYTES).putInt(obj).array();
+    }
+
+    @Override
+    public Integer decode(byte[] bytes) {
+      return ByteBuffer.wrap(bytes).getInt();
+    }
+  };
+
+  private static final Codec<StringBox> VALUE_CODEC = new Codec<>() {
+    @Override
+    public byte[] encode(StringBox obj) {
+      return obj.getValue().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public StringBox decode(byte[] bytes) {
+      return StringBox.of(new String(bytes, StandardCharsets.UTF_8));
+    }
+  };
+
+  private static final List<Supplier<TransMap<Integer, StringBox>>> ENGINES = List.of(
+      () -> new SrmlMap<>(new SrmlMap.Options()),
+      () -> new Ss2plMap<>(new Ss2plMap.Options()));
+
+  @TempDir
+  Path tempDir;
+
+  private static Map<Integer, StringBox> contentsOf(TransMap<Integer, StringBox> map) throws ConcurrentModeFailure {
+    final var contents = new HashMap<Integer, StringBox>();
+    map.exportSnapshot(contents::put);
+    return contents;
+  }
+
+  private static void populate(TransMap<Integer, StringBox> map, int numItems) {
+    Transact.over(map).run(ctx -> {
+      for (var i = 0; i < numItems; i++) {
+        ctx.insert(i, StringBox.of("item_" + i));
+      }
+      return Action.COMMIT;
+    });
+    Transact.over(map).run(ctx -> {
+      ctx.delete(0);
+      return Action.COMMIT;
+    });
+  }
+
+  @Test
+  void testInvalidOptions() {
+    final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+    final var path = tempDir.resolve("checkpoint");
+    assertThat(catchThrowableOfType(() -> Checkpoint.write(map, path, KEY_CODEC, VALUE_CODEC, new Checkpoint.Options() {{
+      segmentBytes = 0;
+    }}), AssertionError.class)).hasMessage("Segment size must exceed 0");
+    assertThat(catchThrowableOfType(() -> Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, map, new Checkpoint.Options() {{
+      restoreThreads = 0;
+    }}), AssertionError.class)).hasMessage("Number of restore threads must exceed 0");
+    assertThat(catchThrowableOfType(() -> Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, map, new Checkpoint.Options() {{
+      restoreBatchSize = 0;
+    }}), AssertionError.class)).hasMessage("Restore batch size must exceed 0");
+  }
+
+  @Test
+  void testRoundTripAcrossEngines() throws IOException, ConcurrentModeFailure, InterruptedException {
+    final var options = new Checkpoint.Options() {{
+      segmentBytes = 256;
+      restoreThreads = 4;
+      restoreBatchSize = 7;
+    }};
+    for (var source : ENGINES) {
+      for (var target : ENGINES) {
+        final var path = tempDir.resolve("checkpoint");
+        final var sourceMap = source.get();
+        populate(sourceMap, 100);
+        final var expected = contentsOf(sourceMap);
+        assertThat(expected).hasSize(99);
+
+        final var version = Checkpoint.write(sourceMap, path, KEY_CODEC, VALUE_CODEC, options);
+        assertThat(Checkpoint.snapshotVersion(path)).isEqualTo(version);
+        assertThat(Files.exists(tempDir.resolve("checkpoint.tmp"))).isFalse();
+
+        final var targetMap = target.get();
+        assertThat(Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, targetMap, options)).isEqualTo(version);
+        assertThat(contentsOf(targetMap)).isEqualTo(expected);
+        final var ctx = targetMap.transact();
+        assertThat(ctx.size()).isEqualTo(99);
+        ctx.rollback();
+      }
+    }
+  }
+
+  @Test
+  void testConcurrentRestoreWithoutRetries() throws IOException, ConcurrentModeFailure, InterruptedException {
+    final var options = new Checkpoint.Options() {{
+      segmentBytes = 256;
+      restoreThreads = 8;
+      restoreBatchSize = 4;
+    }};
+    final var path = tempDir.resolve("checkpoint");
+    final var sourceMap = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+    populate(sourceMap, 2_000);
+    Checkpoint.write(sourceMap, path, KEY_CODEC, VALUE_CODEC, options);
+
+    final List<Function<Metrics, TransMap<Integer, StringBox>>> meteredEngines = List.of(
+        m -> new SrmlMap<>(new SrmlMap.Options() {{
+          metrics = m;
+        }}),
+        m -> new Ss2plMap<>(new Ss2plMap.Options() {{
+          metrics = m;
+        }}));
+    for (var engine : meteredEngines) {
+      final var metrics = new CumulativeMetrics();
+      final var targetMap = engine.apply(metrics);
+      Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, targetMap, options);
+      assertThat(metrics.getRetries()).isEqualTo(0);
+      assertThat(metrics.getAborts()).isEmpty();
+      final var ctx = targetMap.transact();
+      assertThat(ctx.size()).isEqualTo(1_999);
+      ctx.rollback();
+      assertThat(contentsOf(targetMap)).isEqualTo(contentsOf(sourceMap));
+    }
+  }
+
+  @Test
+  void testEmptyMap() throws IOException, ConcurrentModeFailure, InterruptedException {
+    final var path = tempDir.resolve("checkpoint");
+    Checkpoint.write(new SrmlMap<>(new SrmlMap.Options()), path, KEY_CODEC, VALUE_CODEC, new Checkpoint.Options());
+    final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+    Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, map, new Checkpoint.Options());
+    assertThat(contentsOf(map)).isEmpty();
+  }
+
+  @Test
+  void testRecoverLogAfterCheckpoint() throws IOException, ConcurrentModeFailure, InterruptedException {
+    final var checkpointPath = tempDir.resolve("checkpoint");
+    final var logPath = tempDir.resolve("wal");
+    final long version;
+    final Map<Integer, StringBox> expected;
+    try (var log = new WriteAheadLog<>(logPath, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options())) {
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        journal = log;
+      }});
+      populate(map, 10);
+      version = Checkpoint.write(map, checkpointPath, KEY_CODEC, VALUE_CODEC, new Checkpoint.Options());
+      Transact.over(map).run(ctx -> {
+        ctx.update(1, StringBox.of("item_1_v1"));
+        ctx.delete(2);
+        return Action.COMMIT;
+      });
+      expected = contentsOf(map);
+    }
+
+    try (var log = new WriteAheadLog<>(logPath, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options())) {
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+      Checkpoint.restore(checkpointPath, KEY_CODEC, VALUE_CODEC, map, new Checkpoint.Options());
+      assertThat(log.recover(map, version)).isEqualTo(1);
+      assertThat(contentsOf(map)).isEqualTo(expected);
+    }
+  }
+
+  private static void putRepeatedly(TransMap<Integer, StringBox> map, int key, String prefix, int times) {
+    for (var i = 1; i <= times; i++) {
+      final var value = StringBox.of(prefix + i);
+      Transact.over(map).run(ctx -> {
+        ctx.put(key, value);
+        return Action.COMMIT;
+      });
+    }
+  }
+
+  @Test
+  void testRecoverAcrossRestartsAcrossEngines() throws IOException, ConcurrentModeFailure, InterruptedException {
+    final List<Function<Journal, TransMap<Integer, StringBox>>> journaledEngines = List.of(
+        log -> new SrmlMap<>(new SrmlMap.Options() {{
+          journal = log;
+        }}),
+        log -> new Ss2plMap<>(new Ss2plMap.Options() {{
+          journal = log;
+        }}));
+    final var options = new Checkpoint.Options() {{
+      restoreBatchSize = 2;
+    }};
+    for (var engine : journaledEngines) {
+      final var checkpointPath = tempDir.resolve("checkpoint");
+      final var logPath = tempDir.resolve("wal");
+      Files.deleteIfExists(logPath);
+
+      // first session: seven items, a checkpoint, then ten overwrites of one item
+      try (var log = new WriteAheadLog<>(logPath, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options())) {
+        final var map = engine.apply(log);
+        for (var i = 0; i < 7; i++) {
+          putRepeatedly(map, i, "item_" + i + "_v", 1);
+        }
+        assertThat(Checkpoint.write(map, checkpointPath, KEY_CODEC, VALUE_CODEC, options)).isEqualTo(7);
+        putRepeatedly(map, 1, "s1_", 10);
+      }
+
+      // second session: recovery continues the numbering of the first, without journaling the restore
+      try (var log = new WriteAheadLog<>(logPath, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options())) {
+        final var map = engine.apply(log);
+        assertThat(log.recover(map, checkpointPath, options)).isEqualTo(10);
+        assertThat(map.debug().getVersion()).isEqualTo(17);
+        assertThat(contentsOf(map)).containsEntry(1, StringBox.of("s1_10")).hasSize(7);
+        putRepeatedly(map, 1, "s2_", 1);
+        assertThat(Checkpoint.write(map, checkpointPath, KEY_CODEC, VALUE_CODEC, options)).isEqualTo(18);
+      }
+
+      // third session: nothing follows the latest checkpoint
+      try (var log = new WriteAheadLog<>(logPath, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options())) {
+        final var map = engine.apply(log);
+        assertThat(log.recover(map, checkpointPath, options)).isEqualTo(0);
+        assertThat(map.debug().getVersion()).isEqualTo(18);
+        assertThat(contentsOf(map)).containsEntry(1, StringBox.of("s2_1")).hasSize(7);
+      }
+
+      // the log holds each commit exactly once, and replays in full to the same contents
+      try (var log = new WriteAheadLog<>(logPath, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options())) {
+        final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+        assertThat(log.recover(map)).isEqualTo(18);
+        assertThat(map.debug().getVersion()).isEqualTo(18);
+        assertThat(contentsOf(map)).containsEntry(1, StringBox.of("s2_1")).hasSize(7);
+      }
+    }
+  }
+
+  @Test
+  void testNotACheckpoint() throws IOException, ConcurrentModeFailure {
+    final var path = tempDir.resolve("checkpoint");
+    final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+
+    Files.write(path, new byte[] {1, 2, 3});
+    assertThat(catchThrowableOfType(() -> Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, map, new Checkpoint.Options()), IOException.class))
+        .hasMessage("Not a checkpoint file: too short");
+
+    Files.write(path, new byte[64]);
+    assertThat(catchThrowableOfType(() -> Checkpoint.snapshotVersion(path), IOException.class))
+        .hasMessage("Not a checkpoint file: bad magic");
+
+    final var sourceMap = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+    populate(sourceMap, 100);
+    Checkpoint.write(sourceMap, path, KEY_CODEC, VALUE_CODEC, new Checkpoint.Options() {{
+      segmentBytes = 256;
+    }});
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final var indexOffset = ByteBuffer.allocate(Long.BYTES);
+      channel.read(indexOffset, Integer.BYTES * 2 + Long.BYTES * 2);
+      channel.truncate(indexOffset.flip().getLong() + Integer.BYTES);
+    }
+    assertThat(catchThrowableOfType(() -> Checkpoint.restore(path, KEY_CODEC, VALUE_CODEC, map, new Checkpoint.Options()), IOException.class))
+        .hasMessage("Checkpoint index is truncated");
+  }
+}
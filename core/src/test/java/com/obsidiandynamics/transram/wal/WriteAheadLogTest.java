@@ -0,0 +1,267 @@
+package com.obsidiandynamics.transram.wal;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+final class WriteAheadLogTest {
+  private static final Codec<Integer> KEY_CODEC = new Codec<>() {
+    @Override
+    public byte[] encode(Integer obj) {
+      return ByteBuffer.allocate(Integer.BYTES).putInt(obj).array();
+    }
+
+    @Override
+    public Integer decode(byte[] bytes) {
+      return ByteBuffer.wrap(bytes).getInt();
+    }
+  };
+
+  private static final Codec<StringBox> VALUE_CODEC = new Codec<>() {
+    @Override
+    public byte[] encode(StringBox obj) {
+      return obj.getValue().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public StringBox decode(byte[] bytes) {
+      return StringBox.of(new String(bytes, StandardCharsets.UTF_8));
+    }
+  };
+
+  @TempDir
+  Path tempDir;
+
+  private WriteAheadLog<Integer, StringBox> openLog(Path path, Durability durability) throws IOException {
+    return new WriteAheadLog<>(path, KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options() {{
+      this.durability = durability;
+    }});
+  }
+
+  private static Map<Integer, StringBox> contentsOf(TransMap<Integer, StringBox> map) throws ConcurrentModeFailure {
+    final var contents = new HashMap<Integer, StringBox>();
+    map.exportSnapshot(contents::put);
+    return contents;
+  }
+
+  private static void populate(TransMap<Integer, StringBox> map) {
+    Transact.over(map).run(ctx -> {
+      ctx.insert(0, StringBox.of("zero_v0"));
+      ctx.insert(1, StringBox.of("one_v0"));
+      ctx.insert(2, StringBox.of("two_v0"));
+      return Action.COMMIT;
+    });
+    Transact.over(map).run(ctx -> {
+      ctx.update(0, StringBox.of("zero_v1"));
+      ctx.delete(1);
+      return Action.COMMIT;
+    });
+    Transact.over(map).run(ctx -> {
+      ctx.put(3, StringBox.of("three_v0"));
+      ctx.remove(2);
+      return Action.COMMIT;
+    });
+    Transact.over(map).run(ctx -> {
+      ctx.insert(4, StringBox.of("four_v0"));
+      return Action.ROLLBACK;
+    });
+  }
+
+  @Test
+  void testInvalidOptions() {
+    assertThat(catchThrowableOfType(() -> new WriteAheadLog<>(tempDir.resolve("wal"), KEY_CODEC, VALUE_CODEC, new WriteAheadLog.Options() {{
+      durability = null;
+    }}), AssertionError.class)).hasMessage("Durability cannot be null");
+  }
+
+  @Test
+  void testRecoverAcrossEngines() throws IOException, ConcurrentModeFailure {
+    for (var durability : Durability.values()) {
+      final var path = tempDir.resolve("wal-" + durability);
+      final Map<Integer, StringBox> expected;
+      try (var log = openLog(path, durability)) {
+        final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+          journal = log;
+        }});
+        populate(map);
+        expected = contentsOf(map);
+      }
+      assertThat(expected).isEqualTo(Map.of(0, StringBox.of("zero_v1"), 3, StringBox.of("three_v0")));
+
+      try (var log = openLog(path, durability)) {
+        final var map = new Ss2plMap<Integer, StringBox>(new Ss2plMap.Options() {{
+          journal = log;
+        }});
+        assertThat(log.recover(map)).isEqualTo(3);
+        assertThat(contentsOf(map)).isEqualTo(expected);
+        final var ctx = map.transact();
+        assertThat(ctx.size()).isEqualTo(2);
+        ctx.rollback();
+      }
+    }
+  }
+
+  @Test
+  void testRecoveryIsNotJournaledAgain() throws IOException {
+    final var path = tempDir.resolve("wal");
+    try (var log = openLog(path, Durability.SYNC)) {
+      populate(new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        journal = log;
+      }}));
+    }
+    final var length = Files.size(path);
+
+    try (var log = openLog(path, Durability.SYNC)) {
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        journal = log;
+      }});
+      assertThat(log.recover(map)).isEqualTo(3);
+      assertThat(Files.size(path)).isEqualTo(length);
+
+      Transact.over(map).run(ctx -> {
+        ctx.insert(5, StringBox.of("five_v0"));
+        return Action.COMMIT;
+      });
+      assertThat(Files.size(path)).isGreaterThan(length);
+    }
+  }
+
+  @Test
+  void testOutOfOrderEntriesReplayedInVersionOrder() throws IOException, ConcurrentModeFailure {
+    final var path = tempDir.resolve("wal");
+    try (var log = openLog(path, Durability.SYNC)) {
+      log.append(3, Map.of(1, StringBox.of("one_v0")));
+      log.append(2, Map.of(0, StringBox.of("zero_v1")));
+      log.append(1, Map.of(0, StringBox.of("zero_v0")));
+    }
+
+    try (var log = openLog(path, Durability.SYNC)) {
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        retainVersions = 3;
+      }});
+      assertThat(log.recover(map)).isEqualTo(3);
+      assertThat(map.debug().getVersion()).isEqualTo(3);
+      assertThat(contentsOf(map)).isEqualTo(Map.of(0, StringBox.of("zero_v1"), 1, StringBox.of("one_v0")));
+
+      final var ctx = map.transactAt(1);
+      assertThat(ctx.read(0)).isEqualTo(StringBox.of("zero_v0"));
+      assertThat(ctx.read(1)).isNull();
+      ctx.commit();
+    }
+  }
+
+  @Test
+  void testTornTailTruncated() throws IOException, ConcurrentModeFailure {
+    final var path = tempDir.resolve("wal");
+    try (var log = openLog(path, Durability.SYNC)) {
+      populate(new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        journal = log;
+      }}));
+    }
+
+    // simulate a crash midway through writing the last entry
+    final var length = Files.size(path);
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(length - 3);
+    }
+
+    try (var log = openLog(path, Durability.SYNC)) {
+      assertThat(Files.size(path)).isLessThan(length - 3);
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        journal = log;
+      }});
+      assertThat(log.recover(map)).isEqualTo(2);
+      assertThat(contentsOf(map)).isEqualTo(Map.of(0, StringBox.of("zero_v1"), 2, StringBox.of("two_v0")));
+
+      Transact.over(map).run(ctx -> {
+        ctx.insert(5, StringBox.of("five_v0"));
+        return Action.COMMIT;
+      });
+    }
+
+    // entries appended after the truncation are recoverable
+    try (var log = openLog(path, Durability.SYNC)) {
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+      assertThat(log.recover(map)).isEqualTo(3);
+      assertThat(contentsOf(map)).containsOnlyKeys(0, 2, 5);
+    }
+  }
+
+  @Test
+  void testCorruptEntryTruncated() throws IOException {
+    final var path = tempDir.resolve("wal");
+    try (var log = openLog(path, Durability.SYNC)) {
+      populate(new SrmlMap<Integer, StringBox>(new SrmlMap.Options() {{
+        journal = log;
+      }}));
+    }
+
+    final var length = Files.size(path);
+    try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), length - 1);
+    }
+
+    try (var log = openLog(path, Durability.SYNC)) {
+      assertThat(log.recover(new SrmlMap<>(new SrmlMap.Options()))).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void testConcurrentCommitters() throws IOException, InterruptedException, ConcurrentModeFailure {
+    final var path = tempDir.resolve("wal");
+    final var numThreads = 8;
+    final var commitsPerThread = 100;
+    final Map<Integer, StringBox> expected;
+    try (var log = openLog(path, Durability.SYNC)) {
+      final var map = new Ss2plMap<Integer, StringBox>(new Ss2plMap.Options() {{
+        journal = log;
+      }});
+      final var executor = Executors.newFixedThreadPool(numThreads);
+      try {
+        for (var thread = 0; thread < numThreads; thread++) {
+          final var threadIndex = thread;
+          executor.submit(() -> {
+            for (var i = 0; i < commitsPerThread; i++) {
+              final var value = StringBox.of(threadIndex + ":" + i);
+              Transact.over(map).run(ctx -> {
+                ctx.put(threadIndex, value);
+                ctx.put(numThreads, value);
+                return Action.COMMIT;
+              });
+            }
+          });
+        }
+      } finally {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+      }
+      expected = contentsOf(map);
+    }
+
+    try (var log = openLog(path, Durability.SYNC)) {
+      final var map = new SrmlMap<Integer, StringBox>(new SrmlMap.Options());
+      assertThat(log.recover(map)).isEqualTo(numThreads * commitsPerThread);
+      assertThat(contentsOf(map)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void testAppendAfterClose() throws IOException {
+    final var log = openLog(tempDir.resolve("wal"), Durability.ASYNC);
+    log.close();
+    log.close();
+    assertThat(catchThrowableOfType(() -> log.append(1, Map.<Object, DeepCloneable<?>>of(0, StringBox.of("zero_v0"))), IllegalStateException.class))
+        .hasMessage("Write-ahead log is closed");
+  }
+}
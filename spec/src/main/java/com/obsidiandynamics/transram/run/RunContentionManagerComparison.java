@@ -0,0 +1,76 @@
+package com.obsidiandynamics.transram.run;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.contention.*;
+import com.obsidiandynamics.transram.mutex.*;
+import com.obsidiandynamics.transram.spec.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Benchmarks every spec on each map with each of the built-in contention managers, concluding
+ * with a comparison of their mean log-rates.
+ */
+public class RunContentionManagerComparison {
+  private static final class Outcome {
+    final String map;
+    final String spec;
+    final String contentionManager;
+    final double meanLogRate;
+
+    Outcome(String map, String spec, String contentionManager, double meanLogRate) {
+      this.map = map;
+      this.spec = spec;
+      this.contentionManager = contentionManager;
+      this.meanLogRate = meanLogRate;
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public static void main(String[] args) throws InterruptedException {
+    final var mapFactories = new LinkedHashMap<String, MapFactory>();
+    mapFactories.put(SrmlMap.class.getSimpleName(), SrmlMap.factory(new SrmlMap.Options() {{
+      mutexStripes = 1024;
+      mutexFactory = UnfairUpgradeableMutex::new;
+      queueDepth = 4;
+    }}));
+    mapFactories.put(Ss2plMap.class.getSimpleName(), Ss2plMap.factory(new Ss2plMap.Options() {{
+      mutexStripes = 1024;
+      mutexFactory = UnfairUpgradeableMutex::new;
+      mutexTimeoutMs = 0;
+    }}));
+
+    final var contentionManagers = new LinkedHashMap<String, Supplier<ContentionManager>>();
+    contentionManagers.put(LinearBackoff.class.getSimpleName(), LinearBackoff::new);
+    contentionManagers.put(ExponentialBackoff.class.getSimpleName(), ExponentialBackoff::new);
+    contentionManagers.put(Karma.class.getSimpleName(), Karma::new);
+    contentionManagers.put(Polka.class.getSimpleName(), Polka::new);
+    contentionManagers.put(Greedy.class.getSimpleName(), Greedy::new);
+    contentionManagers.put(SnapshotRetry.class.getSimpleName(), () -> new SnapshotRetry(new ExponentialBackoff()));
+
+    final var outcomes = new ArrayList<Outcome>();
+    for (var mapEntry : mapFactories.entrySet()) {
+      for (var spec : List.of(new BankSpec(), new HighlanderSpec(), new HospitalSpec())) {
+        for (var contentionManagerEntry : contentionManagers.entrySet()) {
+          final var meanLogRate = Harness.run(mapEntry.getValue(), (Spec) spec, contentionManagerEntry.getValue().get());
+          outcomes.add(new Outcome(mapEntry.getKey(), spec.getClass().getSimpleName(), contentionManagerEntry.getKey(), meanLogRate));
+          System.out.println("-".repeat(50));
+        }
+      }
+    }
+
+    final int[] padding = {10, 16, 20, 15, 15};
+    System.out.format(Table.layout(padding), "map", "spec", "contention manager", "mean log-rate", "rate (op/s)");
+    System.out.format(Table.layout(padding), Table.fill(padding, '-'));
+    for (var outcome : outcomes) {
+      System.out.format(Table.layout(padding),
+                        outcome.map,
+                        outcome.spec,
+                        outcome.contentionManager,
+                        String.format("%,.4f", outcome.meanLogRate),
+                        String.format("%,.0f", Math.pow(10, outcome.meanLogRate)));
+    }
+  }
+}
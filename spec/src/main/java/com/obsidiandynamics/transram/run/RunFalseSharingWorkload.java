@@ -0,0 +1,84 @@
+package com.obsidiandynamics.transram.run;
+
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Contrasts the throughput of per-thread counters that are allocated contiguously, and
+ * hence prone to false sharing, with that of cache line-padded counters. Each thread only
+ * ever updates its own counter, so any difference in throughput is down to cache line
+ * contention alone. The effect is only observable with at least two cores.
+ */
+public class RunFalseSharingWorkload {
+  private static final int NUM_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private static final long MIN_DURATION_MS = 2_000;
+
+  private static final int INIT_OPS_PER_THREAD = 1_000_000;
+
+  private static final int RUNS = 3;
+
+  private interface Counter {
+    void increment();
+
+    long get();
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    final var variants = new LinkedHashMap<String, Supplier<Counter>>();
+    variants.put(AtomicLong.class.getSimpleName(), () -> {
+      final var counter = new AtomicLong();
+      return new Counter() {
+        @Override
+        public void increment() {
+          counter.incrementAndGet();
+        }
+
+        @Override
+        public long get() {
+          return counter.get();
+        }
+      };
+    });
+    variants.put(PaddedAtomicLong.class.getSimpleName(), () -> {
+      final var counter = new PaddedAtomicLong();
+      return new Counter() {
+        @Override
+        public void increment() {
+          counter.incrementAndGet();
+        }
+
+        @Override
+        public long get() {
+          return counter.get();
+        }
+      };
+    });
+
+    System.out.format("Running with %d threads...\n", NUM_THREADS);
+    final int[] padding = {20, 5, 15, 15};
+    System.out.format(Table.layout(padding), "counter", "run", "ops", "rate (op/s)");
+    System.out.format(Table.layout(padding), Table.fill(padding, '-'));
+    for (var run = 1; run <= RUNS; run++) {
+      for (var entry : variants.entrySet()) {
+        // counters are allocated back-to-back, as they would be in a table of stripes
+        final var counters = new Counter[NUM_THREADS];
+        for (var i = 0; i < NUM_THREADS; i++) {
+          counters[i] = entry.getValue().get();
+        }
+        final var nextCounter = new AtomicInteger();
+        final var took = TimedRunner.run(NUM_THREADS, INIT_OPS_PER_THREAD, MIN_DURATION_MS, TimedRunner.inNewThread(),
+                                         () -> counters[nextCounter.getAndIncrement()], Counter::increment);
+        final var ops = Arrays.stream(counters).mapToLong(Counter::get).sum();
+        System.out.format(Table.layout(padding),
+                          entry.getKey(),
+                          run,
+                          String.format("%,d", ops),
+                          String.format("%,.0f", 1000d * ops / took));
+      }
+    }
+  }
+}
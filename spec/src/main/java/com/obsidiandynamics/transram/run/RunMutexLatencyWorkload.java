@@ -0,0 +1,111 @@
+package com.obsidiandynamics.transram.run;
+
+import com.obsidiandynamics.transram.metrics.*;
+import com.obsidiandynamics.transram.mutex.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Contrasts the acquisition latency of the upgradeable mutex implementations on a single
+ * hot mutex under a read-dominated workload, where the unfair variant is prone to writer
+ * starvation.
+ */
+public class RunMutexLatencyWorkload {
+  private static final int NUM_THREADS = 8;
+
+  private static final long MIN_DURATION_MS = 5_000;
+
+  private static final int INIT_OPS_PER_THREAD = 10_000;
+
+  private static final long TIMEOUT_MS = 1_000;
+
+  private static final double WRITE_PROB = 0.1;
+
+  private static final int HOLD_ITERATIONS = 100;
+
+  private enum Opcode {
+    READ, WRITE
+  }
+
+  private static class State {
+    final UpgradeableMutex mutex;
+
+    final Histogram[] latencies = {new Histogram(), new Histogram()};
+
+    final AtomicLong[] timeouts = {new AtomicLong(), new AtomicLong()};
+
+    long value;
+
+    State(UpgradeableMutex mutex) {
+      this.mutex = mutex;
+    }
+  }
+
+  private static class Worker {
+    final Object owner = new Object();
+
+    final SplittableRandom rng = new SplittableRandom();
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    final var mutexFactories = new LinkedHashMap<String, Supplier<UpgradeableMutex>>();
+    mutexFactories.put(UnfairUpgradeableMutex.class.getSimpleName(), UnfairUpgradeableMutex::new);
+    mutexFactories.put(FairUpgradeableMutex.class.getSimpleName(), FairUpgradeableMutex::new);
+    mutexFactories.put(ReaderBiasedUpgradeableMutex.class.getSimpleName(), ReaderBiasedUpgradeableMutex::new);
+
+    final int[] padding = {28, 10, 15, 12, 12, 12, 12, 10};
+    System.out.format(Table.layout(padding), "mutex", "opcode", "ops", "p50 (ns)", "p99 (ns)", "p99.9 (ns)", "p100 (ns)", "timeouts");
+    System.out.format(Table.layout(padding), Table.fill(padding, '-'));
+    for (var entry : mutexFactories.entrySet()) {
+      final var state = new State(entry.getValue().get());
+      TimedRunner.run(NUM_THREADS, INIT_OPS_PER_THREAD, MIN_DURATION_MS, TimedRunner.inNewThread(), Worker::new,
+                      worker -> operate(state, worker));
+      for (var opcode : Opcode.values()) {
+        final var latencies = state.latencies[opcode.ordinal()];
+        System.out.format(Table.layout(padding),
+                          entry.getKey(),
+                          opcode,
+                          String.format("%,d", latencies.getCount()),
+                          String.format("%,d", latencies.getPercentile(50)),
+                          String.format("%,d", latencies.getPercentile(99)),
+                          String.format("%,d", latencies.getPercentile(99.9)),
+                          String.format("%,d", latencies.getPercentile(100)),
+                          String.format("%,d", state.timeouts[opcode.ordinal()].get()));
+      }
+    }
+  }
+
+  private static void operate(State state, Worker worker) {
+    final var opcode = worker.rng.nextDouble() < WRITE_PROB ? Opcode.WRITE : Opcode.READ;
+    try {
+      final var startTime = System.nanoTime();
+      final var acquired = switch (opcode) {
+        case READ -> state.mutex.tryReadAcquire(worker.owner, TIMEOUT_MS);
+        case WRITE -> state.mutex.tryWriteAcquire(worker.owner, TIMEOUT_MS);
+      };
+      state.latencies[opcode.ordinal()].record(System.nanoTime() - startTime);
+      if (!acquired) {
+        state.timeouts[opcode.ordinal()].incrementAndGet();
+        return;
+      }
+
+      for (var i = 0; i < HOLD_ITERATIONS; i++) {
+        Thread.onSpinWait();
+      }
+
+      switch (opcode) {
+        case READ -> state.mutex.readRelease(worker.owner);
+        case WRITE -> {
+          state.value++;
+          state.mutex.writeRelease(worker.owner);
+        }
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.obsidiandynamics.transram.run;
+
+import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.util.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Churns keys through an {@link SrmlMap}, inserting and then deleting a key that is never
+ * reused, with and without tombstone compaction. Without compaction, every deleted key lingers
+ * in the store, so that the store grows with the number of operations and a full
+ * {@link TransContext#keys} scan slows down accordingly; with compaction, both stay bounded.
+ */
+public class RunTombstoneChurnWorkload {
+  private static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+  private static final long MIN_DURATION_MS = 2_000;
+
+  private static final int INIT_OPS_PER_THREAD = 10_000;
+
+  private static final int RUNS = 3;
+
+  private static final int SCANS = 10;
+
+  public static void main(String[] args) throws InterruptedException {
+    final var variants = new LinkedHashMap<String, SrmlMap.Options>();
+    variants.put("uncompacted", new SrmlMap.Options());
+    variants.put("compacted", new SrmlMap.Options() {{
+      tombstoneCompactionThreshold = 1_000;
+    }});
+
+    System.out.format("Running with %d threads...\n", NUM_THREADS);
+    final int[] padding = {15, 5, 15, 15, 15, 15, 15};
+    System.out.format(Table.layout(padding), "variant", "run", "ops", "rate (op/s)", "refs", "keys", "scan (ms)");
+    System.out.format(Table.layout(padding), Table.fill(padding, '-'));
+    for (var run = 1; run <= RUNS; run++) {
+      for (var entry : variants.entrySet()) {
+        final var map = new SrmlMap<Integer, Nil>(entry.getValue());
+        final var ops = new AtomicLong();
+        final var nextKey = new AtomicInteger();
+        final var took = TimedRunner.run(NUM_THREADS, INIT_OPS_PER_THREAD, MIN_DURATION_MS, TimedRunner.inNewThread(),
+                                         () -> null, __ -> {
+                                           final var key = nextKey.getAndIncrement();
+                                           Transact.over(map).run(ctx -> {
+                                             ctx.insert(key, Nil.instance());
+                                             return Action.COMMIT;
+                                           });
+                                           Transact.over(map).run(ctx -> {
+                                             ctx.delete(key);
+                                             return Action.COMMIT;
+                                           });
+                                           ops.incrementAndGet();
+                                         });
+
+        final var scanStart = System.nanoTime();
+        for (var scan = 0; scan < SCANS; scan++) {
+          Transact.over(map).run(ctx -> {
+            Assert.that(ctx.keys(__ -> true).isEmpty(), () -> "Churned keys remain visible");
+            return Action.ROLLBACK;
+          });
+        }
+        final var scanTookMs = (System.nanoTime() - scanStart) / 1_000_000d / SCANS;
+
+        System.out.format(Table.layout(padding),
+                          entry.getKey(),
+                          run,
+                          String.format("%,d", ops.get()),
+                          String.format("%,.0f", 1000d * ops.get() / took),
+                          String.format("%,d", map.debug().numRefs()),
+                          String.format("%,d", map.debug().dirtyView().size()),
+                          String.format("%,.3f", scanTookMs));
+      }
+    }
+  }
+}
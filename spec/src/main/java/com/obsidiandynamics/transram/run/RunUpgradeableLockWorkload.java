@@ -24,46 +24,46 @@ public class RunUpgradeableLockWorkload {
   private enum Opcode {
     READ {
       @Override
-      void operate(State state) throws InterruptedException {
-        Assert.that(state.lock.tryReadAcquire(Long.MAX_VALUE));
-        state.lock.readRelease();
+      void operate(State state, Object owner) throws InterruptedException {
+        Assert.that(state.lock.tryReadAcquire(owner, Long.MAX_VALUE));
+        state.lock.readRelease(owner);
       }
     },
     WRITE {
       @Override
-      void operate(State state) throws InterruptedException {
-        Assert.that(state.lock.tryWriteAcquire(Long.MAX_VALUE));
+      void operate(State state, Object owner) throws InterruptedException {
+        Assert.that(state.lock.tryWriteAcquire(owner, Long.MAX_VALUE));
         state.value += 1;
-        state.lock.writeRelease();
+        state.lock.writeRelease(owner);
       }
     },
     UPGRADE {
       @Override
-      void operate(State state) throws InterruptedException {
+      void operate(State state, Object owner) throws InterruptedException {
         synchronized (state.upgradeGuard) {
-          Assert.that(state.lock.tryReadAcquire(Long.MAX_VALUE));
+          Assert.that(state.lock.tryReadAcquire(owner, Long.MAX_VALUE));
           final var afterRead = state.value;
-          Assert.that(state.lock.tryUpgrade(Long.MAX_VALUE));
+          Assert.that(state.lock.tryUpgrade(owner, Long.MAX_VALUE));
           Assert.that(afterRead == state.value, () -> String.format("Expected %d, got %d", afterRead, state.value));
           state.value = afterRead + 1;
-          state.lock.writeRelease();
+          state.lock.writeRelease(owner);
         }
       }
     },
     DOWNGRADE {
       @Override
-      void operate(State state) throws InterruptedException {
-        Assert.that(state.lock.tryWriteAcquire(Long.MAX_VALUE));
+      void operate(State state, Object owner) throws InterruptedException {
+        Assert.that(state.lock.tryWriteAcquire(owner, Long.MAX_VALUE));
         final var beforeWrite = state.value;
         final var afterWrite = beforeWrite + 1;
         state.value = afterWrite;
-        state.lock.downgrade();
+        state.lock.downgrade(owner);
         Assert.that(state.value == afterWrite, () -> String.format("Expected %d, got %d", afterWrite, state.value));
-        state.lock.readRelease();
+        state.lock.readRelease(owner);
       }
     };
 
-    abstract void operate(State state) throws InterruptedException;
+    abstract void operate(State state, Object owner) throws InterruptedException;
   }
 
   public static void main(String[] args) throws InterruptedException {
@@ -80,12 +80,13 @@ public class RunUpgradeableLockWorkload {
           throw new RuntimeException(e);
         }
         final var random = new SplittableRandom();
+        final var owner = new Object();
         try {
           for (var j = 0; j < NUM_OPS_PER_THREAD; j++) {
             final var rnd = random.nextDouble();
             workload.eval(rnd, ordinal -> {
               try {
-                Opcode.values()[ordinal].operate(state);
+                Opcode.values()[ordinal].operate(state, owner);
               } catch (InterruptedException e) {
                 e.printStackTrace();
                 throw new RuntimeException(e);
@@ -2,6 +2,7 @@ package com.obsidiandynamics.transram.spec;
 
 import com.obsidiandynamics.transram.*;
 import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.contention.*;
 import com.obsidiandynamics.transram.spec.BankSpec.*;
 import com.obsidiandynamics.transram.util.*;
 
@@ -43,8 +44,15 @@ public final class BankSpec implements Spec<State, Integer, Account> {
   static final class State {
     final TransMap<Integer, Account> map;
 
-    State(TransMap<Integer, Account> map) {
+    final ContentionManager contentionManager;
+
+    State(TransMap<Integer, Account> map, ContentionManager contentionManager) {
       this.map = map;
+      this.contentionManager = contentionManager;
+    }
+
+    Transact<Integer, Account> transact(Failures failures) {
+      return Transact.over(map).withFailureHandler(failures::increment).withContentionManager(contentionManager);
     }
   }
 
@@ -73,7 +81,7 @@ public final class BankSpec implements Spec<State, Integer, Account> {
   }
 
   @Override
-  public State instantiate(TransMap<Integer, Account> map) {
+  public State instantiate(TransMap<Integer, Account> map, ContentionManager contentionManager) {
     // initialise bank accounts
     for (var i = 0; i < options.numAccounts; i++) {
       final var accountId = i;
@@ -86,7 +94,7 @@ public final class BankSpec implements Spec<State, Integer, Account> {
         return Action.COMMIT;
       });
     }
-    return new State(map);
+    return new State(map, contentionManager);
   }
 
   private enum Operation {
@@ -94,7 +102,7 @@ public final class BankSpec implements Spec<State, Integer, Account> {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
         final var firstAccountId = (int) (rng.nextDouble() * options.numAccounts);
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           for (var i = 0; i < options.scanAccounts; i++) {
             final var accountId = i + firstAccountId;
             ctx.read(accountId % options.numAccounts);
@@ -109,7 +117,7 @@ public final class BankSpec implements Spec<State, Integer, Account> {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
         final var firstAccountId = (int) (rng.nextDouble() * options.numAccounts);
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           for (var i = 0; i < options.scanAccounts; i++) {
             final var accountId = i + firstAccountId;
             ctx.read(accountId % options.numAccounts);
@@ -123,7 +131,7 @@ public final class BankSpec implements Spec<State, Integer, Account> {
     XFER {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           final var fromAccountId = (int) (rng.nextDouble() * options.numAccounts);
           final var toAccountId = (int) (rng.nextDouble() * options.numAccounts);
           final var amount = 1 + (int) (rng.nextDouble() * (options.maxXferAmount - 1));
@@ -162,7 +170,7 @@ public final class BankSpec implements Spec<State, Integer, Account> {
     SPLIT_MERGE {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           final var accountAId = (int) (rng.nextDouble() * options.numAccounts);
           final var accountBId = (int) (rng.nextDouble() * options.numAccounts);
           if (accountAId == accountBId) {
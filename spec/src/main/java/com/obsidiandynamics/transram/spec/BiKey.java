@@ -21,7 +21,7 @@ public final class BiKey {
 
   @Override
   public int hashCode() {
-    return (31 * 7 + first) * 7 + second;
+    return 31 * first + second;
   }
 
   @Override
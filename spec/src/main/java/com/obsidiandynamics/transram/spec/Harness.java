@@ -1,6 +1,7 @@
 package com.obsidiandynamics.transram.spec;
 
 import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.contention.*;
 import com.obsidiandynamics.transram.util.*;
 
 import java.util.*;
@@ -19,6 +20,9 @@ public final class Harness {
 
   private static final int THREADS = Integer.parseInt(getEnvIgnoreCase("threads").orElse("16"));
 
+  /** Whether each transaction thread should be a virtual thread; typically combined with a large thread count. */
+  private static final boolean VIRTUAL = Boolean.parseBoolean(getEnvIgnoreCase("virtual").orElse("false"));
+
   private static Optional<String> getEnvIgnoreCase(String key) {
     return System.getenv().entrySet().stream().filter(entry -> entry.getKey().equalsIgnoreCase(key)).map(Entry::getValue).findAny();
   }
@@ -33,23 +37,33 @@ public final class Harness {
     return probs;
   }
 
-  public static <S, K, V extends DeepCloneable<V>> void run(MapFactory mapFactory, Spec<S, K, V> spec) throws InterruptedException {
-    final var executor = Executors.newFixedThreadPool(THREADS);
+  public static <S, K, V extends DeepCloneable<V>> double run(MapFactory mapFactory, Spec<S, K, V> spec) throws InterruptedException {
+    return run(mapFactory, spec, new LinearBackoff());
+  }
+
+  /**
+   * Benchmarks a spec over a map across each of the spec's profiles.
+   *
+   * @return The mean of the base-10 logarithm of the transaction rate across all profiles.
+   */
+  public static <S, K, V extends DeepCloneable<V>> double run(MapFactory mapFactory, Spec<S, K, V> spec, ContentionManager contentionManager) throws InterruptedException {
+    final var executor = VIRTUAL ? newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(THREADS);
     try {
       final var warmupMap = mapFactory.<K, V>instantiate();
-      System.out.format("Running %s benchmark for %s...\n", spec.getClass().getSimpleName(), warmupMap.getClass().getSimpleName());
+      System.out.format("Running %s benchmark for %s with %s on %,d %s threads...\n", spec.getClass().getSimpleName(), warmupMap.getClass().getSimpleName(),
+                        contentionManager, THREADS, VIRTUAL ? "virtual" : "platform");
       System.out.format("- Warmup...\n");
       final var operationNames = spec.getOperationNames();
       final var warmupProfile = divideUnitProbs(operationNames.length);
 
-      runOne(warmupMap, spec, warmupProfile, (long) (MIN_DURATION_MS * WARMUP_FRACTION), executor);
+      runOne(warmupMap, spec, contentionManager, warmupProfile, (long) (MIN_DURATION_MS * WARMUP_FRACTION), executor);
 
       final var profiles = spec.getProfiles();
       final var results = new Result[profiles.length];
       for (var i = 0; i < profiles.length; i++) {
         System.out.format("- Benchmarking profile %d of %d...\n", i + 1, profiles.length);
         final var runMap = mapFactory.<K, V>instantiate();
-        final var result = runOne(runMap, spec, profiles[i], MIN_DURATION_MS, executor);
+        final var result = runOne(runMap, spec, contentionManager, profiles[i], MIN_DURATION_MS, executor);
         dumpDetail(operationNames, result, profiles[i]);
         System.out.println();
         results[i] = result;
@@ -59,12 +73,29 @@ public final class Harness {
       System.out.format("- Summary:\n");
       dumpProfiles(operationNames, profiles);
       System.out.println();
-      dumpSummaries(results);
+      final var meanLogRate = dumpSummaries(results);
+      System.out.println();
+      dumpStripeDistributions(results);
+      return meanLogRate;
     } finally {
       executor.shutdown();
     }
   }
 
+  /**
+   * Creates an executor that starts a new virtual thread for each task. Resolved reflectively,
+   * as virtual threads are unavailable prior to JDK 21.
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new UnsupportedOperationException("Virtual threads require JDK 21 or later, running " + Runtime.version(), e);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create a virtual thread executor", e);
+    }
+  }
+
   private static class Result {
     final long elapsedMs;
     final Dispatcher dispatcher;
@@ -84,8 +115,9 @@ public final class Harness {
     }
   }
 
-  private static <S, K, V extends DeepCloneable<V>> Result runOne(TransMap<K, V> map, Spec<S, K, V> spec, double[] profile, long minDurationMs, Executor executor) throws InterruptedException {
-    final var state = spec.instantiate(map);
+  private static <S, K, V extends DeepCloneable<V>> Result runOne(TransMap<K, V> map, Spec<S, K, V> spec, ContentionManager contentionManager,
+                                                                  double[] profile, long minDurationMs, Executor executor) throws InterruptedException {
+    final var state = spec.instantiate(map, contentionManager);
     final var failures = new Failures();
 
     final var dispatcher = new Dispatcher(profile);
@@ -143,7 +175,7 @@ public final class Harness {
     }
   }
 
-  private static void dumpSummaries(Result[] results) {
+  private static double dumpSummaries(Result[] results) {
     final var padding = new int[] {8, 9, 15, 15, 13, 15, 15, 15, 10, 10};
     System.out.format(Table.layout(padding), "profile", "took (s)", "ops", "rate (op/s)", "mutex faults", "snapshot faults", "antidep. faults", "l.cycle faults", "efficiency", "refs");
     System.out.format(Table.layout(padding), Table.fill(padding, '-'));
@@ -167,5 +199,26 @@ public final class Harness {
 
     final double meanLogRate = Arrays.stream(results).map(Result::getRate).collect(Collectors.summarizingDouble(Math::log10)).getAverage();
     System.out.format("Mean log-rate: %,.4f [%,.0f]\n", meanLogRate, Math.pow(10, meanLogRate));
+    return meanLogRate;
+  }
+
+  private static void dumpStripeDistributions(Result[] results) {
+    final var padding = new int[] {8, 10, 12, 12, 10, 10};
+    System.out.format(Table.layout(padding), "profile", "stripes", "keys", "empty", "max load", "imbalance");
+    System.out.format(Table.layout(padding), Table.fill(padding, '-'));
+    for (var i = 0; i < results.length; i++) {
+      final var distribution = results[i].map.debug().stripeDistribution();
+      if (distribution.isPresent()) {
+        System.out.format(Table.layout(padding),
+                          i + 1,
+                          String.format("%,d", distribution.get().getStripes()),
+                          String.format("%,d", distribution.get().getKeys()),
+                          String.format("%,d", distribution.get().getEmptyStripes()),
+                          String.format("%,d", distribution.get().getMaxLoad()),
+                          String.format("%,.2f", distribution.get().getImbalance()));
+      } else {
+        System.out.format(Table.layout(padding), i + 1, '-', '-', '-', '-', '-');
+      }
+    }
   }
 }
@@ -2,6 +2,7 @@ package com.obsidiandynamics.transram.spec;
 
 import com.obsidiandynamics.transram.*;
 import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.contention.*;
 import com.obsidiandynamics.transram.spec.HighlanderSpec.*;
 import com.obsidiandynamics.transram.util.*;
 
@@ -35,8 +36,15 @@ public final class HighlanderSpec implements Spec<State, BiKey, Nil> {
   static final class State {
     final TransMap<BiKey, Nil> map;
 
-    State(TransMap<BiKey, Nil> map) {
+    final ContentionManager contentionManager;
+
+    State(TransMap<BiKey, Nil> map, ContentionManager contentionManager) {
       this.map = map;
+      this.contentionManager = contentionManager;
+    }
+
+    Transact<BiKey, Nil> transact(Failures failures) {
+      return Transact.over(map).withFailureHandler(failures::increment).withContentionManager(contentionManager);
     }
   }
 
@@ -59,7 +67,7 @@ public final class HighlanderSpec implements Spec<State, BiKey, Nil> {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
         final var firstHighlanderId = (int) (rng.nextDouble() * options.numHighlanders);
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           for (var i = 0; i < options.scanPrefixes; i++) {
             final var highlanderId = (i + firstHighlanderId) % options.numHighlanders;
             final var keys = ctx.keys(BiKey.whereFirstIs(highlanderId));
@@ -74,7 +82,7 @@ public final class HighlanderSpec implements Spec<State, BiKey, Nil> {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
         final var highlanderId = (int) (rng.nextDouble() * options.numHighlanders);
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           final var keys = ctx.keys(BiKey.whereFirstIs(highlanderId));
           Assert.that(keys.size() <= 1, () -> String.format("Too many keys for highlander %d: %d", highlanderId, keys.size()));
 
@@ -104,8 +112,8 @@ public final class HighlanderSpec implements Spec<State, BiKey, Nil> {
   }
 
   @Override
-  public State instantiate(TransMap<BiKey, Nil> map) {
-    return new State(map);
+  public State instantiate(TransMap<BiKey, Nil> map, ContentionManager contentionManager) {
+    return new State(map, contentionManager);
   }
 
   @Override
@@ -2,6 +2,7 @@ package com.obsidiandynamics.transram.spec;
 
 import com.obsidiandynamics.transram.*;
 import com.obsidiandynamics.transram.Transact.Region.*;
+import com.obsidiandynamics.transram.contention.*;
 import com.obsidiandynamics.transram.spec.HospitalSpec.*;
 import com.obsidiandynamics.transram.util.*;
 
@@ -36,8 +37,15 @@ public final class HospitalSpec implements Spec<State, BiKey, Doctor> {
   static final class State {
     final TransMap<BiKey, Doctor> map;
 
-    State(TransMap<BiKey, Doctor> map) {
+    final ContentionManager contentionManager;
+
+    State(TransMap<BiKey, Doctor> map, ContentionManager contentionManager) {
       this.map = map;
+      this.contentionManager = contentionManager;
+    }
+
+    Transact<BiKey, Doctor> transact(Failures failures) {
+      return Transact.over(map).withFailureHandler(failures::increment).withContentionManager(contentionManager);
     }
   }
 
@@ -60,7 +68,7 @@ public final class HospitalSpec implements Spec<State, BiKey, Doctor> {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
         final var firstHospitalId = (int) (rng.nextDouble() * options.numHospitals);
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           for (var i = 0; i < options.scanHospitals; i++) {
             final var hospitalId = (i + firstHospitalId) % options.numHospitals;
             final var keys = ctx.keys(BiKey.whereFirstIs(hospitalId));
@@ -75,7 +83,7 @@ public final class HospitalSpec implements Spec<State, BiKey, Doctor> {
       @Override
       void operate(State state, Failures failures, SplittableRandom rng, Options options) {
         final var hospitalId = (int) (rng.nextDouble() * options.numHospitals);
-        Transact.over(state.map).withFailureHandler(failures::increment).run(ctx -> {
+        state.transact(failures).run(ctx -> {
           // pick a random doctor and check if he's rostered
           final var doctorId1 = (int) (rng.nextDouble() * options.numDocsPerHospital);
           final var doctor1Key = new BiKey(hospitalId, doctorId1);
@@ -118,8 +126,8 @@ public final class HospitalSpec implements Spec<State, BiKey, Doctor> {
   }
 
   @Override
-  public State instantiate(TransMap<BiKey, Doctor> map) {
-    final var state = new State(map);
+  public State instantiate(TransMap<BiKey, Doctor> map, ContentionManager contentionManager) {
+    final var state = new State(map, contentionManager);
     Transact.over(state.map).run(ctx -> {
       for (var hospitalId = 0; hospitalId < options.numHospitals; hospitalId++) {
         for (var doctorId = 0; doctorId < options.numDocsPerHospital; doctorId++) {
@@ -1,6 +1,7 @@
 package com.obsidiandynamics.transram.spec;
 
 import com.obsidiandynamics.transram.*;
+import com.obsidiandynamics.transram.contention.*;
 
 import java.util.*;
 
@@ -9,7 +10,7 @@ public interface Spec<S, K, V extends DeepCloneable<V>> {
 
   double[][] getProfiles();
 
-  S instantiate(TransMap<K, V> map);
+  S instantiate(TransMap<K, V> map, ContentionManager contentionManager);
 
   void evaluate(int ordinal, S state, Failures failures, SplittableRandom rng);
 
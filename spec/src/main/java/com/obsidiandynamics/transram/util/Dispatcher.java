@@ -44,9 +44,9 @@ public final class Dispatcher {
       }
     }
     final var stopwatch = stopwatches[selected];
-    stopwatch.start();
+    final var startTime = stopwatch.start();
     runner.accept(selected);
-    stopwatch.stop();
+    stopwatch.stop(startTime);
   }
 
   @Override
@@ -7,39 +7,46 @@ import java.util.concurrent.atomic.*;
 
 public final class Stopwatch {
   private final double cost;
-  private final AtomicLong samples = new AtomicLong();
-  private final AtomicLong duration = new AtomicLong();
-  private long startTime;
+
+  /** Accumulators are striped over padded cells, as all threads record into the same stopwatch. */
+  private final LongAdder samples = new LongAdder();
+
+  private final LongAdder duration = new LongAdder();
 
   public Stopwatch(double cost) {
     this.cost = cost;
   }
 
-  public void start() {
-    startTime = System.nanoTime();
+  /**
+   * Starts timing a sample.
+   *
+   * @return The start time, to be passed to {@link #stop(long)}.
+   */
+  public long start() {
+    return System.nanoTime();
   }
 
-  public void stop() {
+  public void stop(long startTime) {
     final var length = System.nanoTime() - startTime;
-    samples.incrementAndGet();
-    duration.addAndGet(length);
+    samples.increment();
+    duration.add(length);
   }
 
   public long getNumSamples() {
-    return samples.get();
+    return samples.sum();
   }
 
   public double getTotalDuration() {
-    final var numSamples = samples.get();
-    return duration.get() - cost * numSamples;
+    final var numSamples = samples.sum();
+    return duration.sum() - cost * numSamples;
   }
 
   public double getMeanDuration() {
-    return getTotalDuration() / samples.get();
+    return getTotalDuration() / samples.sum();
   }
 
   public boolean hasSamples() {
-    return samples.get() != 0;
+    return samples.sum() != 0;
   }
 
   public static final class Calibration {